@@ -0,0 +1,225 @@
+package bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import db.EmbeddedDatabase;
+
+/**
+ * Embedded database for the benchmarks: the dev data plus a synthetic population proportional to
+ * {@code scale}. Each scale unit adds 100 players on 20 teams of five, 4 leagues of five teams,
+ * 50 completed league games inside the handicap window and 8 scheduled games.
+ *
+ * The benchmarks reset what they change (team_player rows, game and league status) after every
+ * operation, so the population stays fixed for the whole run.
+ */
+final class BenchmarkDatabase {
+
+    final String url;
+    final int scale;
+    final int firstPlayer;
+    final int players;
+    final int firstTeam;
+    final int teams;
+    final int firstLeague;
+    final int leagues;
+    final int firstScheduledGame;
+    final int scheduledGames;
+    final int facilities;
+
+    private BenchmarkDatabase(String url, int scale, int firstPlayer, int firstTeam, int firstLeague,
+                              int firstScheduledGame, int facilities) {
+        this.url = url;
+        this.scale = scale;
+        this.firstPlayer = firstPlayer;
+        this.players = 100 * scale;
+        this.firstTeam = firstTeam;
+        this.teams = 20 * scale;
+        this.firstLeague = firstLeague;
+        this.leagues = 4 * scale;
+        this.firstScheduledGame = firstScheduledGame;
+        this.scheduledGames = 8 * scale;
+        this.facilities = facilities;
+    }
+
+    static BenchmarkDatabase create(int scale) throws SQLException {
+        String url = EmbeddedDatabase.create("bench" + scale + "_" + System.nanoTime(), sqlDir(), true);
+        try (Connection connection = DriverManager.getConnection(url)) {
+            H2Procedures.register(connection);
+
+            int facilities = queryInt(connection, "SELECT COUNT(*) FROM facility");
+            int p0 = queryInt(connection, "SELECT COALESCE(MAX(player_id), 0) FROM player");
+            int t0 = queryInt(connection, "SELECT COALESCE(MAX(team_id), 0) FROM team");
+            int l0 = queryInt(connection, "SELECT COALESCE(MAX(league_id), 0) FROM league");
+            int players = 100 * scale;
+            int teams = 20 * scale;
+            int leagues = 4 * scale;
+
+            update(connection,
+                    "INSERT INTO player (first_name, last_name, email, phone_number, age, state, city, zip, "
+                  + "                    skill_level, handicap, join_date, profile_type) "
+                  + "SELECT 'Bench', CONCAT('Player', x), CONCAT('p', x, '@bench.test'), '555-0100', 20 + MOD(x, 40), "
+                  + "       'Ohio', 'Cleveland', '44115', 'Intermediate', 10.0, DATE '2024-01-01', 'Public' "
+                  + "FROM SYSTEM_RANGE(1, ?) AS r(x)", players);
+            update(connection,
+                    "INSERT INTO team (name, creation_date, home_facility_id) "
+                  + "SELECT CONCAT('Bench Team ', x), DATE '2024-01-01', 1 + MOD(x, ?) FROM SYSTEM_RANGE(1, ?) AS r(x)",
+                    facilities, teams);
+            update(connection,
+                    "INSERT INTO team_player (player_id, team_id, join_date, position) "
+                  + "SELECT ? + x, ? + 1 + (x - 1) / 5, DATE '2024-01-01', "
+                  + "       CASE WHEN MOD(x - 1, 5) = 0 THEN 'Captain' ELSE 'Member' END "
+                  + "FROM SYSTEM_RANGE(1, ?) AS r(x)", p0, t0, players);
+            update(connection,
+                    "INSERT INTO league (name, state, city, zip, skill_level, status, start_date, end_date, "
+                  + "                    max_teams, league_format) "
+                  + "SELECT CONCAT('Bench League ', x), 'Ohio', 'Cleveland', '44115', 'Intermediate', 'In Season', "
+                  + "       DATE '2024-01-01', DATE '2099-12-31', 5, 'Round Robin' "
+                  + "FROM SYSTEM_RANGE(1, ?) AS r(x)", leagues);
+            update(connection,
+                    "INSERT INTO league_team (league_id, team_id, join_date) "
+                  + "SELECT ? + 1 + (x - 1) / 5, ? + x, DATE '2024-01-01' FROM SYSTEM_RANGE(1, ?) AS r(x)",
+                    l0, t0, teams);
+
+            int g0 = queryInt(connection, "SELECT COALESCE(MAX(game_id), 0) FROM game");
+            insertGames(connection, g0, t0, l0, leagues, facilities, 50 * scale, true);
+            int firstScheduled = g0 + 50 * scale + 1;
+            insertGames(connection, firstScheduled - 1, t0, l0, leagues, facilities, 8 * scale, false);
+
+            return new BenchmarkDatabase(url, scale, p0 + 1, t0 + 1, l0 + 1, firstScheduled, facilities);
+        }
+    }
+
+    // Game x is in league (x-1) % leagues between two of that league's five teams
+    private static void insertGames(Connection connection, int g0, int t0, int l0, int leagues, int facilities,
+                                    int count, boolean completed) throws SQLException {
+        update(connection,
+                "INSERT INTO game (league_id, facility_id, date_time, status, game_type) "
+              + "SELECT ? + 1 + MOD(x - 1, ?), 1 + MOD(x, ?), DATEADD(DAY, -MOD(x, 30), CURRENT_TIMESTAMP), ?, "
+              + "       'Regular Season' "
+              + "FROM SYSTEM_RANGE(1, ?) AS r(x)", l0, leagues, facilities, completed ? "Completed" : "Scheduled", count);
+        String score = completed ? "70 + MOD(x * %d, 30)" : "NULL";
+        for (int side = 0; side < 2; side++) {
+            update(connection,
+                    "INSERT INTO game_team (game_id, team_id, score) "
+                  + "SELECT ? + x, ? + MOD(x - 1, ?) * 5 + 1 + MOD(x + " + side + ", 5), "
+                  + String.format(score, side == 0 ? 7 : 11) + " "
+                  + "FROM SYSTEM_RANGE(1, ?) AS r(x)", g0, t0, leagues, count);
+        }
+    }
+
+    /** @return the two teams playing scheduled game {@code gameId} (see insertGames) */
+    int[] teamsOf(int gameId) {
+        int x = gameId - firstScheduledGame + 1;
+        int base = firstTeam + ((x - 1) % leagues) * 5;
+        return new int[]{base + x % 5, base + (x + 1) % 5};
+    }
+
+    /** The facility insertGames assigned to scheduled game {@code gameId}. */
+    int facilityOf(int gameId) {
+        int x = gameId - firstScheduledGame + 1;
+        return 1 + x % facilities;
+    }
+
+    /**
+     * Adds {@code leagues} leagues with no games, each with its own {@code teamsPerLeague} teams spread
+     * over the facilities, for the schedule generator to fill. Seasons run through 2030-H1 so they
+     * never compete with the dated games above for bays.
+     *
+     * @return the id of the first added league
+     */
+    int addUnscheduledLeagues(int leagues, int teamsPerLeague, String format) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            int t0 = queryInt(connection, "SELECT COALESCE(MAX(team_id), 0) FROM team");
+            int l0 = queryInt(connection, "SELECT COALESCE(MAX(league_id), 0) FROM league");
+            int teams = leagues * teamsPerLeague;
+            update(connection,
+                    "INSERT INTO team (name, creation_date, home_facility_id) "
+                  + "SELECT CONCAT('Season Team ', x), DATE '2024-01-01', 1 + MOD((x - 1) / ?, ?) "
+                  + "FROM SYSTEM_RANGE(1, ?) AS r(x)", teamsPerLeague, facilities, teams);
+            update(connection,
+                    "INSERT INTO league (name, state, city, zip, skill_level, status, start_date, end_date, "
+                  + "                    max_teams, league_format) "
+                  + "SELECT CONCAT('Season League ', x), 'Ohio', 'Cleveland', '44115', 'Intermediate', 'Setting Up', "
+                  + "       DATE '2030-01-01', DATE '2030-06-30', ?, ? "
+                  + "FROM SYSTEM_RANGE(1, ?) AS r(x)", teamsPerLeague, format, leagues);
+            update(connection,
+                    "INSERT INTO league_team (league_id, team_id, join_date) "
+                  + "SELECT ? + 1 + (x - 1) / ?, ? + x, DATE '2024-01-01' FROM SYSTEM_RANGE(1, ?) AS r(x)",
+                    l0, teamsPerLeague, t0, teams);
+            return l0 + 1;
+        }
+    }
+
+    static int maxGameId(Connection connection) throws SQLException {
+        return queryInt(connection, "SELECT COALESCE(MAX(game_id), 0) FROM game");
+    }
+
+    /** Deletes every game (and its game_team rows) created after {@code lastKeptGameId}. */
+    static void deleteGamesAfter(Connection connection, int lastKeptGameId) throws SQLException {
+        update(connection, "DELETE FROM game_team WHERE game_id > ?", lastKeptGameId);
+        update(connection, "DELETE FROM game WHERE game_id > ?", lastKeptGameId);
+        connection.commit();
+    }
+
+    static void resetGame(Connection connection, int gameId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "UPDATE game SET status = 'Scheduled' WHERE game_id = ?")) {
+            ps.setInt(1, gameId);
+            ps.executeUpdate();
+        }
+        connection.commit();
+    }
+
+    static void resetLeague(Connection connection, int leagueId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "UPDATE league SET status = 'In Season' WHERE league_id = ?")) {
+            ps.setInt(1, leagueId);
+            ps.executeUpdate();
+        }
+        connection.commit();
+    }
+
+    static void removeFromTeam(Connection connection, int playerId, int teamId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "DELETE FROM team_player WHERE player_id = ? AND team_id = ?")) {
+            ps.setInt(1, playerId);
+            ps.setInt(2, teamId);
+            ps.executeUpdate();
+        }
+        connection.commit();
+    }
+
+    // Benchmarks run from the project root or from benchmarks/; -Dteetime.sqlDir overrides
+    private static Path sqlDir() {
+        String configured = System.getProperty("teetime.sqlDir");
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        Path local = Paths.get("sql");
+        return Files.isDirectory(local) ? local : Paths.get("..", "sql");
+    }
+
+    private static int queryInt(Connection connection, String sql) throws SQLException {
+        try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void update(Connection connection, String sql, Object... params) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            ps.executeUpdate();
+        }
+    }
+}
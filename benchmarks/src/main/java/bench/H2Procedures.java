@@ -0,0 +1,137 @@
+package bench;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Java stand-ins for the T-SQL procedures the benchmarked use cases call, registered on the
+ * embedded database as dbo.joinTeam and dbo.UpdateMatchResults. They run the same checks and
+ * statements as sql/DML.sql so the client side (pool, statement cache, repositories) is measured
+ * against a comparable server-side workload.
+ */
+public final class H2Procedures {
+
+    private H2Procedures() {
+    }
+
+    static void register(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE SCHEMA IF NOT EXISTS dbo");
+            st.execute("CREATE ALIAS IF NOT EXISTS dbo.joinTeam FOR 'bench.H2Procedures.joinTeam'");
+            st.execute("CREATE ALIAS IF NOT EXISTS dbo.UpdateMatchResults FOR 'bench.H2Procedures.updateMatchResults'");
+        }
+    }
+
+    /** dbo.joinTeam */
+    public static ResultSet joinTeam(Connection connection, int playerId, int teamId, Date joinDate, String position)
+            throws SQLException {
+        if (!isColumnListCall(connection)) {
+            if (!exists(connection, "SELECT 1 FROM team WHERE team_id = ?", teamId)) {
+                throw new SQLException("Team does not exist");
+            }
+            if (!exists(connection, "SELECT 1 FROM player WHERE player_id = ?", playerId)) {
+                throw new SQLException("Player does not exist");
+            }
+            if (exists(connection, "SELECT 1 FROM team_player WHERE player_id = ? AND team_id = ?", playerId, teamId)) {
+                throw new SQLException("Player is already on this team");
+            }
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO team_player (player_id, team_id, join_date, position) VALUES (?, ?, ?, ?)")) {
+                ps.setInt(1, playerId);
+                ps.setInt(2, teamId);
+                ps.setDate(3, joinDate != null ? joinDate : Date.valueOf(LocalDate.now()));
+                ps.setString(4, position != null ? position : "Member");
+                ps.executeUpdate();
+            }
+        }
+
+        PreparedStatement ps = connection.prepareStatement(
+                "SELECT t.team_id, t.name, t.creation_date, t.home_facility_id, "
+              + "       CASE WHEN t.home_facility_id IS NULL THEN 'No home facility' ELSE f.name END AS facility_name "
+              + "FROM team t LEFT JOIN facility f ON t.home_facility_id = f.facility_id "
+              + "WHERE t.team_id = ?");
+        ps.setInt(1, teamId);
+        return ps.executeQuery();
+    }
+
+    /** dbo.UpdateMatchResults */
+    public static ResultSet updateMatchResults(Connection connection, int gameId, int team1Id, int team1Score,
+                                               int team2Id, int team2Score) throws SQLException {
+        if (!isColumnListCall(connection)) {
+            String status;
+            try (PreparedStatement ps = connection.prepareStatement("SELECT status FROM game WHERE game_id = ?")) {
+                ps.setInt(1, gameId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Game with ID " + gameId + " does not exist.");
+                    }
+                    status = rs.getString(1);
+                }
+            }
+            if ("Completed".equals(status)) {
+                throw new SQLException("Game with ID " + gameId + " is already marked as completed.");
+            }
+            if ("Cancelled".equals(status)) {
+                throw new SQLException("Game with ID " + gameId + " has been cancelled and cannot be updated.");
+            }
+            for (int teamId : new int[]{team1Id, team2Id}) {
+                if (!exists(connection, "SELECT 1 FROM game_team WHERE game_id = ? AND team_id = ?", gameId, teamId)) {
+                    throw new SQLException("Team with ID " + teamId + " is not part of game with ID " + gameId + ".");
+                }
+            }
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "UPDATE game_team SET score = ? WHERE game_id = ? AND team_id = ?")) {
+                ps.setInt(1, team1Score);
+                ps.setInt(2, gameId);
+                ps.setInt(3, team1Id);
+                ps.executeUpdate();
+                ps.setInt(1, team2Score);
+                ps.setInt(3, team2Id);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "UPDATE game SET status = 'Completed' WHERE game_id = ?")) {
+                ps.setInt(1, gameId);
+                ps.executeUpdate();
+            }
+        }
+
+        PreparedStatement ps = connection.prepareStatement(
+                "SELECT g.game_id, g.league_id, g.facility_id, g.date_time, g.status, g.game_type, "
+              + "       t1.team_id AS team1_id, t1.name AS team1_name, gt1.score AS team1_score, "
+              + "       t2.team_id AS team2_id, t2.name AS team2_name, gt2.score AS team2_score, "
+              + "       CASE WHEN gt1.score > gt2.score THEN t1.name "
+              + "            WHEN gt2.score > gt1.score THEN t2.name ELSE 'Tie' END AS winner "
+              + "FROM game g "
+              + "JOIN game_team gt1 ON g.game_id = gt1.game_id AND gt1.team_id = ? "
+              + "JOIN game_team gt2 ON g.game_id = gt2.game_id AND gt2.team_id = ? "
+              + "JOIN team t1 ON gt1.team_id = t1.team_id "
+              + "JOIN team t2 ON gt2.team_id = t2.team_id "
+              + "WHERE g.game_id = ?");
+        ps.setInt(1, team1Id);
+        ps.setInt(2, team2Id);
+        ps.setInt(3, gameId);
+        return ps.executeQuery();
+    }
+
+    // H2 calls result-set functions once while preparing the statement, just to learn the columns
+    private static boolean isColumnListCall(Connection connection) throws SQLException {
+        return "jdbc:columnlist:connection".equals(connection.getMetaData().getURL());
+    }
+
+    private static boolean exists(Connection connection, String sql, int... params) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setInt(i + 1, params[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package bench;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import db.ConnectionPool;
+import db.DataSources;
+import schedule.FacilityCalendar;
+import schedule.Fixture;
+import schedule.SeasonScheduler;
+
+/**
+ * Season generation for many leagues at once: {@code plan} is the in-memory part only (rounds,
+ * spreading and bay packing), {@code scheduleAll} is a full SeasonScheduler run that reads the
+ * unscheduled leagues, plans them and writes every game and game_team row in one transaction. The
+ * generated games are deleted after each scheduleAll call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ScheduleBenchmarks {
+
+    @Param({"1000", "5000"})
+    public int leagues;
+
+    @Param({"8"})
+    public int teamsPerLeague;
+
+    @Param({"Round Robin", "RR-E"})
+    public String format;
+
+    private static final int FACILITIES = 10;
+
+    private final List<SeasonScheduler.Season> seasons = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int team = 1;
+        for (int l = 0; l < leagues; l++) {
+            int[] teamIds = new int[teamsPerLeague];
+            for (int i = 0; i < teamIds.length; i++) {
+                teamIds[i] = team++;
+            }
+            seasons.add(new SeasonScheduler.Season(l + 1, format, LocalDate.of(2030, 1, 1),
+                    LocalDate.of(2030, 6, 30), 1 + l % FACILITIES, teamIds));
+        }
+    }
+
+    /** The embedded database for scheduleAll, seeded with {@code leagues} unscheduled leagues. */
+    @State(Scope.Benchmark)
+    public static class Database {
+        private ConnectionPool pool;
+        private int lastSeededGame;
+
+        @Setup(Level.Trial)
+        public void setUp(ScheduleBenchmarks params) throws SQLException {
+            BenchmarkDatabase db = BenchmarkDatabase.create(1);
+            db.addUnscheduledLeagues(params.leagues, params.teamsPerLeague, params.format);
+            pool = DataSources.pool(db.url);
+            try (Connection connection = pool.getConnection()) {
+                lastSeededGame = BenchmarkDatabase.maxGameId(connection);
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void deleteGeneratedGames() throws SQLException {
+            try (Connection connection = pool.getConnection()) {
+                connection.setAutoCommit(false);
+                BenchmarkDatabase.deleteGamesAfter(connection, lastSeededGame);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.close();
+        }
+    }
+
+    /** Plans every season into fresh calendars for 10 facilities (14 bays, 09:00-22:00, 60-minute games). */
+    @Benchmark
+    public int plan() {
+        FacilityCalendar[] calendars = new FacilityCalendar[FACILITIES + 1];
+        int games = 0;
+        for (SeasonScheduler.Season season : seasons) {
+            FacilityCalendar calendar = calendars[season.facilityId];
+            if (calendar == null) {
+                calendar = new FacilityCalendar(season.facilityId, LocalTime.of(9, 0), LocalTime.of(22, 0), 14, 60);
+                calendars[season.facilityId] = calendar;
+            }
+            List<Fixture> fixtures = SeasonScheduler.plan(season, calendar);
+            games += fixtures.size();
+        }
+        return games;
+    }
+
+    /** Full run against the database: load, plan, batched insert of games and game_team rows, commit. */
+    @Benchmark
+    public int scheduleAll(Database database) throws SQLException {
+        SeasonScheduler.Summary summary = new SeasonScheduler(database.pool, 60, System.out).schedule(null);
+        if (summary.leaguesScheduled < leagues) {
+            throw new IllegalStateException("only " + summary.leaguesScheduled + " of " + leagues + " leagues scheduled");
+        }
+        return summary.games;
+    }
+}
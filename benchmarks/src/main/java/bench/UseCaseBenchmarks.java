@@ -0,0 +1,167 @@
+package bench;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cache.ReferenceData;
+import db.ConnectionPool;
+import db.DataSources;
+import handicap.HandicapEngine;
+import repository.FacilityRepository;
+import repository.GameRepository;
+import repository.LeagueRepository;
+import repository.MembershipRepository;
+import repository.TeamRepository;
+import standings.StandingsStore;
+import standings.TeamStanding;
+
+/**
+ * The use cases as App runs them (same repositories, pool, caches and in-memory engines) against
+ * an embedded database at several data sizes. Each write benchmark undoes its change after the
+ * commit, so the measured time includes one extra single-row statement and commit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UseCaseBenchmarks {
+
+    @Param({"1", "10", "50"})
+    public int scale;
+
+    private BenchmarkDatabase db;
+    private ConnectionPool pool;
+    private final HandicapEngine handicapEngine = new HandicapEngine();
+    private final StandingsStore standingsStore = new StandingsStore();
+    private final TeamRepository teams = new TeamRepository();
+    private final MembershipRepository memberships = new MembershipRepository();
+    private final GameRepository games = new GameRepository();
+    private final LeagueRepository leagues = new LeagueRepository();
+    private ReferenceData referenceData;
+
+    private int nextPlayer;
+    private int nextGame;
+    private int nextLeague;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        db = BenchmarkDatabase.create(scale);
+        pool = DataSources.pool(db.url);
+        referenceData = ReferenceData.fromConfig(new FacilityRepository(), memberships, leagues);
+        try (Connection connection = pool.getConnection()) {
+            handicapEngine.load(connection, LocalDateTime.now());
+            standingsStore.load(connection);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+    }
+
+    /** Use Case 1: a bench player joins a team they are not on (the first dev-data team). */
+    @Benchmark
+    public TeamRepository.Team joinTeam() throws SQLException {
+        int playerId = db.firstPlayer + (nextPlayer++ % db.players);
+        int teamId = 1;
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            TeamRepository.Team team = teams.joinTeam(connection, playerId, teamId, null, "Member");
+            connection.commit();
+            BenchmarkDatabase.removeFromTeam(connection, playerId, teamId);
+            return team;
+        }
+    }
+
+    /** Use Case 3: cancel a scheduled game at its facility. */
+    @Benchmark
+    public GameRepository.Game cancelMatchesAtFacility() throws SQLException {
+        int gameId = db.firstScheduledGame + (nextGame++ % db.scheduledGames);
+        int facilityId = db.facilityOf(gameId);
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            String status = games.findStatus(connection, gameId, facilityId);
+            if (!"Scheduled".equals(status) || games.cancelScheduled(connection, facilityId, gameId) == 0) {
+                throw new IllegalStateException("Game " + gameId + " is not scheduled at facility " + facilityId);
+            }
+            GameRepository.Game game = games.find(connection, gameId);
+            connection.commit();
+            BenchmarkDatabase.resetGame(connection, gameId);
+            return game;
+        }
+    }
+
+    /** Use Case 5: record a two-team result, update standings and flush the affected handicaps. */
+    @Benchmark
+    public int updateMatchResults() throws SQLException {
+        int gameId = db.firstScheduledGame + (nextGame++ % db.scheduledGames);
+        int[] pair = db.teamsOf(gameId);
+        int score1 = 70 + gameId % 13;
+        int score2 = 72 + gameId % 11;
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            GameRepository.MatchResult result =
+                    games.updateMatchResults(connection, gameId, pair[0], score1, pair[1], score2);
+            referenceData.league(connection, result.leagueId);
+            referenceData.facility(connection, result.facilityId);
+            connection.commit();
+
+            LocalDateTime playedAt = result.dateTime.toLocalDateTime();
+            handicapEngine.recordResult(pair[0], score1, playedAt);
+            handicapEngine.recordResult(pair[1], score2, playedAt);
+            standingsStore.recordGame(result.leagueId, pair, new int[]{score1, score2});
+            handicapEngine.advanceTo(LocalDateTime.now());
+            int updated = handicapEngine.flush(connection);
+
+            BenchmarkDatabase.resetGame(connection, gameId);
+            return updated;
+        }
+    }
+
+    /** Use Case 6: move a league In Season -> Playoffs. */
+    @Benchmark
+    public String updateLeagueStatus() throws SQLException {
+        int leagueId = db.firstLeague + (nextLeague++ % db.leagues);
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            LeagueRepository.League league = leagues.find(connection, leagueId);
+            String next = LeagueRepository.nextStatus(league.status);
+            leagues.updateStatus(connection, leagueId, next);
+            LeagueRepository.League updated = leagues.find(connection, leagueId);
+            connection.commit();
+            referenceData.invalidateLeague(leagueId);
+            BenchmarkDatabase.resetLeague(connection, leagueId);
+            return updated.status;
+        }
+    }
+
+    /** Menu option 8: refresh team handicaps for one league and rank it. */
+    @Benchmark
+    public List<TeamStanding> standings() throws SQLException {
+        int leagueId = db.firstLeague + (nextLeague++ % db.leagues);
+        try (Connection connection = pool.getConnection()) {
+            referenceData.league(connection, leagueId);
+            standingsStore.refreshHandicaps(connection, leagueId);
+        }
+        return standingsStore.standings(leagueId);
+    }
+}
@@ -1,6 +1,8 @@
 -- Defines all the relations for Tee-Time along with key constraints and secondary indices
 
 -- 1. Drop all tables first (in reverse order in case of FK constraints)
+DROP TABLE IF EXISTS replica_heartbeat;
+DROP TABLE IF EXISTS game_result_stage;
 DROP TABLE IF EXISTS game_team;
 DROP TABLE IF EXISTS game;
 DROP TABLE IF EXISTS player_membership;
@@ -33,7 +35,7 @@ CREATE TABLE player (
 );
 
 CREATE NONCLUSTERED INDEX ix_player_location_skill
-ON player([state], city, skill_level);
+ON player([state], city, skill_level, player_id);
 
 
 -- --------------------- Facility Relation (2) -----------------------------
@@ -139,6 +141,10 @@ CREATE TABLE game (
     FOREIGN KEY (facility_id) REFERENCES facility(facility_id)
 );
 
+-- Bay lookups and the season scheduler read a facility's games by time
+CREATE NONCLUSTERED INDEX ix_game_facility_datetime
+ON game(facility_id, date_time, status);
+
 
 -- --------------------------- Game Team Relation (10) ------------------------------------
 CREATE TABLE game_team (
@@ -150,3 +156,23 @@ CREATE TABLE game_team (
     FOREIGN KEY (team_id) REFERENCES team(team_id)
 );
 
+
+-- --------------------------- Game Result Staging (11) ------------------------------------
+-- Score rows bulk-loaded by the result ingestion pipeline before they are validated and applied.
+-- Rows are grouped by batch_id so concurrent ingestion runs don't see each other's data.
+CREATE TABLE game_result_stage (
+    batch_id VARCHAR(36) NOT NULL,
+    game_id INT NOT NULL,
+    team_id INT NOT NULL,
+    score INT NOT NULL,
+    PRIMARY KEY (batch_id, game_id, team_id)
+);
+
+
+-- --------------------------- Replica Heartbeat (12) ------------------------------------
+-- One row, stamped on the primary with the application clock (epoch ms) by db.ReadRouter. Its value
+-- on a read replica tells how far behind the replica is.
+CREATE TABLE replica_heartbeat (
+    heartbeat_id INT NOT NULL PRIMARY KEY,
+    beat_ms BIGINT NOT NULL
+);
@@ -84,19 +84,12 @@ UPDATE player_membership
 SET payment_status = 'Cancelled'
 WHERE player_id = @player_id AND membership_id = @membership_id;
 
--- Step 2: Select related facility details for the cancelled membership
+-- Step 2: Confirm the cancellation (facility details are served from the application's reference cache)
 SELECT
-    f.facility_id,
-    f.name AS facility_name,
-    f.address,
-    f.city,
-    f.state,
-    f.zip,
-    f.phone,
-    f.website
-FROM facility f
-         JOIN membership m ON f.facility_id = m.facility_id
-WHERE m.membership_id = @membership_id;
+    pm.membership_id,
+    pm.payment_status
+FROM player_membership pm
+WHERE pm.player_id = @player_id AND pm.membership_id = @membership_id;
 END;
 GO
 
@@ -218,19 +211,16 @@ UPDATE league
 SET status = 'In Season'
 WHERE league_id = @LeagueId;
 
--- 4. SELECT: Return information about the registered teams
+-- 4. SELECT: Return the registered teams (league and facility names come from the reference cache)
 SELECT
-    l.league_id,
-    l.name AS league_name,
+    lt.league_id,
     t.team_id,
     t.name AS team_name,
-    f.name AS facility_name,
+    t.home_facility_id,
     lt.join_date
-FROM league l
-         JOIN league_team lt ON l.league_id = lt.league_id
+FROM league_team lt
          JOIN team t ON lt.team_id = t.team_id
-         JOIN facility f ON t.home_facility_id = f.facility_id
-WHERE l.league_id = @LeagueId;
+WHERE lt.league_id = @LeagueId;
 
 COMMIT TRANSACTION;
 END TRY
@@ -561,13 +551,11 @@ UPDATE game
 SET status = 'Completed'
 WHERE game_id = @GameID;
 
--- Return game details with updated information
+-- Return game details with updated information (league and facility names come from the reference cache)
 SELECT
     g.game_id,
     g.league_id,
-    l.name AS league_name,
     g.facility_id,
-    f.name AS facility_name,
     g.date_time,
     g.status,
     g.game_type,
@@ -583,8 +571,6 @@ SELECT
         ELSE 'Tie'
         END AS winner
 FROM game g
-         JOIN facility f ON g.facility_id = f.facility_id
-         LEFT JOIN league l ON g.league_id = l.league_id
          JOIN game_team gt1 ON g.game_id = gt1.game_id AND gt1.team_id = @Team1ID
          JOIN game_team gt2 ON g.game_id = gt2.game_id AND gt2.team_id = @Team2ID
          JOIN team t1 ON gt1.team_id = t1.team_id
@@ -609,6 +595,9 @@ END;
 GO
 
 -- Create a trigger that updates player handicaps after a game is completed
+-- Set-based so that one UPDATE completing many games (bulk result ingestion) adjusts every game,
+-- and so games with any number of teams are handled: the top score(s) win, everyone else loses,
+-- and a game where every team has the same score is a tie.
 CREATE OR ALTER TRIGGER trg_UpdatePlayerHandicap
 ON game
 AFTER UPDATE
@@ -616,95 +605,52 @@ AFTER UPDATE
 BEGIN
     SET NOCOUNT ON;
 
-    -- Only proceed if a game was marked as completed
-    IF EXISTS (
-        SELECT 1
+    -- Calculate handicap adjustment factors based on game performance
+    -- This is a simplified handicap calculation - in reality, handicap calculations are more complex
+    -- For winners: slightly decrease handicap (improve)
+    -- For losers: slightly increase handicap
+    DECLARE @WinnerAdjustment DECIMAL(4,1) = 0.2; -- Improve handicap
+    DECLARE @LoserAdjustment DECIMAL(4,1) = -0.1;  -- Decrease handicap
+    DECLARE @TieAdjustment DECIMAL(4,1) = 0.1;   -- Slight improvement for both
+
+    -- Games that were just marked as completed
+    ;WITH CompletedGames AS (
+        SELECT i.game_id
         FROM inserted i
         JOIN deleted d ON i.game_id = d.game_id
         WHERE i.status = 'Completed' AND d.status <> 'Completed'
+    ),
+    -- Best and worst score per completed game
+    GameRange AS (
+        SELECT gt.game_id, MAX(gt.score) AS top_score, MIN(gt.score) AS low_score
+        FROM game_team gt
+        JOIN CompletedGames cg ON cg.game_id = gt.game_id
+        WHERE gt.score IS NOT NULL
+        GROUP BY gt.game_id
+    ),
+    -- Adjustment for every team in every completed game
+    TeamAdjustments AS (
+        SELECT
+            gt.team_id,
+            CASE
+                WHEN r.top_score = r.low_score THEN @TieAdjustment
+                WHEN gt.score = r.top_score THEN @WinnerAdjustment
+                ELSE @LoserAdjustment
+                END AS adjustment
+        FROM game_team gt
+        JOIN GameRange r ON r.game_id = gt.game_id
+        WHERE gt.score IS NOT NULL
+    ),
+    -- A player can be affected by several games (or teams) in the same statement
+    PlayerAdjustments AS (
+        SELECT tp.player_id, SUM(ta.adjustment) AS adjustment
+        FROM TeamAdjustments ta
+        JOIN team_player tp ON tp.team_id = ta.team_id
+        GROUP BY tp.player_id
     )
-BEGIN
-        -- Get the game_id of the completed game
-        DECLARE @GameID INT;
-SELECT @GameID = i.game_id
-FROM inserted i
-         JOIN deleted d ON i.game_id = d.game_id
-WHERE i.status = 'Completed' AND d.status <> 'Completed';
-
--- Get team scores
-DECLARE @Team1ID INT, @Team2ID INT, @Team1Score INT, @Team2Score INT;
-
-        -- Get teams and scores for this game
-SELECT TOP 1 @Team1ID = team_id, @Team1Score = score
-FROM game_team
-WHERE game_id = @GameID;
-
-SELECT TOP 1 @Team2ID = team_id, @Team2Score = score
-FROM game_team
-WHERE game_id = @GameID AND team_id <> @Team1ID;
-
--- Calculate handicap adjustment factors based on game performance
--- This is a simplified handicap calculation - in reality, handicap calculations are more complex
--- For winners: slightly decrease handicap (improve)
--- For losers: slightly increase handicap
-DECLARE @WinnerAdjustment DECIMAL(4,1) = 0.2; -- Improve handicap
-        DECLARE @LoserAdjustment DECIMAL(4,1) = -0.1;  -- Decrease handicap
-        DECLARE @TieAdjustment DECIMAL(4,1) = 0.1;   -- Slight improvement for both
-
-        -- Determine which team won
-        DECLARE @WinningTeamID INT, @LosingTeamID INT;
-        IF @Team1Score > @Team2Score
-BEGIN
-            SET @WinningTeamID = @Team1ID;
-            SET @LosingTeamID = @Team2ID;
-END
-ELSE IF @Team2Score > @Team1Score
-BEGIN
-            SET @WinningTeamID = @Team2ID;
-            SET @LosingTeamID = @Team1ID;
-END
-        -- If it's a tie, both teams get a slight improvement
-
-        -- Update handicaps for players on the winning team
-        IF @WinningTeamID IS NOT NULL
-BEGIN
-UPDATE player
-SET handicap =
-        CASE
-            WHEN handicap IS NULL THEN NULL -- Don't update NULL handicaps
-            ELSE ROUND(handicap + @WinnerAdjustment, 1)
-            END
-    FROM player p
-            JOIN team_player tp ON p.player_id = tp.player_id
-WHERE tp.team_id = @WinningTeamID
-  AND p.handicap IS NOT NULL;
-
--- Update handicaps for players on the losing team
-UPDATE player
-SET handicap =
-        CASE
-            WHEN handicap IS NULL THEN NULL -- Don't update NULL handicaps
-            ELSE ROUND(handicap + @LoserAdjustment, 1)
-            END
+    UPDATE p
+    SET handicap = ROUND(p.handicap + pa.adjustment, 1)
     FROM player p
-            JOIN team_player tp ON p.player_id = tp.player_id
-WHERE tp.team_id = @LosingTeamID
-  AND p.handicap IS NOT NULL;
-END
-ELSE
-BEGIN
-            -- It's a tie - update both teams with the tie adjustment
-UPDATE player
-SET handicap =
-        CASE
-            WHEN handicap IS NULL THEN NULL -- Don't update NULL handicaps
-            ELSE ROUND(handicap + @TieAdjustment, 1)
-            END
-    FROM player p
-            JOIN team_player tp ON p.player_id = tp.player_id
-WHERE tp.team_id IN (@Team1ID, @Team2ID)
-  AND p.handicap IS NOT NULL;
-END
-
-END
+    JOIN PlayerAdjustments pa ON pa.player_id = p.player_id
+    WHERE p.handicap IS NOT NULL; -- Don't update NULL handicaps
 END;
@@ -85,20 +85,14 @@ UPDATE player_membership
 SET payment_status = 'Cancelled'
 WHERE player_id = @player_id AND membership_id = @membership_id;
 
--- Step 2: Select related facility details for the cancelled membership
+-- Step 2: Confirm the cancellation (facility details are served from the application's reference cache)
 SELECT
-    f.facility_id,
-    f.name AS facility_name,
-    f.address,
-    f.city,
-    f.state,
-    f.zip,
-    f.phone,
-    f.website
-FROM facility f
-         JOIN membership m ON f.facility_id = m.facility_id
-WHERE m.membership_id = @membership_id;
+    pm.membership_id,
+    pm.payment_status
+FROM player_membership pm
+WHERE pm.player_id = @player_id AND pm.membership_id = @membership_id;
 END;
+GO
 
 -- --------------------- Use Case 3: Match Cancellation (Case #13 in doc2) --------------------------------
 CREATE OR ALTER PROCEDURE CancelMatchesAtFacility
@@ -218,19 +212,16 @@ UPDATE league
 SET status = 'In Season'
 WHERE league_id = @LeagueId;
 
--- 4. SELECT: Return information about the registered teams
+-- 4. SELECT: Return the registered teams (league and facility names come from the reference cache)
 SELECT
-    l.league_id,
-    l.name AS league_name,
+    lt.league_id,
     t.team_id,
     t.name AS team_name,
-    f.name AS facility_name,
+    t.home_facility_id,
     lt.join_date
-FROM league l
-         JOIN league_team lt ON l.league_id = lt.league_id
+FROM league_team lt
          JOIN team t ON lt.team_id = t.team_id
-         JOIN facility f ON t.home_facility_id = f.facility_id
-WHERE l.league_id = @LeagueId;
+WHERE lt.league_id = @LeagueId;
 
 COMMIT TRANSACTION;
 END TRY
@@ -328,45 +319,10 @@ END;
 GO
 
 -- --------------------- Trigger to Update Handicap After Match Score Changes -----------------------------
-CREATE OR ALTER TRIGGER AutoUpdateHandicapAfterMatch
-ON game_team
-AFTER INSERT, UPDATE
-                                  AS
-BEGIN
-    SET NOCOUNT ON;
-
-    -- Only process if score was updated
-    IF UPDATE(score)
-BEGIN
-        -- Temporary table to hold players that need handicap updates
-        DECLARE @players_to_update TABLE (player_id INT);
-
-        -- Find all players on teams that had scores updated
-INSERT INTO @players_to_update
-SELECT DISTINCT tp.player_id
-FROM inserted i
-         JOIN team_player tp ON i.team_id = tp.team_id
-         JOIN game g ON i.game_id = g.game_id
-WHERE g.status = 'Completed';
-
--- Update handicap for each player
-DECLARE @player_id INT;
-        DECLARE player_cursor CURSOR FOR
-SELECT player_id FROM @players_to_update;
-
-OPEN player_cursor;
-FETCH NEXT FROM player_cursor INTO @player_id;
-
-WHILE @@FETCH_STATUS = 0
-BEGIN
-EXEC UpdatePlayerHandicap @player_id;
-FETCH NEXT FROM player_cursor INTO @player_id;
-END
-
-CLOSE player_cursor;
-DEALLOCATE player_cursor;
-END
-END;
+-- Replaced by the in-process handicap engine (src/handicap/HandicapEngine.java), which keeps a rolling
+-- 3-month sum/count per player and writes changed handicaps back in one batched UPDATE.
+-- The old trigger ran EXEC UpdatePlayerHandicap through a cursor, rescanning each player's history.
+DROP TRIGGER IF EXISTS AutoUpdateHandicapAfterMatch;
 GO
 
 -- -------------------- Use Case 7: Updating League Status --------------------
@@ -1,33 +1,182 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Scanner;
-
-import utils.Credentials;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import batch.BatchRunner;
+import billing.BillingRun;
+import datagen.BulkLoader;
+import datagen.SyntheticDataset;
+import cache.ReferenceData;
+import db.ConnectionPool;
+import db.DataSources;
+import db.EmbeddedDatabase;
+import db.ReadRouter;
+import db.TransactionExecutor;
+import export.ByteSink;
+import export.ColumnarReader;
+import export.CsvWriter;
+import export.TableExporter;
+import handicap.HandicapEngine;
+import standings.StandingsStore;
+import standings.TeamStanding;
+import ingest.MatchResultIngester;
+import journal.Journal;
+import journal.JournalReader;
+import leaderboard.Leaderboards;
+import league.LeagueSweeper;
+import metrics.Metrics;
+import notify.Notifier;
+import rating.RatingEngine;
+import repository.FacilityRepository;
+import repository.GameRepository;
+import repository.LeagueRepository;
+import repository.MembershipRepository;
+import repository.PlayerRepository;
+import repository.TeamRepository;
+import schedule.BayAvailabilityIndex;
+import schedule.SeasonScheduler;
+import server.ApiServer;
+import server.LoadGenerator;
+import store.JdbcStorage;
+import store.Storage;
 
 public class App {
 
+    // Keeps player handicaps current as results come in (replaces the AutoUpdateHandicapAfterMatch trigger)
+    private static final HandicapEngine handicapEngine = new HandicapEngine();
+
+    // Live league standings, updated from the result paths
+    private static final StandingsStore standingsStore = new StandingsStore();
+
+    // Elo power ratings of teams and players, rebuilt from the game history at startup and updated with each result
+    private static final RatingEngine ratingEngine = new RatingEngine();
+    private static final int RATING_THREADS = Runtime.getRuntime().availableProcessors();
+
+    // Regional handicap leaderboards, moved by every handicap the engine writes
+    private static final Leaderboards leaderboards = new Leaderboards();
+
+    // Data access; statements are served from the pool's per-connection statement cache
+    private static final MembershipRepository memberships = new MembershipRepository();
+    private static final LeagueRepository leagues = new LeagueRepository();
+    private static final PlayerRepository players = new PlayerRepository();
+
+    // Length of a game slot for the season scheduler and the bay index
+    private static final int GAME_MINUTES = 60;
+
+    // Scheduled games per facility, for open-bay lookups (menu option 10, GET /api/bays)
+    private static final BayAvailabilityIndex bayIndex = new BayAvailabilityIndex(GAME_MINUTES);
+
+    // Runs the database store's transactions, retrying deadlock victims and lock timeouts with backoff
+    private static final TransactionExecutor transactions = TransactionExecutor.fromConfig();
+
+    // Who did what: every committed change is appended here (menu, batch, ingest and server modes)
+    private static Journal journal = Journal.disabled();
+    // Tells the affected players about cancellations and league status changes (see notify.Notifier)
+    private static Notifier notifier = Notifier.disabled();
+    private static final String ACTOR = System.getProperty("user.name");
+
+    // Facilities, membership plans and leagues echoed back by the use cases, read through a TTL cache
+    private static final ReferenceData referenceData =
+            ReferenceData.fromConfig(new FacilityRepository(), memberships, leagues);
+
+    // Where the menu's use cases run: the database, or an in-memory copy with -Dteetime.storage=memory
+    private static Storage storage;
+
     // Main()
     public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("batch")) {
+            runBatch(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("ingest")) {
+            runIngest(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("handicaps")) {
+            runHandicapRecompute(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("schedule")) {
+            runSchedule(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("generate")) {
+            runGenerate(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("export")) {
+            runExport(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("serve")) {
+            runServer(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("loadtest")) {
+            runLoadTest(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("journal")) {
+            runJournal(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("billing")) {
+            runBilling(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("ratings")) {
+            runRatings(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("sweep-leagues")) {
+            runLeagueSweep(args);
+            return;
+        }
+
         System.out.println("Welcome to the Tee-Time database! Please navigate by following the instructions below.");
 
-        // Connection URL - set your credentials in utils/Credentials.java based on the template
-        String connectionUrl = String.format(
-                "jdbc:sqlserver://%s;" +
-                        "database=%s;" +
-                        "user=%s;" +
-                        "password=%s;" +
-                        "encrypt=true;" +
-                        "trustServerCertificate=true;" +
-                        "loginTimeout=15;",
-                Credentials.SERVER_NAME,
-                Credentials.DATABASE_NAME,
-                Credentials.USER,
-                Credentials.PASSWORD
-        );
-
-        try (Connection connection = DriverManager.getConnection(connectionUrl)) {
+        // Connection pool - set your credentials in utils/Credentials.java based on the template,
+        // or run with -Dteetime.db=h2 for an embedded database
+        try (ConnectionPool pool = DataSources.fromConfig();
+             ReadRouter reads = ReadRouter.fromConfig(pool);
+             Journal opened = openJournal();
+             Notifier notifications = openNotifier(pool)) {
+
+            try (Connection connection = pool.getConnection()) {
+                handicapEngine.load(connection, LocalDateTime.now());
+                standingsStore.load(connection);
+                bayIndex.load(connection);
+                ratingEngine.load(connection, RATING_THREADS);
+                leaderboards.load(connection);
+            }
+            handicapEngine.setFlushListener(leaderboards::handicapChanged);
+            storage = Storage.fromConfig(pool, reads, transactions, referenceData);
+            if (!(storage instanceof JdbcStorage)) {
+                System.out.println("Using the " + storage);
+            }
 
             Scanner scanner = new Scanner(System.in);
 
@@ -39,28 +188,68 @@ public class App {
                 System.out.println("4. Create a Home League at a Facility (Adds all home teams)");
                 System.out.println("5. Update match details");
                 System.out.println("6. Update League Status");
-                System.out.print("Enter your choice (input a number 1 through 6): ");
+                System.out.println("7. Show connection pool stats");
+                System.out.println("8. Show League Standings");
+                System.out.println("9. Show operation stats");
+                System.out.println("10. Find open bays at a facility");
+                System.out.println("11. Find players to play with");
+                System.out.println("12. Close a facility (cancel all matches in a time window)");
+                System.out.println("13. Show League Power Ratings (playoff seeding)");
+                System.out.println("14. Show Handicap Leaderboards (state, city, skill level)");
+                System.out.print("Enter your choice (input a number 1 through 14): ");
 
                 int choice = scanner.nextInt();
                 scanner.nextLine();
                 switch (choice) {
                     case 1:
-                        joinTeam(connection, scanner);
+                        joinTeam(scanner);
                         break;
                     case 2:
-                        cancelMembership(connection, scanner);
+                        cancelMembership(scanner);
                         break;
                     case 3:
-                        cancelMatchesAtFacility(connection, scanner);
+                        cancelMatchesAtFacility(scanner);
                         break;
                     case 4:
-                        createFacilityLeague(connection, scanner);
+                        createFacilityLeague(pool, scanner);
                         break;
                     case 5:
-                        updateMatchResults(connection, scanner);
+                        updateMatchResults(scanner);
                         break;
                     case 6:
-                        updateLeagueStatus(connection, scanner);
+                        updateLeagueStatus(scanner);
+                        break;
+                    case 7:
+                        System.out.println("\n=== Connection Pool ===");
+                        System.out.println(pool.stats());
+                        System.out.println("\n=== Reference Cache ===");
+                        System.out.println(referenceData);
+                        System.out.println("\n=== Read Routing ===");
+                        System.out.println(reads);
+                        System.out.println("\n=== Notifications ===");
+                        System.out.println(notifications);
+                        break;
+                    case 8:
+                        showStandings(scanner);
+                        break;
+                    case 9:
+                        System.out.println("\n=== Operation Stats ===");
+                        System.out.print(Metrics.report());
+                        break;
+                    case 10:
+                        findOpenBays(scanner);
+                        break;
+                    case 11:
+                        findPlayers(reads, scanner);
+                        break;
+                    case 12:
+                        closeFacility(scanner);
+                        break;
+                    case 13:
+                        showRatings(scanner);
+                        break;
+                    case 14:
+                        showLeaderboards(scanner);
                         break;
                     
                     default:
@@ -75,11 +264,452 @@ public class App {
         }
     }
 
+    // Headless mode: java App batch [file|-] [--commit-every N]
+    //  - reads joinTeam / cancelMembership / updateMatchResults commands (see batch.BatchCommand)
+    private static void runBatch(String[] args) throws Exception {
+        String source = "-";
+        int commitEvery = 500;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--commit-every") && i + 1 < args.length) {
+                commitEvery = Integer.parseInt(args[++i]);
+            } else {
+                source = args[i];
+            }
+        }
+
+        try (ConnectionPool pool = DataSources.fromConfig();
+             Journal opened = openJournal();
+             BufferedReader in = source.equals("-")
+                     ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                     : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8)) {
+            try (Connection connection = pool.getConnection()) {
+                handicapEngine.load(connection, LocalDateTime.now());
+                standingsStore.load(connection);
+                ratingEngine.load(connection, RATING_THREADS);
+            }
+            BatchRunner runner = new BatchRunner(pool, commitEvery, System.out);
+            runner.setHandicapEngine(handicapEngine);
+            runner.setStandingsStore(standingsStore);
+            runner.setRatingEngine(ratingEngine);
+            runner.setJournal(opened, ACTOR);
+            BatchRunner.Summary summary = runner.run(in);
+            System.out.println("\n=== Batch Summary ===");
+            System.out.println(summary);
+        }
+    }
+
+    // Bulk results: java App ingest [results.csv|-] [--games-per-tx N]
+    //  - CSV rows are game_id,team_id,score with any number of teams per game
+    private static void runIngest(String[] args) throws Exception {
+        String source = "-";
+        int gamesPerTx = 5000;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--games-per-tx") && i + 1 < args.length) {
+                gamesPerTx = Integer.parseInt(args[++i]);
+            } else {
+                source = args[i];
+            }
+        }
+
+        try (ConnectionPool pool = DataSources.fromConfig();
+             Journal opened = openJournal();
+             BufferedReader in = source.equals("-")
+                     ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                     : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8)) {
+            try (Connection connection = pool.getConnection()) {
+                handicapEngine.load(connection, LocalDateTime.now());
+                standingsStore.load(connection);
+                ratingEngine.load(connection, RATING_THREADS);
+            }
+            MatchResultIngester ingester = new MatchResultIngester(pool, gamesPerTx, System.out);
+            ingester.setHandicapEngine(handicapEngine);
+            ingester.setStandingsStore(standingsStore);
+            ingester.setRatingEngine(ratingEngine);
+            ingester.setJournal(opened, ACTOR);
+            MatchResultIngester.Summary summary = ingester.ingest(in);
+            System.out.println("\n=== Ingestion Summary ===");
+            System.out.println(summary);
+        }
+    }
+
+    // Handicap recompute: java App handicaps [--verify]
+    //  - rebuilds every handicap from the last 3 months of results and writes them back in one batch
+    //  - --verify also checks each value against the UpdatePlayerHandicap formula run in SQL
+    private static void runHandicapRecompute(String[] args) throws Exception {
+        boolean verify = args.length > 1 && args[1].equals("--verify");
+
+        try (ConnectionPool pool = DataSources.fromConfig();
+             Connection connection = pool.getConnection()) {
+            long start = System.nanoTime();
+            handicapEngine.load(connection, LocalDateTime.now());
+            int updated = handicapEngine.flush(connection);
+            System.out.printf("Recomputed %d handicaps from %d in-window scores in %.1f ms%n",
+                    updated, handicapEngine.windowSize(), (System.nanoTime() - start) / 1e6);
+
+            if (verify) {
+                List<String> mismatches = handicapEngine.verify(connection);
+                if (mismatches.isEmpty()) {
+                    System.out.println("Verify: all handicaps match the SQL formula.");
+                } else {
+                    System.out.println("Verify: " + mismatches.size() + " mismatch(es)");
+                    mismatches.forEach(System.out::println);
+                }
+            }
+        }
+    }
+
+    // Season schedules: java App schedule [leagueId ...] [--game-minutes N]
+    //  - without ids, every league that has no games yet and is Setting Up or In Season
+    //  - also adds the next elimination round of every bracket whose games have all been played
+    //  - teams are seeded by rating
+    //  - writes game + game_team rows for all leagues in one transaction (see schedule.SeasonScheduler)
+    private static void runSchedule(String[] args) throws Exception {
+        Set<Integer> leagueIds = null;
+        int gameMinutes = GAME_MINUTES;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--game-minutes") && i + 1 < args.length) {
+                gameMinutes = Integer.parseInt(args[++i]);
+            } else {
+                if (leagueIds == null) {
+                    leagueIds = new LinkedHashSet<>();
+                }
+                leagueIds.add(Integer.parseInt(args[i]));
+            }
+        }
+
+        try (ConnectionPool pool = DataSources.fromConfig()) {
+            try (Connection connection = pool.getConnection()) {
+                ratingEngine.load(connection, RATING_THREADS);
+            }
+            SeasonScheduler scheduler = new SeasonScheduler(pool, gameMinutes, System.out);
+            scheduler.setRatingEngine(ratingEngine);
+            SeasonScheduler.Summary summary = scheduler.schedule(leagueIds);
+            System.out.println("\n=== Schedule Summary ===");
+            System.out.println(summary);
+        }
+    }
+
+    // Synthetic data: java App generate [--players N] [--teams N] [--leagues N] [--games N] [--facilities N]
+    //                                   [--seed N] [--as-of yyyy-mm-dd] [--writers N] [--batch-size N]
+    //  - adds a consistent population on top of the existing rows; the same seed and sizes give the same data
+    //  - loads with batched inserts from parallel writers (see datagen.BulkLoader)
+    private static void runGenerate(String[] args) throws Exception {
+        SyntheticDataset.Size size = new SyntheticDataset.Size();
+        long seed = 42;
+        LocalDate asOf = LocalDate.of(2025, 1, 1);
+        int writers = 4;
+        int batchSize = 1000;
+        for (int i = 1; i + 1 < args.length; i++) {
+            if (args[i].equals("--players")) {
+                size.players = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--teams")) {
+                size.teams = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--leagues")) {
+                size.leagues = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--games")) {
+                size.games = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--facilities")) {
+                size.facilities = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--seed")) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--as-of")) {
+                asOf = LocalDate.parse(args[++i]);
+            } else if (args[i].equals("--writers")) {
+                writers = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--batch-size")) {
+                batchSize = Integer.parseInt(args[++i]);
+            }
+        }
+
+        try (ConnectionPool pool = DataSources.fromConfig()) {
+            BulkLoader.Summary summary = new BulkLoader(pool, writers, batchSize, System.out).load(size, seed, asOf);
+            System.out.println("\n=== Generate Summary ===");
+            System.out.println(summary);
+        }
+    }
+
+    // Export: java App export <dir> [--tables player,game,...] [--format csv|columnar] [--gzip]
+    //                         [--from N] [--to N] [--keys-per-file N] [--fetch-size N]
+    //  - streams each table to <dir> in primary key order (see export.TableExporter)
+    //  - re-running skips files that are already complete, so an interrupted export resumes
+    // or:     java App export --read <file.ttc[.gz]> [out.csv[.gz]]   (columnar back to CSV, default stdout)
+    private static void runExport(String[] args) throws Exception {
+        if (args.length > 2 && args[1].equals("--read")) {
+            Path source = Paths.get(args[2]);
+            try (ColumnarReader reader = new ColumnarReader(source);
+                 CsvWriter writer = new CsvWriter(args.length > 3
+                         ? new ByteSink(Paths.get(args[3]), args[3].endsWith(".gz"))
+                         : new ByteSink(Channels.newChannel(System.out)), reader.columns())) {
+                reader.copyTo(writer);
+            }
+            return;
+        }
+
+        Path directory = null;
+        List<String> tables = TableExporter.tables();
+        TableExporter.Format format = TableExporter.Format.CSV;
+        boolean gzip = false;
+        Long from = null;
+        Long to = null;
+        long keysPerFile = 0;
+        int fetchSize = TableExporter.DEFAULT_FETCH_SIZE;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--tables") && i + 1 < args.length) {
+                tables = Arrays.asList(args[++i].split(","));
+            } else if (args[i].equals("--format") && i + 1 < args.length) {
+                format = TableExporter.Format.valueOf(args[++i].toUpperCase());
+            } else if (args[i].equals("--gzip")) {
+                gzip = true;
+            } else if (args[i].equals("--from") && i + 1 < args.length) {
+                from = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--to") && i + 1 < args.length) {
+                to = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--keys-per-file") && i + 1 < args.length) {
+                keysPerFile = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--fetch-size") && i + 1 < args.length) {
+                fetchSize = Integer.parseInt(args[++i]);
+            } else {
+                directory = Paths.get(args[i]);
+            }
+        }
+        if (directory == null) {
+            System.out.println("Usage: java App export <dir> [--tables " + String.join(",", TableExporter.tables())
+                    + "] [--format csv|columnar] [--gzip] [--from N] [--to N] [--keys-per-file N] [--fetch-size N]");
+            return;
+        }
+
+        try (ConnectionPool pool = DataSources.fromConfig()) {
+            TableExporter.Summary summary = new TableExporter(pool, directory, format, gzip, fetchSize, System.out)
+                    .export(tables, from, to, keysPerFile);
+            System.out.println("\n=== Export Summary ===");
+            System.out.println(summary);
+        }
+    }
+
+    // Server mode: the use cases as a JSON API (see server/ApiServer.java)
+    private static void runServer(String[] args) throws Exception {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+
+        try (ConnectionPool pool = DataSources.fromConfig();
+             ReadRouter reads = ReadRouter.fromConfig(pool);
+             Journal opened = openJournal();
+             Notifier notifications = openNotifier(pool)) {
+            try (Connection connection = pool.getConnection()) {
+                handicapEngine.load(connection, LocalDateTime.now());
+                standingsStore.load(connection);
+                bayIndex.load(connection);
+                ratingEngine.load(connection, RATING_THREADS);
+                leaderboards.load(connection);
+            }
+            handicapEngine.setFlushListener(leaderboards::handicapChanged);
+            try (ApiServer server = new ApiServer(port, pool, reads, handicapEngine, standingsStore, ratingEngine,
+                    leaderboards, referenceData, bayIndex, opened, notifications)) {
+                server.start();
+                System.out.printf("Tee-Time API listening on port %d (%s threads). Press Ctrl+C to stop.%n",
+                        server.port(), server.threadModel());
+                Thread.currentThread().join();
+            }
+        }
+    }
+
+    // Throughput vs. concurrent clients against an in-process server on the embedded database
+    private static void runLoadTest(String[] args) throws Exception {
+        int[] clientCounts = {1, 2, 4, 8, 16, 32, 64};
+        int seconds = 5;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--clients") && i + 1 < args.length) {
+                clientCounts = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if (args[i].equals("--seconds") && i + 1 < args.length) {
+                seconds = Integer.parseInt(args[++i]);
+            }
+        }
+
+        try (ConnectionPool pool = DataSources.pool(EmbeddedDatabase.create("loadtest"))) {
+            int maxGameId;
+            try (Connection connection = pool.getConnection();
+                 Statement st = connection.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT MAX(game_id) FROM game")) {
+                rs.next();
+                maxGameId = Math.max(rs.getInt(1), 1);
+                handicapEngine.load(connection, LocalDateTime.now());
+                standingsStore.load(connection);
+                bayIndex.load(connection);
+                ratingEngine.load(connection, RATING_THREADS);
+                leaderboards.load(connection);
+            }
+            handicapEngine.setFlushListener(leaderboards::handicapChanged);
+            try (ApiServer server = new ApiServer(0, pool, ReadRouter.primaryOnly(pool), handicapEngine,
+                    standingsStore, ratingEngine, leaderboards,
+                    referenceData, bayIndex, Journal.disabled(), Notifier.disabled())) {
+                server.start();
+                System.out.printf("Server on port %d, %s threads, pool max %d, %d s per step%n%n",
+                        server.port(), server.threadModel(), pool.stats().maxSize, seconds);
+
+                LoadGenerator load = new LoadGenerator(URI.create("http://localhost:" + server.port()), 1, maxGameId);
+                load.run(4, Duration.ofSeconds(1)); // warm-up
+                System.out.println(LoadGenerator.HEADER);
+                for (int clients : clientCounts) {
+                    System.out.println(load.run(clients, Duration.ofSeconds(seconds)));
+                }
+            }
+        }
+    }
+
+    // Operations journal: java App journal [--dir d] [--from N] [--follow]
+    //  - prints every recorded change from sequence N (default 1); --follow keeps printing new ones (Ctrl+C to stop)
+    //  - the directory defaults to teetime.journal.dir; it can be read while another process writes to it
+    private static void runJournal(String[] args) throws Exception {
+        Path directory = Journal.directory();
+        long from = 1;
+        boolean follow = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--dir") && i + 1 < args.length) {
+                directory = Paths.get(args[++i]);
+            } else if (args[i].equals("--from") && i + 1 < args.length) {
+                from = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--follow")) {
+                follow = true;
+            }
+        }
+
+        JournalReader reader = new JournalReader(directory);
+        if (follow) {
+            reader.tail(from, System.out::println, 100);
+        } else {
+            long count = reader.replay(from, System.out::println);
+            System.out.println("\n" + count + " journal entries in " + directory);
+        }
+    }
+
+    // Membership billing: java App billing [--period yyyy-mm] [--workers N] [--range-size N] [--batch-size N]
+    //                                  [--checkpoint file]
+    //  - charges every Scheduled membership due in the period and marks it Completed (see billing.BillingRun)
+    //  - re-running a period resumes from its checkpoint (default billing/<period>.checkpoint)
+    private static void runBilling(String[] args) throws Exception {
+        YearMonth period = YearMonth.now();
+        int workers = 4;
+        int rangeSize = 10_000;
+        int batchSize = 1000;
+        Path checkpoint = null;
+        for (int i = 1; i + 1 < args.length; i++) {
+            if (args[i].equals("--period")) {
+                period = YearMonth.parse(args[++i]);
+            } else if (args[i].equals("--workers")) {
+                workers = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--range-size")) {
+                rangeSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--batch-size")) {
+                batchSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--checkpoint")) {
+                checkpoint = Paths.get(args[++i]);
+            }
+        }
+        if (checkpoint == null) {
+            checkpoint = Paths.get("billing", period + ".checkpoint");
+        }
+
+        try (ConnectionPool pool = DataSources.fromConfig();
+             Journal opened = openJournal()) {
+            BillingRun run = new BillingRun(pool, workers, rangeSize, batchSize, System.out);
+            run.setJournal(opened, ACTOR);
+            BillingRun.Summary summary = run.run(period, checkpoint);
+            System.out.println("\n=== Billing Summary ===");
+            System.out.println(summary);
+        }
+    }
+
+    // Power ratings: java App ratings [--threads N] [--top N] [--league ID]
+    //  - replays the whole game history into Elo ratings (see rating.RatingEngine) and prints the leaders,
+    //    or one league's playoff seeding
+    private static void runRatings(String[] args) throws Exception {
+        int threads = RATING_THREADS;
+        int top = 10;
+        Integer leagueId = null;
+        for (int i = 1; i + 1 < args.length; i++) {
+            if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--top")) {
+                top = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--league")) {
+                leagueId = Integer.parseInt(args[++i]);
+            }
+        }
+
+        try (ConnectionPool pool = DataSources.fromConfig();
+             Connection connection = pool.getConnection()) {
+            RatingEngine.Summary summary = ratingEngine.load(connection, threads);
+            System.out.println("=== Rating Recompute ===");
+            System.out.println(summary);
+            if (leagueId != null) {
+                System.out.println("\n=== League " + leagueId + " Seeding ===");
+                printRatings(ratingEngine.leagueSeeding(leagueId));
+            } else {
+                System.out.println("\n=== Top Teams ===");
+                printRatings(ratingEngine.topTeams(top));
+                System.out.println("\n=== Top Players ===");
+                printRatings(ratingEngine.topPlayers(top));
+            }
+        }
+    }
+
+    // League status sweep: java App sweep-leagues [--as-of yyyy-mm-dd] [--workers N] [--cascades N] [--dry-run]
+    //  - advances every league whose start/end dates and team count say it is due (see league.LeagueSweeper)
+    //  - at most --cascades leagues go In Season (and rescan handicaps in the trigger) at once
+    private static void runLeagueSweep(String[] args) throws Exception {
+        LocalDate asOf = LocalDate.now();
+        int workers = 4;
+        int cascades = 2;
+        boolean dryRun = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--as-of") && i + 1 < args.length) {
+                asOf = LocalDate.parse(args[++i]);
+            } else if (args[i].equals("--workers") && i + 1 < args.length) {
+                workers = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--cascades") && i + 1 < args.length) {
+                cascades = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--dry-run")) {
+                dryRun = true;
+            }
+        }
+
+        try (ConnectionPool pool = DataSources.fromConfig();
+             Journal opened = openJournal();
+             Notifier notifications = openNotifier(pool)) {
+            LeagueSweeper sweeper = new LeagueSweeper(pool, workers, cascades, System.out);
+            sweeper.setJournal(opened, ACTOR);
+            sweeper.setNotifier(notifications);
+            LeagueSweeper.Summary summary = sweeper.sweep(asOf, dryRun);
+            System.out.println("\n=== League Sweep ===");
+            for (LeagueSweeper.Result result : summary.results) {
+                System.out.println(result);
+            }
+            System.out.println(summary);
+        }
+    }
+
+    // Opens the configured journal for this run; the use cases append to it after each commit
+    private static Journal openJournal() throws IOException {
+        journal = Journal.fromConfig();
+        return journal;
+    }
+
+    // Starts the configured notifier for this run; the use cases queue events on it after each commit
+    private static Notifier openNotifier(DataSource dataSource) throws IOException {
+        notifier = Notifier.fromConfig(dataSource);
+        return notifier;
+    }
+
+    // Queuing never waits; a full queue drops the event, which the operator should know about
+    private static void notified(boolean queued) {
+        if (!queued && notifier.enabled()) {
+            System.out.println("Notification queue is full; the players were not notified.");
+        }
+    }
+
     // Use Case 1: Join a Team
     //  - e.g., Add min woo lee (8) to to Drive Dynasty (3)
-    private static void joinTeam(Connection connection, Scanner scanner) {
+    private static void joinTeam(Scanner scanner) {
         System.out.println("\n=== Join Team ===");
-        String callStoredProc = "{call dbo.joinTeam(?,?,?,?)}";
         int inpPlayerId, inpTeamId;
         String inpJoinDate, inpPosition;
 
@@ -111,66 +741,36 @@ public class App {
             return;
         }
 
-        // Run stored procedure with input
-        try (CallableStatement prepStoredProc = connection.prepareCall(callStoredProc)) {
-            connection.setAutoCommit(false);
-
-            // Set input parameters
-            prepStoredProc.setInt(1, inpPlayerId);
-            prepStoredProc.setInt(2, inpTeamId);
-
-            if (inpJoinDate.isEmpty()) {
-                prepStoredProc.setDate(3, null);
-            } else {
-                Date sqlDate = Date.valueOf(inpJoinDate);
-                prepStoredProc.setDate(3, sqlDate);
-            }
-
-            if (inpPosition.isEmpty()) {
-                prepStoredProc.setString(4, "Member");
+        Date joinDate = inpJoinDate.isEmpty() ? null : Date.valueOf(inpJoinDate);
+        String position = inpPosition.isEmpty() ? "Member" : inpPosition;
+
+        try (Metrics.Scope op = Metrics.start("joinTeam")) {
+            TeamRepository.Team team = storage.joinTeam(inpPlayerId, inpTeamId, joinDate, position);
+            if (team != null) {
+                journal.append("joinTeam", ACTOR, "playerId", inpPlayerId, "teamId", inpTeamId,
+                        "joinDate", joinDate, "position", position);
+                System.out.println("\n=== Team Details ===");
+                System.out.println("Team ID:            " + team.teamId);
+                System.out.println("Team Name:          " + team.name);
+                System.out.println("Creation Date:      " + team.creationDate);
+                System.out.println("Home Facility ID:   " + team.homeFacilityId);
+                System.out.println("Facility Name:      " + team.facilityName);
+                System.out.println("\nPlayer #"+ inpPlayerId+" successfully joined the team!");
+                handicapEngine.playerJoinedTeam(inpPlayerId, inpTeamId);
+                ratingEngine.playerJoinedTeam(inpPlayerId, inpTeamId,
+                        joinDate != null ? joinDate.toLocalDate() : LocalDate.now());
             } else {
-                prepStoredProc.setString(4, inpPosition);
-            }
-
-            // Execute the stored procedure
-            boolean hasResults = prepStoredProc.execute();
-
-            // Process potential result sets
-            if (hasResults) {
-                try (ResultSet rs = prepStoredProc.getResultSet()) {
-                    if (rs.next()) {
-                        System.out.println("\n=== Team Details ===");
-                        System.out.println("Team ID:            " + rs.getInt("team_id"));
-                        System.out.println("Team Name:          " + rs.getString("name"));
-                        System.out.println("Creation Date:      " + rs.getDate("creation_date"));
-                        System.out.println("Home Facility ID:   " + rs.getInt("home_facility_id"));
-                        System.out.println("Facility Name:      " + rs.getString("facility_name"));
-                        System.out.println("\nPlayer #"+ inpPlayerId+" successfully joined the team!");
-                    } else {
-                        System.out.println("No results returned.");
-                    }
-                }
-            } else {
-                System.out.println("No result set was returned.");
+                System.out.println("No results returned.");
             }
-
-            // Commit the transaction
-            connection.commit();
         } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                System.out.println("Error rolling back transaction: " + rollbackEx.getMessage());
-            }
             System.out.println("Database error: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
     // Use Case 2: Cancel Player Membership
-    private static void cancelMembership(Connection connection, Scanner scanner) {
+    private static void cancelMembership(Scanner scanner) {
         System.out.println("\n=== Cancel Player Membership ===");
-        String callStoredProc = "{call dbo.CancelPlayerMembership(?,?)}";
         int inpPlayerId, inpMembershipId;
 
         // Prompt the user for information
@@ -185,53 +785,24 @@ public class App {
             return;
         }
 
-        // Run stored procedure with input
-        try (CallableStatement prepStoredProc = connection.prepareCall(callStoredProc)) {
-            connection.setAutoCommit(false);
-
-            // Set input parameters
-            prepStoredProc.setInt(1, inpPlayerId);
-            prepStoredProc.setInt(2, inpMembershipId);
-
-            // Execute the stored procedure
-            boolean hasResults = prepStoredProc.execute();
-            System.out.println("Execute returned: " + hasResults);
-
-            int updateCount = prepStoredProc.getUpdateCount();
-            System.out.println("Update count: " + updateCount);
-
-            // Then proceed with your existing result processing
-
-            // Process potential result sets
-            if (hasResults) {
-                try (ResultSet rs = prepStoredProc.executeQuery()) {
-                    if (rs.next()) {
-                        System.out.println("\n=== Facility Details ===");
-                        System.out.println("Facility ID:        " + rs.getInt("facility_id"));
-                        System.out.println("Facility Name:      " + rs.getString("facility_name"));
-                        System.out.println("Address:           " + rs.getString("address"));
-                        System.out.println("City:              " + rs.getString("city"));
-                        System.out.println("State:             " + rs.getString("state"));
-                        System.out.println("ZIP:               " + rs.getString("zip"));
-                        System.out.println("Phone:             " + rs.getString("phone"));
-                        System.out.println("Website:           " + rs.getString("website"));
-                        System.out.println("\nMembership #" + inpMembershipId + " for Player #" + inpPlayerId + " successfully cancelled!");
-                    } else {
-                        System.out.println("No results returned.");
-                    }
-                }
+        try (Metrics.Scope op = Metrics.start("cancelMembership")) {
+            FacilityRepository.Facility facility = storage.cancelMembership(inpPlayerId, inpMembershipId);
+            if (facility != null) {
+                journal.append("cancelMembership", ACTOR, "playerId", inpPlayerId, "membershipId", inpMembershipId);
+                System.out.println("\n=== Facility Details ===");
+                System.out.println("Facility ID:        " + facility.facilityId);
+                System.out.println("Facility Name:      " + facility.name);
+                System.out.println("Address:           " + facility.address);
+                System.out.println("City:              " + facility.city);
+                System.out.println("State:             " + facility.state);
+                System.out.println("ZIP:               " + facility.zip);
+                System.out.println("Phone:             " + facility.phone);
+                System.out.println("Website:           " + facility.website);
+                System.out.println("\nMembership #" + inpMembershipId + " for Player #" + inpPlayerId + " successfully cancelled!");
             } else {
-                System.out.println("No result set was returned.");
+                System.out.println("No results returned.");
             }
-
-            // Commit the transaction
-            connection.commit();
         } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                System.out.println("Error rolling back transaction: " + rollbackEx.getMessage());
-            }
             System.out.println("Database error: " + e.getMessage());
             e.printStackTrace();
         }
@@ -240,7 +811,7 @@ public class App {
 
 
 // Use Case 3 (with Completed‑status check)
-private static void cancelMatchesAtFacility(Connection connection, Scanner scanner) {
+private static void cancelMatchesAtFacility(Scanner scanner) {
     System.out.println("\n=== Cancel a Specific Match at a Facility ===");
     System.out.print("Enter the facility id (as an integer): ");
     int facilityId;
@@ -263,99 +834,36 @@ private static void cancelMatchesAtFacility(Connection connection, Scanner scann
     System.out.print("Enter reason for cancellation: ");
     String reason = scanner.nextLine().trim();
 
-    String checkSql = 
-        "SELECT status " +
-        "  FROM game " +
-        " WHERE game_id     = ? " +
-        "   AND facility_id = ?";
-    String updateSql = 
-        "UPDATE game " +
-        "   SET status = 'Cancelled' " +
-        " WHERE facility_id = ? " +
-        "   AND game_id     = ? " +
-        "   AND status      = 'Scheduled'";
-    String selectSql =
-        "SELECT game_id, league_id, facility_id, date_time, status, game_type " +
-        "  FROM game " +
-        " WHERE game_id = ?";
+    try (Metrics.Scope op = Metrics.start("cancelMatchesAtFacility")) {
+        Storage.MatchCancellation cancellation = storage.cancelMatch(facilityId, matchId);
+        GameRepository.Game game = cancellation.game;
 
-    try {
-        connection.setAutoCommit(false);
-
-        // 1) Pre‑check: does the match exist, and what's its status?
-        String currentStatus;
-        try (PreparedStatement chk = connection.prepareStatement(checkSql)) {
-            chk.setInt(1, matchId);
-            chk.setInt(2, facilityId);
-            try (ResultSet rs = chk.executeQuery()) {
-                if (!rs.next()) {
-                    System.out.println("No match found for facility " 
-                        + facilityId + " with match ID " + matchId);
-                    connection.rollback();
-                    return;
-                }
-                currentStatus = rs.getString("status");
-            }
-        }
-
-        // 2) If it's already completed, error out
-        if ("Completed".equalsIgnoreCase(currentStatus)) {
+        if (cancellation.previousStatus == null) {
+            System.out.println("No match found for facility " 
+                + facilityId + " with match ID " + matchId);
+        } else if ("Completed".equalsIgnoreCase(cancellation.previousStatus)) {
             System.out.println("Cannot cancel: match #" + matchId 
                 + " has already been completed.");
-            connection.rollback();
-            return;
-        }
-
-        // 3) Proceed only if it was Scheduled
-        int affected;
-        try (PreparedStatement upd = connection.prepareStatement(updateSql)) {
-            upd.setInt(1, facilityId);
-            upd.setInt(2, matchId);
-            affected = upd.executeUpdate();
-        }
-
-        if (affected == 0) {
+        } else if (game == null) {
             // could happen if status was neither Scheduled nor Completed (e.g. already Cancelled)
             System.out.println("No scheduled match to cancel (status=" 
-                + currentStatus + ").");
-            connection.rollback();
-            return;
-        }
-
-        // 4) Retrieve and display the now‑cancelled match
-        try (PreparedStatement sel = connection.prepareStatement(selectSql)) {
-            sel.setInt(1, matchId);
-            try (ResultSet rs = sel.executeQuery()) {
-                if (rs.next()) {
-                    System.out.println("\n--- Cancelled Match Details ---");
-                    System.out.println("Match ID:    " + rs.getInt("game_id"));
-                    System.out.println("League ID:   " + rs.getInt("league_id"));
-                    System.out.println("Facility ID: " + rs.getInt("facility_id"));
-                    System.out.println("Date/Time:   " + rs.getTimestamp("date_time"));
-                    System.out.println("Status:      " + rs.getString("status"));
-                    System.out.println("Game Type:   " + rs.getString("game_type"));
-                    System.out.println("Reason:      " + reason);
-                } else {
-                    System.out.println("Match record not found after cancellation.");
-                }
-            }
+                + cancellation.previousStatus + ").");
+        } else {
+            journal.append("cancelMatch", ACTOR, "facilityId", facilityId, "gameId", matchId, "reason", reason);
+            notified(notifier.matchesCancelled(Collections.singletonList(game.gameId), reason));
+            System.out.println("\n--- Cancelled Match Details ---");
+            System.out.println("Match ID:    " + game.gameId);
+            System.out.println("League ID:   " + game.leagueId);
+            System.out.println("Facility ID: " + game.facilityId);
+            System.out.println("Date/Time:   " + game.dateTime);
+            System.out.println("Status:      " + game.status);
+            System.out.println("Game Type:   " + game.gameType);
+            System.out.println("Reason:      " + reason);
+            bayIndex.gameEnded(game.facilityId, game.dateTime.toLocalDateTime());
         }
-
-        connection.commit();
     } catch (SQLException e) {
         System.out.println("Database error: " + e.getMessage());
-        try {
-            connection.rollback();
-            System.out.println("Transaction rolled back.");
-        } catch (SQLException ex) {
-            System.out.println("Rollback failed: " + ex.getMessage());
-        }
-    } finally {
-        try {
-            connection.setAutoCommit(true);
-        } catch (SQLException e) {
-            System.out.println("Failed to reset auto-commit: " + e.getMessage());
-        }
+        System.out.println("Transaction rolled back.");
     }
 }
 
@@ -364,12 +872,12 @@ private static void cancelMatchesAtFacility(Connection connection, Scanner scann
     // Use case 4:
     // - e.g., Register everyone at Top Golf (1) to an Advanced league starting now, ending 2025-07-31, RR
     // - called "TopGolf (CLE) Only Summer League"
-    private static void createFacilityLeague(Connection connection, Scanner scanner) {
+    private static void createFacilityLeague(DataSource dataSource, Scanner scanner) {
         System.out.println("\n=== Create Facility League ===");
-        String callStoredProc = "{call CreateFacilityLeague(?,?,?,?,?,?,?)}";
         int facilityId;
         String leagueName, skillLevel, startDate, endDate, leagueFormat;
         int maxTeams;
+        int leagueId;
 
         // 1. Prompt the user for information
         try {
@@ -415,75 +923,62 @@ private static void cancelMatchesAtFacility(Connection connection, Scanner scann
             return;
         }
 
-        // 2. Run stored procedure with input
-        try (CallableStatement prepStoredProc = connection.prepareCall(callStoredProc)) {
-            connection.setAutoCommit(false);
-
-            // Set input parameters
-            prepStoredProc.setInt(1, facilityId);
-            prepStoredProc.setString(2, leagueName);
-            prepStoredProc.setString(3, skillLevel);
-            prepStoredProc.setDate(4, Date.valueOf(startDate));
-            prepStoredProc.setDate(5, Date.valueOf(endDate));
-            prepStoredProc.setInt(6, maxTeams);
-            prepStoredProc.setString(7, leagueFormat);
-
-            // Execute the stored procedure
-            boolean hasResults = prepStoredProc.execute();
-
-            // Process potential result sets
-            while (hasResults) {
-                try (ResultSet rs = prepStoredProc.getResultSet()) {
-                    ResultSetMetaData metaData = rs.getMetaData();
-                    int columnCount = metaData.getColumnCount();
-
-                    System.out.println("\n=== Teams Registered to the New League ===");
-
-                    // Print column headers
-                    for (int i = 1; i <= columnCount; i++) {
-                        System.out.printf("%-30s", metaData.getColumnName(i));
-                    }
-                    System.out.println();
-
-                    // Print separator
-                    for (int i = 1; i <= columnCount; i++) {
-                        System.out.print("------------------------------");
-                    }
-                    System.out.println();
-
-                    // Print data rows
-                    while (rs.next()) {
-                        for (int i = 1; i <= columnCount; i++) {
-                            System.out.printf("%-30s", rs.getString(i));
-                        }
-                        System.out.println();
-                    }
-
-                    System.out.println("\nNew league created and teams registered successfully!");
-                }
-
-                hasResults = prepStoredProc.getMoreResults();
+        // 2. Create the league and register the facility's teams in one transaction
+        Date start = Date.valueOf(startDate);
+        Date end = Date.valueOf(endDate);
+        try (Metrics.Scope op = Metrics.start("createFacilityLeague")) {
+            List<LeagueRepository.RegisteredTeam> registered = storage.createFacilityLeague(
+                    facilityId, leagueName, skillLevel, start, end, maxTeams, leagueFormat);
+            journal.append("createFacilityLeague", ACTOR, "facilityId", facilityId,
+                    "leagueId", registered.isEmpty() ? null : registered.get(0).leagueId, "leagueName", leagueName,
+                    "skillLevel", skillLevel, "startDate", start, "endDate", end, "maxTeams", maxTeams,
+                    "leagueFormat", leagueFormat, "teams", registered.size());
+
+            // 3. Print the registered teams
+            String[] headers = {"league_id", "league_name", "team_id", "team_name", "facility_name", "join_date"};
+            System.out.println("\n=== Teams Registered to the New League ===");
+            for (String header : headers) {
+                System.out.printf("%-30s", header);
+            }
+            System.out.println();
+            for (int i = 0; i < headers.length; i++) {
+                System.out.print("------------------------------");
+            }
+            System.out.println();
+
+            for (LeagueRepository.RegisteredTeam team : registered) {
+                LeagueRepository.League league = storage.league(team.leagueId);
+                FacilityRepository.Facility facility = storage.facility(team.homeFacilityId);
+                System.out.printf("%-30s%-30s%-30s%-30s%-30s%-30s%n", team.leagueId, league.name,
+                        team.teamId, team.teamName, facility.name, team.joinDate);
+                standingsStore.addTeam(team.leagueId, team.teamId, team.teamName);
+                ratingEngine.addLeagueTeam(team.leagueId, team.teamId, team.teamName);
             }
 
-            // 4. Commit the transaction
-            connection.commit();
+            System.out.println("\nNew league created and teams registered successfully!");
+            leagueId = registered.isEmpty() ? 0 : registered.get(0).leagueId;
 
         } catch (SQLException e) {
-            // 5. Handle Errors
-            try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                System.out.println("Error rolling back transaction: " + rollbackEx.getMessage());
-            }
+            // 4. Handle Errors (the executor has rolled the transaction back)
             System.out.println("Database error: " + e.getMessage());
             e.printStackTrace();
+            return;
+        }
+
+        // 5. Generate the season's games (the in-memory store keeps no schedule)
+        if (leagueId != 0 && storage instanceof JdbcStorage) {
+            try (Metrics.Scope op = Metrics.start("scheduleLeague")) {
+                int games = storage.scheduleLeague(leagueId, bayIndex, ratingEngine);
+                System.out.printf("Scheduled %d games for league #%d.%n", games, leagueId);
+            } catch (SQLException e) {
+                System.out.println("Could not generate the schedule: " + e.getMessage());
+            }
         }
     }
 
     // Use Case 9: Update Match Results
-    private static void updateMatchResults(Connection connection, Scanner scanner) {
+    private static void updateMatchResults(Scanner scanner) {
         System.out.println("\n=== Update Match Results ===");
-        String callStoredProc = "{call dbo.UpdateMatchResults(?,?,?,?,?)}";
         int inpGameId, inpTeam1Id, inpTeam1Score, inpTeam2Id, inpTeam2Score;
 
         // Prompt the user for information
@@ -507,58 +1002,53 @@ private static void cancelMatchesAtFacility(Connection connection, Scanner scann
             return;
         }
 
-        // Run stored procedure with input
-        try (CallableStatement prepStoredProc = connection.prepareCall(callStoredProc)) {
-            connection.setAutoCommit(false);
-
-            // Set input parameters
-            prepStoredProc.setInt(1, inpGameId);
-            prepStoredProc.setInt(2, inpTeam1Id);
-            prepStoredProc.setInt(3, inpTeam1Score);
-            prepStoredProc.setInt(4, inpTeam2Id);
-            prepStoredProc.setInt(5, inpTeam2Score);
-
-            // Execute the stored procedure
-            boolean hasResults = prepStoredProc.execute();
-
-            // Process potential result sets
-            if (hasResults) {
-                try (ResultSet rs = prepStoredProc.getResultSet()) {
-                    if (rs.next()) {
-                        System.out.println("\n=== Match Results Successfully Updated ===");
-                        System.out.println("Game ID:            " + rs.getInt("game_id"));
-                        System.out.println("League:             " + (rs.getString("league_name") != null ? rs.getString("league_name") : "N/A"));
-                        System.out.println("Facility:           " + rs.getString("facility_name"));
-                        System.out.println("Date/Time:          " + rs.getTimestamp("date_time"));
-                        System.out.println("Status:             " + rs.getString("status"));
-                        System.out.println("Game Type:          " + rs.getString("game_type"));
-                        System.out.println("\n=== Results Summary ===");
-                        System.out.println(rs.getString("team1_name") + ": " + rs.getInt("team1_score"));
-                        System.out.println(rs.getString("team2_name") + ": " + rs.getInt("team2_score"));
-                        System.out.println("Winner:             " + rs.getString("winner"));
-                    } else {
-                        System.out.println("No results returned.");
-                    }
+        try (Metrics.Scope op = Metrics.start("updateMatchResults")) {
+            GameRepository.MatchResult result =
+                    storage.updateMatchResults(inpGameId, inpTeam1Id, inpTeam1Score, inpTeam2Id, inpTeam2Score);
+            if (result != null) {
+                journal.append("updateMatchResults", ACTOR, "gameId", inpGameId, "team1Id", inpTeam1Id,
+                        "team1Score", inpTeam1Score, "team2Id", inpTeam2Id, "team2Score", inpTeam2Score);
+                LeagueRepository.League league = result.leagueId != null ? storage.league(result.leagueId) : null;
+                FacilityRepository.Facility facility = storage.facility(result.facilityId);
+                System.out.println("\n=== Match Results Successfully Updated ===");
+                System.out.println("Game ID:            " + result.gameId);
+                System.out.println("League:             " + (league != null ? league.name : "N/A"));
+                System.out.println("Facility:           " + facility.name);
+                System.out.println("Date/Time:          " + result.dateTime);
+                System.out.println("Status:             " + result.status);
+                System.out.println("Game Type:          " + result.gameType);
+                System.out.println("\n=== Results Summary ===");
+                System.out.println(result.team1Name + ": " + result.team1Score);
+                System.out.println(result.team2Name + ": " + result.team2Score);
+                System.out.println("Winner:             " + result.winner);
+
+                LocalDateTime playedAt = result.dateTime.toLocalDateTime();
+                handicapEngine.recordResult(inpTeam1Id, inpTeam1Score, playedAt);
+                handicapEngine.recordResult(inpTeam2Id, inpTeam2Score, playedAt);
+                ratingEngine.recordGame(new int[]{inpTeam1Id, inpTeam2Id}, new int[]{inpTeam1Score, inpTeam2Score},
+                        playedAt);
+
+                if (result.leagueId != null) {
+                    standingsStore.recordGame(result.leagueId,
+                            new int[]{inpTeam1Id, inpTeam2Id}, new int[]{inpTeam1Score, inpTeam2Score});
                 }
+                bayIndex.gameEnded(result.facilityId, result.dateTime.toLocalDateTime());
             } else {
-                System.out.println("No result set was returned.");
+                System.out.println("No results returned.");
             }
 
-            // Commit the transaction
-            connection.commit();
+            // Write back the handicaps of everyone on both teams
+            handicapEngine.advanceTo(LocalDateTime.now());
+            int updated = storage.saveHandicaps(handicapEngine);
+            System.out.println("Handicaps updated:  " + updated);
         } catch (SQLException e) {
-            try {
-                connection.rollback();
-            } catch (SQLException rollbackEx) {
-                System.out.println("Error rolling back transaction: " + rollbackEx.getMessage());
-            }
             System.out.println("Database error: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
    // Use Case 7: Update League Status (with handicap‑adjusted final standings)
-private static void updateLeagueStatus(Connection connection, Scanner scanner) {
+private static void updateLeagueStatus(Scanner scanner) {
     System.out.println("\n=== Update League Status ===");
     System.out.print("Enter League ID: ");
     int leagueId;
@@ -569,173 +1059,345 @@ private static void updateLeagueStatus(Connection connection, Scanner scanner) {
         return;
     }
 
-    try {
-        connection.setAutoCommit(false);
+    try (Metrics.Scope op = Metrics.start("updateLeagueStatus")) {
+        Storage.LeagueTransition transition = storage.updateLeagueStatus(leagueId);
+        if (transition.rejection != null) {
+            System.out.println(transition.rejection);
+            return;
+        }
+        String currentStatus = transition.previous.status;
+        LeagueRepository.League updated = transition.updated;
+        journal.append("updateLeagueStatus", ACTOR, "leagueId", leagueId,
+                "from", currentStatus, "to", updated.status);
+        notified(notifier.leagueStatusChanged(leagueId, currentStatus, updated.status));
+        if ("In Season".equals(updated.status)) {
+            storage.refreshLeaderboards(leaderboards, leagueId);
+        }
 
-        // 1) Fetch current status + max_teams
-        String fetchSql = "SELECT status, max_teams FROM league WHERE league_id = ?";
-        String currentStatus;
-        int maxTeams;
-        try (PreparedStatement ps = connection.prepareStatement(fetchSql)) {
-            ps.setInt(1, leagueId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
-                    System.out.println("League not found.");
-                    connection.rollback();
-                    return;
-                }
-                currentStatus = rs.getString("status");
-                maxTeams      = rs.getInt("max_teams");
-            }
-        }
-
-        // 2) Decide next status
-        String nextStatus;
-        switch (currentStatus) {
-            case "Setting Up":
-                // only go In Season if all teams have joined
-                int joinedCount;
-                try (PreparedStatement ps = connection.prepareStatement(
-                        "SELECT COUNT(*) FROM league_team WHERE league_id = ?")) {
-                    ps.setInt(1, leagueId);
-                    try (ResultSet rs = ps.executeQuery()) {
-                        rs.next();
-                        joinedCount = rs.getInt(1);
-                    }
-                }
-                if (joinedCount < maxTeams) {
-                    System.out.printf(
-                      "Cannot move to In Season: %d of %d teams have joined.%n",
-                      joinedCount, maxTeams
-                    );
-                    connection.rollback();
-                    return;
-                }
-                nextStatus = "In Season";
-                break;
+        // Show the updated league
+        System.out.println("\n--- League Updated ---");
+        System.out.println("League ID:   " + updated.leagueId);
+        System.out.println("Name:        " + updated.name);
+        System.out.println("Location:    "
+            + updated.city + ", "
+            + updated.state + " "
+            + updated.zip);
+        System.out.println("Skill Level: " + updated.skillLevel);
+        System.out.println("Status:      " + updated.status);
+        System.out.println("Start Date:  " + updated.startDate);
+        System.out.println("End Date:    " + updated.endDate);
+        System.out.println("Max Teams:   " + updated.maxTeams);
+        System.out.printf("Transitioned from \"%s\" to \"%s\".%n",
+                          currentStatus, updated.status);
+
+        // If we just moved to "Completed", print net‑points standings from the live standings store
+        if ("Completed".equals(updated.status)) {
+            System.out.println("\n--- Final Standings (Net Points) ---");
+            storage.refreshTeamHandicaps(standingsStore, leagueId);
+            printStandings(standingsStore.standings(leagueId));
+        }
+    } catch (SQLException e) {
+        System.out.println("Database error: " + e.getMessage());
+        System.out.println("Rolled back.");
+    }
+}
 
-            case "In Season":
-                nextStatus = "Playoffs";
-                break;
 
-            case "Playoffs":
-                nextStatus = "Completed";
-                break;
 
-            case "Paused":
-                nextStatus = "In Season";
-                break;
+    // Live standings for any league, served from the in-memory standings store
+    private static void showStandings(Scanner scanner) {
+        System.out.println("\n=== League Standings ===");
+        System.out.print("Enter League ID: ");
+        int leagueId;
+        try {
+            leagueId = Integer.parseInt(scanner.nextLine().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid League ID. Exiting...");
+            return;
+        }
 
-            case "Completed":
-                System.out.println("League is already Completed; no further transition.");
-                connection.rollback();
-                return;
+        // Team handicaps move with every result, so re-read the roster totals (no game history scan)
+        try (Metrics.Scope op = Metrics.start("showStandings")) {
+            storage.refreshTeamHandicaps(standingsStore, leagueId);
+            LeagueRepository.League league = storage.league(leagueId);
+            if (league != null) {
+                System.out.println(league.name + " (" + league.status + ")");
+            }
+        } catch (SQLException e) {
+            System.out.println("Could not refresh team handicaps: " + e.getMessage());
+        }
 
-            default:
-                System.out.println("Unknown status: " + currentStatus);
-                connection.rollback();
-                return;
+        List<TeamStanding> table = standingsStore.standings(leagueId);
+        if (table.isEmpty()) {
+            System.out.println("No teams found for league " + leagueId + ".");
+            return;
         }
+        printStandings(table);
+    }
 
-        // 3) Apply the status update
-        try (PreparedStatement ps = connection.prepareStatement(
-                "UPDATE league SET status = ? WHERE league_id = ?")) {
-            ps.setString(1, nextStatus);
-            ps.setInt(2,    leagueId);
-            ps.executeUpdate();
-        }
-
-        // 4) Show the updated league
-        try (PreparedStatement ps = connection.prepareStatement(
-                "SELECT league_id, name, city, state, zip, skill_level, status, start_date, end_date, max_teams "
-              + "FROM league WHERE league_id = ?")) {
-            ps.setInt(1, leagueId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    System.out.println("\n--- League Updated ---");
-                    System.out.println("League ID:   " + rs.getInt("league_id"));
-                    System.out.println("Name:        " + rs.getString("name"));
-                    System.out.println("Location:    "
-                        + rs.getString("city") + ", "
-                        + rs.getString("state") + " "
-                        + rs.getString("zip"));
-                    System.out.println("Skill Level: " + rs.getString("skill_level"));
-                    System.out.println("Status:      " + rs.getString("status"));
-                    System.out.println("Start Date:  " + rs.getDate("start_date"));
-                    System.out.println("End Date:    " + rs.getDate("end_date"));
-                    System.out.println("Max Teams:   " + rs.getInt("max_teams"));
-                    System.out.printf("Transitioned from \"%s\" to \"%s\".%n",
-                                      currentStatus, nextStatus);
-                }
-            }
+    // Playoff seeding: a league's teams by Elo power rating, from the in-memory rating engine
+    private static void showRatings(Scanner scanner) {
+        System.out.println("\n=== League Power Ratings ===");
+        System.out.print("Enter League ID: ");
+        int leagueId;
+        try {
+            leagueId = Integer.parseInt(scanner.nextLine().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid League ID. Exiting...");
+            return;
         }
 
-        // 5) If we just moved to "Completed", print net‑points standings
-        if ("Completed".equals(nextStatus)) {
-            System.out.println("\n--- Final Standings (Net Points) ---");
-            String standingsSql =
-              "SELECT"
-            + "  t.team_id,"
-            + "  t.name AS team_name,"
-            + "  SUM(gt.score)         AS raw_points,"
-            + "  SUM(p.handicap)       AS total_handicap,"
-            + "  SUM(gt.score) - SUM(p.handicap) AS net_points"
-            + " FROM league_team lt"
-            + " JOIN team t"
-            + "   ON lt.team_id = t.team_id"
-            + " LEFT JOIN game_team gt"
-            + "   ON gt.team_id = t.team_id"
-            + "   AND gt.game_id IN ("
-            + "       SELECT game_id FROM game"
-            + "        WHERE league_id = ? AND status = 'Completed'"
-            + "     )"
-            + " JOIN team_player tp"
-            + "   ON tp.team_id = t.team_id"
-            + " JOIN player p"
-            + "   ON p.player_id = tp.player_id"
-            + " WHERE lt.league_id = ?"
-            + " GROUP BY t.team_id, t.name"
-            + " ORDER BY net_points DESC";
-
-            try (PreparedStatement ps = connection.prepareStatement(standingsSql)) {
-                ps.setInt(1, leagueId);
-                ps.setInt(2, leagueId);
-                try (ResultSet rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        System.out.printf(
-                          "Team %-3d %-20s  Raw:%4d  Hcap:%5.1f  Net:%5.1f%n",
-                          rs.getInt("team_id"),
-                          rs.getString("team_name"),
-                          rs.getInt("raw_points"),
-                          rs.getDouble("total_handicap"),
-                          rs.getDouble("net_points")
-                        );
-                    }
+        List<RatingEngine.Rating> seeding = ratingEngine.leagueSeeding(leagueId);
+        if (seeding.isEmpty()) {
+            System.out.println("No teams found for league " + leagueId + ".");
+            return;
+        }
+        printRatings(seeding);
+    }
+
+    // Handicap leaderboards by state, city and skill level, from the in-memory order-statistic trees
+    private static void showLeaderboards(Scanner scanner) {
+        System.out.println("\n=== Handicap Leaderboards ===");
+        String state;
+        String city;
+        String skillLevel;
+        int limit;
+        try {
+            System.out.print("Player id to see their ranks (leave empty to browse a leaderboard): ");
+            String input = scanner.nextLine().trim();
+            if (!input.isEmpty()) {
+                Leaderboards.Standing standing = leaderboards.standing(Integer.parseInt(input));
+                if (standing == null) {
+                    System.out.println("Player " + input + " is not on the leaderboards (no handicap, hidden profile or not found).");
+                    return;
                 }
+                System.out.printf("%s (handicap %s)%n", standing.name, standing.handicap);
+                System.out.printf("  %-40s #%d of %d%n", standing.state, standing.stateRank, standing.statePlayers);
+                System.out.printf("  %-40s #%d of %d%n", standing.city + ", " + standing.state,
+                        standing.cityRank, standing.cityPlayers);
+                System.out.printf("  %-40s #%d of %d%n", standing.skillLevel + " in " + standing.city,
+                        standing.skillRank, standing.skillPlayers);
+                return;
             }
+            System.out.print("State: ");
+            state = scanner.nextLine().trim();
+            System.out.print("City (leave empty for the whole state): ");
+            city = emptyToNull(scanner.nextLine());
+            skillLevel = null;
+            if (city != null) {
+                System.out.print("Skill level (leave empty for the whole city): ");
+                skillLevel = emptyToNull(scanner.nextLine());
+            }
+            System.out.print("Show at most (leave empty for 10): ");
+            input = scanner.nextLine().trim();
+            limit = input.isEmpty() ? 10 : Integer.parseInt(input);
+        } catch (Exception e) {
+            System.out.println("Invalid input given, please try again. Exiting...");
+            return;
         }
 
-        connection.commit();
-    } catch (SQLException e) {
-        System.out.println("Database error: " + e.getMessage());
+        List<Leaderboards.Entry> entries = leaderboards.top(state, city, skillLevel, limit);
+        if (entries.isEmpty()) {
+            System.out.println("Nobody is ranked there.");
+            return;
+        }
+        System.out.printf("%-5s %-8s %-25s %-15s %-18s %6s%n", "Rank", "ID", "Name", "City", "Skill", "Hcap");
+        for (Leaderboards.Entry e : entries) {
+            System.out.printf("%-5d %-8d %-25s %-15s %-18s %6s%n", e.rank, e.playerId, e.name, e.city,
+                    e.skillLevel, e.handicap);
+        }
+    }
+
+    // Open bays from the in-memory index (no game table scan)
+    private static void findOpenBays(Scanner scanner) {
+        System.out.println("\n=== Open Bays ===");
+        int facilityId, count;
+        LocalDateTime from, to;
         try {
-            connection.rollback();
-            System.out.println("Rolled back.");
-        } catch (SQLException ex) {
-            System.out.println("Rollback failed: " + ex.getMessage());
+            System.out.print("Enter the facility id (as an integer): ");
+            facilityId = Integer.parseInt(scanner.nextLine().trim());
+
+            System.out.print("Enter the earliest start (YYYY-MM-DD HH:MM) or leave empty for now: ");
+            String input = scanner.nextLine().trim();
+            from = input.isEmpty() ? LocalDateTime.now() : LocalDateTime.parse(input.replace(' ', 'T'));
+
+            System.out.print("Enter the latest start (YYYY-MM-DD HH:MM) or leave empty for a week later: ");
+            input = scanner.nextLine().trim();
+            to = input.isEmpty() ? from.plusDays(7) : LocalDateTime.parse(input.replace(' ', 'T'));
+
+            System.out.print("How many slots? (leave empty for 5): ");
+            input = scanner.nextLine().trim();
+            count = input.isEmpty() ? 5 : Integer.parseInt(input);
+        } catch (Exception e) {
+            System.out.println("Invalid input given, please try again. Exiting...");
+            return;
+        }
+
+        int bays = bayIndex.bays(facilityId);
+        if (bays < 0) {
+            System.out.println("Facility " + facilityId + " not found.");
+            return;
         }
-    } finally {
+        int inProgress = bayIndex.gamesInProgress(facilityId, from);
+        System.out.printf("Bays in use at %s: %d of %d%s%n", from.withSecond(0).withNano(0), inProgress, bays,
+                bayIndex.capacityExceeded(facilityId, from) ? "  (capacity exceeded!)" : "");
+
+        List<BayAvailabilityIndex.Slot> slots = bayIndex.openSlots(facilityId, from, to, count);
+        if (slots.isEmpty()) {
+            System.out.println("No open slots between " + from + " and " + to + ".");
+            return;
+        }
+        System.out.printf("%-20s %s%n", "Start", "Free bays");
+        for (BayAvailabilityIndex.Slot slot : slots) {
+            System.out.printf("%-20s %d%n", slot.start, slot.freeBays);
+        }
+    }
+
+    // Facility closure (e.g. weather): cancels every Scheduled match at a facility in a time window at once
+    private static void closeFacility(Scanner scanner) {
+        System.out.println("\n=== Close a Facility ===");
+        int facilityId;
+        LocalDateTime from, to;
+        String reason;
         try {
-            connection.setAutoCommit(true);
+            System.out.print("Enter the facility id (as an integer): ");
+            facilityId = Integer.parseInt(scanner.nextLine().trim());
+
+            System.out.print("Closed from (YYYY-MM-DD HH:MM) or leave empty for now: ");
+            String input = scanner.nextLine().trim();
+            from = input.isEmpty() ? LocalDateTime.now() : LocalDateTime.parse(input.replace(' ', 'T'));
+
+            System.out.print("Closed until (YYYY-MM-DD HH:MM) or leave empty for the end of that day: ");
+            input = scanner.nextLine().trim();
+            to = input.isEmpty() ? from.toLocalDate().plusDays(1).atStartOfDay()
+                    : LocalDateTime.parse(input.replace(' ', 'T'));
+
+            System.out.print("Enter reason for cancellation: ");
+            reason = scanner.nextLine().trim();
+        } catch (Exception e) {
+            System.out.println("Invalid input given, please try again. Exiting...");
+            return;
+        }
+        if (!to.isAfter(from)) {
+            System.out.println("The closure must end after it starts. Exiting...");
+            return;
+        }
+
+        List<GameRepository.CancelledGame> cancelled;
+        try (Metrics.Scope op = Metrics.start("closeFacility")) {
+            cancelled = storage.closeFacility(facilityId, Timestamp.valueOf(from), Timestamp.valueOf(to));
         } catch (SQLException e) {
-            System.out.println("Couldn't reset auto-commit: " + e.getMessage());
+            System.out.println("Database error: " + e.getMessage());
+            return;
+        }
+        journal.append("closeFacility", ACTOR, "facilityId", facilityId, "from", from, "to", to,
+                "reason", reason, "cancelled", cancelled.size());
+        List<Integer> gameIds = new ArrayList<>(cancelled.size());
+        for (GameRepository.CancelledGame game : cancelled) {
+            bayIndex.gameEnded(game.facilityId, game.dateTime.toLocalDateTime());
+            gameIds.add(game.gameId);
+        }
+        notified(notifier.matchesCancelled(gameIds, reason));
+
+        if (cancelled.isEmpty()) {
+            System.out.println("No scheduled matches at facility " + facilityId + " between " + from + " and " + to + ".");
+            return;
         }
+        System.out.println("\n--- Cancelled Matches (" + reason + ") ---");
+        System.out.printf("%-8s %-8s %-22s %-16s %s%n", "Match", "League", "Date/Time", "Game Type", "Teams");
+        for (GameRepository.CancelledGame game : cancelled) {
+            System.out.printf("%-8d %-8s %-22s %-16s %s%n", game.gameId, game.leagueId == null ? "-" : game.leagueId,
+                    game.dateTime, game.gameType, game.teamNames.isEmpty() ? "TBD" : String.join(" vs ", game.teamNames));
+        }
+        System.out.println(cancelled.size() + " match(es) cancelled.");
     }
-}
 
+    // Matchmaking: Public players near a given player (or a location) at a similar level, streamed page by page
+    private static void findPlayers(ReadRouter reads, Scanner scanner) {
+        System.out.println("\n=== Find Players ===");
+        int matchPlayerId;
+        PlayerRepository.Criteria criteria = new PlayerRepository.Criteria();
+        long limit;
+        try {
+            System.out.print("Match against player id (leave empty to search by location): ");
+            String input = scanner.nextLine().trim();
+            matchPlayerId = input.isEmpty() ? 0 : Integer.parseInt(input);
+            if (matchPlayerId == 0) {
+                System.out.print("State: ");
+                criteria.state = scanner.nextLine().trim();
+                System.out.print("City (leave empty for any): ");
+                criteria.city = emptyToNull(scanner.nextLine());
+                System.out.print("ZIP (leave empty for any): ");
+                criteria.zip = emptyToNull(scanner.nextLine());
+                System.out.print("Skill level (leave empty for any): ");
+                criteria.skillLevel = emptyToNull(scanner.nextLine());
+                System.out.print("Minimum handicap (leave empty for any): ");
+                input = scanner.nextLine().trim();
+                criteria.minHandicap = input.isEmpty() ? null : new BigDecimal(input);
+                System.out.print("Maximum handicap (leave empty for any): ");
+                input = scanner.nextLine().trim();
+                criteria.maxHandicap = input.isEmpty() ? null : new BigDecimal(input);
+            }
+            System.out.print("Show at most (leave empty for 50): ");
+            input = scanner.nextLine().trim();
+            limit = input.isEmpty() ? 50 : Long.parseLong(input);
+        } catch (Exception e) {
+            System.out.println("Invalid input given, please try again. Exiting...");
+            return;
+        }
 
-    
+        // A read-only report: streamed from the replica while it is within its lag bound
+        try (Metrics.Scope op = Metrics.start("findPlayers");
+             Connection connection = reads.readSource().getConnection()) {
+            if (matchPlayerId != 0) {
+                PlayerRepository.Player player = players.find(connection, matchPlayerId);
+                if (player == null) {
+                    System.out.println("Player " + matchPlayerId + " not found.");
+                    return;
+                }
+                criteria = PlayerRepository.matchesFor(player, new BigDecimal("3.0"));
+                System.out.printf("Players in %s, %s at %s level with a handicap within 3 of %s:%n",
+                        player.city, player.state, player.skillLevel, player.handicap);
+            }
+            if (criteria.state == null || criteria.state.isEmpty()) {
+                System.out.println("A state is required.");
+                return;
+            }
 
-}
+            System.out.printf("%-8s %-25s %-15s %-6s %-18s %6s%n", "ID", "Name", "City", "ZIP", "Skill", "Hcap");
+            long shown = players.stream(connection, criteria, PlayerRepository.DEFAULT_PAGE_SIZE, limit, p ->
+                    System.out.printf("%-8d %-25s %-15s %-6s %-18s %6s%n", p.playerId,
+                            p.firstName + " " + p.lastName, p.city, p.zip, p.skillLevel, p.handicap));
+            System.out.println(shown == 0 ? "No matching players." : shown + " player(s).");
+        } catch (SQLException e) {
+            System.out.println("Database error: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
 
+    private static void printRatings(List<RatingEngine.Rating> ratings) {
+        System.out.printf("%-5s %-8s %-24s %7s %6s%n", "Seed", "Id", "Name", "Rating", "Games");
+        int seed = 1;
+        for (RatingEngine.Rating r : ratings) {
+            System.out.printf("%-5d %-8d %-24s %7.0f %6d%s%n", seed++, r.id, r.name == null ? "" : r.name,
+                    r.rating, r.games, r.provisional() ? "  (provisional)" : "");
+        }
+    }
 
+    private static void printStandings(List<TeamStanding> table) {
+        System.out.printf("%-4s %-8s %-20s %3s %3s %3s %6s %6s %7s%n",
+                "Pos", "Team", "Name", "W", "L", "T", "Raw", "Hcap", "Net");
+        int position = 1;
+        for (TeamStanding s : table) {
+            System.out.printf("%-4d Team %-3d %-20s %3d %3d %3d %6d %6.1f %7.1f%n",
+                    position++, s.teamId, s.teamName(), s.wins(), s.losses(), s.ties(),
+                    s.rawPoints(), s.teamHandicap(), s.netPoints());
+        }
+    }
+
+}
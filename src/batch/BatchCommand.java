@@ -0,0 +1,97 @@
+package batch;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * One parsed line of a batch file.
+ *
+ * Supported commands (whitespace separated, '#' starts a comment):
+ *   joinTeam <playerId> <teamId> [yyyy-mm-dd|-] [Captain|Member]
+ *   cancelMembership <playerId> <membershipId>
+ *   updateMatchResults <gameId> <team1Id> <team1Score> <team2Id> <team2Score>
+ */
+public class BatchCommand {
+
+    public enum Type { JOIN_TEAM, CANCEL_MEMBERSHIP, UPDATE_MATCH_RESULTS }
+
+    public final int lineNumber;
+    public final String text;
+    public final Type type;
+    public final int[] ints;
+    public final Date date;
+    public final String position;
+
+    private BatchCommand(int lineNumber, String text, Type type, int[] ints, Date date, String position) {
+        this.lineNumber = lineNumber;
+        this.text = text;
+        this.type = type;
+        this.ints = ints;
+        this.date = date;
+        this.position = position;
+    }
+
+    /**
+     * Parses a line, returning null for blank lines and comments.
+     *
+     * @throws IllegalArgumentException with a user-facing message when the line is malformed
+     */
+    public static BatchCommand parse(int lineNumber, String line) {
+        int hash = line.indexOf('#');
+        String text = (hash >= 0 ? line.substring(0, hash) : line).trim();
+        if (text.isEmpty()) {
+            return null;
+        }
+        String[] tokens = text.split("\\s+");
+        switch (tokens[0]) {
+            case "joinTeam": {
+                if (tokens.length < 3 || tokens.length > 5) {
+                    throw new IllegalArgumentException("usage: joinTeam <playerId> <teamId> [date|-] [position]");
+                }
+                Date date = Date.valueOf(LocalDate.now());
+                if (tokens.length > 3 && !tokens[3].equals("-")) {
+                    try {
+                        date = Date.valueOf(LocalDate.parse(tokens[3]));
+                    } catch (DateTimeParseException e) {
+                        throw new IllegalArgumentException("invalid join date: " + tokens[3]);
+                    }
+                }
+                String position = tokens.length > 4 ? tokens[4] : "Member";
+                if (!position.equals("Captain") && !position.equals("Member")) {
+                    throw new IllegalArgumentException("position must be Captain or Member");
+                }
+                return new BatchCommand(lineNumber, text, Type.JOIN_TEAM, ints(tokens, 1, 2), date, position);
+            }
+            case "cancelMembership":
+                if (tokens.length != 3) {
+                    throw new IllegalArgumentException("usage: cancelMembership <playerId> <membershipId>");
+                }
+                return new BatchCommand(lineNumber, text, Type.CANCEL_MEMBERSHIP, ints(tokens, 1, 2), null, null);
+            case "updateMatchResults":
+                if (tokens.length != 6) {
+                    throw new IllegalArgumentException(
+                            "usage: updateMatchResults <gameId> <team1Id> <team1Score> <team2Id> <team2Score>");
+                }
+                int[] values = ints(tokens, 1, 5);
+                if (values[1] == values[3]) {
+                    throw new IllegalArgumentException("a game needs two different teams");
+                }
+                return new BatchCommand(lineNumber, text, Type.UPDATE_MATCH_RESULTS, values, null, null);
+            default:
+                throw new IllegalArgumentException("unknown command: " + tokens[0]);
+        }
+    }
+
+    private static int[] ints(String[] tokens, int from, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            try {
+                values[i] = Integer.parseInt(tokens[from + i]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("expected an integer but got: " + tokens[from + i]);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,465 @@
+package batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import db.TransactionExecutor;
+import db.TransactionExecutor.Isolation;
+import handicap.HandicapEngine;
+import journal.Journal;
+import rating.RatingEngine;
+import standings.StandingsStore;
+
+/**
+ * Headless driver for the write use cases: reads commands line by line (see {@link BatchCommand}),
+ * sends them to the database with addBatch/executeBatch and commits once per chunk of
+ * {@code commitInterval} lines instead of once per command.
+ *
+ * Each command is a guarded DML statement, so a line that doesn't apply (missing membership,
+ * game not Scheduled, team not in the game) updates 0 rows and is reported without touching the
+ * rest of the chunk. If a chunk fails outright (constraint violation, duplicate join) it is rolled
+ * back and replayed line by line so only the offending lines are rejected. A chunk or line that
+ * loses a deadlock or lock timeout to another writer is first retried as a whole by a
+ * {@link TransactionExecutor}, so contention doesn't reject lines that are fine.
+ *
+ * Each applied command is appended to the {@link Journal} once its chunk has committed. The match
+ * results that completed a game are then fed to the handicap engine, standings and power ratings,
+ * and the changed handicaps are flushed, as the ingester does for its chunks.
+ */
+public class BatchRunner {
+
+    private static final String JOIN_TEAM_SQL =
+            "INSERT INTO team_player (player_id, team_id, join_date, position) VALUES (?, ?, ?, ?)";
+    private static final String CANCEL_MEMBERSHIP_SQL =
+            "UPDATE player_membership SET payment_status = 'Cancelled' "
+          + " WHERE player_id = ? AND membership_id = ?";
+    // Both teams must belong to a game that is still Scheduled, otherwise nothing is written
+    private static final String UPDATE_SCORE_SQL =
+            "UPDATE game_team SET score = ? "
+          + " WHERE game_id = ? AND team_id = ? "
+          + "   AND EXISTS (SELECT 1 FROM game g WHERE g.game_id = ? AND g.status = 'Scheduled') "
+          + "   AND (SELECT COUNT(*) FROM game_team x WHERE x.game_id = ? AND x.team_id IN (?, ?)) = 2";
+    private static final String COMPLETE_GAME_SQL =
+            "UPDATE game SET status = 'Completed' "
+          + " WHERE game_id = ? AND status = 'Scheduled' "
+          + "   AND (SELECT COUNT(*) FROM game_team x WHERE x.game_id = ? AND x.team_id IN (?, ?)) = 2";
+    private static final String GAMES_SQL = "SELECT game_id, date_time, league_id FROM game WHERE game_id IN (%s)";
+
+    static final int IDS_PER_QUERY = 1000;
+
+    private final DataSource dataSource;
+    private final int commitInterval;
+    private final PrintStream out;
+
+    private final Summary summary = new Summary();
+    private final TransactionExecutor transactions = TransactionExecutor.fromConfig();
+    private HandicapEngine handicapEngine;
+    private StandingsStore standingsStore;
+    private RatingEngine ratingEngine;
+    private Journal journal = Journal.disabled();
+    private String actor;
+
+    // Match results applied in the current chunk, fed to the engines once it has committed
+    private final List<BatchCommand> completedResults = new ArrayList<>();
+
+    public BatchRunner(DataSource dataSource, int commitInterval, PrintStream out) {
+        if (commitInterval < 1) {
+            throw new IllegalArgumentException("commitInterval must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.commitInterval = commitInterval;
+        this.out = out;
+    }
+
+    /** Feeds completed games to the engine and flushes handicaps after each committed chunk. */
+    public void setHandicapEngine(HandicapEngine handicapEngine) {
+        this.handicapEngine = handicapEngine;
+    }
+
+    /** Adds every completed league game to the live standings after each committed chunk. */
+    public void setStandingsStore(StandingsStore standingsStore) {
+        this.standingsStore = standingsStore;
+    }
+
+    /** Feeds completed games to the power ratings after each committed chunk, in date order. */
+    public void setRatingEngine(RatingEngine ratingEngine) {
+        this.ratingEngine = ratingEngine;
+    }
+
+    /** Records every applied command in {@code journal} under {@code actor}. */
+    public void setJournal(Journal journal, String actor) {
+        this.journal = journal;
+        this.actor = actor;
+    }
+
+    public Summary run(BufferedReader in) throws IOException, SQLException {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement join = connection.prepareStatement(JOIN_TEAM_SQL);
+             PreparedStatement cancel = connection.prepareStatement(CANCEL_MEMBERSHIP_SQL);
+             PreparedStatement score = connection.prepareStatement(UPDATE_SCORE_SQL);
+             PreparedStatement complete = connection.prepareStatement(COMPLETE_GAME_SQL)) {
+            connection.setAutoCommit(false);
+            Statements stmts = new Statements(join, cancel, score, complete);
+
+            List<BatchCommand> chunk = new ArrayList<>(commitInterval);
+            Set<Integer> gamesInChunk = new HashSet<>();
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                BatchCommand command;
+                try {
+                    command = BatchCommand.parse(lineNumber, line);
+                } catch (IllegalArgumentException e) {
+                    summary.lines++;
+                    fail(lineNumber, line.trim(), e.getMessage());
+                    continue;
+                }
+                if (command == null) {
+                    continue;
+                }
+                summary.lines++;
+
+                // A second result for the same game must see the first one committed
+                if (command.type == BatchCommand.Type.UPDATE_MATCH_RESULTS && !gamesInChunk.add(command.ints[0])) {
+                    flush(connection, stmts, chunk);
+                    gamesInChunk.clear();
+                    gamesInChunk.add(command.ints[0]);
+                }
+                chunk.add(command);
+                if (chunk.size() >= commitInterval) {
+                    flush(connection, stmts, chunk);
+                    gamesInChunk.clear();
+                }
+            }
+            flush(connection, stmts, chunk);
+        }
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    private void flush(Connection connection, Statements stmts, List<BatchCommand> chunk) throws SQLException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        // command -> why it did not apply (null when it did), reported once the chunk has committed
+        Map<BatchCommand, String> outcomes = new LinkedHashMap<>();
+        try {
+            transactions.execute(connection, Isolation.READ_COMMITTED, c -> {
+                stmts.clearBatches();
+                outcomes.clear();
+                runBatched(stmts, chunk, outcomes);
+                return null;
+            });
+            summary.commits++;
+            for (Map.Entry<BatchCommand, String> outcome : outcomes.entrySet()) {
+                report(outcome.getKey(), outcome.getValue() == null, outcome.getValue());
+            }
+        } catch (SQLException e) {
+            stmts.clearBatches();
+            // The rejected chunk is replayed one command per transaction to isolate the bad lines
+            for (BatchCommand command : chunk) {
+                runSingle(connection, stmts, command);
+            }
+        }
+        chunk.clear();
+        recordResults(connection);
+    }
+
+    // Feeds the committed results of the chunk to the engines, oldest game first
+    private void recordResults(Connection connection) {
+        if (completedResults.isEmpty()) {
+            return;
+        }
+        List<BatchCommand> results = new ArrayList<>(completedResults);
+        completedResults.clear();
+        if (handicapEngine == null && standingsStore == null && ratingEngine == null) {
+            return;
+        }
+
+        Map<Integer, LocalDateTime> playedAt = new HashMap<>();
+        Map<Integer, Integer> leagueOf = new HashMap<>();
+        try {
+            transactions.execute(connection, Isolation.READ_COMMITTED, c -> {
+                playedAt.clear();
+                leagueOf.clear();
+                for (int from = 0; from < results.size(); from += IDS_PER_QUERY) {
+                    int to = Math.min(results.size(), from + IDS_PER_QUERY);
+                    String sql = String.format(GAMES_SQL, String.join(",", Collections.nCopies(to - from, "?")));
+                    try (PreparedStatement ps = c.prepareStatement(sql)) {
+                        for (int i = from; i < to; i++) {
+                            ps.setInt(i - from + 1, results.get(i).ints[0]);
+                        }
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                playedAt.put(rs.getInt("game_id"), rs.getTimestamp("date_time").toLocalDateTime());
+                                int leagueId = rs.getInt("league_id");
+                                if (!rs.wasNull()) {
+                                    leagueOf.put(rs.getInt("game_id"), leagueId);
+                                }
+                            }
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            out.println("could not read the completed games (results are committed) -> " + e.getMessage());
+            return;
+        }
+
+        results.sort(Comparator.comparing((BatchCommand c) -> playedAt.get(c.ints[0]))
+                .thenComparingInt(c -> c.ints[0]));
+        for (BatchCommand c : results) {
+            int[] teams = {c.ints[1], c.ints[3]};
+            int[] scores = {c.ints[2], c.ints[4]};
+            LocalDateTime when = playedAt.get(c.ints[0]);
+            Integer leagueId = leagueOf.get(c.ints[0]);
+            if (standingsStore != null && leagueId != null) {
+                standingsStore.recordGame(leagueId, teams, scores);
+            }
+            if (ratingEngine != null) {
+                ratingEngine.recordGame(teams, scores, when);
+            }
+            if (handicapEngine != null) {
+                handicapEngine.recordResult(teams[0], scores[0], when);
+                handicapEngine.recordResult(teams[1], scores[1], when);
+            }
+        }
+        if (handicapEngine != null) {
+            try {
+                summary.handicapsUpdated += transactions.execute(connection, Isolation.READ_COMMITTED,
+                        handicapEngine::flush);
+            } catch (SQLException e) {
+                out.println("handicap flush failed (results are committed) -> " + e.getMessage());
+            }
+        }
+    }
+
+    private void runBatched(Statements stmts, List<BatchCommand> chunk, Map<BatchCommand, String> outcomes)
+            throws SQLException {
+        List<BatchCommand> joins = new ArrayList<>();
+        List<BatchCommand> cancels = new ArrayList<>();
+        List<BatchCommand> results = new ArrayList<>();
+        for (BatchCommand command : chunk) {
+            switch (command.type) {
+                case JOIN_TEAM:
+                    bindJoin(stmts.join, command);
+                    stmts.join.addBatch();
+                    joins.add(command);
+                    break;
+                case CANCEL_MEMBERSHIP:
+                    bindCancel(stmts.cancel, command);
+                    stmts.cancel.addBatch();
+                    cancels.add(command);
+                    break;
+                case UPDATE_MATCH_RESULTS:
+                    bindScore(stmts.score, command, 1);
+                    stmts.score.addBatch();
+                    bindScore(stmts.score, command, 3);
+                    stmts.score.addBatch();
+                    bindComplete(stmts.complete, command);
+                    stmts.complete.addBatch();
+                    results.add(command);
+                    break;
+            }
+        }
+
+        int[] joinCounts = execute(stmts.join, joins);
+        int[] cancelCounts = execute(stmts.cancel, cancels);
+        int[] scoreCounts = execute(stmts.score, results);
+        int[] completeCounts = execute(stmts.complete, results);
+
+        // Guarded statements write nothing when they don't apply, so failures here have no side effects
+        for (int i = 0; i < joins.size(); i++) {
+            outcomes.put(joins.get(i), applied(joinCounts[i]) ? null : "join did not insert a row");
+        }
+        for (int i = 0; i < cancels.size(); i++) {
+            outcomes.put(cancels.get(i), applied(cancelCounts[i]) ? null : "Membership not found");
+        }
+        for (int i = 0; i < results.size(); i++) {
+            boolean ok = applied(scoreCounts[2 * i]) && applied(scoreCounts[2 * i + 1]) && applied(completeCounts[i]);
+            outcomes.put(results.get(i),
+                    ok ? null : "game does not exist, is not Scheduled, or does not include both teams");
+        }
+    }
+
+    private int[] execute(PreparedStatement stmt, List<BatchCommand> commands) throws SQLException {
+        if (commands.isEmpty()) {
+            return new int[0];
+        }
+        summary.batches++;
+        return stmt.executeBatch();
+    }
+
+    private void runSingle(Connection connection, Statements stmts, BatchCommand command) {
+        try {
+            String failure = transactions.execute(connection, Isolation.READ_COMMITTED, c -> {
+                boolean ok;
+                String reason;
+                switch (command.type) {
+                    case JOIN_TEAM:
+                        bindJoin(stmts.join, command);
+                        ok = applied(stmts.join.executeUpdate());
+                        reason = "join did not insert a row";
+                        break;
+                    case CANCEL_MEMBERSHIP:
+                        bindCancel(stmts.cancel, command);
+                        ok = applied(stmts.cancel.executeUpdate());
+                        reason = "Membership not found";
+                        break;
+                    default:
+                        bindScore(stmts.score, command, 1);
+                        ok = applied(stmts.score.executeUpdate());
+                        bindScore(stmts.score, command, 3);
+                        ok &= applied(stmts.score.executeUpdate());
+                        bindComplete(stmts.complete, command);
+                        ok &= applied(stmts.complete.executeUpdate());
+                        reason = "game does not exist, is not Scheduled, or does not include both teams";
+                        break;
+                }
+                if (ok) {
+                    return null;
+                }
+                // Discard whatever part of the command did apply; the executor then commits nothing
+                c.rollback();
+                return reason;
+            });
+            if (failure == null) {
+                summary.commits++;
+            }
+            report(command, failure == null, failure);
+        } catch (SQLException e) {
+            report(command, false, e.getMessage());
+        }
+    }
+
+    private static void bindJoin(PreparedStatement ps, BatchCommand c) throws SQLException {
+        ps.setInt(1, c.ints[0]);
+        ps.setInt(2, c.ints[1]);
+        ps.setDate(3, c.date);
+        ps.setString(4, c.position);
+    }
+
+    private static void bindCancel(PreparedStatement ps, BatchCommand c) throws SQLException {
+        ps.setInt(1, c.ints[0]);
+        ps.setInt(2, c.ints[1]);
+    }
+
+    // teamIndex is 1 for the first team/score pair and 3 for the second
+    private static void bindScore(PreparedStatement ps, BatchCommand c, int teamIndex) throws SQLException {
+        ps.setInt(1, c.ints[teamIndex + 1]);
+        ps.setInt(2, c.ints[0]);
+        ps.setInt(3, c.ints[teamIndex]);
+        ps.setInt(4, c.ints[0]);
+        ps.setInt(5, c.ints[0]);
+        ps.setInt(6, c.ints[1]);
+        ps.setInt(7, c.ints[3]);
+    }
+
+    private static void bindComplete(PreparedStatement ps, BatchCommand c) throws SQLException {
+        ps.setInt(1, c.ints[0]);
+        ps.setInt(2, c.ints[0]);
+        ps.setInt(3, c.ints[1]);
+        ps.setInt(4, c.ints[3]);
+    }
+
+    private static boolean applied(int count) {
+        return count > 0 || count == Statement.SUCCESS_NO_INFO;
+    }
+
+    private void report(BatchCommand command, boolean ok, String reason) {
+        if (ok) {
+            summary.succeeded++;
+            journal(command);
+            if (command.type == BatchCommand.Type.UPDATE_MATCH_RESULTS) {
+                completedResults.add(command);
+            }
+        } else {
+            fail(command.lineNumber, command.text, reason);
+        }
+    }
+
+    private void journal(BatchCommand c) {
+        switch (c.type) {
+            case JOIN_TEAM:
+                journal.append("joinTeam", actor, "playerId", c.ints[0], "teamId", c.ints[1],
+                        "joinDate", c.date, "position", c.position);
+                break;
+            case CANCEL_MEMBERSHIP:
+                journal.append("cancelMembership", actor, "playerId", c.ints[0], "membershipId", c.ints[1]);
+                break;
+            case UPDATE_MATCH_RESULTS:
+                journal.append("updateMatchResults", actor, "gameId", c.ints[0], "team1Id", c.ints[1],
+                        "team1Score", c.ints[2], "team2Id", c.ints[3], "team2Score", c.ints[4]);
+                break;
+        }
+    }
+
+    private void fail(int lineNumber, String text, String reason) {
+        summary.failed++;
+        out.printf("line %d: FAILED  %s  -> %s%n", lineNumber, text, reason);
+    }
+
+    private static final class Statements {
+        final PreparedStatement join;
+        final PreparedStatement cancel;
+        final PreparedStatement score;
+        final PreparedStatement complete;
+
+        Statements(PreparedStatement join, PreparedStatement cancel, PreparedStatement score, PreparedStatement complete) {
+            this.join = join;
+            this.cancel = cancel;
+            this.score = score;
+            this.complete = complete;
+        }
+
+        void clearBatches() throws SQLException {
+            join.clearBatch();
+            cancel.clearBatch();
+            score.clearBatch();
+            complete.clearBatch();
+        }
+    }
+
+    /** Totals for one run. */
+    public static class Summary {
+        public int lines;
+        public int succeeded;
+        public int failed;
+        public int batches;
+        public int commits;
+        public int handicapsUpdated;
+        public long elapsedNanos;
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format(
+                    "Commands: %d  Succeeded: %d  Failed: %d%n"
+                  + "Batches executed: %d  Commits: %d  Handicaps updated: %d%n"
+                  + "Elapsed: %.3f s  Throughput: %.1f commands/s",
+                    lines, succeeded, failed, batches, commits, handicapsUpdated,
+                    seconds, seconds == 0 ? 0 : lines / seconds);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package billing;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import db.TransactionExecutor;
+import db.TransactionExecutor.Isolation;
+import journal.Journal;
+
+/**
+ * Monthly membership billing: charges every player_membership in 'Scheduled' payment status that is
+ * due in the billing period and marks it 'Completed'.
+ *
+ * A membership is due when it has started by the end of the period and its end_date (if any) is not
+ * before the start of it. A plan with a monthly fee is charged that fee. A plan with only an annual
+ * fee is charged it in the anniversary month of the membership's start_date, and is not due in other
+ * months. A plan with neither is free and is marked Completed with nothing due. Memberships that are
+ * not due keep their Scheduled status.
+ *
+ * player_membership is split into ranges of {@code rangeSize} player ids, aligned to multiples of it
+ * so every run of a period picks the same ranges. {@code workers} threads each take a pooled
+ * connection and bill one range at a time: a keyset read of the range's Scheduled rows joined to
+ * their plans, then guarded updates sent in batches of {@code batchSize}, committed once per range
+ * through a {@link TransactionExecutor}. An update only applies while the row is still Scheduled, so
+ * a membership cancelled or paid while the run is going is left alone and counted as changed.
+ *
+ * Each committed range is appended to a checkpoint file with its totals. Running the same period
+ * again skips the ranges in it and carries their totals into the summary, so an interrupted run picks
+ * up where it stopped. If the process dies between a commit and its checkpoint line, that range is
+ * read again but finds nothing left to bill, so nobody is charged twice; only its totals are missing
+ * from the summary.
+ *
+ * The workers need that many pool connections (teetime.pool.max).
+ */
+public class BillingRun {
+
+    private static final String SELECT_RANGE =
+            "SELECT pm.player_id, pm.membership_id, pm.start_date, pm.end_date, m.monthly_fee, m.annual_fee "
+          + "FROM player_membership pm JOIN membership m ON m.membership_id = pm.membership_id "
+          + "WHERE pm.player_id >= ? AND pm.player_id < ? AND pm.payment_status = 'Scheduled' "
+          + "ORDER BY pm.player_id, pm.membership_id";
+    private static final String COMPLETE =
+            "UPDATE player_membership SET payment_status = 'Completed' "
+          + "WHERE player_id = ? AND membership_id = ? AND payment_status = 'Scheduled'";
+
+    private final DataSource dataSource;
+    private final int workers;
+    private final int rangeSize;
+    private final int batchSize;
+    private final PrintStream out;
+    private final TransactionExecutor transactions = TransactionExecutor.fromConfig();
+    private Journal journal = Journal.disabled();
+    private String actor;
+
+    public BillingRun(DataSource dataSource, int workers, int rangeSize, int batchSize, PrintStream out) {
+        if (workers < 1 || rangeSize < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("workers, rangeSize and batchSize must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.workers = workers;
+        this.rangeSize = rangeSize;
+        this.batchSize = batchSize;
+        this.out = out;
+    }
+
+    /** Records every committed range in {@code journal} under {@code actor}. */
+    public void setJournal(Journal journal, String actor) {
+        this.journal = journal;
+        this.actor = actor;
+    }
+
+    /**
+     * Bills the period, resuming from {@code checkpoint} if it holds ranges of an earlier run.
+     *
+     * @param checkpoint file of committed ranges; created if missing
+     */
+    public Summary run(YearMonth period, Path checkpoint) throws SQLException, IOException, InterruptedException {
+        long start = System.nanoTime();
+        Summary summary = new Summary();
+        summary.period = period;
+        summary.workers = workers;
+
+        Map<Long, Summary> committed = readCheckpoint(checkpoint, period);
+        for (Summary range : committed.values()) {
+            summary.add(range);
+            summary.resumedRanges++;
+        }
+
+        List<Long> pending = new ArrayList<>();
+        long[] keys = keyRange();
+        if (keys != null) {
+            for (long lo = Math.floorDiv(keys[0], rangeSize) * rangeSize; lo <= keys[1]; lo += rangeSize) {
+                if (!committed.containsKey(lo)) {
+                    pending.add(lo);
+                }
+            }
+        }
+        if (summary.resumedRanges > 0) {
+            out.printf("Resuming %s: %d range(s) already billed, %d to go%n", period, summary.resumedRanges,
+                    pending.size());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        AtomicInteger done = new AtomicInteger();
+        int reportEvery = Math.max(1, pending.size() / 10);
+        try {
+            List<Future<Void>> ranges = new ArrayList<>();
+            for (long lo : pending) {
+                ranges.add(pool.submit(() -> {
+                    Summary range = billRange(period, lo, lo + rangeSize);
+                    commit(checkpoint, period, lo, range);
+                    synchronized (summary) {
+                        summary.add(range);
+                    }
+                    int n = done.incrementAndGet();
+                    if (n % reportEvery == 0 || n == pending.size()) {
+                        out.printf("%,8d / %,d ranges billed%n", n, pending.size());
+                    }
+                    return null;
+                }));
+            }
+            await(ranges);
+        } finally {
+            pool.shutdownNow();
+        }
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    // Lowest and highest player id with a Scheduled membership, or null if there are none
+    private long[] keyRange() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MIN(player_id), MAX(player_id) FROM player_membership "
+                     + "WHERE payment_status = 'Scheduled'")) {
+            rs.next();
+            long min = rs.getLong(1);
+            return rs.wasNull() ? null : new long[] {min, rs.getLong(2)};
+        }
+    }
+
+    // Bills the memberships of players [from, to) in one transaction; the totals are rebuilt on a retry
+    private Summary billRange(YearMonth period, long from, long to) throws SQLException {
+        LocalDate first = period.atDay(1);
+        LocalDate last = period.atEndOfMonth();
+        try (Connection connection = dataSource.getConnection()) {
+            return transactions.execute(connection, Isolation.READ_COMMITTED, c -> {
+                Summary range = new Summary();
+                range.ranges = 1;
+                List<BigDecimal> amounts = new ArrayList<>();
+                try (PreparedStatement select = c.prepareStatement(SELECT_RANGE);
+                     PreparedStatement update = c.prepareStatement(COMPLETE)) {
+                    select.setLong(1, from);
+                    select.setLong(2, to);
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            range.examined++;
+                            BigDecimal amount = amountDue(rs.getDate(3), rs.getDate(4), rs.getBigDecimal(5),
+                                    rs.getBigDecimal(6), first, last, range);
+                            if (amount == null) {
+                                continue;
+                            }
+                            update.setInt(1, rs.getInt(1));
+                            update.setInt(2, rs.getInt(2));
+                            update.addBatch();
+                            amounts.add(amount);
+                            if (amounts.size() % batchSize == 0) {
+                                applied(update.executeBatch(), amounts, amounts.size() - batchSize, range);
+                            }
+                        }
+                    }
+                    int sent = amounts.size() - amounts.size() % batchSize;
+                    if (sent < amounts.size()) {
+                        applied(update.executeBatch(), amounts, sent, range);
+                    }
+                }
+                return range;
+            });
+        }
+    }
+
+    // What the membership owes this period, or null if it isn't due (counted in range)
+    private static BigDecimal amountDue(Date startDate, Date endDate, BigDecimal monthlyFee, BigDecimal annualFee,
+                                        LocalDate first, LocalDate last, Summary range) {
+        LocalDate started = startDate.toLocalDate();
+        if (started.isAfter(last)) {
+            range.notStarted++;
+            return null;
+        }
+        if (endDate != null && endDate.toLocalDate().isBefore(first)) {
+            range.ended++;
+            return null;
+        }
+        if (monthlyFee != null) {
+            return monthlyFee;
+        }
+        if (annualFee != null) {
+            if (started.getMonth() != first.getMonth()) {
+                range.notDue++;
+                return null;
+            }
+            return annualFee;
+        }
+        return BigDecimal.ZERO;
+    }
+
+    // Counts the rows a batch actually moved to Completed; the others were no longer Scheduled
+    private static void applied(int[] counts, List<BigDecimal> amounts, int offset, Summary range) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                range.changed++;
+            } else {
+                range.billed++;
+                range.amountDue = range.amountDue.add(amounts.get(offset + i));
+            }
+        }
+    }
+
+    private synchronized void commit(Path checkpoint, YearMonth period, long from, Summary range) throws IOException {
+        String line = String.format("%s %d %d %d %d %d %d %d %d %s%n", period, rangeSize, from, range.examined,
+                range.billed, range.changed, range.notStarted, range.ended, range.notDue, range.amountDue.toPlainString());
+        Files.write(checkpoint, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+        journal.append("billMemberships", actor, "period", period, "fromPlayerId", from,
+                "toPlayerId", from + rangeSize - 1, "billed", range.billed, "amountDue", range.amountDue);
+    }
+
+    // Committed ranges of this period by their first player id
+    private Map<Long, Summary> readCheckpoint(Path checkpoint, YearMonth period) throws IOException {
+        Map<Long, Summary> committed = new HashMap<>();
+        if (!Files.exists(checkpoint)) {
+            Path parent = checkpoint.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            return committed;
+        }
+        for (String line : Files.readAllLines(checkpoint, StandardCharsets.UTF_8)) {
+            String[] f = line.trim().split(" ");
+            if (f.length != 10 || !f[0].equals(period.toString())) {
+                continue; // a torn last line, or another period
+            }
+            if (Integer.parseInt(f[1]) != rangeSize) {
+                throw new IllegalArgumentException(checkpoint + " was written with a range size of " + f[1]
+                        + "; resume with the same range size or start a new checkpoint");
+            }
+            Summary range = new Summary();
+            range.ranges = 1;
+            range.examined = Long.parseLong(f[3]);
+            range.billed = Long.parseLong(f[4]);
+            range.changed = Long.parseLong(f[5]);
+            range.notStarted = Long.parseLong(f[6]);
+            range.ended = Long.parseLong(f[7]);
+            range.notDue = Long.parseLong(f[8]);
+            range.amountDue = new BigDecimal(f[9]);
+            committed.put(Long.parseLong(f[2]), range);
+        }
+        return committed;
+    }
+
+    private static void await(List<Future<Void>> ranges) throws SQLException, IOException, InterruptedException {
+        try {
+            for (Future<Void> range : ranges) {
+                range.get();
+            }
+        } catch (ExecutionException e) {
+            for (Future<Void> range : ranges) {
+                range.cancel(true);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    public static class Summary {
+        public YearMonth period;
+        public int ranges;
+        public int resumedRanges;
+        public long examined;
+        public long billed;
+        public BigDecimal amountDue = BigDecimal.ZERO;
+        public long notStarted;
+        public long ended;
+        public long notDue;
+        public long changed;
+        public int workers;
+        public long elapsedNanos;
+
+        void add(Summary range) {
+            ranges += range.ranges;
+            examined += range.examined;
+            billed += range.billed;
+            amountDue = amountDue.add(range.amountDue);
+            notStarted += range.notStarted;
+            ended += range.ended;
+            notDue += range.notDue;
+            changed += range.changed;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format(
+                    "Period: %s  Ranges: %d (%d resumed)  Workers: %d%n"
+                  + "Scheduled memberships: %d  Billed: %d  Amount due: %s%n"
+                  + "Not due: %d not started, %d ended, %d annual outside anniversary month%n"
+                  + "Changed during the run (cancelled or paid): %d%n"
+                  + "Elapsed: %.3f s  Throughput: %.1f memberships/s",
+                    period, ranges, resumedRanges, workers, examined, billed, amountDue.toPlainString(),
+                    notStarted, ended, notDue, changed, seconds, seconds == 0 ? 0 : examined / seconds);
+        }
+    }
+}
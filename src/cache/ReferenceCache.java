@@ -0,0 +1,126 @@
+package cache;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded read-through cache for rarely changing rows, keyed by primary key.
+ *
+ * Entries expire after a fixed TTL and the least recently used entry is dropped once the cache is
+ * full. Misses are loaded through the supplied loader on the caller's connection, outside the lock,
+ * so a slow load never blocks readers of other keys. Writers call invalidate() after they commit.
+ *
+ * Every invalidate(), invalidateAll() and put() bumps a generation counter. A miss notes the
+ * generation before it loads and keeps the loaded row only if it has not moved since. Otherwise a
+ * reader that loaded the old row just before a writer committed would store it after the writer's
+ * invalidate, and serve it until the TTL ran out.
+ */
+public class ReferenceCache<K, V> {
+
+    /** Loads one row by key, or returns null if it does not exist (nulls are not cached). */
+    public interface Loader<K, V> {
+        V load(Connection connection, K key) throws SQLException;
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long loadedAt;
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final String name;
+    private final Loader<K, V> loader;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long generation;
+    private long hits;
+    private long misses;
+    private long expirations;
+    private long evictions;
+
+    public ReferenceCache(String name, Loader<K, V> loader, int maxEntries, long ttlMillis) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.name = name;
+        this.loader = loader;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    /** @return the cached row, loading it on a miss; null if the row does not exist */
+    public V get(Connection connection, K key) throws SQLException {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.loadedAt < ttlNanos) {
+                    hits++;
+                    return entry.value;
+                }
+                entries.remove(key);
+                expirations++;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        V value = loader.load(connection, key);
+        if (value != null) {
+            synchronized (this) {
+                // A write since the load began may have made this copy stale; the next reader loads again
+                if (generation == loadGeneration) {
+                    store(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    /** Stores a row the caller has just read or written, replacing any cached copy. */
+    public synchronized void put(K key, V value) {
+        generation++;
+        store(key, value);
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    private void store(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime()));
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        long lookups = hits + misses;
+        return String.format("%-12s %d/%d entries  %d hits  %d misses  %d expired  %d evicted  (%.1f%% hit ratio)",
+                name, entries.size(), maxEntries, hits, misses, expirations, evictions,
+                lookups == 0 ? 0.0 : hits * 100.0 / lookups);
+    }
+}
@@ -0,0 +1,73 @@
+package cache;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import repository.FacilityRepository;
+import repository.LeagueRepository;
+import repository.MembershipRepository;
+
+/**
+ * Read-through caches for the reference rows the use cases echo back: facilities, membership plans
+ * and leagues. Facilities and plans change rarely; league rows change on status transitions, which
+ * invalidate their entry.
+ *
+ * Size and TTL come from system properties teetime.cache.maxEntries (per cache, default 256) and
+ * teetime.cache.ttlSeconds (default 300).
+ */
+public class ReferenceData {
+
+    private final ReferenceCache<Integer, FacilityRepository.Facility> facilities;
+    private final ReferenceCache<Integer, MembershipRepository.Membership> memberships;
+    private final ReferenceCache<Integer, LeagueRepository.League> leagues;
+
+    public ReferenceData(FacilityRepository facilityRepository, MembershipRepository membershipRepository,
+                         LeagueRepository leagueRepository, int maxEntries, long ttlMillis) {
+        this.facilities = new ReferenceCache<>("Facilities", facilityRepository::find, maxEntries, ttlMillis);
+        this.memberships = new ReferenceCache<>("Memberships", membershipRepository::find, maxEntries, ttlMillis);
+        this.leagues = new ReferenceCache<>("Leagues", leagueRepository::find, maxEntries, ttlMillis);
+    }
+
+    public static ReferenceData fromConfig(FacilityRepository facilityRepository,
+                                           MembershipRepository membershipRepository,
+                                           LeagueRepository leagueRepository) {
+        return new ReferenceData(facilityRepository, membershipRepository, leagueRepository,
+                Integer.getInteger("teetime.cache.maxEntries", 256),
+                Long.getLong("teetime.cache.ttlSeconds", 300) * 1000);
+    }
+
+    public FacilityRepository.Facility facility(Connection connection, int facilityId) throws SQLException {
+        return facilities.get(connection, facilityId);
+    }
+
+    public MembershipRepository.Membership membership(Connection connection, int membershipId) throws SQLException {
+        return memberships.get(connection, membershipId);
+    }
+
+    public LeagueRepository.League league(Connection connection, int leagueId) throws SQLException {
+        return leagues.get(connection, leagueId);
+    }
+
+    public void invalidateFacility(int facilityId) {
+        facilities.invalidate(facilityId);
+    }
+
+    public void invalidateMembership(int membershipId) {
+        memberships.invalidate(membershipId);
+    }
+
+    public void invalidateLeague(int leagueId) {
+        leagues.invalidate(leagueId);
+    }
+
+    public void invalidateAll() {
+        facilities.invalidateAll();
+        memberships.invalidateAll();
+        leagues.invalidateAll();
+    }
+
+    @Override
+    public String toString() {
+        return facilities + System.lineSeparator() + memberships + System.lineSeparator() + leagues;
+    }
+}
@@ -0,0 +1,207 @@
+package datagen;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import datagen.SyntheticDataset.Table;
+
+/**
+ * Loads a {@link SyntheticDataset} with batched INSERTs from parallel writers.
+ *
+ * Tables load one after another in FK order. Each table's units are split into slices, and
+ * {@code writers} threads each take a pooled connection and insert their slice in batches of
+ * {@code batchSize} rows, committing once per slice. Ids are explicit: on SQL Server each writer turns
+ * IDENTITY_INSERT on for its table, which also moves the identity seed past the loaded rows; on
+ * H2 the identity column is restarted after the table is loaded.
+ *
+ * The writers need that many pool connections (teetime.pool.max).
+ */
+public class BulkLoader {
+
+    private static final int UNITS_PER_SLICE = 20_000;
+
+    private final DataSource dataSource;
+    private final int writers;
+    private final int batchSize;
+    private final PrintStream out;
+
+    public BulkLoader(DataSource dataSource, int writers, int batchSize, PrintStream out) {
+        if (writers < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("writers and batchSize must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.writers = writers;
+        this.batchSize = batchSize;
+        this.out = out;
+    }
+
+    /** @return the current maximum id of every table with an id column, indexed by {@link Table} ordinal */
+    public int[] baseIds() throws SQLException {
+        int[] base = new int[Table.values().length];
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (Table table : Table.values()) {
+                if (table.idColumn != null) {
+                    try (ResultSet rs = statement.executeQuery(
+                            "SELECT COALESCE(MAX(" + table.idColumn + "), 0) FROM " + table.name)) {
+                        rs.next();
+                        base[table.ordinal()] = rs.getInt(1);
+                    }
+                }
+            }
+        }
+        return base;
+    }
+
+    /** Generates the dataset on top of whatever is already in the database. */
+    public Summary load(SyntheticDataset.Size size, long seed, LocalDate asOf) throws SQLException, InterruptedException {
+        return load(new SyntheticDataset(size, seed, asOf, baseIds()));
+    }
+
+    public Summary load(SyntheticDataset dataset) throws SQLException, InterruptedException {
+        Summary summary = new Summary();
+        long start = System.nanoTime();
+        boolean sqlServer;
+        try (Connection connection = dataSource.getConnection()) {
+            sqlServer = connection.getMetaData().getDatabaseProductName().contains("SQL Server");
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try {
+            for (Table table : Table.values()) {
+                long tableStart = System.nanoTime();
+                AtomicLong rows = new AtomicLong();
+                long units = dataset.units(table);
+                List<Future<Void>> slices = new ArrayList<>();
+                for (long from = 0; from < units; from += UNITS_PER_SLICE) {
+                    int first = (int) from;
+                    int last = (int) Math.min(from + UNITS_PER_SLICE, units);
+                    slices.add(pool.submit(() -> {
+                        rows.addAndGet(writeSlice(dataset, table, first, last, sqlServer));
+                        return null;
+                    }));
+                }
+                await(slices);
+                if (!sqlServer && table.idColumn != null && units > 0) {
+                    try (Connection connection = dataSource.getConnection();
+                         Statement statement = connection.createStatement()) {
+                        statement.execute("ALTER TABLE " + table.name + " ALTER COLUMN " + table.idColumn
+                                + " RESTART WITH " + (dataset.lastId(table) + 1));
+                    }
+                }
+                double seconds = (System.nanoTime() - tableStart) / 1e9;
+                out.printf("%-18s %,12d rows  %7.2f s  %,10.0f rows/s%n", table.name, rows.get(), seconds,
+                        seconds == 0 ? 0 : rows.get() / seconds);
+                summary.tables++;
+                summary.rows += rows.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        summary.writers = writers;
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    private long writeSlice(SyntheticDataset dataset, Table table, int first, int last, boolean sqlServer)
+            throws SQLException {
+        String sql = "INSERT INTO " + table.name + " (" + String.join(", ", table.columns) + ") VALUES ("
+                   + String.join(", ", Collections.nCopies(table.columns.length, "?")) + ")";
+        boolean identityInsert = sqlServer && table.idColumn != null;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement();
+                 PreparedStatement ps = connection.prepareStatement(sql)) {
+                if (identityInsert) {
+                    statement.execute("SET IDENTITY_INSERT " + table.name + " ON");
+                }
+                long[] rows = {0};
+                SQLException[] failure = {null};
+                for (int unit = first; unit < last && failure[0] == null; unit++) {
+                    dataset.rows(table, unit, values -> {
+                        try {
+                            for (int i = 0; i < values.length; i++) {
+                                if (values[i] == null) {
+                                    ps.setNull(i + 1, table.sqlTypes[i]);
+                                } else {
+                                    ps.setObject(i + 1, values[i], table.sqlTypes[i]);
+                                }
+                            }
+                            ps.addBatch();
+                            if (++rows[0] % batchSize == 0) {
+                                ps.executeBatch();
+                            }
+                        } catch (SQLException e) {
+                            failure[0] = e;
+                        }
+                    });
+                }
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                ps.executeBatch();
+                if (identityInsert) {
+                    statement.execute("SET IDENTITY_INSERT " + table.name + " OFF");
+                }
+                connection.commit();
+                return rows[0];
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void await(List<Future<Void>> slices) throws SQLException, InterruptedException {
+        try {
+            for (Future<Void> slice : slices) {
+                slice.get();
+            }
+        } catch (ExecutionException e) {
+            for (Future<Void> slice : slices) {
+                slice.cancel(true);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    public static class Summary {
+        public int tables;
+        public long rows;
+        public int writers;
+        public long elapsedNanos;
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format(
+                    "Tables: %d  Rows: %d  Writers: %d%n"
+                  + "Elapsed: %.3f s  Throughput: %.1f rows/s",
+                    tables, rows, writers, seconds, seconds == 0 ? 0 : rows / seconds);
+        }
+    }
+}
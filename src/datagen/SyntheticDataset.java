@@ -0,0 +1,465 @@
+package datagen;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.function.Consumer;
+
+/**
+ * A synthetic Tee-Time population of any size that satisfies every CHECK and FOREIGN KEY in DDL.sql.
+ *
+ * Every row is a pure function of (seed, table, row number), so a dataset is the same however
+ * many writers load it and in whatever order. Ids are explicit and continue after the ids already
+ * in the database, and every reference is computed rather than looked up:
+ *   - team t has 2-6 players, taken from consecutive players spread evenly over the population
+ *   - league l has min(max_teams, teams) teams, spread evenly over the teams
+ *   - 90% of games belong to a league and are between two of its teams, dated inside its season;
+ *     the rest are Friendly games between any two teams; both are at team 1's home facility
+ *   - dates before {@code asOf} are Completed (games scored, some Cancelled), later ones Scheduled,
+ *     and league status follows the season dates
+ * Cities are skewed toward the first few locations so location filters see uneven selectivity.
+ */
+public class SyntheticDataset {
+
+    /** How many rows to generate. */
+    public static class Size {
+        public int facilities = 200;
+        public int players = 1_000_000;
+        public int teams = 50_000;
+        public int leagues = 5_000;
+        public int games = 2_000_000;
+    }
+
+    /**
+     * The generated tables in load order (parents before children). A unit is what one call to
+     * {@link #rows} generates: one row, or all the rows of one team, league, player or game.
+     */
+    public enum Table {
+        FACILITY("facility", "facility_id",
+                new String[] {"facility_id", "name", "address", "city", "[state]", "zip", "phone", "website",
+                              "opening_time", "closing_time", "number_of_bays"},
+                new int[] {Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                           Types.VARCHAR, Types.VARCHAR, Types.TIME, Types.TIME, Types.INTEGER}),
+        MEMBERSHIP("membership", "membership_id",
+                new String[] {"membership_id", "facility_id", "membership_type", "monthly_fee", "annual_fee",
+                              "benefits", "guest_allowance"},
+                new int[] {Types.INTEGER, Types.INTEGER, Types.VARCHAR, Types.DECIMAL, Types.DECIMAL, Types.VARCHAR,
+                           Types.INTEGER}),
+        PLAYER("player", "player_id",
+                new String[] {"player_id", "first_name", "last_name", "email", "phone_number", "age", "[state]",
+                              "city", "zip", "skill_level", "handicap", "join_date", "profile_type"},
+                new int[] {Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER,
+                           Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DECIMAL, Types.DATE,
+                           Types.VARCHAR}),
+        TEAM("team", "team_id",
+                new String[] {"team_id", "name", "creation_date", "home_facility_id"},
+                new int[] {Types.INTEGER, Types.VARCHAR, Types.DATE, Types.INTEGER}),
+        TEAM_PLAYER("team_player", null,
+                new String[] {"player_id", "team_id", "join_date", "position"},
+                new int[] {Types.INTEGER, Types.INTEGER, Types.DATE, Types.VARCHAR}),
+        LEAGUE("league", "league_id",
+                new String[] {"league_id", "name", "[state]", "city", "zip", "skill_level", "status", "start_date",
+                              "end_date", "max_teams", "league_format"},
+                new int[] {Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                           Types.VARCHAR, Types.DATE, Types.DATE, Types.INTEGER, Types.VARCHAR}),
+        LEAGUE_TEAM("league_team", null,
+                new String[] {"league_id", "team_id", "join_date"},
+                new int[] {Types.INTEGER, Types.INTEGER, Types.DATE}),
+        PLAYER_MEMBERSHIP("player_membership", null,
+                new String[] {"player_id", "membership_id", "start_date", "end_date", "payment_status"},
+                new int[] {Types.INTEGER, Types.INTEGER, Types.DATE, Types.DATE, Types.VARCHAR}),
+        GAME("game", "game_id",
+                new String[] {"game_id", "league_id", "facility_id", "date_time", "status", "game_type"},
+                new int[] {Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.TIMESTAMP, Types.VARCHAR, Types.VARCHAR}),
+        GAME_TEAM("game_team", null,
+                new String[] {"game_id", "team_id", "score"},
+                new int[] {Types.INTEGER, Types.INTEGER, Types.INTEGER});
+
+        public final String name;
+        /** The IDENTITY column, or null for tables keyed by their parents. */
+        public final String idColumn;
+        public final String[] columns;
+        public final int[] sqlTypes;
+
+        Table(String name, String idColumn, String[] columns, int[] sqlTypes) {
+            this.name = name;
+            this.idColumn = idColumn;
+            this.columns = columns;
+            this.sqlTypes = sqlTypes;
+        }
+    }
+
+    private static final String[][] LOCATIONS = {
+        {"Cleveland", "Ohio", "441"}, {"Columbus", "Ohio", "432"}, {"Cincinnati", "Ohio", "452"},
+        {"Akron", "Ohio", "443"}, {"Pittsburgh", "Pennsylvania", "152"}, {"Detroit", "Michigan", "482"},
+        {"Chicago", "Illinois", "606"}, {"Indianapolis", "Indiana", "462"}, {"Dallas", "Texas", "752"},
+        {"Austin", "Texas", "787"}, {"Phoenix", "Arizona", "850"}, {"Denver", "Colorado", "802"},
+    };
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+        "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Min", "Priya",
+        "Wei", "Aisha", "Carlos", "Sofia", "Kenji", "Amara", "Luca", "Fatima", "Noah", "Olivia",
+    };
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+        "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+        "Lee", "Kim", "Patel", "Nguyen", "Chen", "Okafor", "Rossi", "Khan", "Silva", "Novak",
+    };
+    private static final String[] STREETS = {"Main St", "Oak Ave", "Lake Rd", "Park Blvd", "River Dr", "Hill St"};
+    private static final String[] TEAM_WORDS = {
+        "Eagles", "Birdies", "Aces", "Drivers", "Wedges", "Sand Traps", "Fairways", "Bogeys", "Albatrosses", "Putters",
+    };
+    // Cumulative share of players at each skill level, most players in the middle
+    private static final String[] SKILLS = {"Complete Beginner", "Beginner", "Intermediate", "Advanced", "Professional"};
+    private static final double[] SKILL_SHARE = {0.10, 0.35, 0.70, 0.92, 1.00};
+    private static final String[] FORMATS = {"Round Robin", "Elimination", "RR-E"};
+    private static final String[] TIERS = {"Platinum", "Gold", "Basic"};
+
+    private static final LocalDate EPOCH = LocalDate.of(2018, 1, 1);
+
+    private final Size size;
+    private final long seed;
+    private final LocalDate asOf;
+    private final int[] base = new int[Table.values().length];
+
+    /**
+     * @param asOf    the "today" of the dataset, fixed so a seed always gives the same statuses
+     * @param baseIds the id column's current maximum, per table with an id column (indexed by ordinal)
+     */
+    public SyntheticDataset(Size size, long seed, LocalDate asOf, int[] baseIds) {
+        if (size.facilities < 1 && (size.teams > 0 || size.games > 0 || size.players > 0)) {
+            throw new IllegalArgumentException("teams, games and memberships need at least one facility");
+        }
+        if (size.teams < 2 && size.games > 0) {
+            throw new IllegalArgumentException("games need at least two teams");
+        }
+        this.size = size;
+        this.seed = seed;
+        this.asOf = asOf;
+        System.arraycopy(baseIds, 0, base, 0, base.length);
+    }
+
+    /** @return how many units {@link #rows} generates for the table */
+    public long units(Table table) {
+        switch (table) {
+            case FACILITY:
+                return size.facilities;
+            case MEMBERSHIP:
+                return size.facilities * (long) TIERS.length;
+            case PLAYER:
+            case PLAYER_MEMBERSHIP:
+                return size.players;
+            case TEAM:
+            case TEAM_PLAYER:
+                return size.teams;
+            case LEAGUE:
+            case LEAGUE_TEAM:
+                return size.leagues;
+            default:
+                return size.games;
+        }
+    }
+
+    /** @return the id the last generated row of the table will have */
+    public int lastId(Table table) {
+        return base[table.ordinal()] + (int) units(table);
+    }
+
+    /** Hands the rows of one unit to {@code sink}, values in {@link Table#columns} order. */
+    public void rows(Table table, int unit, Consumer<Object[]> sink) {
+        Rng rng = new Rng(seed, table.ordinal(), unit);
+        switch (table) {
+            case FACILITY:
+                facility(unit, rng, sink);
+                break;
+            case MEMBERSHIP:
+                membership(unit, sink);
+                break;
+            case PLAYER:
+                player(unit, rng, sink);
+                break;
+            case TEAM:
+                sink.accept(new Object[] {id(Table.TEAM, unit), TEAM_WORDS[rng.nextInt(TEAM_WORDS.length)] + " "
+                        + LOCATIONS[unit % LOCATIONS.length][0] + " #" + id(Table.TEAM, unit),
+                        teamCreated(unit), homeFacility(unit)});
+                break;
+            case TEAM_PLAYER:
+                teamPlayers(unit, rng, sink);
+                break;
+            case LEAGUE:
+                League league = league(unit);
+                String[] location = LOCATIONS[unit % LOCATIONS.length];
+                sink.accept(new Object[] {id(Table.LEAGUE, unit),
+                        location[0] + " " + league.skill + " " + league.format + " League #" + id(Table.LEAGUE, unit),
+                        location[1], location[0], location[2] + "01", league.skill, league.status(asOf),
+                        league.start, league.end, league.maxTeams, league.format});
+                break;
+            case LEAGUE_TEAM:
+                leagueTeams(unit, sink);
+                break;
+            case PLAYER_MEMBERSHIP:
+                playerMembership(unit, rng, sink);
+                break;
+            case GAME:
+                Game game = game(unit);
+                sink.accept(new Object[] {id(Table.GAME, unit), game.leagueId, homeFacility(game.team1),
+                        game.dateTime, game.status, game.type});
+                break;
+            default:
+                gameTeams(unit, sink);
+                break;
+        }
+    }
+
+    private void facility(int unit, Rng rng, Consumer<Object[]> sink) {
+        boolean topGolf = unit % 2 == 0;
+        String[] location = LOCATIONS[unit % LOCATIONS.length];
+        int opening = 7 + rng.nextInt(4);
+        // Some stay open past midnight
+        int closing = (21 + rng.nextInt(5)) % 24;
+        sink.accept(new Object[] {id(Table.FACILITY, unit), topGolf ? "TopGolf" : "Five Iron",
+                (100 + rng.nextInt(9900)) + " " + STREETS[rng.nextInt(STREETS.length)],
+                location[0], location[1], location[2] + digits(rng.nextInt(100), 2),
+                phone(rng), (topGolf ? "www.topgolf.com/" : "www.fiveirongolf.com/") + "site" + id(Table.FACILITY, unit),
+                LocalTime.of(opening, 0), LocalTime.of(closing, 0),
+                topGolf ? 40 + rng.nextInt(70) : 8 + rng.nextInt(12)});
+    }
+
+    private void membership(int unit, Consumer<Object[]> sink) {
+        int facility = unit / TIERS.length;
+        int tier = unit % TIERS.length;
+        BigDecimal monthly = new BigDecimal(new String[] {"49.99", "29.99", "14.99"}[tier]);
+        sink.accept(new Object[] {id(Table.MEMBERSHIP, unit), id(Table.FACILITY, facility),
+                (facility % 2 == 0 ? "TopGolf " : "Five Iron ") + TIERS[tier], monthly,
+                monthly.multiply(BigDecimal.TEN), TIERS[tier] + " plan: " + (4 - tier) * 5 + " free games per month",
+                2 - tier});
+    }
+
+    private void player(int unit, Rng rng, Consumer<Object[]> sink) {
+        int id = id(Table.PLAYER, unit);
+        String first = FIRST_NAMES[rng.nextInt(FIRST_NAMES.length)];
+        String last = LAST_NAMES[rng.nextInt(LAST_NAMES.length)];
+        String[] location = LOCATIONS[skewed(rng, LOCATIONS.length)];
+        int skill = skill(rng);
+        sink.accept(new Object[] {id, first, last, (first + "." + last + "." + id + "@example.com").toLowerCase(),
+                phone(rng), 16 + rng.nextInt(60), location[1], location[0],
+                location[2] + digits(rng.nextInt(100), 2), SKILLS[skill], handicap(rng, skill),
+                playerJoined(unit), rng.nextInt(100) < 85 ? "Public" : "Hidden"});
+    }
+
+    private void teamPlayers(int unit, Rng rng, Consumer<Object[]> sink) {
+        if (size.players == 0) {
+            return;
+        }
+        int members = Math.min(2 + rng.nextInt(5), size.players);
+        // Consecutive players from an evenly spread starting point, so no player repeats within a team
+        long first = (long) unit * size.players / size.teams;
+        LocalDate created = teamCreated(unit);
+        for (int j = 0; j < members; j++) {
+            int player = (int) ((first + j) % size.players);
+            LocalDate joined = later(created, playerJoined(player)).plusDays(rng.nextInt(60));
+            sink.accept(new Object[] {id(Table.PLAYER, player), id(Table.TEAM, unit), joined,
+                    j == 0 ? "Captain" : "Member"});
+        }
+    }
+
+    private void leagueTeams(int unit, Consumer<Object[]> sink) {
+        League league = league(unit);
+        for (int j = 0; j < league.teamCount; j++) {
+            int team = league.team(j);
+            sink.accept(new Object[] {id(Table.LEAGUE, unit), id(Table.TEAM, team),
+                    later(league.start.minusDays(14), teamCreated(team))});
+        }
+    }
+
+    private void playerMembership(int unit, Rng rng, Consumer<Object[]> sink) {
+        if (rng.nextInt(100) >= 40) {
+            return;
+        }
+        int membership = rng.nextInt((int) units(Table.MEMBERSHIP));
+        LocalDate start = playerJoined(unit).plusDays(rng.nextInt(365));
+        LocalDate end = rng.nextInt(100) < 70 ? start.plusYears(1) : null;
+        String status = rng.nextInt(100) < 5 ? "Cancelled"
+                : end != null && end.isBefore(asOf) ? "Completed" : "Scheduled";
+        sink.accept(new Object[] {id(Table.PLAYER, unit), id(Table.MEMBERSHIP, membership), start, end, status});
+    }
+
+    private void gameTeams(int unit, Consumer<Object[]> sink) {
+        Game game = game(unit);
+        boolean scored = game.status.equals("Completed");
+        Rng rng = new Rng(seed, Table.GAME_TEAM.ordinal(), unit);
+        int score1 = 60 + rng.nextInt(50);
+        int score2 = 60 + rng.nextInt(50);
+        sink.accept(new Object[] {id(Table.GAME, unit), id(Table.TEAM, game.team1), scored ? score1 : null});
+        sink.accept(new Object[] {id(Table.GAME, unit), id(Table.TEAM, game.team2), scored ? score2 : null});
+    }
+
+    private static final class League {
+        String skill;
+        String format;
+        LocalDate start;
+        LocalDate end;
+        int maxTeams;
+        int teamCount;
+        int firstTeam;
+        int teams;
+        boolean paused;
+
+        int team(int j) {
+            return (firstTeam + j) % teams;
+        }
+
+        String status(LocalDate asOf) {
+            if (end.isBefore(asOf)) {
+                return "Completed";
+            }
+            if (start.isAfter(asOf)) {
+                return "Setting Up";
+            }
+            if (paused) {
+                return "Paused";
+            }
+            // The last fifth of an RR-E or Elimination season is its playoff
+            return !format.equals("Round Robin") && asOf.isAfter(end.minusDays((end.toEpochDay() - start.toEpochDay()) / 5))
+                    ? "Playoffs" : "In Season";
+        }
+    }
+
+    private League league(int unit) {
+        Rng rng = new Rng(seed, Table.LEAGUE.ordinal(), unit);
+        League league = new League();
+        league.skill = SKILLS[skill(rng)];
+        league.format = FORMATS[rng.nextInt(FORMATS.length)];
+        // Seasons start anywhere from two years before asOf to six months after it
+        league.start = asOf.minusDays(730 - rng.nextInt(910));
+        league.end = league.start.plusWeeks(8 + rng.nextInt(9));
+        league.maxTeams = 4 + rng.nextInt(13);
+        league.paused = rng.nextInt(100) < 3;
+        league.teams = size.teams;
+        league.teamCount = Math.min(league.maxTeams, size.teams);
+        league.firstTeam = (int) ((long) unit * size.teams / Math.max(size.leagues, 1));
+        return league;
+    }
+
+    private static final class Game {
+        Integer leagueId;
+        int team1;
+        int team2;
+        LocalDateTime dateTime;
+        String status;
+        String type;
+    }
+
+    private Game game(int unit) {
+        Rng rng = new Rng(seed, Table.GAME.ordinal(), unit);
+        Game game = new Game();
+        LocalDate day;
+        if (size.leagues > 0 && rng.nextInt(100) < 90) {
+            int l = unit % size.leagues;
+            League league = league(l);
+            int a = rng.nextInt(league.teamCount);
+            int b = (a + 1 + rng.nextInt(league.teamCount - 1)) % league.teamCount;
+            game.leagueId = id(Table.LEAGUE, l);
+            game.team1 = league.team(a);
+            game.team2 = league.team(b);
+            long seasonDays = league.end.toEpochDay() - league.start.toEpochDay();
+            day = league.start.plusDays(rng.nextInt((int) seasonDays + 1));
+            game.type = league.format.equals("Round Robin")
+                    || (league.format.equals("RR-E") && day.isBefore(league.end.minusDays(seasonDays / 5)))
+                    ? "Round Robin" : "Elimination";
+        } else {
+            game.team1 = rng.nextInt(size.teams);
+            game.team2 = (game.team1 + 1 + rng.nextInt(size.teams - 1)) % size.teams;
+            day = asOf.minusDays(730 - rng.nextInt(910));
+            game.type = "Friendly";
+        }
+        game.dateTime = day.atTime(10 + rng.nextInt(11), 0);
+        game.status = !game.dateTime.toLocalDate().isBefore(asOf) ? "Scheduled"
+                : rng.nextInt(100) < 3 ? "Cancelled" : "Completed";
+        return game;
+    }
+
+    private int id(Table table, int unit) {
+        return base[table.ordinal()] + unit + 1;
+    }
+
+    private int homeFacility(int team) {
+        return id(Table.FACILITY, team % size.facilities);
+    }
+
+    private LocalDate playerJoined(int player) {
+        return EPOCH.plusDays(new Rng(seed, Table.PLAYER.ordinal() + 100, player).nextInt(2000));
+    }
+
+    private LocalDate teamCreated(int team) {
+        return EPOCH.plusDays(new Rng(seed, Table.TEAM.ordinal() + 100, team).nextInt(2000));
+    }
+
+    private static LocalDate later(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static int skill(Rng rng) {
+        double r = rng.nextDouble();
+        int skill = 0;
+        while (r >= SKILL_SHARE[skill]) {
+            skill++;
+        }
+        return skill;
+    }
+
+    // DECIMAL(4,1) in the band that fits the skill level; a few players have none yet
+    private static BigDecimal handicap(Rng rng, int skill) {
+        if (rng.nextInt(100) < 5) {
+            return null;
+        }
+        int tenths = (4 - skill) * 80 + rng.nextInt(80);
+        return BigDecimal.valueOf(tenths, 1);
+    }
+
+    // Index in [0, n), the first ones most likely
+    private static int skewed(Rng rng, int n) {
+        double r = rng.nextDouble();
+        return (int) (n * r * r);
+    }
+
+    private static String phone(Rng rng) {
+        return (200 + rng.nextInt(800)) + "-" + digits(rng.nextInt(1000), 3) + "-" + digits(rng.nextInt(10000), 4);
+    }
+
+    // Zero-padded; String.format is most of the cost of a player row
+    private static String digits(int value, int width) {
+        String text = Integer.toString(value);
+        return text.length() >= width ? text : "0000".substring(0, width - text.length()) + text;
+    }
+
+    // SplitMix64, seeded per (seed, stream, index) so any row can be generated on its own
+    private static final class Rng {
+        private long state;
+
+        Rng(long seed, int stream, long index) {
+            this.state = mix(seed ^ mix(((long) stream << 40) + index));
+        }
+
+        long next() {
+            state += 0x9E3779B97F4A7C15L;
+            return mix(state);
+        }
+
+        int nextInt(int bound) {
+            return (int) Math.floorMod(next(), (long) bound);
+        }
+
+        double nextDouble() {
+            return (next() >>> 11) * 0x1.0p-53;
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
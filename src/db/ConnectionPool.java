@@ -0,0 +1,442 @@
+package db;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import metrics.Metrics;
+import metrics.OperationStats;
+
+/**
+ * Bounded pool of JDBC connections exposed as a plain {@link DataSource}.
+ *
+ * Callers borrow with getConnection() and hand the connection back by closing it
+ * (try-with-resources). On return the pool rolls back anything left open and restores
+ * auto-commit, so use cases are free to call setAutoCommit(false) on what they borrow. Like a real
+ * Connection.close(), returning also closes every statement (and so its result sets) the borrower
+ * left open: cached ones go back to the cache, the others are closed on the server.
+ *
+ * Each physical connection also keeps an LRU {@link StatementCache}: prepareStatement(sql) and
+ * prepareCall(sql) hand out cached statements whose close() returns them to the cache.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+
+    private final String url;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long validateAfterMillis;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<IdleConnection> idle = new LinkedBlockingDeque<>();
+    private final Map<Connection, Lease> leased = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService leakDetector;
+
+    // Metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    private volatile boolean closed;
+    private PrintWriter logWriter;
+
+    /**
+     * @param url                 JDBC url of the target database (credentials included)
+     * @param maxSize             hard upper bound on open connections
+     * @param minIdle             connections opened up front so the first operations don't pay for the login
+     * @param maxWaitMillis       how long getConnection() blocks before giving up
+     * @param leakThresholdMillis a borrowed connection held longer than this is reported as a leak (0 disables)
+     * @param statementCacheSize  cached statements per connection (0 disables statement caching)
+     */
+    public ConnectionPool(String url, int maxSize, int minIdle, long maxWaitMillis, long leakThresholdMillis,
+                          int statementCacheSize) throws SQLException {
+        if (maxSize < 1 || minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("Pool needs 0 <= minIdle <= maxSize and maxSize >= 1");
+        }
+        this.url = url;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.validateAfterMillis = 5_000;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        // Prewarm
+        for (int i = 0; i < minIdle; i++) {
+            Connection physical = openPhysical();
+            idle.offerLast(new IdleConnection(physical, newCache(physical)));
+        }
+
+        if (leakThresholdMillis > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "pool-leak-detector");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(leakThresholdMillis / 2, 1_000);
+            leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            leakDetector = null;
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        if (!acquired) {
+            timeoutCount.incrementAndGet();
+            throw new SQLTransientConnectionException(
+                    "Timed out after " + maxWaitMillis + " ms waiting for a connection (" + maxSize + " in use)");
+        }
+
+        try {
+            IdleConnection taken = takeValidConnection();
+            recordWait(waited);
+            Lease lease = new Lease(taken.connection, taken.cache, new Exception("Connection borrowed here"));
+            Connection handle = wrap(taken.connection, taken.cache, lease);
+            leased.put(handle, lease);
+            return handle;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pool connections use the configured credentials");
+    }
+
+    /** Returns an idle connection (validating it if it has sat unused for a while) or opens a new one. */
+    private IdleConnection takeValidConnection() throws SQLException {
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            boolean stale = System.currentTimeMillis() - candidate.returnedAt > validateAfterMillis;
+            if (!stale || isUsable(candidate.connection)) {
+                return candidate;
+            }
+            evictedCount.incrementAndGet();
+            closeQuietly(candidate.connection, candidate.cache);
+        }
+        Connection physical = openPhysical();
+        return new IdleConnection(physical, newCache(physical));
+    }
+
+    private StatementCache newCache(Connection physical) {
+        return statementCacheSize > 0 ? new StatementCache(physical, statementCacheSize, statementCounters) : null;
+    }
+
+    private boolean isUsable(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection openPhysical() throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+        createdCount.incrementAndGet();
+        return connection;
+    }
+
+    /** Called by the proxy when the borrower closes its handle. */
+    private void release(Connection handle) {
+        Lease lease = leased.remove(handle);
+        if (lease == null) {
+            return; // already returned
+        }
+        Connection physical = lease.physical;
+        lease.closeStatements();
+        try {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            physical.clearWarnings();
+            if (closed) {
+                closeQuietly(physical, lease.cache);
+            } else {
+                idle.offerFirst(new IdleConnection(physical, lease.cache));
+            }
+        } catch (SQLException e) {
+            // Broken connection: drop it, the next borrower will open a fresh one
+            evictedCount.incrementAndGet();
+            closeQuietly(physical, lease.cache);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (Lease lease : leased.values()) {
+            if (!lease.reported && now - lease.borrowedAt > leakThresholdMillis) {
+                lease.reported = true;
+                leakCount.incrementAndGet();
+                System.err.println("Possible connection leak: held for " + (now - lease.borrowedAt) + " ms");
+                lease.borrowSite.printStackTrace();
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private Connection wrap(Connection physical, StatementCache cache, Lease lease) {
+        InvocationHandler handler = new InvocationHandler() {
+            private volatile boolean returned;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!returned) {
+                            returned = true;
+                            release((Connection) proxy);
+                        }
+                        return null;
+                    case "isClosed":
+                        return returned || physical.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Pooled[" + physical + "]";
+                    default:
+                        if (returned) {
+                            throw new SQLException("Connection has already been returned to the pool");
+                        }
+                        Metrics.Scope scope = Metrics.current();
+                        if (scope == null) {
+                            return delegate(proxy, method, args);
+                        }
+                        // Charge the call to the caller's operation (see metrics.Metrics)
+                        long start = System.nanoTime();
+                        switch (method.getName()) {
+                            case "prepareStatement":
+                            case "prepareCall":
+                            case "createStatement":
+                                try {
+                                    return InstrumentedJdbc.wrap((Statement) delegate(proxy, method, args));
+                                } finally {
+                                    scope.add(OperationStats.Phase.PREPARE, System.nanoTime() - start);
+                                }
+                            case "commit":
+                            case "rollback":
+                                try {
+                                    return delegate(proxy, method, args);
+                                } finally {
+                                    scope.add(OperationStats.Phase.COMMIT, System.nanoTime() - start);
+                                    scope.roundTrip();
+                                }
+                            default:
+                                return delegate(proxy, method, args);
+                        }
+                }
+            }
+
+            private Object delegate(Object proxy, Method method, Object[] args) throws Throwable {
+                if (cache != null && args != null && args.length == 1) {
+                    if (method.getName().equals("prepareStatement")) {
+                        return lease.track(cache.prepareStatement((String) args[0], (Connection) proxy));
+                    }
+                    if (method.getName().equals("prepareCall")) {
+                        return lease.track(cache.prepareCall((String) args[0], (Connection) proxy));
+                    }
+                }
+                Object result;
+                try {
+                    result = method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                return result instanceof Statement ? lease.track((Statement) result) : result;
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    /** Point-in-time view of the pool for the stats menu. */
+    public PoolStats stats() {
+        long borrows = borrowCount.get();
+        return new PoolStats(
+                leased.size(),
+                idle.size(),
+                maxSize,
+                borrows,
+                borrows == 0 ? 0 : totalWaitNanos.get() / borrows,
+                maxWaitNanos.get(),
+                timeoutCount.get(),
+                createdCount.get(),
+                evictedCount.get(),
+                leakCount.get(),
+                statementCounters.hits.get(),
+                statementCounters.misses.get(),
+                statementCounters.evictions.get());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        IdleConnection c;
+        while ((c = idle.pollFirst()) != null) {
+            closeQuietly(c.connection, c.cache);
+        }
+    }
+
+    private static void closeQuietly(Connection connection, StatementCache cache) {
+        if (cache != null) {
+            cache.closeAll();
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // nothing useful to do
+        }
+    }
+
+    // DataSource boilerplate
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    private static final class IdleConnection {
+        final Connection connection;
+        final StatementCache cache;
+        final long returnedAt = System.currentTimeMillis();
+
+        IdleConnection(Connection connection, StatementCache cache) {
+            this.connection = connection;
+            this.cache = cache;
+        }
+    }
+
+    private static final class Lease {
+        final Connection physical;
+        final StatementCache cache;
+        final Exception borrowSite;
+        final long borrowedAt = System.currentTimeMillis();
+        volatile boolean reported;
+
+        // Statements handed out on this lease that may still be open
+        private final List<Statement> statements = new ArrayList<>();
+
+        Lease(Connection physical, StatementCache cache, Exception borrowSite) {
+            this.physical = physical;
+            this.cache = cache;
+            this.borrowSite = borrowSite;
+        }
+
+        synchronized <S extends Statement> S track(S statement) {
+            if (statements.size() >= 64) {
+                // Long leases prepare a lot; forget the ones already closed (a checked-in cached handle reports closed)
+                statements.removeIf(Lease::isClosed);
+            }
+            statements.add(statement);
+            return statement;
+        }
+
+        /** Checks cached statements back in and closes the rest, with their result sets. */
+        synchronized void closeStatements() {
+            for (Statement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                    // the connection is reset or evicted next anyway
+                }
+            }
+            statements.clear();
+        }
+
+        private static boolean isClosed(Statement statement) {
+            try {
+                return statement.isClosed();
+            } catch (SQLException e) {
+                return true;
+            }
+        }
+    }
+}
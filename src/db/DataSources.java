@@ -0,0 +1,54 @@
+package db;
+
+import java.sql.SQLException;
+
+import utils.Credentials;
+
+/**
+ * Builds the pooled DataSource the CLI runs against.
+ *
+ * By default this is the SQL Server instance in utils/Credentials.java. Run with
+ * -Dteetime.db=h2 to get an embedded H2 database in MSSQLServer mode, loaded from
+ * sql/DDL.sql and sql/dev_data.sql, for local testing without a SQL Server.
+ *
+ * Pool knobs (system properties): teetime.pool.max, teetime.pool.minIdle,
+ * teetime.pool.maxWaitMs, teetime.pool.leakMs, teetime.pool.statementCache.
+ */
+public final class DataSources {
+
+    private DataSources() {
+    }
+
+    public static ConnectionPool fromConfig() throws SQLException {
+        String mode = System.getProperty("teetime.db", "mssql");
+        String url = "h2".equalsIgnoreCase(mode) ? EmbeddedDatabase.create("teetime") : sqlServerUrl();
+        return pool(url);
+    }
+
+    public static ConnectionPool pool(String url) throws SQLException {
+        return new ConnectionPool(
+                url,
+                Integer.getInteger("teetime.pool.max", 8),
+                Integer.getInteger("teetime.pool.minIdle", 2),
+                Long.getLong("teetime.pool.maxWaitMs", 15_000L),
+                Long.getLong("teetime.pool.leakMs", 60_000L),
+                Integer.getInteger("teetime.pool.statementCache", 64));
+    }
+
+    // Connection URL - set your credentials in utils/Credentials.java based on the template
+    public static String sqlServerUrl() {
+        return String.format(
+                "jdbc:sqlserver://%s;" +
+                        "database=%s;" +
+                        "user=%s;" +
+                        "password=%s;" +
+                        "encrypt=true;" +
+                        "trustServerCertificate=true;" +
+                        "loginTimeout=15;",
+                Credentials.SERVER_NAME,
+                Credentials.DATABASE_NAME,
+                Credentials.USER,
+                Credentials.PASSWORD
+        );
+    }
+}
@@ -0,0 +1,100 @@
+package db;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory H2 database (MSSQLServer compatibility mode) seeded from the files in sql/.
+ *
+ * Only plain DDL and INSERTs are replayed: T-SQL procedures and triggers, and the
+ * SQL Server housekeeping at the top of dev_data.sql (sp_MSforeachtable, DBCC), are skipped.
+ * Use cases that call stored procedures therefore only work against SQL Server.
+ * A script stops at its first variable-driven T-SQL batch (IF / DECLARE), which is where
+ * dev_data.sql builds its handicap test fixture.
+ */
+public final class EmbeddedDatabase {
+
+    private EmbeddedDatabase() {
+    }
+
+    /** Creates (or reuses) the named in-memory database and returns its JDBC url. */
+    public static String create(String name) throws SQLException {
+        return create(name, Paths.get(System.getProperty("teetime.sqlDir", "sql")), true);
+    }
+
+    public static String create(String name, Path sqlDir, boolean withDevData) throws SQLException {
+        String url = "jdbc:h2:mem:" + name + ";MODE=MSSQLServer;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        try (Connection connection = DriverManager.getConnection(url)) {
+            run(connection, sqlDir.resolve("DDL.sql"));
+            if (withDevData) {
+                run(connection, sqlDir.resolve("dev_data.sql"));
+            }
+        }
+        return url;
+    }
+
+    /** Executes every translatable statement in the script. */
+    public static void run(Connection connection, Path script) throws SQLException {
+        String text;
+        try {
+            text = new String(Files.readAllBytes(script), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Could not read " + script, e);
+        }
+        try (Statement stmt = connection.createStatement()) {
+            for (String sql : split(text)) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    /** Splits a script on ';' and GO, dropping comments and statements H2 cannot run. */
+    static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inRoutine = false;
+        for (String rawLine : script.split("\\R")) {
+            String line = rawLine.trim();
+            if (line.startsWith("--") || line.isEmpty()) {
+                continue;
+            }
+            String upper = line.toUpperCase();
+            if (upper.equals("GO")) {
+                inRoutine = false;
+                current.setLength(0);
+                continue;
+            }
+            if (inRoutine) {
+                continue;
+            }
+            if (current.length() == 0 && (upper.startsWith("CREATE OR ALTER") || upper.startsWith("CREATE PROCEDURE")
+                    || upper.startsWith("CREATE TRIGGER"))) {
+                // T-SQL routine body: skip everything up to the next GO
+                inRoutine = true;
+                continue;
+            }
+            if (current.length() == 0 && (upper.startsWith("EXEC ") || upper.startsWith("DBCC "))) {
+                continue;
+            }
+            if (current.length() == 0 && (upper.startsWith("IF ") || upper.startsWith("DECLARE "))) {
+                break;
+            }
+            current.append(rawLine.replace("NONCLUSTERED ", "")).append('\n');
+            if (line.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+        return statements;
+    }
+}
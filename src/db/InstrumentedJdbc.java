@@ -0,0 +1,123 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import metrics.Metrics;
+import metrics.OperationStats.Phase;
+
+/**
+ * Statement and result set wrappers that charge JDBC work to the thread's open {@link Metrics.Scope}.
+ *
+ * execute* calls count as one round trip and as execute time; ResultSet.next() and getMoreResults()
+ * count as fetch time and rows. The pool only wraps statements prepared while a scope is open, so
+ * uninstrumented callers (batch, ingestion) see the plain statements.
+ */
+final class InstrumentedJdbc {
+
+    private InstrumentedJdbc() {
+    }
+
+    static Statement wrap(Statement statement) {
+        Class<?> iface = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(InstrumentedJdbc.class.getClassLoader(),
+                new Class<?>[]{iface}, new StatementHandler(statement));
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+
+        StatementHandler(Statement target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+
+            Metrics.Scope scope = Metrics.current();
+            if (scope == null) {
+                return call(target, method, args);
+            }
+            if (name.startsWith("execute")) {
+                long start = System.nanoTime();
+                try {
+                    Object result = call(target, method, args);
+                    return result instanceof ResultSet ? wrap((ResultSet) result) : result;
+                } finally {
+                    scope.add(Phase.EXECUTE, System.nanoTime() - start);
+                    scope.roundTrip();
+                }
+            }
+            if (name.equals("getMoreResults")) {
+                long start = System.nanoTime();
+                try {
+                    return call(target, method, args);
+                } finally {
+                    scope.add(Phase.FETCH, System.nanoTime() - start);
+                }
+            }
+            Object result = call(target, method, args);
+            return result instanceof ResultSet ? wrap((ResultSet) result) : result;
+        }
+    }
+
+    private static ResultSet wrap(ResultSet resultSet) {
+        return (ResultSet) Proxy.newProxyInstance(InstrumentedJdbc.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, new ResultSetHandler(resultSet));
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+
+        ResultSetHandler(ResultSet target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("next")) {
+                Metrics.Scope scope = Metrics.current();
+                if (scope == null) {
+                    return call(target, method, args);
+                }
+                long start = System.nanoTime();
+                boolean more = (Boolean) call(target, method, args);
+                scope.add(Phase.FETCH, System.nanoTime() - start);
+                if (more) {
+                    scope.rowFetched();
+                }
+                return more;
+            }
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            return call(target, method, args);
+        }
+    }
+}
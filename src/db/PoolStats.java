@@ -0,0 +1,54 @@
+package db;
+
+/** Snapshot of {@link ConnectionPool} counters. Wait times are in nanoseconds. */
+public class PoolStats {
+    public final int active;
+    public final int idle;
+    public final int maxSize;
+    public final long borrows;
+    public final long avgWaitNanos;
+    public final long maxWaitNanos;
+    public final long timeouts;
+    public final long created;
+    public final long evicted;
+    public final long leaks;
+    public final long statementHits;
+    public final long statementMisses;
+    public final long statementEvictions;
+
+    PoolStats(int active, int idle, int maxSize, long borrows, long avgWaitNanos, long maxWaitNanos,
+              long timeouts, long created, long evicted, long leaks,
+              long statementHits, long statementMisses, long statementEvictions) {
+        this.active = active;
+        this.idle = idle;
+        this.maxSize = maxSize;
+        this.borrows = borrows;
+        this.avgWaitNanos = avgWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.timeouts = timeouts;
+        this.created = created;
+        this.evicted = evicted;
+        this.leaks = leaks;
+        this.statementHits = statementHits;
+        this.statementMisses = statementMisses;
+        this.statementEvictions = statementEvictions;
+    }
+
+    public double statementHitRatio() {
+        long total = statementHits + statementMisses;
+        return total == 0 ? 0 : (double) statementHits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "Active: %d  Idle: %d  Max: %d%n"
+              + "Borrows: %d  Avg wait: %.3f ms  Max wait: %.3f ms  Timeouts: %d%n"
+              + "Opened: %d  Evicted: %d  Leaks reported: %d%n"
+              + "Statement cache: %d hits  %d misses  %d evictions  (%.1f%% hit ratio)",
+                active, idle, maxSize,
+                borrows, avgWaitNanos / 1e6, maxWaitNanos / 1e6, timeouts,
+                created, evicted, leaks,
+                statementHits, statementMisses, statementEvictions, statementHitRatio() * 100);
+    }
+}
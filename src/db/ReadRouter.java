@@ -0,0 +1,249 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import db.TransactionExecutor.Isolation;
+
+/**
+ * Sends read-only operations to a replica database and everything else to the primary.
+ *
+ * Reporting reads (standings, player search, game lookups) run as one SNAPSHOT transaction on the
+ * replica, so they take no locks on the primary while clerks are entering scores and memberships.
+ * Writes, and reads that must see a write just made, keep using the primary DataSource directly.
+ *
+ * Replica lag is measured with a heartbeat: the primary's replica_heartbeat row is stamped with the
+ * application clock every {@code heartbeatMillis}, replication carries it over, and the lag is now
+ * minus the stamp the replica has. The router re-reads it at most once per heartbeat period; while it
+ * is over {@code maxLagMillis}, or the replica can't be reached, reads go to the primary. A read that
+ * fails on the replica is run again on the primary, and the replica counts as stale until the next
+ * heartbeat check. A replica that has never received a heartbeat counts as stale. Reads can
+ * therefore be up to maxLagMillis plus one heartbeat period behind the primary.
+ *
+ * Configuration (system properties): teetime.replica, the replica's JDBC url, or "h2" for a second
+ * embedded database seeded from the same scripts (stamped fresh when it is created, and never
+ * replicated to, so it falls behind once maxLag has passed); teetime.replica.maxLagMs;
+ * teetime.replica.heartbeatMs. Without teetime.replica every read uses the primary.
+ */
+public class ReadRouter implements AutoCloseable {
+
+    private static final String READ_HEARTBEAT = "SELECT beat_ms FROM replica_heartbeat WHERE heartbeat_id = 1";
+    private static final String UPDATE_HEARTBEAT = "UPDATE replica_heartbeat SET beat_ms = ? WHERE heartbeat_id = 1";
+    private static final String INSERT_HEARTBEAT = "INSERT INTO replica_heartbeat (heartbeat_id, beat_ms) VALUES (1, ?)";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long maxLagMillis;
+    private final long heartbeatMillis;
+    private final TransactionExecutor transactions = TransactionExecutor.fromConfig();
+    private final ScheduledExecutorService heartbeat;
+    private final ConnectionPool ownedReplica;
+
+    // Last measured lag (Long.MAX_VALUE while stale or unreachable) and when it was measured
+    private volatile long lagMillis = Long.MAX_VALUE;
+    private volatile long checkedAt;
+
+    private final AtomicLong replicaReads = new AtomicLong();
+    private final AtomicLong primaryReads = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong heartbeatFailures = new AtomicLong();
+
+    /**
+     * @param replica null to read from the primary
+     * @param writeHeartbeat stamp the primary's heartbeat from this process; one writer per primary is enough
+     */
+    public ReadRouter(DataSource primary, DataSource replica, long maxLagMillis, long heartbeatMillis,
+                      boolean writeHeartbeat) {
+        this(primary, replica, maxLagMillis, heartbeatMillis, writeHeartbeat, null);
+    }
+
+    private ReadRouter(DataSource primary, DataSource replica, long maxLagMillis, long heartbeatMillis,
+                       boolean writeHeartbeat, ConnectionPool ownedReplica) {
+        if (maxLagMillis < 0 || heartbeatMillis < 1) {
+            throw new IllegalArgumentException("need maxLagMillis >= 0 and heartbeatMillis >= 1");
+        }
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagMillis = maxLagMillis;
+        this.heartbeatMillis = heartbeatMillis;
+        this.ownedReplica = ownedReplica;
+        if (replica != null && writeHeartbeat) {
+            this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "replica-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+            heartbeat.scheduleWithFixedDelay(this::beat, 0, heartbeatMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.heartbeat = null;
+        }
+    }
+
+    /** A router that sends every read to {@code primary}. */
+    public static ReadRouter primaryOnly(DataSource primary) {
+        return new ReadRouter(primary, null, 0, 1, false);
+    }
+
+    /** @return the router configured by system properties, opening a pool for the replica if there is one */
+    public static ReadRouter fromConfig(DataSource primary) throws SQLException {
+        String replica = System.getProperty("teetime.replica");
+        if (replica == null || replica.isEmpty()) {
+            return primaryOnly(primary);
+        }
+        ConnectionPool pool;
+        if ("h2".equalsIgnoreCase(replica)) {
+            pool = DataSources.pool(EmbeddedDatabase.create("teetime-replica"));
+            try (Connection connection = pool.getConnection()) {
+                stamp(connection, System.currentTimeMillis());
+            }
+        } else {
+            pool = DataSources.pool(replica);
+        }
+        return new ReadRouter(primary, pool,
+                Long.getLong("teetime.replica.maxLagMs", 5_000L),
+                Long.getLong("teetime.replica.heartbeatMs", 1_000L),
+                true, pool);
+    }
+
+    /**
+     * Runs read-only {@code work} as one SNAPSHOT transaction on the replica, or on the primary while
+     * the replica is too far behind. The work must not write.
+     */
+    public <T> T read(TransactionExecutor.Work<T> work) throws SQLException {
+        if (useReplica()) {
+            try (Connection connection = replica.getConnection()) {
+                T result = transactions.execute(connection, Isolation.SNAPSHOT, work);
+                replicaReads.incrementAndGet();
+                return result;
+            } catch (SQLException e) {
+                // Unreachable, or failed part way (e.g. went down or is being restored): the primary can answer
+                markStale();
+                fallbacks.incrementAndGet();
+                try {
+                    return readPrimary(work);
+                } catch (SQLException primaryFailure) {
+                    primaryFailure.addSuppressed(e);
+                    throw primaryFailure;
+                }
+            }
+        }
+        return readPrimary(work);
+    }
+
+    /**
+     * @return where a read-only operation that manages its own connection (e.g. a streamed result)
+     *         should get it: the replica while it is within the lag bound, otherwise the primary
+     */
+    public DataSource readSource() {
+        if (useReplica()) {
+            replicaReads.incrementAndGet();
+            return replica;
+        }
+        primaryReads.incrementAndGet();
+        return primary;
+    }
+
+    /** @return the replica's lag as last measured, or -1 if it is stale, unreachable or not configured */
+    public long lagMillis() {
+        long lag = lagMillis;
+        return replica == null || lag == Long.MAX_VALUE ? -1 : lag;
+    }
+
+    private <T> T readPrimary(TransactionExecutor.Work<T> work) throws SQLException {
+        primaryReads.incrementAndGet();
+        try (Connection connection = primary.getConnection()) {
+            return transactions.execute(connection, Isolation.SNAPSHOT, work);
+        }
+    }
+
+    private boolean useReplica() {
+        if (replica == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - checkedAt >= heartbeatMillis) {
+            checkLag();
+        }
+        if (lagMillis <= maxLagMillis) {
+            return true;
+        }
+        fallbacks.incrementAndGet();
+        return false;
+    }
+
+    // Re-reads the replica's heartbeat; concurrent readers that find it fresh again skip the query
+    private synchronized void checkLag() {
+        long now = System.currentTimeMillis();
+        if (now - checkedAt < heartbeatMillis) {
+            return;
+        }
+        long lag = Long.MAX_VALUE;
+        try (Connection connection = replica.getConnection();
+             PreparedStatement ps = connection.prepareStatement(READ_HEARTBEAT);
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+                lag = Math.max(0, now - rs.getLong(1));
+            }
+        } catch (SQLException e) {
+            // unreachable: stale until the next check
+        }
+        lagMillis = lag;
+        checkedAt = now;
+    }
+
+    private void markStale() {
+        lagMillis = Long.MAX_VALUE;
+        checkedAt = System.currentTimeMillis();
+    }
+
+    private void beat() {
+        try (Connection connection = primary.getConnection()) {
+            stamp(connection, System.currentTimeMillis());
+        } catch (SQLException e) {
+            heartbeatFailures.incrementAndGet();
+        }
+    }
+
+    /** Stamps the heartbeat row at {@code connection} with {@code nowMillis}, creating the row if needed. */
+    public static void stamp(Connection connection, long nowMillis) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(UPDATE_HEARTBEAT)) {
+            update.setLong(1, nowMillis);
+            if (update.executeUpdate() > 0) {
+                return;
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_HEARTBEAT)) {
+            insert.setLong(1, nowMillis);
+            insert.executeUpdate();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        if (ownedReplica != null) {
+            ownedReplica.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (replica == null) {
+            return String.format("reads on primary (no replica): %d", primaryReads.get());
+        }
+        long lag = lagMillis();
+        return String.format("replica lag: %s (max %d ms)  replica reads: %d  primary reads: %d  "
+                        + "fallbacks: %d  heartbeat failures: %d",
+                lag < 0 ? "stale" : lag + " ms", maxLagMillis, replicaReads.get(), primaryReads.get(),
+                fallbacks.get(), heartbeatFailures.get());
+    }
+}
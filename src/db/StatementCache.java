@@ -0,0 +1,221 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared and callable statements for one physical connection.
+ *
+ * The pool routes prepareStatement(sql) / prepareCall(sql) through here. Callers get a handle
+ * whose close() clears parameters and hands the statement back instead of closing it, so
+ * try-with-resources code reuses the server-side prepared statement on the next call. If the same
+ * SQL is already checked out (nested use on one connection) the caller gets an uncached statement.
+ *
+ * Every checkout gets its own handle. Once closed it behaves like a closed statement, so a caller
+ * that kept it cannot reach the statement after it has been handed to someone else. Its result
+ * sets report the handle, not the physical statement, from getStatement().
+ */
+class StatementCache {
+
+    private final Connection physical;
+    private final int capacity;
+    private final Counters counters;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int capacity, Counters counters) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.counters = counters;
+    }
+
+    /** @param owner the pooled connection handle the caller borrowed (returned by getConnection()) */
+    PreparedStatement prepareStatement(String sql, Connection owner) throws SQLException {
+        return checkout("S:" + sql, sql, false, owner);
+    }
+
+    CallableStatement prepareCall(String sql, Connection owner) throws SQLException {
+        return (CallableStatement) checkout("C:" + sql, sql, true, owner);
+    }
+
+    private synchronized PreparedStatement checkout(String key, String sql, boolean callable, Connection owner)
+            throws SQLException {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (!entry.inUse) {
+                counters.hits.incrementAndGet();
+                entry.inUse = true;
+                entry.owner = owner;
+                return wrap(entry);
+            }
+            // Already checked out on this connection: hand out a plain statement
+            counters.misses.incrementAndGet();
+            return callable ? physical.prepareCall(sql) : physical.prepareStatement(sql);
+        }
+
+        counters.misses.incrementAndGet();
+        PreparedStatement statement = callable ? physical.prepareCall(sql) : physical.prepareStatement(sql);
+        entry = new Entry(statement, callable);
+        entry.inUse = true;
+        entry.owner = owner;
+        entries.put(key, entry);
+        evictOverflow();
+        return wrap(entry);
+    }
+
+    private synchronized void checkin(Entry entry) {
+        entry.inUse = false;
+        if (entry.evicted) {
+            closeQuietly(entry.statement);
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            counters.evictions.incrementAndGet();
+            eldest.evicted = true;
+            if (!eldest.inUse) {
+                closeQuietly(eldest.statement);
+            }
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized void closeAll() {
+        for (Entry entry : entries.values()) {
+            closeQuietly(entry.statement);
+        }
+        entries.clear();
+    }
+
+    // One checkout's view of the entry's statement
+    private PreparedStatement wrap(Entry entry) {
+        PreparedStatement statement = entry.statement;
+        Connection owner = entry.owner;
+        InvocationHandler handler = new InvocationHandler() {
+            private volatile boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!closed) {
+                            closed = true;
+                            resetForReuse(statement);
+                            checkin(entry);
+                        }
+                        return null;
+                    case "isClosed":
+                        return closed || statement.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        if (closed) {
+                            throw new SQLException("Statement is closed");
+                        }
+                        if (method.getName().equals("getConnection")) {
+                            // Hand back the pool's view, not the physical connection
+                            return owner;
+                        }
+                        Object result = StatementCache.invoke(statement, method, args);
+                        return result instanceof ResultSet ? wrap((ResultSet) result, (Statement) proxy) : result;
+                }
+            }
+        };
+        Class<?> type = entry.callable ? CallableStatement.class : PreparedStatement.class;
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    // Closing the physical statement behind the cache's back would break the entry for every later caller
+    private static ResultSet wrap(ResultSet rs, Statement handle) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getStatement":
+                    return handle;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return invoke(rs, method, args);
+            }
+        };
+        return (ResultSet) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(), new Class<?>[]{ResultSet.class}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void resetForReuse(PreparedStatement statement) {
+        try {
+            // A real close() would also close the open result set
+            ResultSet rs = statement.getResultSet();
+            if (rs != null) {
+                rs.close();
+            }
+        } catch (SQLException ignored) {
+            // no current result set
+        }
+        try {
+            statement.clearParameters();
+            statement.clearBatch();
+            statement.clearWarnings();
+        } catch (SQLException ignored) {
+            // a broken statement fails on its next use and the connection gets evicted
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // nothing useful to do
+        }
+    }
+
+    private static final class Entry {
+        final PreparedStatement statement;
+        final boolean callable;
+        Connection owner;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(PreparedStatement statement, boolean callable) {
+            this.statement = statement;
+            this.callable = callable;
+        }
+    }
+
+    /** Hit/miss/eviction counts shared by every connection of a pool. */
+    static final class Counters {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+    }
+}
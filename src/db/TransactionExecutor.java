@@ -0,0 +1,228 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import metrics.Metrics;
+
+/**
+ * Runs a unit of work as one transaction and retries it when it loses a lock conflict.
+ *
+ * Deadlock victims (SQL Server 1205, H2 40001), lock timeouts (SQL Server 1222, H2 50200),
+ * snapshot update conflicts (3960) and other serialization failures (SQLState 40001) are
+ * transient: the transaction is rolled back, the executor sleeps a random time up to an
+ * exponentially growing cap (full jitter, so the transactions that collided don't meet again in
+ * lockstep) and runs the work again, up to maxAttempts times. Any other error is rolled back and
+ * rethrown straight away.
+ *
+ * Because the work can run more than once it must only touch the database. In-memory side effects
+ * (the handicap engine, standings, caches, output) belong after execute() returns.
+ *
+ * Retries and aborts (transient failures that ran out of attempts) are charged to the current
+ * {@link Metrics.Scope}, so they show up per operation next to its latency.
+ *
+ * Knobs (system properties): teetime.tx.maxAttempts, teetime.tx.backoffMs, teetime.tx.maxBackoffMs.
+ */
+public class TransactionExecutor {
+
+    public enum Isolation {
+        READ_COMMITTED,
+        REPEATABLE_READ,
+        SERIALIZABLE,
+        /**
+         * Reads see the database as of the transaction's first statement and take no shared locks,
+         * so read-mostly paths neither block nor are blocked by writers. Needs
+         * ALLOW_SNAPSHOT_ISOLATION ON on SQL Server; where it is unavailable the transaction runs
+         * READ_COMMITTED instead.
+         */
+        SNAPSHOT
+    }
+
+    /**
+     * Database work for one attempt. The executor commits when it returns and rolls back when it
+     * throws; work that rolls back by itself (to discard a rejected change) leaves nothing to commit.
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    // SQL Server error numbers
+    private static final int DEADLOCK_VICTIM = 1205;
+    private static final int LOCK_REQUEST_TIMEOUT = 1222;
+    private static final int SNAPSHOT_NOT_ALLOWED = 3952;
+    private static final int SNAPSHOT_UPDATE_CONFLICT = 3960;
+
+    // H2 error codes
+    private static final int H2_LOCK_TIMEOUT = 50200;
+    private static final int H2_CONCURRENT_UPDATE = 90131;
+
+    // Snapshot isolation levels: SQLServerConnection.TRANSACTION_SNAPSHOT and H2's equivalent
+    private static final int[] SNAPSHOT_LEVELS = {0x1000, 6};
+
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+
+    // Set once the database refuses snapshot isolation, after which SNAPSHOT means READ_COMMITTED
+    private volatile boolean snapshotRefused;
+
+    public TransactionExecutor(int maxAttempts, long backoffMillis, long maxBackoffMillis) {
+        if (maxAttempts < 1 || backoffMillis < 0 || maxBackoffMillis < backoffMillis) {
+            throw new IllegalArgumentException("need maxAttempts >= 1 and 0 <= backoffMillis <= maxBackoffMillis");
+        }
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public static TransactionExecutor fromConfig() {
+        return new TransactionExecutor(
+                Integer.getInteger("teetime.tx.maxAttempts", 5),
+                Long.getLong("teetime.tx.backoffMs", 20L),
+                Long.getLong("teetime.tx.maxBackoffMs", 1_000L));
+    }
+
+    /**
+     * Runs {@code work} in a transaction on {@code connection} at {@code isolation} and commits it,
+     * retrying transient failures. The connection must not have uncommitted work; its auto-commit
+     * mode and isolation level are restored afterwards.
+     */
+    public <T> T execute(Connection connection, Isolation isolation, Work<T> work) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        int previousLevel = connection.getTransactionIsolation();
+        int level = level(connection, isolation);
+        connection.setAutoCommit(false);
+        try {
+            // Only switch when needed: on SQL Server every switch is a round trip
+            if (level != previousLevel) {
+                connection.setTransactionIsolation(level);
+            }
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    T result = work.run(connection);
+                    connection.commit();
+                    return result;
+                } catch (SQLException e) {
+                    rollback(connection, e);
+                    if (isolation == Isolation.SNAPSHOT && errorCode(e, SNAPSHOT_NOT_ALLOWED)
+                            && level != Connection.TRANSACTION_READ_COMMITTED) {
+                        // Not a conflict: the database just doesn't allow snapshot transactions
+                        snapshotRefused = true;
+                        level = Connection.TRANSACTION_READ_COMMITTED;
+                        connection.setTransactionIsolation(level);
+                        attempt--;
+                        continue;
+                    }
+                    if (!isTransient(e)) {
+                        throw e;
+                    }
+                    Metrics.Scope scope = Metrics.current();
+                    if (attempt >= maxAttempts) {
+                        if (scope != null) {
+                            scope.aborted();
+                        }
+                        throw e;
+                    }
+                    if (scope != null) {
+                        scope.retried();
+                    }
+                    backOff(attempt, e);
+                } catch (RuntimeException e) {
+                    rollback(connection, e);
+                    throw e;
+                }
+            }
+        } finally {
+            if (level != previousLevel) {
+                connection.setTransactionIsolation(previousLevel);
+            }
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * @return true when {@code e}, a chained exception or a cause says the transaction lost a lock
+     *         conflict and can simply be run again
+     */
+    public static boolean isTransient(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException && transientOne((SQLException) t)) {
+                return true;
+            }
+        }
+        for (SQLException next = e.getNextException(); next != null; next = next.getNextException()) {
+            if (transientOne(next)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean transientOne(SQLException e) {
+        if (e instanceof SQLTransactionRollbackException || "40001".equals(e.getSQLState())) {
+            return true;
+        }
+        switch (e.getErrorCode()) {
+            case DEADLOCK_VICTIM:
+            case LOCK_REQUEST_TIMEOUT:
+            case SNAPSHOT_UPDATE_CONFLICT:
+            case H2_LOCK_TIMEOUT:
+            case H2_CONCURRENT_UPDATE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean errorCode(SQLException e, int code) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException && ((SQLException) t).getErrorCode() == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int level(Connection connection, Isolation isolation) throws SQLException {
+        switch (isolation) {
+            case REPEATABLE_READ:
+                return Connection.TRANSACTION_REPEATABLE_READ;
+            case SERIALIZABLE:
+                return Connection.TRANSACTION_SERIALIZABLE;
+            case SNAPSHOT:
+                if (!snapshotRefused) {
+                    for (int level : SNAPSHOT_LEVELS) {
+                        if (connection.getMetaData().supportsTransactionIsolationLevel(level)) {
+                            return level;
+                        }
+                    }
+                }
+                return Connection.TRANSACTION_READ_COMMITTED;
+            default:
+                return Connection.TRANSACTION_READ_COMMITTED;
+        }
+    }
+
+    private void backOff(int attempt, SQLException cause) throws SQLException {
+        long cap = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            SQLException interrupted = new SQLException("Interrupted while waiting to retry", e);
+            interrupted.setNextException(cause);
+            throw interrupted;
+        }
+    }
+
+    private static void rollback(Connection connection, Exception cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package export;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/** Buffered reads from a file channel, the counterpart of {@link ByteSink}. */
+public class ByteSource implements Closeable {
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(ByteSink.BUFFER_SIZE);
+
+    public ByteSource(Path file, boolean gzip) throws IOException {
+        FileChannel fileChannel = FileChannel.open(file);
+        this.channel = gzip
+                ? Channels.newChannel(new GZIPInputStream(Channels.newInputStream(fileChannel), ByteSink.BUFFER_SIZE))
+                : fileChannel;
+        buffer.flip();
+    }
+
+    public byte get() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            throw new EOFException();
+        }
+        return buffer.get();
+    }
+
+    public void get(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining() && !fill()) {
+                throw new EOFException();
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    public long getVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int n;
+        do {
+            n = channel.read(buffer);
+        } while (n == 0);
+        buffer.flip();
+        return n > 0;
+    }
+}
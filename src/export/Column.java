@@ -0,0 +1,144 @@
+package export;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/** One exported column and how its values are read, printed and encoded. */
+public class Column {
+
+    /** Value types; each row value is a Long, BigDecimal, LocalDate, LocalDateTime, LocalTime or String. */
+    public enum Type { INT, DECIMAL, DATE, TIMESTAMP, TIME, STRING }
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    public final String name;
+    public final Type type;
+    /** Digits after the decimal point, for DECIMAL columns. */
+    public final int scale;
+
+    public Column(String name, Type type, int scale) {
+        this.name = name;
+        this.type = type;
+        this.scale = scale;
+    }
+
+    /** @return the columns of a result set, typed from its metadata */
+    public static List<Column> of(ResultSetMetaData meta) throws SQLException {
+        List<Column> columns = new ArrayList<>();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            columns.add(new Column(meta.getColumnLabel(i).toLowerCase(), type(meta, i), meta.getScale(i)));
+        }
+        return columns;
+    }
+
+    private static Type type(ResultSetMetaData meta, int i) throws SQLException {
+        switch (meta.getColumnType(i)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return Type.INT;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                // Stored as a scaled long, which holds 18 digits
+                return meta.getPrecision(i) <= 18 ? Type.DECIMAL : Type.STRING;
+            case Types.DATE:
+                return Type.DATE;
+            case Types.TIMESTAMP:
+                return Type.TIMESTAMP;
+            case Types.TIME:
+                return Type.TIME;
+            default:
+                return Type.STRING;
+        }
+    }
+
+    /** @return the value of this column in the current row, or null */
+    public Object read(ResultSet rs, int index) throws SQLException {
+        switch (type) {
+            case INT:
+                long n = rs.getLong(index);
+                return rs.wasNull() ? null : n;
+            case DECIMAL:
+                return rs.getBigDecimal(index);
+            case DATE:
+                java.sql.Date date = rs.getDate(index);
+                return date == null ? null : date.toLocalDate();
+            case TIMESTAMP:
+                Timestamp timestamp = rs.getTimestamp(index);
+                return timestamp == null ? null : timestamp.toLocalDateTime();
+            case TIME:
+                Time time = rs.getTime(index);
+                return time == null ? null : time.toLocalTime();
+            default:
+                return rs.getString(index);
+        }
+    }
+
+    /** @return the value as CSV text; null is the empty string */
+    public String text(Object value) {
+        if (value == null) {
+            return "";
+        }
+        switch (type) {
+            case DECIMAL:
+                return ((BigDecimal) value).toPlainString();
+            case TIMESTAMP:
+                return TIMESTAMP_FORMAT.format((LocalDateTime) value);
+            case TIME:
+                return TIME_FORMAT.format((LocalTime) value);
+            default:
+                return value.toString();
+        }
+    }
+
+    /** @return the value as a long for the columnar encoding (not for STRING columns) */
+    long toLong(Object value) {
+        switch (type) {
+            case INT:
+                return (Long) value;
+            case DECIMAL:
+                return ((BigDecimal) value).setScale(scale).unscaledValue().longValueExact();
+            case DATE:
+                return ((LocalDate) value).toEpochDay();
+            case TIMESTAMP:
+                return ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli();
+            case TIME:
+                return ((LocalTime) value).toSecondOfDay();
+            default:
+                throw new IllegalStateException(name + " is a STRING column");
+        }
+    }
+
+    /** Inverse of {@link #toLong}. */
+    Object fromLong(long value) {
+        switch (type) {
+            case INT:
+                return value;
+            case DECIMAL:
+                return BigDecimal.valueOf(value, scale);
+            case DATE:
+                return LocalDate.ofEpochDay(value);
+            case TIMESTAMP:
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(value), ZoneOffset.UTC);
+            case TIME:
+                return LocalTime.ofSecondOfDay(value);
+            default:
+                throw new IllegalStateException(name + " is a STRING column");
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/** Reads a file written by {@link ColumnarWriter}, one row group at a time. */
+public class ColumnarReader implements Closeable {
+
+    private final ByteSource source;
+    private final List<Column> columns;
+
+    /** @param file a .ttc file; a name ending in .gz is decompressed */
+    public ColumnarReader(Path file) throws IOException {
+        this.source = new ByteSource(file, file.getFileName().toString().endsWith(".gz"));
+        byte[] magic = new byte[ColumnarWriter.MAGIC.length];
+        source.get(magic, 0, magic.length);
+        if (!Arrays.equals(magic, ColumnarWriter.MAGIC)) {
+            source.close();
+            throw new IOException(file + " is not a columnar export");
+        }
+        int count = (int) source.getVarint();
+        List<Column> columns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = string(source);
+            Column.Type type = Column.Type.values()[source.get()];
+            columns.add(new Column(name, type, (int) source.getVarint()));
+        }
+        this.columns = Collections.unmodifiableList(columns);
+    }
+
+    public List<Column> columns() {
+        return columns;
+    }
+
+    /**
+     * Hands every row to {@code writer} in file order.
+     *
+     * @return the number of rows copied
+     */
+    public long copyTo(RowWriter writer) throws IOException {
+        long total = 0;
+        Object[][] group = new Object[columns.size()][];
+        Object[] row = new Object[columns.size()];
+        int rows;
+        while ((rows = (int) source.getVarint()) > 0) {
+            for (int c = 0; c < group.length; c++) {
+                byte[] payload = new byte[(int) source.getVarint()];
+                source.get(payload, 0, payload.length);
+                group[c] = decode(columns.get(c), payload, rows);
+            }
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < row.length; c++) {
+                    row[c] = group[c][r];
+                }
+                writer.row(row);
+            }
+            total += rows;
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private static Object[] decode(Column column, byte[] payload, int rows) {
+        Object[] values = new Object[rows];
+        int[] position = {(rows + 7) >>> 3};
+        String[] dictionary = null;
+        if (column.type == Column.Type.STRING) {
+            dictionary = new String[(int) varint(payload, position)];
+            for (int i = 0; i < dictionary.length; i++) {
+                int length = (int) varint(payload, position);
+                dictionary[i] = new String(payload, position[0], length, StandardCharsets.UTF_8);
+                position[0] += length;
+            }
+        }
+        long previous = 0;
+        for (int r = 0; r < rows; r++) {
+            if ((payload[r >>> 3] & (1 << (r & 7))) != 0) {
+                continue;
+            }
+            long n = varint(payload, position);
+            if (dictionary != null) {
+                values[r] = dictionary[(int) n];
+            } else {
+                previous += (n >>> 1) ^ -(n & 1);
+                values[r] = column.fromLong(previous);
+            }
+        }
+        return values;
+    }
+
+    private static long varint(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static String string(ByteSource source) throws IOException {
+        byte[] utf8 = new byte[(int) source.getVarint()];
+        source.get(utf8, 0, utf8.length);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
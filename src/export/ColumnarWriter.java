@@ -0,0 +1,187 @@
+package export;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact columnar binary format (".ttc"), written in row groups so memory is bounded by the group
+ * size, not the table size. Read it back with {@link ColumnarReader}.
+ *
+ * <pre>
+ * file      := "TTC1" varint(columnCount) column* group* varint(0)
+ * column    := string(name) byte(type ordinal) varint(scale)
+ * group     := varint(rows) (varint(byteLength) payload)*      one payload per column, in order
+ * payload   := nullBitmap values                                bit i set = row i is null
+ * values    := INT, DECIMAL, DATE, TIMESTAMP, TIME: zigzag varint delta from the previous non-null
+ *              value in the group (unscaled for DECIMAL, epoch day, epoch millisecond, second of day)
+ *            | STRING: varint(dictionarySize) string* then varint(dictionary index) per non-null row
+ * string    := varint(utf8Length) utf8
+ * </pre>
+ *
+ * Ordered keys delta-encode to one byte and repeated strings (status, city, skill level) to one
+ * dictionary index, so a file is typically a fraction of the CSV before any compression.
+ */
+public class ColumnarWriter implements RowWriter {
+
+    static final byte[] MAGIC = {'T', 'T', 'C', '1'};
+    public static final int DEFAULT_ROWS_PER_GROUP = 16 * 1024;
+
+    private final ByteSink sink;
+    private final List<Column> columns;
+    private final int rowsPerGroup;
+    private final ColumnBuffer[] buffers;
+    private int rows;
+
+    public ColumnarWriter(ByteSink sink, List<Column> columns, int rowsPerGroup) throws IOException {
+        if (rowsPerGroup < 1) {
+            throw new IllegalArgumentException("rowsPerGroup must be at least 1");
+        }
+        this.sink = sink;
+        this.columns = columns;
+        this.rowsPerGroup = rowsPerGroup;
+        this.buffers = new ColumnBuffer[columns.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new ColumnBuffer(rowsPerGroup);
+        }
+
+        sink.put(MAGIC);
+        sink.putVarint(columns.size());
+        for (Column column : columns) {
+            byte[] name = column.name.getBytes(StandardCharsets.UTF_8);
+            sink.putVarint(name.length);
+            sink.put(name);
+            sink.put((byte) column.type.ordinal());
+            sink.putVarint(Math.max(column.scale, 0));
+        }
+    }
+
+    @Override
+    public void row(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            Column column = columns.get(i);
+            ColumnBuffer buffer = buffers[i];
+            Object value = values[i];
+            if (value == null) {
+                buffer.nulls[rows >>> 3] |= (byte) (1 << (rows & 7));
+            } else if (column.type == Column.Type.STRING) {
+                buffer.values.putVarint(buffer.indexOf((String) value));
+            } else {
+                long n = column.toLong(value);
+                long delta = n - buffer.previous;
+                buffer.values.putVarint((delta << 1) ^ (delta >> 63));
+                buffer.previous = n;
+            }
+        }
+        if (++rows == rowsPerGroup) {
+            writeGroup();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rows > 0) {
+                writeGroup();
+            }
+            sink.putVarint(0);
+        } finally {
+            sink.close();
+        }
+    }
+
+    private void writeGroup() throws IOException {
+        int bitmapLength = (rows + 7) >>> 3;
+        sink.putVarint(rows);
+        for (int i = 0; i < buffers.length; i++) {
+            ColumnBuffer buffer = buffers[i];
+            boolean string = columns.get(i).type == Column.Type.STRING;
+            long length = bitmapLength + buffer.values.size;
+            if (string) {
+                length += varintSize(buffer.dictionary.size()) + buffer.dictionaryBytes.size;
+            }
+            sink.putVarint(length);
+            sink.put(buffer.nulls, 0, bitmapLength);
+            if (string) {
+                sink.putVarint(buffer.dictionary.size());
+                sink.put(buffer.dictionaryBytes.data, 0, buffer.dictionaryBytes.size);
+            }
+            sink.put(buffer.values.data, 0, buffer.values.size);
+            buffer.reset();
+        }
+        rows = 0;
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    // One column of the current row group
+    private static final class ColumnBuffer {
+        final byte[] nulls;
+        final Bytes values = new Bytes();
+        long previous;
+        // STRING columns only: value -> index, and the encoded entries in index order
+        final Map<String, Integer> dictionary = new HashMap<>();
+        final Bytes dictionaryBytes = new Bytes();
+
+        ColumnBuffer(int rowsPerGroup) {
+            this.nulls = new byte[(rowsPerGroup + 7) >>> 3];
+        }
+
+        int indexOf(String value) {
+            Integer index = dictionary.get(value);
+            if (index == null) {
+                index = dictionary.size();
+                dictionary.put(value, index);
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                dictionaryBytes.putVarint(utf8.length);
+                dictionaryBytes.put(utf8);
+            }
+            return index;
+        }
+
+        void reset() {
+            Arrays.fill(nulls, (byte) 0);
+            values.size = 0;
+            previous = 0;
+            dictionary.clear();
+            dictionaryBytes.size = 0;
+        }
+    }
+
+    // A growable byte array, reused from group to group
+    private static final class Bytes {
+        byte[] data = new byte[1024];
+        int size;
+
+        void put(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, data, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void putVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        private void ensure(int more) {
+            if (size + more > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + more));
+            }
+        }
+    }
+}
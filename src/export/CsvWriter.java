@@ -0,0 +1,60 @@
+package export;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * RFC 4180 CSV: a header row of column names, then one line per row. Fields containing a comma,
+ * quote or line break are quoted; null is an empty field. Dates are ISO (yyyy-MM-dd, yyyy-MM-dd HH:mm:ss).
+ */
+public class CsvWriter implements RowWriter {
+
+    private final ByteSink sink;
+    private final List<Column> columns;
+
+    public CsvWriter(ByteSink sink, List<Column> columns) throws IOException {
+        this.sink = sink;
+        this.columns = columns;
+        for (int i = 0; i < columns.size(); i++) {
+            field(i, columns.get(i).name);
+        }
+        sink.put((byte) '\n');
+    }
+
+    @Override
+    public void row(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            field(i, columns.get(i).text(values[i]));
+        }
+        sink.put((byte) '\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        sink.close();
+    }
+
+    private void field(int index, String text) throws IOException {
+        if (index > 0) {
+            sink.put((byte) ',');
+        }
+        if (!needsQuotes(text)) {
+            sink.put(text.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        sink.put((byte) '"');
+        sink.put(text.replace("\"", "\"\"").getBytes(StandardCharsets.UTF_8));
+        sink.put((byte) '"');
+    }
+
+    private static boolean needsQuotes(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,15 @@
+package export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/** Writes rows of one table to a {@link ByteSink} in some file format. */
+public interface RowWriter extends Closeable {
+
+    /** @param values one value per column, in column order (see {@link Column.Type}); reused by the caller */
+    void row(Object[] values) throws IOException;
+
+    /** Writes anything still buffered and closes the sink. */
+    @Override
+    void close() throws IOException;
+}
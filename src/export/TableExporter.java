@@ -0,0 +1,232 @@
+package export;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+/**
+ * Streams whole tables to files in primary key order, as CSV or {@link ColumnarWriter columnar}, optionally gzipped.
+ *
+ * Each file is one forward-only, read-only query with a set fetch size, so rows arrive from the
+ * driver a fetch at a time (SQL Server's default adaptive response buffering streams them) and go
+ * straight into a fixed NIO buffer. Heap use does not grow with the table.
+ *
+ * Exports are resumable by key range. With {@code keysPerFile}, a table is split into files of that
+ * many leading-key values, aligned to multiples of it, e.g. game.0-99999.csv, game.100000-199999.csv.
+ * A file is written as .part and renamed when complete, and files that already exist are skipped,
+ * so re-running an interrupted export only redoes the unfinished ranges.
+ */
+public class TableExporter {
+
+    public enum Format { CSV, COLUMNAR }
+
+    // Exported table -> primary key, leading column first
+    private static final Map<String, String[]> TABLES = new LinkedHashMap<>();
+    static {
+        TABLES.put("player", new String[] {"player_id"});
+        TABLES.put("team_player", new String[] {"player_id", "team_id"});
+        TABLES.put("league_team", new String[] {"league_id", "team_id"});
+        TABLES.put("game", new String[] {"game_id"});
+        TABLES.put("game_team", new String[] {"game_id", "team_id"});
+    }
+
+    public static final int DEFAULT_FETCH_SIZE = 5000;
+
+    private final DataSource dataSource;
+    private final Path directory;
+    private final Format format;
+    private final boolean gzip;
+    private final int fetchSize;
+    private final PrintStream out;
+
+    private final Summary summary = new Summary();
+
+    public TableExporter(DataSource dataSource, Path directory, Format format, boolean gzip, int fetchSize,
+                         PrintStream out) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.directory = directory;
+        this.format = format;
+        this.gzip = gzip;
+        this.fetchSize = fetchSize;
+        this.out = out;
+    }
+
+    /** @return the tables that can be exported, in export order */
+    public static List<String> tables() {
+        return new ArrayList<>(TABLES.keySet());
+    }
+
+    /**
+     * @param from        lowest leading key to export, or null for no lower bound
+     * @param to          highest leading key to export, or null for no upper bound
+     * @param keysPerFile leading-key values per file, or 0 for one file per table
+     */
+    public Summary export(List<String> tables, Long from, Long to, long keysPerFile) throws IOException, SQLException {
+        long start = System.nanoTime();
+        for (String table : tables) {
+            if (!TABLES.containsKey(table)) {
+                throw new IllegalArgumentException("unknown table: " + table + " (one of " + tables() + ")");
+            }
+        }
+        Files.createDirectories(directory);
+
+        for (String table : tables) {
+            summary.tables++;
+            if (from == null && to == null && keysPerFile == 0) {
+                exportFile(table, null, null, directory.resolve(table + extension()));
+                continue;
+            }
+            long[] range = keyRange(table, from, to);
+            if (range == null) {
+                out.printf("%-12s no rows in range%n", table);
+                continue;
+            }
+            if (keysPerFile == 0) {
+                long fileFrom = from != null ? from : range[0];
+                long fileTo = to != null ? to : range[1];
+                exportFile(table, fileFrom, fileTo, file(table, fileFrom, fileTo));
+                continue;
+            }
+            for (long lo = Math.floorDiv(range[0], keysPerFile) * keysPerFile; lo <= range[1]; lo += keysPerFile) {
+                // Named by the aligned range rather than the data, so every run picks the same files
+                long fileFrom = from == null ? lo : Math.max(lo, from);
+                long fileTo = to == null ? lo + keysPerFile - 1 : Math.min(lo + keysPerFile - 1, to);
+                exportFile(table, fileFrom, fileTo, file(table, fileFrom, fileTo));
+            }
+        }
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    // Smallest and largest leading key within [from, to], or null if there are none
+    private long[] keyRange(String table, Long from, Long to) throws SQLException {
+        String key = TABLES.get(table)[0];
+        String sql = "SELECT MIN(" + key + "), MAX(" + key + ") FROM " + table + where(key, from, to);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            bind(ps, from, to);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                long min = rs.getLong(1);
+                return rs.wasNull() ? null : new long[] {min, rs.getLong(2)};
+            }
+        }
+    }
+
+    private void exportFile(String table, Long from, Long to, Path target) throws IOException, SQLException {
+        if (Files.exists(target)) {
+            summary.filesSkipped++;
+            out.printf("%-12s %-32s already exported, skipped%n", table, target.getFileName());
+            return;
+        }
+        String[] primaryKey = TABLES.get(table);
+        String sql = "SELECT * FROM " + table + where(primaryKey[0], from, to)
+                   + " ORDER BY " + String.join(", ", primaryKey);
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        long rows = 0;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                     ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(fetchSize);
+            bind(ps, from, to);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Column> columns = Column.of(rs.getMetaData());
+                Object[] row = new Object[columns.size()];
+                try (RowWriter writer = writer(part, columns)) {
+                    while (rs.next()) {
+                        for (int i = 0; i < row.length; i++) {
+                            row[i] = columns.get(i).read(rs, i + 1);
+                        }
+                        writer.row(row);
+                        rows++;
+                    }
+                }
+            }
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+
+        long bytes = Files.size(target);
+        summary.files++;
+        summary.rows += rows;
+        summary.bytes += bytes;
+        out.printf("%-12s %-32s %,10d rows %,14d bytes%n", table, target.getFileName(), rows, bytes);
+    }
+
+    private RowWriter writer(Path file, List<Column> columns) throws IOException {
+        ByteSink sink = new ByteSink(file, gzip);
+        try {
+            return format == Format.CSV
+                    ? new CsvWriter(sink, columns)
+                    : new ColumnarWriter(sink, columns, ColumnarWriter.DEFAULT_ROWS_PER_GROUP);
+        } catch (IOException e) {
+            sink.close();
+            throw e;
+        }
+    }
+
+    private Path file(String table, long from, long to) {
+        return directory.resolve(table + "." + from + "-" + to + extension());
+    }
+
+    private String extension() {
+        return (format == Format.CSV ? ".csv" : ".ttc") + (gzip ? ".gz" : "");
+    }
+
+    private static String where(String key, Long from, Long to) {
+        if (from != null && to != null) {
+            return " WHERE " + key + " BETWEEN ? AND ?";
+        }
+        if (from != null) {
+            return " WHERE " + key + " >= ?";
+        }
+        return to != null ? " WHERE " + key + " <= ?" : "";
+    }
+
+    private static void bind(PreparedStatement ps, Long from, Long to) throws SQLException {
+        int i = 1;
+        if (from != null) {
+            ps.setLong(i++, from);
+        }
+        if (to != null) {
+            ps.setLong(i, to);
+        }
+    }
+
+    public static class Summary {
+        public int tables;
+        public int files;
+        public int filesSkipped;
+        public long rows;
+        public long bytes;
+        public long elapsedNanos;
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format(
+                    "Tables: %d  Files written: %d  Skipped (already exported): %d%n"
+                  + "Rows: %d  Bytes: %d%n"
+                  + "Elapsed: %.3f s  Throughput: %.1f rows/s",
+                    tables, files, filesSkipped, rows, bytes,
+                    seconds, seconds == 0 ? 0 : rows / seconds);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package handicap;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * In-process replacement for the AutoUpdateHandicapAfterMatch cursor trigger.
+ *
+ * UpdatePlayerHandicap sets handicap = AVG(score) - 72 over the completed games of the last three
+ * months, counted through every team the player is on. Instead of rescanning a player's history on
+ * each score write, the engine keeps a running sum and count per player in primitive arrays and a
+ * time-ordered heap of the team scores inside the window. New results are added to every rostered
+ * player, advanceTo() subtracts scores that fall out of the window, and flush() writes the changed
+ * handicaps back with one batched UPDATE. A flush listener hears about every handicap once it is written.
+ */
+public class HandicapEngine {
+
+    private static final int WINDOW_MONTHS = 3;
+    private static final BigDecimal PAR = new BigDecimal("72.0");
+
+    private static final String ROSTER_SQL = "SELECT player_id, team_id FROM team_player";
+    private static final String WINDOW_SQL =
+            "SELECT gt.team_id, gt.score, g.date_time"
+          + "  FROM game_team gt"
+          + "  JOIN game g ON g.game_id = gt.game_id"
+          + " WHERE g.status = 'Completed'"
+          + "   AND gt.score IS NOT NULL"
+          + "   AND g.date_time >= ?";
+    private static final String FLUSH_SQL = "UPDATE player SET handicap = ? WHERE player_id = ?";
+    // Same query as UpdatePlayerHandicap, for every player at once and with the window start as a parameter
+    private static final String SQL_FORMULA =
+            "SELECT tp.player_id, AVG(CAST(gt.score AS DECIMAL(5,2))) AS avg_score"
+          + "  FROM game_team gt"
+          + "  JOIN team_player tp ON gt.team_id = tp.team_id"
+          + "  JOIN game g ON gt.game_id = g.game_id"
+          + " WHERE g.status = 'Completed'"
+          + "   AND g.date_time >= ?"
+          + " GROUP BY tp.player_id";
+
+    // Per-player state, indexed by a dense player index
+    private final Map<Integer, Integer> playerIndex = new HashMap<>();
+    private int[] playerIds = new int[64];
+    private long[] scoreSum = new long[64];
+    private int[] scoreCount = new int[64];
+    private boolean[] dirty = new boolean[64];
+    private int players;
+
+    // teamId -> dense indexes of its players
+    private final Map<Integer, int[]> rosters = new HashMap<>();
+
+    // Min-heap of in-window team scores ordered by game time
+    private long[] eventTime = new long[256];
+    private int[] eventTeam = new int[256];
+    private int[] eventScore = new int[256];
+    private int events;
+
+    private LocalDateTime now;
+
+    private BiConsumer<Integer, BigDecimal> flushListener;
+
+    /** Loads rosters and the games inside the window ending at {@code now}, replacing anything loaded before. */
+    public synchronized void load(Connection connection, LocalDateTime now) throws SQLException {
+        playerIndex.clear();
+        rosters.clear();
+        Arrays.fill(scoreSum, 0, players, 0L);
+        Arrays.fill(scoreCount, 0, players, 0);
+        Arrays.fill(dirty, 0, players, false);
+        players = 0;
+        events = 0;
+        this.now = now;
+        try (PreparedStatement ps = connection.prepareStatement(ROSTER_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                addToRoster(rs.getInt("team_id"), indexOf(rs.getInt("player_id")));
+            }
+        }
+        try (PreparedStatement ps = connection.prepareStatement(WINDOW_SQL)) {
+            ps.setTimestamp(1, Timestamp.valueOf(windowStart()));
+            ps.setFetchSize(1000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    recordResult(rs.getInt("team_id"), rs.getInt("score"), rs.getTimestamp("date_time").toLocalDateTime());
+                }
+            }
+        }
+    }
+
+    /** Adds one team's score in a completed game. Scores older than the window are ignored. */
+    public synchronized void recordResult(int teamId, int score, LocalDateTime gameTime) {
+        long time = Timestamp.valueOf(gameTime).getTime();
+        if (time < Timestamp.valueOf(windowStart()).getTime()) {
+            return;
+        }
+        push(time, teamId, score);
+        apply(teamId, score, 1);
+    }
+
+    /** Keeps the roster in sync; the player picks up the team's games that are still in the window. */
+    public synchronized void playerJoinedTeam(int playerId, int teamId) {
+        int p = indexOf(playerId);
+        addToRoster(teamId, p);
+        for (int i = 0; i < events; i++) {
+            if (eventTeam[i] == teamId) {
+                scoreSum[p] += eventScore[i];
+                scoreCount[p]++;
+                dirty[p] = true;
+            }
+        }
+    }
+
+    /** Moves the window forward, removing scores from games older than three months. */
+    public synchronized void advanceTo(LocalDateTime newNow) {
+        this.now = newNow;
+        long cutoff = Timestamp.valueOf(windowStart()).getTime();
+        while (events > 0 && eventTime[0] < cutoff) {
+            apply(eventTeam[0], eventScore[0], -1);
+            pop();
+        }
+    }
+
+    /** Called with (playerId, handicap) for every handicap flush() or flushTo() writes, after it is written. */
+    public synchronized void setFlushListener(BiConsumer<Integer, BigDecimal> flushListener) {
+        this.flushListener = flushListener;
+    }
+
+    /**
+     * Current handicap for a player, following UpdatePlayerHandicap's rounding
+     * (average as DECIMAL(5,2), handicap as DECIMAL(4,1)). Null when there are no recent games.
+     */
+    public synchronized BigDecimal handicapOf(int playerId) {
+        Integer p = playerIndex.get(playerId);
+        if (p == null || scoreCount[p] == 0) {
+            return null;
+        }
+        return formula(BigDecimal.valueOf(scoreSum[p]).divide(BigDecimal.valueOf(scoreCount[p]), 6, RoundingMode.HALF_UP));
+    }
+
+    static BigDecimal formula(BigDecimal averageScore) {
+        return averageScore.setScale(2, RoundingMode.HALF_UP).subtract(PAR).setScale(1, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Writes every changed handicap back with one batched UPDATE and commits.
+     * Players whose window became empty keep their stored handicap, as in UpdatePlayerHandicap.
+     *
+     * @return number of players updated
+     */
+    public synchronized int flush(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        int updated = 0;
+        try (PreparedStatement ps = connection.prepareStatement(FLUSH_SQL)) {
+            for (int p = 0; p < players; p++) {
+                if (!dirty[p] || scoreCount[p] == 0) {
+                    continue;
+                }
+                ps.setBigDecimal(1, handicapOf(playerIds[p]));
+                ps.setInt(2, playerIds[p]);
+                ps.addBatch();
+                updated++;
+            }
+            if (updated > 0) {
+                ps.executeBatch();
+            }
+            connection.commit();
+            if (flushListener != null) {
+                for (int p = 0; p < players; p++) {
+                    if (dirty[p] && scoreCount[p] > 0) {
+                        flushListener.accept(playerIds[p], handicapOf(playerIds[p]));
+                    }
+                }
+            }
+            Arrays.fill(dirty, 0, players, false);
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return updated;
+    }
+
+    /**
+     * Hands every changed handicap to {@code sink} instead of the database (for a store that keeps
+     * players in memory), with the same rules as flush().
+     *
+     * @return number of players handed over
+     */
+    public synchronized int flushTo(BiConsumer<Integer, BigDecimal> sink) {
+        int updated = 0;
+        for (int p = 0; p < players; p++) {
+            if (dirty[p] && scoreCount[p] > 0) {
+                BigDecimal handicap = handicapOf(playerIds[p]);
+                sink.accept(playerIds[p], handicap);
+                if (flushListener != null) {
+                    flushListener.accept(playerIds[p], handicap);
+                }
+                updated++;
+            }
+        }
+        Arrays.fill(dirty, 0, players, false);
+        return updated;
+    }
+
+    /**
+     * Recompute check: runs the UpdatePlayerHandicap formula in SQL for every player and
+     * compares it with the engine's value.
+     *
+     * @return one line per player whose handicap disagrees (empty when everything matches)
+     */
+    public synchronized List<String> verify(Connection connection) throws SQLException {
+        List<String> mismatches = new ArrayList<>();
+        Map<Integer, BigDecimal> expected = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(SQL_FORMULA)) {
+            ps.setTimestamp(1, Timestamp.valueOf(windowStart()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    BigDecimal avg = rs.getBigDecimal("avg_score");
+                    if (avg != null) {
+                        expected.put(rs.getInt("player_id"), formula(avg));
+                    }
+                }
+            }
+        }
+        for (Map.Entry<Integer, BigDecimal> e : expected.entrySet()) {
+            BigDecimal actual = handicapOf(e.getKey());
+            if (actual == null || actual.compareTo(e.getValue()) != 0) {
+                mismatches.add("player " + e.getKey() + ": sql=" + e.getValue() + " engine=" + actual);
+            }
+        }
+        for (int p = 0; p < players; p++) {
+            if (scoreCount[p] > 0 && !expected.containsKey(playerIds[p])) {
+                mismatches.add("player " + playerIds[p] + ": sql=none engine=" + handicapOf(playerIds[p]));
+            }
+        }
+        return mismatches;
+    }
+
+    public synchronized int trackedPlayers() {
+        return players;
+    }
+
+    public synchronized int windowSize() {
+        return events;
+    }
+
+    private LocalDateTime windowStart() {
+        return now.minusMonths(WINDOW_MONTHS);
+    }
+
+    private void apply(int teamId, int score, int sign) {
+        int[] roster = rosters.get(teamId);
+        if (roster == null) {
+            return;
+        }
+        for (int p : roster) {
+            scoreSum[p] += sign * (long) score;
+            scoreCount[p] += sign;
+            dirty[p] = true;
+        }
+    }
+
+    private int indexOf(int playerId) {
+        Integer existing = playerIndex.get(playerId);
+        if (existing != null) {
+            return existing;
+        }
+        if (players == playerIds.length) {
+            int size = players * 2;
+            playerIds = Arrays.copyOf(playerIds, size);
+            scoreSum = Arrays.copyOf(scoreSum, size);
+            scoreCount = Arrays.copyOf(scoreCount, size);
+            dirty = Arrays.copyOf(dirty, size);
+        }
+        playerIds[players] = playerId;
+        playerIndex.put(playerId, players);
+        return players++;
+    }
+
+    private void addToRoster(int teamId, int player) {
+        int[] roster = rosters.get(teamId);
+        if (roster == null) {
+            rosters.put(teamId, new int[]{player});
+            return;
+        }
+        for (int p : roster) {
+            if (p == player) {
+                return;
+            }
+        }
+        int[] grown = Arrays.copyOf(roster, roster.length + 1);
+        grown[roster.length] = player;
+        rosters.put(teamId, grown);
+    }
+
+    // Heap operations over the three parallel event arrays
+
+    private void push(long time, int team, int score) {
+        if (events == eventTime.length) {
+            int size = events * 2;
+            eventTime = Arrays.copyOf(eventTime, size);
+            eventTeam = Arrays.copyOf(eventTeam, size);
+            eventScore = Arrays.copyOf(eventScore, size);
+        }
+        int i = events++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (eventTime[parent] <= time) {
+                break;
+            }
+            move(parent, i);
+            i = parent;
+        }
+        eventTime[i] = time;
+        eventTeam[i] = team;
+        eventScore[i] = score;
+    }
+
+    private void pop() {
+        events--;
+        if (events == 0) {
+            return;
+        }
+        long time = eventTime[events];
+        int team = eventTeam[events];
+        int score = eventScore[events];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= events) {
+                break;
+            }
+            if (child + 1 < events && eventTime[child + 1] < eventTime[child]) {
+                child++;
+            }
+            if (eventTime[child] >= time) {
+                break;
+            }
+            move(child, i);
+            i = child;
+        }
+        eventTime[i] = time;
+        eventTeam[i] = team;
+        eventScore[i] = score;
+    }
+
+    private void move(int from, int to) {
+        eventTime[to] = eventTime[from];
+        eventTeam[to] = eventTeam[from];
+        eventScore[to] = eventScore[from];
+    }
+}
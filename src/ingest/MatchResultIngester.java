@@ -0,0 +1,392 @@
+package ingest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import db.TransactionExecutor;
+import db.TransactionExecutor.Isolation;
+import handicap.HandicapEngine;
+import journal.Journal;
+import rating.RatingEngine;
+import standings.StandingsStore;
+
+/**
+ * Streaming ingestion of tournament results from a CSV of game_id,team_id,score rows.
+ *
+ * Unlike UpdateMatchResults, a game can have any number of teams. Rows are read in chunks of
+ * {@code gamesPerTransaction} games and each chunk is applied in one transaction:
+ *   1. bulk insert the rows into game_result_stage (batched)
+ *   2. validate every staged game in one set-based query (exists, Scheduled, all teams scored)
+ *   3. drop rejected games from the stage
+ *   4. copy the scores into game_team and mark the games Completed with one UPDATE each,
+ *      which lets trg_UpdatePlayerHandicap adjust handicaps for the whole chunk at once
+ *
+ * A chunk that loses a deadlock or lock timeout to concurrent writers is rolled back and run again
+ * by a {@link TransactionExecutor}; only other errors reject the whole chunk. So is a chunk in which
+ * a validated game was completed by someone else before step 4: the scores only go to games that
+ * are still Scheduled, and if fewer games complete than were validated the chunk is retried, when
+ * validation rejects the game that was taken.
+ *
+ * Every completed game is appended to the {@link Journal} once its chunk has committed.
+ *
+ * Rows of a game must be contiguous in the file; a game that shows up again later is rejected.
+ */
+public class MatchResultIngester {
+
+    private static final String STAGE_SQL =
+            "INSERT INTO game_result_stage (batch_id, game_id, team_id, score) VALUES (?, ?, ?, ?)";
+    private static final String VALIDATE_SQL =
+            "SELECT s.game_id,"
+          + "       MAX(g.status) AS status,"
+          + "       MAX(g.date_time) AS date_time,"
+          + "       MAX(g.league_id) AS league_id,"
+          + "       COUNT(*) AS staged_teams,"
+          + "       SUM(CASE WHEN gt.team_id IS NULL THEN 1 ELSE 0 END) AS unknown_teams,"
+          + "       (SELECT COUNT(*) FROM game_team x WHERE x.game_id = s.game_id) AS game_teams"
+          + "  FROM game_result_stage s"
+          + "  LEFT JOIN game g ON g.game_id = s.game_id"
+          + "  LEFT JOIN game_team gt ON gt.game_id = s.game_id AND gt.team_id = s.team_id"
+          + " WHERE s.batch_id = ?"
+          + " GROUP BY s.game_id";
+    private static final String UNSTAGE_GAME_SQL =
+            "DELETE FROM game_result_stage WHERE batch_id = ? AND game_id = ?";
+    private static final String APPLY_SCORES_SQL =
+            "UPDATE game_team"
+          + "   SET score = (SELECT s.score FROM game_result_stage s"
+          + "                 WHERE s.batch_id = ? AND s.game_id = game_team.game_id AND s.team_id = game_team.team_id)"
+          + " WHERE EXISTS (SELECT 1 FROM game_result_stage s"
+          + "                WHERE s.batch_id = ? AND s.game_id = game_team.game_id AND s.team_id = game_team.team_id)"
+          + "   AND EXISTS (SELECT 1 FROM game g WHERE g.game_id = game_team.game_id AND g.status = 'Scheduled')";
+    private static final String COMPLETE_GAMES_SQL =
+            "UPDATE game SET status = 'Completed'"
+          + " WHERE status = 'Scheduled'"
+          + "   AND game_id IN (SELECT DISTINCT game_id FROM game_result_stage WHERE batch_id = ?)";
+    private static final String CLEAR_STAGE_SQL =
+            "DELETE FROM game_result_stage WHERE batch_id = ?";
+
+    private final DataSource dataSource;
+    private final int gamesPerTransaction;
+    private final PrintStream out;
+
+    private final Summary summary = new Summary();
+    private final TransactionExecutor transactions = TransactionExecutor.fromConfig();
+    private HandicapEngine handicapEngine;
+    private RatingEngine ratingEngine;
+    private StandingsStore standingsStore;
+    private Journal journal = Journal.disabled();
+    private String actor;
+
+    public MatchResultIngester(DataSource dataSource, int gamesPerTransaction, PrintStream out) {
+        if (gamesPerTransaction < 1) {
+            throw new IllegalArgumentException("gamesPerTransaction must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.gamesPerTransaction = gamesPerTransaction;
+        this.out = out;
+    }
+
+    /** Feeds completed games to the engine and flushes handicaps after each committed chunk. */
+    public void setHandicapEngine(HandicapEngine handicapEngine) {
+        this.handicapEngine = handicapEngine;
+    }
+
+    /** Adds every completed league game to the live standings after each committed chunk. */
+    public void setStandingsStore(StandingsStore standingsStore) {
+        this.standingsStore = standingsStore;
+    }
+
+    /** Feeds completed games to the power ratings after each committed chunk, in date order. */
+    public void setRatingEngine(RatingEngine ratingEngine) {
+        this.ratingEngine = ratingEngine;
+    }
+
+    /** Records every completed game in {@code journal} under {@code actor}. */
+    public void setJournal(Journal journal, String actor) {
+        this.journal = journal;
+        this.actor = actor;
+    }
+
+    public Summary ingest(BufferedReader in) throws IOException, SQLException {
+        long start = System.nanoTime();
+        String batchId = UUID.randomUUID().toString();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+
+            // gameId -> rows (team, score) for the chunk being built
+            Map<Integer, List<int[]>> chunk = new LinkedHashMap<>();
+            Set<Integer> finishedGames = new HashSet<>();
+            int currentGame = -1;
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                String text = line.trim();
+                if (text.isEmpty() || text.startsWith("#") || (lineNumber == 1 && text.startsWith("game_id"))) {
+                    continue;
+                }
+                summary.rows++;
+
+                int[] row;
+                try {
+                    row = parse(text);
+                } catch (IllegalArgumentException e) {
+                    summary.badRows++;
+                    out.printf("line %d: skipped  %s  -> %s%n", lineNumber, text, e.getMessage());
+                    continue;
+                }
+
+                int gameId = row[0];
+                if (gameId != currentGame) {
+                    if (finishedGames.contains(gameId)) {
+                        summary.badRows++;
+                        out.printf("line %d: skipped  %s  -> rows for game %d are not contiguous%n",
+                                lineNumber, text, gameId);
+                        continue;
+                    }
+                    if (currentGame != -1) {
+                        finishedGames.add(currentGame);
+                    }
+                    currentGame = gameId;
+                    // Only cut a transaction on a game boundary so a game is never split
+                    if (chunk.size() >= gamesPerTransaction) {
+                        applyChunk(connection, batchId, chunk);
+                    }
+                }
+                List<int[]> teams = chunk.computeIfAbsent(gameId, k -> new ArrayList<>());
+                if (teams.stream().anyMatch(t -> t[0] == row[1])) {
+                    summary.badRows++;
+                    out.printf("line %d: skipped  %s  -> duplicate score for team %d%n", lineNumber, text, row[1]);
+                    continue;
+                }
+                teams.add(new int[]{row[1], row[2]});
+            }
+            applyChunk(connection, batchId, chunk);
+        }
+
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    private void applyChunk(Connection connection, String batchId, Map<Integer, List<int[]>> chunk) throws SQLException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Map<Integer, String> rejected = new LinkedHashMap<>();
+        Map<Integer, LocalDateTime> accepted = new HashMap<>();
+        Map<Integer, Integer> leagueOf = new HashMap<>();
+        try {
+            // A deadlock with concurrent score entry rolls the chunk back; the executor replays it
+            int completed = transactions.execute(connection, Isolation.READ_COMMITTED, c -> {
+                rejected.clear();
+                accepted.clear();
+                leagueOf.clear();
+
+                // 1) Stage
+                try (PreparedStatement ps = c.prepareStatement(STAGE_SQL)) {
+                    for (Map.Entry<Integer, List<int[]>> game : chunk.entrySet()) {
+                        for (int[] teamScore : game.getValue()) {
+                            ps.setString(1, batchId);
+                            ps.setInt(2, game.getKey());
+                            ps.setInt(3, teamScore[0]);
+                            ps.setInt(4, teamScore[1]);
+                            ps.addBatch();
+                        }
+                    }
+                    ps.executeBatch();
+                }
+
+                // 2) Validate all staged games in one pass
+                try (PreparedStatement ps = c.prepareStatement(VALIDATE_SQL)) {
+                    ps.setString(1, batchId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            String reason = rejectionReason(rs.getString("status"), rs.getInt("staged_teams"),
+                                    rs.getInt("unknown_teams"), rs.getInt("game_teams"));
+                            if (reason != null) {
+                                rejected.put(rs.getInt("game_id"), reason);
+                            } else {
+                                accepted.put(rs.getInt("game_id"), rs.getTimestamp("date_time").toLocalDateTime());
+                                int leagueId = rs.getInt("league_id");
+                                if (!rs.wasNull()) {
+                                    leagueOf.put(rs.getInt("game_id"), leagueId);
+                                }
+                            }
+                        }
+                    }
+                }
+
+                // 3) Drop rejected games from the stage
+                if (!rejected.isEmpty()) {
+                    try (PreparedStatement ps = c.prepareStatement(UNSTAGE_GAME_SQL)) {
+                        for (Integer gameId : rejected.keySet()) {
+                            ps.setString(1, batchId);
+                            ps.setInt(2, gameId);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+
+                // 4) Apply scores, then complete the games (fires the handicap trigger once for the chunk)
+                try (PreparedStatement ps = c.prepareStatement(APPLY_SCORES_SQL)) {
+                    ps.setString(1, batchId);
+                    ps.setString(2, batchId);
+                    ps.executeUpdate();
+                }
+                int gamesCompleted;
+                try (PreparedStatement ps = c.prepareStatement(COMPLETE_GAMES_SQL)) {
+                    ps.setString(1, batchId);
+                    gamesCompleted = ps.executeUpdate();
+                }
+                if (gamesCompleted != accepted.size()) {
+                    // Completed concurrently after validation: retry so that game is rejected, not counted twice
+                    throw new SQLTransactionRollbackException(String.format(
+                            "%d of %d validated games were no longer Scheduled", accepted.size() - gamesCompleted,
+                            accepted.size()), "40001");
+                }
+                try (PreparedStatement ps = c.prepareStatement(CLEAR_STAGE_SQL)) {
+                    ps.setString(1, batchId);
+                    ps.executeUpdate();
+                }
+                return gamesCompleted;
+            });
+            summary.transactions++;
+            summary.gamesCompleted += completed;
+            summary.gamesRejected += rejected.size();
+            for (Map.Entry<Integer, String> r : rejected.entrySet()) {
+                out.printf("game %d: rejected -> %s%n", r.getKey(), r.getValue());
+            }
+        } catch (SQLException e) {
+            summary.gamesRejected += chunk.size();
+            out.printf("chunk of %d games rolled back -> %s%n", chunk.size(), e.getMessage());
+            chunk.clear();
+            return;
+        }
+
+        for (Map.Entry<Integer, List<int[]>> game : chunk.entrySet()) {
+            if (accepted.containsKey(game.getKey())) {
+                StringBuilder scores = new StringBuilder();
+                for (int[] teamScore : game.getValue()) {
+                    if (scores.length() > 0) {
+                        scores.append(',');
+                    }
+                    scores.append(teamScore[0]).append(':').append(teamScore[1]);
+                }
+                journal.append("ingestResult", actor, "gameId", game.getKey(), "scores", scores, "batchId", batchId);
+            }
+        }
+        if (standingsStore != null) {
+            for (Map.Entry<Integer, Integer> game : leagueOf.entrySet()) {
+                List<int[]> teamScores = chunk.get(game.getKey());
+                int[] teams = new int[teamScores.size()];
+                int[] scores = new int[teamScores.size()];
+                for (int i = 0; i < teams.length; i++) {
+                    teams[i] = teamScores.get(i)[0];
+                    scores[i] = teamScores.get(i)[1];
+                }
+                standingsStore.recordGame(game.getValue(), teams, scores);
+            }
+        }
+        if (ratingEngine != null) {
+            List<Map.Entry<Integer, LocalDateTime>> games = new ArrayList<>(accepted.entrySet());
+            games.sort(Map.Entry.<Integer, LocalDateTime>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+            for (Map.Entry<Integer, LocalDateTime> game : games) {
+                List<int[]> teamScores = chunk.get(game.getKey());
+                int[] teams = new int[teamScores.size()];
+                int[] scores = new int[teamScores.size()];
+                for (int i = 0; i < teams.length; i++) {
+                    teams[i] = teamScores.get(i)[0];
+                    scores[i] = teamScores.get(i)[1];
+                }
+                ratingEngine.recordGame(teams, scores, game.getValue());
+            }
+        }
+        if (handicapEngine != null) {
+            for (Map.Entry<Integer, LocalDateTime> game : accepted.entrySet()) {
+                for (int[] teamScore : chunk.get(game.getKey())) {
+                    handicapEngine.recordResult(teamScore[0], teamScore[1], game.getValue());
+                }
+            }
+            try {
+                summary.handicapsUpdated += transactions.execute(connection, Isolation.READ_COMMITTED,
+                        handicapEngine::flush);
+            } catch (SQLException e) {
+                out.println("handicap flush failed (results are committed) -> " + e.getMessage());
+            }
+        }
+        chunk.clear();
+    }
+
+    static String rejectionReason(String status, int stagedTeams, int unknownTeams, int gameTeams) {
+        if (status == null) {
+            return "game does not exist";
+        }
+        if (!status.equals("Scheduled")) {
+            return "game is " + status;
+        }
+        if (unknownTeams > 0) {
+            return unknownTeams + " team(s) are not part of this game";
+        }
+        if (stagedTeams < gameTeams) {
+            return "only " + stagedTeams + " of " + gameTeams + " teams have a score";
+        }
+        return null;
+    }
+
+    private static int[] parse(String text) {
+        String[] fields = text.split(",");
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("expected game_id,team_id,score");
+        }
+        int[] row = new int[3];
+        for (int i = 0; i < 3; i++) {
+            try {
+                row[i] = Integer.parseInt(fields[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("expected an integer but got: " + fields[i].trim());
+            }
+        }
+        return row;
+    }
+
+    /** Totals for one ingestion run. */
+    public static class Summary {
+        public int rows;
+        public int badRows;
+        public int gamesCompleted;
+        public int gamesRejected;
+        public int transactions;
+        public int handicapsUpdated;
+        public long elapsedNanos;
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format(
+                    "Rows read: %d  Skipped rows: %d%n"
+                  + "Games completed: %d  Games rejected: %d  Transactions: %d%n"
+                  + "Handicaps updated: %d%n"
+                  + "Elapsed: %.3f s  Throughput: %.1f games/s",
+                    rows, badRows, gamesCompleted, gamesRejected, transactions, handicapsUpdated,
+                    seconds, seconds == 0 ? 0 : gamesCompleted / seconds);
+        }
+    }
+}
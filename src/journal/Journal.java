@@ -0,0 +1,345 @@
+package journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only binary journal of mutating operations, written to memory-mapped segment files.
+ *
+ * append() encodes the entry on the caller's thread, then copies it into the mapped segment under
+ * a short lock. There is no system call on that path. Once append returns, the entry is in the page
+ * cache and survives a process crash. A background thread forces the segment to disk every
+ * flushMillis (group commit: one fsync covers everything appended since the last one), so an OS
+ * crash or power loss loses at most that window. sync() forces immediately for callers that must
+ * not lose anything.
+ *
+ * Segments are preallocated files of segmentBytes named by their first sequence number
+ * (00000000000000000001.journal, ...). When an entry doesn't fit, the segment gets an end marker
+ * and the journal rotates to a new one; the next group commit forces the old one. Opening an existing directory scans the last
+ * segment, stops at the first torn or corrupt record and continues from there. See
+ * {@link JournalReader} for the record format.
+ *
+ * Knobs (system properties): teetime.journal.dir (default "journal"), teetime.journal.segmentMb
+ * (default 64), teetime.journal.flushMs (default 10). Run with -Dteetime.journal=false to turn it off.
+ */
+public class Journal implements Closeable {
+
+    static final byte[] MAGIC = {'T', 'T', 'J', '1'};
+    static final int SEGMENT_HEADER = 16; // magic, reserved int, first sequence
+    static final int RECORD_HEADER = 8;   // body length, CRC32C of body
+    static final int END_OF_SEGMENT = -1;
+    static final String SUFFIX = ".journal";
+    static final int NULL_STRING = 0xFFFF;
+
+    private static final Journal DISABLED = new Journal();
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final ScheduledExecutorService flusher;
+
+    // Guarded by this
+    private MappedByteBuffer segment;
+    private final List<MappedByteBuffer> retired = new ArrayList<>(); // rotated out, not forced yet
+    private ByteBuffer writer;
+    private long nextSequence;
+    private long appended;
+    private boolean closed;
+
+    // Highest sequence known to be on disk; advanced by groupCommit()
+    private volatile long durable;
+
+    private Journal() {
+        this.directory = null;
+        this.segmentBytes = 0;
+        this.flusher = null;
+    }
+
+    private Journal(Path directory, int segmentBytes, long flushMillis) throws IOException {
+        if (segmentBytes < 4096) {
+            throw new IllegalArgumentException("segmentBytes must be at least 4096");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        List<Path> segments = segments(directory);
+        if (segments.isEmpty()) {
+            startSegment(1);
+        } else {
+            recover(segments.get(segments.size() - 1));
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "journal-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::groupCommit, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static Journal open(Path directory, int segmentBytes, long flushMillis) throws IOException {
+        return new Journal(directory, segmentBytes, flushMillis);
+    }
+
+    /** @return the journal configured by system properties, or a disabled one with -Dteetime.journal=false */
+    public static Journal fromConfig() throws IOException {
+        if ("false".equalsIgnoreCase(System.getProperty("teetime.journal"))) {
+            return DISABLED;
+        }
+        return open(directory(),
+                Integer.getInteger("teetime.journal.segmentMb", 64) * 1024 * 1024,
+                Long.getLong("teetime.journal.flushMs", 10L));
+    }
+
+    /** A journal that records nothing. */
+    public static Journal disabled() {
+        return DISABLED;
+    }
+
+    /** The configured journal directory (teetime.journal.dir). */
+    public static Path directory() {
+        return Paths.get(System.getProperty("teetime.journal.dir", "journal"));
+    }
+
+    public boolean enabled() {
+        return directory != null;
+    }
+
+    /**
+     * Records one operation.
+     *
+     * @param fields alternating field names and values; values are stored as strings (null stays null)
+     * @return the entry's sequence number, or -1 when the journal is disabled
+     */
+    public long append(String operation, String actor, Object... fields) {
+        if (directory == null) {
+            return -1;
+        }
+        if (fields.length % 2 != 0) {
+            throw new IllegalArgumentException("fields must be name/value pairs");
+        }
+        byte[] record = encode(operation, actor, fields);
+        if (record.length + 4 > segmentBytes - SEGMENT_HEADER) {
+            throw new IllegalArgumentException("journal entry of " + record.length + " bytes does not fit in a segment");
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            // Keep room for the end marker after every record
+            if (record.length + 4 > writer.remaining()) {
+                try {
+                    rotate();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            long sequence = nextSequence++;
+            ByteBuffer body = ByteBuffer.wrap(record);
+            body.putLong(RECORD_HEADER, sequence);
+            body.putLong(RECORD_HEADER + 8, System.currentTimeMillis());
+            CRC32C crc = new CRC32C();
+            crc.update(record, RECORD_HEADER, record.length - RECORD_HEADER);
+
+            // Body first, length last: a reader never sees a length before the bytes it covers
+            int position = writer.position();
+            writer.position(position + RECORD_HEADER);
+            writer.put(record, RECORD_HEADER, record.length - RECORD_HEADER);
+            writer.putInt(position + 4, (int) crc.getValue());
+            writer.putInt(position, record.length - RECORD_HEADER);
+            appended = sequence;
+            return sequence;
+        }
+    }
+
+    /** Forces everything appended so far to disk before returning. */
+    public void sync() {
+        if (directory != null) {
+            groupCommit();
+        }
+    }
+
+    /** @return the sequence of the last entry appended, or 0 if there is none */
+    public synchronized long lastSequence() {
+        return nextSequence - 1;
+    }
+
+    /** @return the highest sequence known to be on disk */
+    public long durableSequence() {
+        return durable;
+    }
+
+    @Override
+    public void close() {
+        if (directory == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        groupCommit();
+        synchronized (this) {
+            closed = true;
+        }
+    }
+
+    private void groupCommit() {
+        List<MappedByteBuffer> targets;
+        long upTo;
+        synchronized (this) {
+            if (appended <= durable) {
+                return;
+            }
+            targets = new ArrayList<>(retired);
+            targets.add(segment);
+            retired.clear();
+            upTo = appended;
+        }
+        // Outside the lock: appends carry on into the same mapping while it is forced
+        for (MappedByteBuffer target : targets) {
+            target.force();
+        }
+        synchronized (this) {
+            if (upTo > durable) {
+                durable = upTo;
+            }
+        }
+    }
+
+    // Caller holds the lock. The old segment is forced by the next group commit, not here.
+    private void rotate() throws IOException {
+        writer.putInt(writer.position(), END_OF_SEGMENT);
+        retired.add(segment);
+        startSegment(nextSequence);
+    }
+
+    private void startSegment(long firstSequence) throws IOException {
+        Path file = segmentFile(directory, firstSequence);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        segment.put(MAGIC);
+        segment.putInt(0);
+        segment.putLong(firstSequence);
+        writer = segment.duplicate();
+        writer.position(SEGMENT_HEADER);
+        nextSequence = firstSequence;
+    }
+
+    private void recover(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        if (!JournalReader.hasMagic(segment)) {
+            throw new IOException(file + " is not a journal segment");
+        }
+        long firstSequence = segment.getLong(8);
+        long expected = firstSequence;
+        int position = SEGMENT_HEADER;
+        boolean ended = false;
+        while (position + 4 <= segment.capacity()) {
+            int length = segment.getInt(position);
+            if (length == END_OF_SEGMENT) {
+                ended = true;
+                break;
+            }
+            if (length <= 0 || JournalReader.decode(segment, position, expected) == null) {
+                break;
+            }
+            position += RECORD_HEADER + length;
+            expected++;
+        }
+        writer = segment.duplicate();
+        writer.position(position);
+        nextSequence = expected;
+        appended = expected - 1;
+        durable = appended;
+
+        if (ended) {
+            startSegment(expected);
+        } else if (position + 4 <= segment.capacity() && segment.getInt(position) != 0) {
+            // A torn record from a crash: clear it so it can't be mistaken for data later
+            for (int i = position; i < segment.capacity(); i++) {
+                segment.put(i, (byte) 0);
+            }
+            segment.force();
+        }
+    }
+
+    static Path segmentFile(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+    }
+
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // Length and CRC are filled in by append(), as are the sequence and timestamp at the start of the body
+    private static byte[] encode(String operation, String actor, Object[] fields) {
+        byte[][] strings = new byte[2 + fields.length][];
+        int size = RECORD_HEADER + 8 + 8 + 2;
+        strings[0] = utf8(operation);
+        strings[1] = utf8(actor);
+        for (int i = 0; i < fields.length; i++) {
+            strings[2 + i] = utf8(fields[i] == null ? null : fields[i].toString());
+        }
+        for (byte[] s : strings) {
+            size += 2 + (s == null ? 0 : s.length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.position(RECORD_HEADER + 16);
+        putString(buffer, strings[0]);
+        putString(buffer, strings[1]);
+        buffer.putShort((short) (fields.length / 2));
+        for (int i = 2; i < strings.length; i++) {
+            putString(buffer, strings[i]);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] utf8(String s) {
+        if (s == null) {
+            return null;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_STRING) {
+            throw new IllegalArgumentException("journal string longer than " + (NULL_STRING - 1) + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] s) {
+        if (s == null) {
+            buffer.putShort((short) NULL_STRING);
+        } else {
+            buffer.putShort((short) s.length);
+            buffer.put(s);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package journal;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+/** One recorded operation: who did what, when, with which inputs. */
+public final class JournalEntry {
+
+    public final long sequence;
+    public final long timestampMillis;
+    public final String operation;
+    public final String actor;
+    public final Map<String, String> fields;
+
+    JournalEntry(long sequence, long timestampMillis, String operation, String actor, Map<String, String> fields) {
+        this.sequence = sequence;
+        this.timestampMillis = timestampMillis;
+        this.operation = operation;
+        this.actor = actor;
+        this.fields = Collections.unmodifiableMap(fields);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append(sequence).append(' ').append(Instant.ofEpochMilli(timestampMillis))
+           .append(' ').append(actor).append(' ').append(operation);
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            out.append(' ').append(field.getKey()).append('=').append(field.getValue());
+        }
+        return out.toString();
+    }
+}
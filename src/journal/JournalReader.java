@@ -0,0 +1,199 @@
+package journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads a {@link Journal} directory in sequence order: replay() up to the end of what is written,
+ * or tail() to keep following new entries (also from another process) as they are appended.
+ *
+ * Segment layout: "TTJ1", a reserved int, the first sequence (long), then records. A record is
+ * the body length (int), the CRC32C of the body (int) and the body: sequence (long), timestamp in
+ * epoch millis (long), operation, actor, field count (short) and that many name/value pairs.
+ * Strings are an unsigned short byte length (0xFFFF for null) and UTF-8 bytes. A length of 0 means
+ * nothing has been written there yet and -1 marks the end of the segment.
+ *
+ * A record whose CRC or sequence doesn't check out is treated as not written yet. When tailing,
+ * it is read again on the next poll once the writer has finished it.
+ */
+public class JournalReader {
+
+    private final Path directory;
+
+    // Cursor
+    private Path file;
+    private MappedByteBuffer segment;
+    private int position;
+    private long expected;
+
+    public JournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Hands every entry from {@code fromSequence} on to {@code consumer}, up to the last one written.
+     *
+     * @return the number of entries read
+     */
+    public long replay(long fromSequence, Consumer<JournalEntry> consumer) throws IOException {
+        seek(fromSequence);
+        long count = 0;
+        JournalEntry entry;
+        while ((entry = next(fromSequence)) != null) {
+            consumer.accept(entry);
+            count++;
+        }
+        return count;
+    }
+
+    /** Replays from {@code fromSequence}, then polls for new entries until the thread is interrupted. */
+    public void tail(long fromSequence, Consumer<JournalEntry> consumer, long pollMillis)
+            throws IOException, InterruptedException {
+        seek(fromSequence);
+        while (!Thread.currentThread().isInterrupted()) {
+            JournalEntry entry = next(fromSequence);
+            if (entry != null) {
+                consumer.accept(entry);
+            } else {
+                Thread.sleep(pollMillis);
+            }
+        }
+        throw new InterruptedException();
+    }
+
+    // Positions the cursor at the start of the segment that holds fromSequence
+    private void seek(long fromSequence) throws IOException {
+        file = null;
+        segment = null;
+        for (Path candidate : Journal.segments(directory)) {
+            if (file == null || firstSequence(candidate) <= fromSequence) {
+                file = candidate;
+            }
+        }
+        if (file != null) {
+            map(file);
+        }
+    }
+
+    // The next entry at or after fromSequence, or null when nothing more has been written yet
+    private JournalEntry next(long fromSequence) throws IOException {
+        while (true) {
+            if (segment == null) {
+                seek(fromSequence);
+                if (segment == null) {
+                    return null;
+                }
+            }
+            int length = position + 4 <= segment.capacity() ? segment.getInt(position) : 0;
+            if (length == Journal.END_OF_SEGMENT) {
+                Path following = following();
+                if (following == null) {
+                    return null;
+                }
+                map(following);
+                continue;
+            }
+            if (length <= 0) {
+                return null;
+            }
+            JournalEntry entry = decode(segment, position, expected);
+            if (entry == null) {
+                return null;
+            }
+            position += Journal.RECORD_HEADER + length;
+            expected++;
+            if (entry.sequence >= fromSequence) {
+                return entry;
+            }
+        }
+    }
+
+    private void map(Path segmentFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (!hasMagic(segment)) {
+            throw new IOException(segmentFile + " is not a journal segment");
+        }
+        file = segmentFile;
+        position = Journal.SEGMENT_HEADER;
+        expected = segment.getLong(8);
+    }
+
+    // A segment ends where the next one starts, so its successor is named by the next sequence
+    private Path following() {
+        Path next = Journal.segmentFile(directory, expected);
+        return Files.exists(next) ? next : null;
+    }
+
+    private static long firstSequence(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - Journal.SUFFIX.length()));
+    }
+
+    static boolean hasMagic(ByteBuffer segment) {
+        if (segment.capacity() < Journal.SEGMENT_HEADER) {
+            return false;
+        }
+        for (int i = 0; i < Journal.MAGIC.length; i++) {
+            if (segment.get(i) != Journal.MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return the record at {@code position}, or null if it is incomplete, corrupt or out of sequence */
+    static JournalEntry decode(ByteBuffer segment, int position, long expectedSequence) {
+        int length = segment.getInt(position);
+        int start = position + Journal.RECORD_HEADER;
+        if (length < 18 || start + length > segment.capacity()) {
+            return null;
+        }
+        ByteBuffer body = segment.duplicate();
+        body.position(start).limit(start + length);
+        CRC32C crc = new CRC32C();
+        crc.update(body.slice());
+        if ((int) crc.getValue() != segment.getInt(position + 4)) {
+            return null;
+        }
+        try {
+            long sequence = body.getLong();
+            if (sequence != expectedSequence) {
+                return null;
+            }
+            long timestamp = body.getLong();
+            String operation = string(body);
+            String actor = string(body);
+            int count = body.getShort() & 0xFFFF;
+            Map<String, String> fields = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                fields.put(string(body), string(body));
+            }
+            return new JournalEntry(sequence, timestamp, operation, actor, fields);
+        } catch (RuntimeException e) {
+            // BufferUnderflowException: a length that passed the CRC but doesn't parse
+            return null;
+        }
+    }
+
+    private static String string(ByteBuffer body) {
+        int length = body.getShort() & 0xFFFF;
+        if (length == Journal.NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,435 @@
+package leaderboard;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Regional handicap leaderboards, kept in memory and updated as handicaps change.
+ *
+ * Players are bracketed by the columns of ix_player_location_skill: every player is ranked in their
+ * state, in their city (state, city) and in their skill bracket (state, city, skill_level). Each
+ * bracket is an order-statistic treap over (handicap, player_id) held in primitive arrays, one node
+ * per player and bracket, with subtree sizes so that "rank of player X" is a O(log n) descent and
+ * the top K of a bracket is O(log n + K), instead of an ORDER BY over the whole player table.
+ *
+ * A lower handicap ranks higher. Ranks are competition ranks: players on the same handicap share a
+ * rank and the next one skips (1, 2, 2, 4). Players with profile_type = 'Hidden' and players
+ * without a handicap are on no leaderboard and are not counted in anyone's rank.
+ *
+ * Loaded once from the player table, then kept current by handicapChanged(), which HandicapEngine
+ * calls for every handicap it writes (see setFlushListener), and by Storage.refreshLeaderboards()
+ * after a league goes In Season and trg_RecalcHandicapOnLeagueStart has rewritten its players.
+ */
+public class Leaderboards {
+
+    private static final String PLAYERS_SQL =
+            "SELECT player_id, first_name, last_name, [state], city, skill_level, handicap, profile_type FROM player";
+    private static final String LEAGUE_PLAYERS_SQL =
+            "SELECT DISTINCT p.player_id, p.handicap"
+          + "  FROM league_team lt"
+          + "  JOIN team_player tp ON tp.team_id = lt.team_id"
+          + "  JOIN player p ON p.player_id = tp.player_id"
+          + " WHERE lt.league_id = ?";
+
+    private static final int STATE = 0;
+    private static final int CITY = 1;
+    private static final int SKILL = 2;
+    private static final int SCOPES = 3;
+    private static final char SEPARATOR = '\u001f';
+
+    /** One row of a leaderboard. */
+    public static class Entry {
+        public final int rank;
+        public final int playerId;
+        public final String name;
+        public final String city;
+        public final String skillLevel;
+        public final BigDecimal handicap;
+
+        Entry(int rank, int playerId, String name, String city, String skillLevel, BigDecimal handicap) {
+            this.rank = rank;
+            this.playerId = playerId;
+            this.name = name;
+            this.city = city;
+            this.skillLevel = skillLevel;
+            this.handicap = handicap;
+        }
+    }
+
+    /** Where one player stands in each of their brackets. */
+    public static class Standing {
+        public final int playerId;
+        public final String name;
+        public final String state;
+        public final String city;
+        public final String skillLevel;
+        public final BigDecimal handicap;
+        public final int stateRank;
+        public final int statePlayers;
+        public final int cityRank;
+        public final int cityPlayers;
+        public final int skillRank;
+        public final int skillPlayers;
+
+        Standing(int playerId, String name, String state, String city, String skillLevel, BigDecimal handicap,
+                 int[] ranks, int[] sizes) {
+            this.playerId = playerId;
+            this.name = name;
+            this.state = state;
+            this.city = city;
+            this.skillLevel = skillLevel;
+            this.handicap = handicap;
+            this.stateRank = ranks[STATE];
+            this.statePlayers = sizes[STATE];
+            this.cityRank = ranks[CITY];
+            this.cityPlayers = sizes[CITY];
+            this.skillRank = ranks[SKILL];
+            this.skillPlayers = sizes[SKILL];
+        }
+    }
+
+    // Per-player state, indexed by a dense player index p
+    private final Map<Integer, Integer> playerIndex = new HashMap<>();
+    private int[] playerIds = new int[64];
+    private String[] names = new String[64];
+    private int[] handicapTenths = new int[64];
+    private boolean[] hasHandicap = new boolean[64];
+    private boolean[] hidden = new boolean[64];
+    private int players;
+
+    // Brackets: key ("state", "state|city" or "state|city|skill") -> dense bracket index b
+    private final Map<String, Integer> bracketIndex = new HashMap<>();
+    private String[] bracketStates = new String[64];
+    private String[] bracketCities = new String[64];
+    private String[] bracketSkills = new String[64];
+    private int[] roots = new int[64];
+    private int brackets;
+
+    // Treap nodes: node p * SCOPES + scope is player p in its bracket of that scope
+    private int[] bracketOf = new int[64 * SCOPES];
+    private int[] left = new int[64 * SCOPES];
+    private int[] right = new int[64 * SCOPES];
+    private int[] size = new int[64 * SCOPES];
+
+    // Results of split(), which has two
+    private int splitLeft;
+    private int splitRight;
+
+    /** Loads every player and builds the leaderboards. */
+    public synchronized void load(Connection connection) throws SQLException {
+        playerIndex.clear();
+        bracketIndex.clear();
+        players = 0;
+        brackets = 0;
+        try (PreparedStatement ps = connection.prepareStatement(PLAYERS_SQL)) {
+            ps.setFetchSize(10_000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int p = addPlayer(rs.getInt("player_id"),
+                            rs.getString("first_name") + " " + rs.getString("last_name"),
+                            rs.getString("state"), rs.getString("city"), rs.getString("skill_level"));
+                    hidden[p] = "Hidden".equals(rs.getString("profile_type"));
+                    setHandicap(p, rs.getBigDecimal("handicap"));
+                    if (ranked(p)) {
+                        link(p);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Moves a player on their leaderboards; a null handicap takes them off. Unknown players are ignored. */
+    public synchronized void handicapChanged(int playerId, BigDecimal handicap) {
+        Integer p = playerIndex.get(playerId);
+        if (p == null) {
+            return;
+        }
+        if (ranked(p)) {
+            unlink(p);
+        }
+        setHandicap(p, handicap);
+        if (ranked(p)) {
+            link(p);
+        }
+    }
+
+    /** Re-reads the handicaps of every player on the league's teams (trg_RecalcHandicapOnLeagueStart rewrites them). */
+    public void refreshLeague(Connection connection, int leagueId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(LEAGUE_PLAYERS_SQL)) {
+            ps.setInt(1, leagueId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    handicapChanged(rs.getInt("player_id"), rs.getBigDecimal("handicap"));
+                }
+            }
+        }
+    }
+
+    /**
+     * The best {@code limit} players of a bracket: a state, a city in it, or a skill level in that city.
+     *
+     * @param city null for the whole state
+     * @param skillLevel null for the whole city (or state); needs a city, following ix_player_location_skill
+     * @return empty if nobody in the bracket is ranked
+     */
+    public synchronized List<Entry> top(String state, String city, String skillLevel, int limit) {
+        if (skillLevel != null && city == null) {
+            throw new IllegalArgumentException("a skill level leaderboard is per city");
+        }
+        List<Entry> entries = new ArrayList<>(Math.min(limit, 1024));
+        Integer b = bracketIndex.get(bracketKey(state, city, skillLevel));
+        if (b == null || limit < 1) {
+            return entries;
+        }
+
+        // In-order walk with an explicit stack, stopping after limit nodes
+        int[] stack = new int[64];
+        int depth = 0;
+        int node = roots[b];
+        int rank = 0;
+        int previousTenths = 0;
+        while ((node >= 0 || depth > 0) && entries.size() < limit) {
+            while (node >= 0) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = node;
+                node = left[node];
+            }
+            node = stack[--depth];
+            int p = node / SCOPES;
+            if (entries.isEmpty() || handicapTenths[p] != previousTenths) {
+                rank = entries.size() + 1;
+                previousTenths = handicapTenths[p];
+            }
+            entries.add(new Entry(rank, playerIds[p], names[p], bracketCities[bracketOf[p * SCOPES + CITY]],
+                    bracketSkills[bracketOf[p * SCOPES + SKILL]], handicap(p)));
+            node = right[node];
+        }
+        return entries;
+    }
+
+    /** @return the player's rank in their state, city and skill bracket, or null if they are on no leaderboard */
+    public synchronized Standing standing(int playerId) {
+        Integer index = playerIndex.get(playerId);
+        if (index == null || !ranked(index)) {
+            return null;
+        }
+        int p = index;
+        int[] ranks = new int[SCOPES];
+        int[] sizes = new int[SCOPES];
+        long handicapOnly = (long) handicapTenths[p] << 32;
+        for (int scope = 0; scope < SCOPES; scope++) {
+            int root = roots[bracketOf[p * SCOPES + scope]];
+            ranks[scope] = countBelow(root, handicapOnly) + 1;
+            sizes[scope] = size(root);
+        }
+        int skill = bracketOf[p * SCOPES + SKILL];
+        return new Standing(playerIds[p], names[p], bracketStates[skill], bracketCities[skill], bracketSkills[skill],
+                handicap(p), ranks, sizes);
+    }
+
+    /** @return number of players on the leaderboards (not Hidden, with a handicap) */
+    public synchronized int rankedPlayers() {
+        int ranked = 0;
+        for (int b = 0; b < brackets; b++) {
+            if (bracketCities[b] == null) {
+                ranked += size(roots[b]);
+            }
+        }
+        return ranked;
+    }
+
+    @Override
+    public synchronized String toString() {
+        int[] perScope = new int[SCOPES];
+        for (int b = 0; b < brackets; b++) {
+            perScope[bracketSkills[b] != null ? SKILL : bracketCities[b] != null ? CITY : STATE]++;
+        }
+        return String.format("leaderboards: %d of %d players ranked in %d states, %d cities, %d skill brackets",
+                rankedPlayers(), players, perScope[STATE], perScope[CITY], perScope[SKILL]);
+    }
+
+    private boolean ranked(int p) {
+        return hasHandicap[p] && !hidden[p];
+    }
+
+    private BigDecimal handicap(int p) {
+        return BigDecimal.valueOf(handicapTenths[p], 1);
+    }
+
+    private void setHandicap(int p, BigDecimal handicap) {
+        hasHandicap[p] = handicap != null;
+        // handicap is DECIMAL(4,1), so tenths are exact and well inside an int
+        handicapTenths[p] = handicap == null ? 0
+                : handicap.setScale(1, RoundingMode.HALF_UP).unscaledValue().intValue();
+    }
+
+    private int addPlayer(int playerId, String name, String state, String city, String skillLevel) {
+        if (players == playerIds.length) {
+            int capacity = players * 2;
+            playerIds = Arrays.copyOf(playerIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            handicapTenths = Arrays.copyOf(handicapTenths, capacity);
+            hasHandicap = Arrays.copyOf(hasHandicap, capacity);
+            hidden = Arrays.copyOf(hidden, capacity);
+            bracketOf = Arrays.copyOf(bracketOf, capacity * SCOPES);
+            left = Arrays.copyOf(left, capacity * SCOPES);
+            right = Arrays.copyOf(right, capacity * SCOPES);
+            size = Arrays.copyOf(size, capacity * SCOPES);
+        }
+        int p = players++;
+        playerIndex.put(playerId, p);
+        playerIds[p] = playerId;
+        names[p] = name;
+        bracketOf[p * SCOPES + STATE] = bracket(state, null, null);
+        bracketOf[p * SCOPES + CITY] = bracket(state, city, null);
+        bracketOf[p * SCOPES + SKILL] = bracket(state, city, skillLevel);
+        return p;
+    }
+
+    private int bracket(String state, String city, String skillLevel) {
+        String key = bracketKey(state, city, skillLevel);
+        Integer b = bracketIndex.get(key);
+        if (b != null) {
+            return b;
+        }
+        if (brackets == roots.length) {
+            int capacity = brackets * 2;
+            bracketStates = Arrays.copyOf(bracketStates, capacity);
+            bracketCities = Arrays.copyOf(bracketCities, capacity);
+            bracketSkills = Arrays.copyOf(bracketSkills, capacity);
+            roots = Arrays.copyOf(roots, capacity);
+        }
+        bracketStates[brackets] = state;
+        bracketCities[brackets] = city;
+        bracketSkills[brackets] = skillLevel;
+        roots[brackets] = -1;
+        bracketIndex.put(key, brackets);
+        return brackets++;
+    }
+
+    private static String bracketKey(String state, String city, String skillLevel) {
+        StringBuilder key = new StringBuilder(state);
+        if (city != null) {
+            key.append(SEPARATOR).append(city);
+            if (skillLevel != null) {
+                key.append(SEPARATOR).append(skillLevel);
+            }
+        }
+        return key.toString();
+    }
+
+    private void link(int p) {
+        for (int scope = 0; scope < SCOPES; scope++) {
+            int node = p * SCOPES + scope;
+            int b = bracketOf[node];
+            roots[b] = insert(roots[b], node);
+        }
+    }
+
+    private void unlink(int p) {
+        for (int scope = 0; scope < SCOPES; scope++) {
+            int node = p * SCOPES + scope;
+            int b = bracketOf[node];
+            roots[b] = remove(roots[b], node);
+        }
+    }
+
+    // Tree order: handicap, then player id, so every node has a distinct key
+    private long key(int node) {
+        int p = node / SCOPES;
+        return ((long) handicapTenths[p] << 32) | playerIds[p];
+    }
+
+    // Heap order of the treap: a fixed pseudo-random priority per node (murmur3 finalizer)
+    private static int priority(int node) {
+        int h = node * 0x9e3779b9;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    private int size(int node) {
+        return node < 0 ? 0 : size[node];
+    }
+
+    private int insert(int root, int node) {
+        left[node] = -1;
+        right[node] = -1;
+        size[node] = 1;
+        split(root, key(node));
+        int below = splitLeft;
+        int above = splitRight;
+        return merge(merge(below, node), above);
+    }
+
+    private int remove(int root, int node) {
+        long key = key(node);
+        split(root, key);
+        int below = splitLeft;
+        split(splitRight, key + 1);
+        return merge(below, splitRight);
+    }
+
+    // Splits a tree into the keys below {@code key} (splitLeft) and the rest (splitRight)
+    private void split(int node, long key) {
+        if (node < 0) {
+            splitLeft = -1;
+            splitRight = -1;
+            return;
+        }
+        if (key(node) < key) {
+            split(right[node], key);
+            right[node] = splitLeft;
+            splitLeft = node;
+        } else {
+            split(left[node], key);
+            left[node] = splitRight;
+            splitRight = node;
+        }
+        size[node] = 1 + size(left[node]) + size(right[node]);
+    }
+
+    // Joins two trees where every key of {@code a} is below every key of {@code b}
+    private int merge(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        if (priority(a) > priority(b)) {
+            right[a] = merge(right[a], b);
+            size[a] = 1 + size(left[a]) + size(right[a]);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        size[b] = 1 + size(left[b]) + size(right[b]);
+        return b;
+    }
+
+    private int countBelow(int node, long key) {
+        int count = 0;
+        while (node >= 0) {
+            if (key(node) < key) {
+                count += size(left[node]) + 1;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return count;
+    }
+}
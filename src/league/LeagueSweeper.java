@@ -0,0 +1,385 @@
+package league;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import db.TransactionExecutor;
+import db.TransactionExecutor.Isolation;
+import journal.Journal;
+import notify.Notifier;
+import repository.LeagueRepository;
+
+/**
+ * End-of-period league sweep: finds every league whose dates say it is due for its next status and
+ * advances it, following {@link LeagueRepository#nextStatus} as updateLeagueStatus does.
+ *
+ * A league is due to leave Setting Up once its start_date has come and all max_teams slots are
+ * filled; one that has started short of teams is held and reported. An RR-E or Elimination league
+ * goes to Playoffs for the last fifth of its season, and any league goes there once its end_date has
+ * come. Playoffs end the day after end_date. A league that is several steps behind is walked through
+ * each of them in one transaction. Paused leagues are left to the operator.
+ *
+ * Due leagues are advanced by {@code workers} threads, each on its own pooled connection. Every
+ * league is one REPEATABLE_READ transaction through a {@link TransactionExecutor} that re-reads the
+ * league and its team count and applies only the steps still due, so a league an operator moved in
+ * the meantime is reported as changed rather than advanced twice. Moving into In Season fires
+ * trg_RecalcHandicapOnLeagueStart, which rescans the game history of every player in the league; at
+ * most {@code cascades} of those transactions run at once, while the cheaper transitions keep the
+ * other workers busy. Cascades of leagues sharing players can deadlock, and the loser is retried.
+ *
+ * The workers need that many pool connections (teetime.pool.max).
+ */
+public class LeagueSweeper {
+
+    private static final String SELECT_ACTIVE =
+            "SELECT l.league_id, l.name, l.status, l.start_date, l.end_date, l.max_teams, l.league_format, "
+          + "(SELECT COUNT(*) FROM league_team lt WHERE lt.league_id = l.league_id) AS teams_joined "
+          + "FROM league l WHERE l.status IN ('Setting Up', 'In Season', 'Playoffs') ORDER BY l.league_id";
+    private static final String SELECT_ONE =
+            "SELECT l.league_id, l.name, l.status, l.start_date, l.end_date, l.max_teams, l.league_format, "
+          + "(SELECT COUNT(*) FROM league_team lt WHERE lt.league_id = l.league_id) AS teams_joined "
+          + "FROM league l WHERE l.league_id = ?";
+
+    private final DataSource dataSource;
+    private final int workers;
+    private final Semaphore cascades;
+    private final int cascadeLimit;
+    private final PrintStream out;
+    private final TransactionExecutor transactions = TransactionExecutor.fromConfig();
+    private final LeagueRepository leagues = new LeagueRepository();
+    private Journal journal = Journal.disabled();
+    private String actor;
+    private Notifier notifier = Notifier.disabled();
+
+    public LeagueSweeper(DataSource dataSource, int workers, int cascades, PrintStream out) {
+        if (workers < 1 || cascades < 1) {
+            throw new IllegalArgumentException("workers and cascades must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.workers = workers;
+        this.cascades = new Semaphore(cascades);
+        this.cascadeLimit = cascades;
+        this.out = out;
+    }
+
+    /** Records every status change in {@code journal} under {@code actor}, as updateLeagueStatus does. */
+    public void setJournal(Journal journal, String actor) {
+        this.journal = journal;
+        this.actor = actor;
+    }
+
+    /** Tells the players of every league the sweep moves, once per league with its final status. */
+    public void setNotifier(Notifier notifier) {
+        this.notifier = notifier;
+    }
+
+    /**
+     * Advances every league due as of {@code asOf}.
+     *
+     * @param dryRun report what is due without changing anything
+     */
+    public Summary sweep(LocalDate asOf, boolean dryRun) throws SQLException, InterruptedException {
+        long start = System.nanoTime();
+        Summary summary = new Summary();
+        summary.asOf = asOf;
+        summary.workers = workers;
+        summary.cascades = cascadeLimit;
+
+        List<Row> due = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SELECT_ACTIVE);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Row league = new Row(rs);
+                summary.examined++;
+                String target = target(league, asOf);
+                if (target != null) {
+                    due.add(league);
+                    if (dryRun) {
+                        summary.add(new Result(league, target, "due", 0));
+                    }
+                } else if (heldForTeams(league, asOf)) {
+                    summary.add(new Result(league, null, String.format("held: %d of %d teams have joined",
+                            league.teams, league.maxTeams), 0));
+                }
+            }
+        }
+        if (dryRun || due.isEmpty()) {
+            summary.elapsedNanos = System.nanoTime() - start;
+            return summary;
+        }
+        out.printf("%d league(s) due as of %s%n", due.size(), asOf);
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        AtomicInteger done = new AtomicInteger();
+        int reportEvery = Math.max(1, due.size() / 10);
+        try {
+            List<Future<Void>> sweeps = new ArrayList<>();
+            for (Row league : due) {
+                sweeps.add(pool.submit(() -> {
+                    Result result = advance(league.leagueId, asOf, "Setting Up".equals(league.status));
+                    synchronized (summary) {
+                        summary.add(result);
+                    }
+                    int n = done.incrementAndGet();
+                    if (n % reportEvery == 0 || n == due.size()) {
+                        out.printf("%,8d / %,d leagues swept%n", n, due.size());
+                    }
+                    return null;
+                }));
+            }
+            await(sweeps);
+        } finally {
+            pool.shutdownNow();
+        }
+        summary.results.sort(Comparator.comparingInt(r -> r.leagueId));
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    // One league's transition; a league leaving Setting Up fires the handicap trigger, so it waits for a permit
+    private Result advance(int leagueId, LocalDate asOf, boolean cascade) throws SQLException, InterruptedException {
+        if (cascade) {
+            cascades.acquire();
+        }
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            Transition transition = transactions.execute(connection, Isolation.REPEATABLE_READ, c -> {
+                Row current = find(c, leagueId);
+                String target = current != null ? target(current, asOf) : null;
+                if (target == null) {
+                    return new Transition(current, null);
+                }
+                List<String> steps = new ArrayList<>();
+                String status = current.status;
+                while (!status.equals(target)) {
+                    status = LeagueRepository.nextStatus(status);
+                    leagues.updateStatus(c, leagueId, status);
+                    steps.add(status);
+                }
+                return new Transition(current, steps);
+            });
+            long elapsed = System.nanoTime() - start;
+            Row league = transition.league;
+            if (league == null) {
+                return new Result(leagueId, null, null, null, "changed: league no longer exists", elapsed);
+            }
+            if (transition.steps == null) {
+                return new Result(league, null, "changed: now " + league.status + ", no longer due", elapsed);
+            }
+            String from = league.status;
+            for (String to : transition.steps) {
+                journal.append("updateLeagueStatus", actor, "leagueId", leagueId, "from", from, "to", to);
+                from = to;
+            }
+            notifier.leagueStatusChanged(leagueId, league.status, from);
+            return new Result(league, from, "advanced", elapsed);
+        } finally {
+            if (cascade) {
+                cascades.release();
+            }
+        }
+    }
+
+    /**
+     * The status the league should be in as of {@code asOf}, or null if it is not due to move.
+     * Never goes past Setting Up while team slots are open.
+     */
+    static String target(Row league, LocalDate asOf) {
+        String target;
+        if (league.endDate.isBefore(asOf)) {
+            target = "Completed";
+        } else if (!league.endDate.isAfter(asOf) || inPlayoffWindow(league, asOf)) {
+            target = "Playoffs";
+        } else if (!league.startDate.isAfter(asOf)) {
+            target = "In Season";
+        } else {
+            return null;
+        }
+        if ("Setting Up".equals(league.status) && league.teams < league.maxTeams) {
+            return null;
+        }
+        int rank = rank(league.status);
+        return rank >= 0 && rank(target) > rank ? target : null;
+    }
+
+    // Started but short of teams, so the sweep can't open it
+    private static boolean heldForTeams(Row league, LocalDate asOf) {
+        return "Setting Up".equals(league.status) && !league.startDate.isAfter(asOf) && league.teams < league.maxTeams;
+    }
+
+    // The last fifth of an RR-E or Elimination season is its playoff (as the synthetic dataset lays it out)
+    private static boolean inPlayoffWindow(Row league, LocalDate asOf) {
+        if ("Round Robin".equals(league.format)) {
+            return false;
+        }
+        long days = league.endDate.toEpochDay() - league.startDate.toEpochDay();
+        return asOf.isAfter(league.endDate.minusDays(days / 5));
+    }
+
+    // Position in the Setting Up -> In Season -> Playoffs -> Completed lifecycle
+    private static int rank(String status) {
+        switch (status) {
+            case "Setting Up":
+                return 0;
+            case "In Season":
+                return 1;
+            case "Playoffs":
+                return 2;
+            case "Completed":
+                return 3;
+            default:
+                return -1;
+        }
+    }
+
+    private static Row find(Connection connection, int leagueId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(SELECT_ONE)) {
+            ps.setInt(1, leagueId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new Row(rs) : null;
+            }
+        }
+    }
+
+    private static void await(List<Future<Void>> sweeps) throws SQLException, InterruptedException {
+        try {
+            for (Future<Void> sweep : sweeps) {
+                sweep.get();
+            }
+        } catch (ExecutionException e) {
+            for (Future<Void> sweep : sweeps) {
+                sweep.cancel(true);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    /** The columns of a league the sweep decides on. */
+    static final class Row {
+        final int leagueId;
+        final String name;
+        final String status;
+        final LocalDate startDate;
+        final LocalDate endDate;
+        final int maxTeams;
+        final String format;
+        final int teams;
+
+        Row(ResultSet rs) throws SQLException {
+            this.leagueId = rs.getInt("league_id");
+            this.name = rs.getString("name");
+            this.status = rs.getString("status");
+            Date start = rs.getDate("start_date");
+            Date end = rs.getDate("end_date");
+            this.startDate = start.toLocalDate();
+            this.endDate = end.toLocalDate();
+            this.maxTeams = rs.getInt("max_teams");
+            this.format = rs.getString("league_format");
+            this.teams = rs.getInt("teams_joined");
+        }
+    }
+
+    // A league as it was read in the transaction, and the statuses it was moved through (null if it wasn't)
+    private static final class Transition {
+        final Row league;
+        final List<String> steps;
+
+        Transition(Row league, List<String> steps) {
+            this.league = league;
+            this.steps = steps;
+        }
+    }
+
+    /** What the sweep did with one league. */
+    public static class Result {
+        public final int leagueId;
+        public final String name;
+        public final String from;
+        /** The status it was moved (or is due) to; null if it did not move. */
+        public final String to;
+        public final String outcome;
+        public final long elapsedNanos;
+
+        public Result(int leagueId, String name, String from, String to, String outcome, long elapsedNanos) {
+            this.leagueId = leagueId;
+            this.name = name;
+            this.from = from;
+            this.to = to;
+            this.outcome = outcome;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        Result(Row league, String to, String outcome, long elapsedNanos) {
+            this(league.leagueId, league.name, league.status, to, outcome, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            String move = to != null ? String.format("%s -> %s", from, to) : from != null ? from : "";
+            return String.format("%6d  %-30s  %-26s  %s%s", leagueId, name != null ? name : "", move, outcome,
+                    elapsedNanos > 0 ? String.format(" (%.1f ms)", elapsedNanos / 1e6) : "");
+        }
+    }
+
+    public static class Summary {
+        public LocalDate asOf;
+        public int examined;
+        public int advanced;
+        public int held;
+        public int changed;
+        public int due;
+        public int workers;
+        public int cascades;
+        public long elapsedNanos;
+        public final List<Result> results = new ArrayList<>();
+
+        void add(Result result) {
+            results.add(result);
+            if (result.outcome.equals("advanced")) {
+                advanced++;
+            } else if (result.outcome.equals("due")) {
+                due++;
+            } else if (result.outcome.startsWith("held")) {
+                held++;
+            } else {
+                changed++;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "As of: %s  Active leagues: %d  Workers: %d  Concurrent trigger cascades: %d%n"
+                  + "Advanced: %d  Due (dry run): %d  Held for teams: %d  Changed during the sweep: %d%n"
+                  + "Elapsed: %.3f s",
+                    asOf, examined, workers, cascades, advanced, due, held, changed, elapsedNanos / 1e9);
+        }
+    }
+}
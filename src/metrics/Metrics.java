@@ -0,0 +1,161 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Per-operation latency and round-trip instrumentation.
+ *
+ * A use case opens a {@link Scope} around its database work; while it is open, the pool's JDBC
+ * wrappers charge prepare / execute / fetch / commit time, round trips and fetched rows to it on the
+ * current thread. Closing the scope records everything into that operation's {@link OperationStats},
+ * which is also registered as a JMX MBean (teetime:type=Operation,name=...).
+ *
+ * Run with -Dteetime.metrics=false to turn it off: scopes become no-ops and the pool stops wrapping
+ * statements.
+ */
+public final class Metrics {
+
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("teetime.metrics"));
+    private static final ConcurrentHashMap<String, OperationStats> OPERATIONS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private Metrics() {
+    }
+
+    public static boolean enabled() {
+        return ENABLED;
+    }
+
+    /** Starts timing {@code operation} on this thread. Use with try-with-resources. */
+    public static Scope start(String operation) {
+        if (!ENABLED) {
+            return Scope.NOOP;
+        }
+        Scope scope = new Scope(stats(operation), CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /** @return the innermost open scope on this thread, or null */
+    public static Scope current() {
+        return ENABLED ? CURRENT.get() : null;
+    }
+
+    public static OperationStats stats(String operation) {
+        return OPERATIONS.computeIfAbsent(operation, Metrics::register);
+    }
+
+    /** Operations seen so far, by name. */
+    public static List<OperationStats> operations() {
+        List<OperationStats> result = new ArrayList<>(OPERATIONS.values());
+        result.sort(Comparator.comparing(OperationStats::getName));
+        return result;
+    }
+
+    public static void resetAll() {
+        OPERATIONS.values().forEach(OperationStats::reset);
+    }
+
+    /**
+     * Table of p50 / p99 / max per operation and phase, plus round trips and rows per operation and
+     * transaction retries / aborts.
+     */
+    public static String report() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-28s %8s %10s %10s %10s %9s %9s %8s %7s%n",
+                "Operation", "Count", "p50 ms", "p99 ms", "max ms", "Trips/op", "Rows/op", "Retries", "Aborts"));
+        for (OperationStats op : operations()) {
+            if (op.getCount() == 0) {
+                continue;
+            }
+            out.append(String.format("%-28s %8d %10.3f %10.3f %10.3f %9.1f %9.1f %8d %7d%n",
+                    op.getName(), op.getCount(), op.getP50Millis(), op.getP99Millis(), op.getMaxMillis(),
+                    op.getRoundTripsPerOperation(), op.getRowsPerOperation(), op.getRetries(), op.getAborts()));
+            for (OperationStats.Phase phase : OperationStats.Phase.values()) {
+                LatencyHistogram h = op.phase(phase);
+                out.append(String.format("  %-26s %8s %10.3f %10.3f %10.3f%n",
+                        phase.name().toLowerCase(), "",
+                        h.percentileNanos(0.50) / 1e6, h.percentileNanos(0.99) / 1e6, h.maxNanos() / 1e6));
+            }
+        }
+        return out.toString();
+    }
+
+    private static OperationStats register(String operation) {
+        OperationStats stats = new OperationStats(operation);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("teetime:type=Operation,name=" + ObjectName.quote(operation));
+            if (!server.isRegistered(name)) {
+                server.registerMBean(stats, name);
+            }
+        } catch (JMException e) {
+            // JMX is a convenience; the stats command still works without it
+        }
+        return stats;
+    }
+
+    /** Time and database work charged to one operation on one thread. */
+    public static final class Scope implements AutoCloseable {
+
+        static final Scope NOOP = new Scope(null, null);
+
+        private final OperationStats stats;
+        private final Scope parent;
+        private final long startNanos = System.nanoTime();
+        private final long[] phaseNanos = new long[OperationStats.Phase.values().length];
+        private int roundTrips;
+        private long rows;
+
+        private Scope(OperationStats stats, Scope parent) {
+            this.stats = stats;
+            this.parent = parent;
+        }
+
+        public void add(OperationStats.Phase phase, long nanos) {
+            phaseNanos[phase.ordinal()] += nanos;
+        }
+
+        public void roundTrip() {
+            roundTrips++;
+        }
+
+        public void rowFetched() {
+            rows++;
+        }
+
+        /** Counts a transaction retry against this operation straight away, not when the scope closes. */
+        public void retried() {
+            if (stats != null) {
+                stats.retried();
+            }
+        }
+
+        public void aborted() {
+            if (stats != null) {
+                stats.aborted();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (stats == null) {
+                return;
+            }
+            stats.record(System.nanoTime() - startNanos, phaseNanos, roundTrips, rows);
+            if (parent != null) {
+                CURRENT.set(parent);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
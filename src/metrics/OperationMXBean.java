@@ -0,0 +1,41 @@
+package metrics;
+
+/** JMX view of one instrumented operation (registered as teetime:type=Operation,name=...). Times are in ms. */
+public interface OperationMXBean {
+
+    String getName();
+
+    long getCount();
+
+    double getP50Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+
+    double getMeanMillis();
+
+    double getPrepareP99Millis();
+
+    double getExecuteP99Millis();
+
+    double getFetchP99Millis();
+
+    double getCommitP99Millis();
+
+    long getRoundTrips();
+
+    long getRowsFetched();
+
+    /** Transactions run again after losing a lock conflict (deadlock victim, lock timeout). */
+    long getRetries();
+
+    /** Transactions that were still losing lock conflicts when they ran out of attempts. */
+    long getAborts();
+
+    double getRoundTripsPerOperation();
+
+    double getRowsPerOperation();
+
+    void reset();
+}
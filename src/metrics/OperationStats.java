@@ -0,0 +1,149 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms (total and per JDBC phase), round-trip / row counters and transaction
+ * retry / abort counters for one operation.
+ */
+public final class OperationStats implements OperationMXBean {
+
+    /** Where an operation's time goes on the database side. */
+    public enum Phase {
+        PREPARE, EXECUTE, FETCH, COMMIT
+    }
+
+    private final String name;
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+    private final LongAdder roundTrips = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder aborts = new LongAdder();
+
+    OperationStats(String name) {
+        this.name = name;
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+
+    void record(long totalNanos, long[] phaseNanos, int trips, long rowCount) {
+        total.record(totalNanos);
+        for (int i = 0; i < phases.length; i++) {
+            phases[i].record(phaseNanos[i]);
+        }
+        roundTrips.add(trips);
+        rows.add(rowCount);
+    }
+
+    void retried() {
+        retries.increment();
+    }
+
+    void aborted() {
+        aborts.increment();
+    }
+
+    public LatencyHistogram total() {
+        return total;
+    }
+
+    public LatencyHistogram phase(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return total.count();
+    }
+
+    @Override
+    public double getP50Millis() {
+        return total.percentileNanos(0.50) / 1e6;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return total.percentileNanos(0.99) / 1e6;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return total.maxNanos() / 1e6;
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return total.meanNanos() / 1e6;
+    }
+
+    @Override
+    public double getPrepareP99Millis() {
+        return phase(Phase.PREPARE).percentileNanos(0.99) / 1e6;
+    }
+
+    @Override
+    public double getExecuteP99Millis() {
+        return phase(Phase.EXECUTE).percentileNanos(0.99) / 1e6;
+    }
+
+    @Override
+    public double getFetchP99Millis() {
+        return phase(Phase.FETCH).percentileNanos(0.99) / 1e6;
+    }
+
+    @Override
+    public double getCommitP99Millis() {
+        return phase(Phase.COMMIT).percentileNanos(0.99) / 1e6;
+    }
+
+    @Override
+    public long getRoundTrips() {
+        return roundTrips.sum();
+    }
+
+    @Override
+    public long getRowsFetched() {
+        return rows.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getAborts() {
+        return aborts.sum();
+    }
+
+    @Override
+    public double getRoundTripsPerOperation() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getRoundTrips() / n;
+    }
+
+    @Override
+    public double getRowsPerOperation() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getRowsFetched() / n;
+    }
+
+    @Override
+    public void reset() {
+        total.reset();
+        for (LatencyHistogram phase : phases) {
+            phase.reset();
+        }
+        roundTrips.reset();
+        rows.reset();
+        retries.reset();
+        aborts.reset();
+    }
+}
@@ -0,0 +1,52 @@
+package notify;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Outbox file standing in for a mail relay: one tab-separated line per message (time, event, player
+ * id, email, phone, subject, body), flushed once per batch.
+ */
+public class FileSink implements NotificationSink {
+
+    private final BufferedWriter out;
+
+    public FileSink(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void deliver(List<Notification> batch) throws IOException {
+        String now = Instant.now().toString();
+        StringBuilder line = new StringBuilder(256);
+        for (Notification n : batch) {
+            line.setLength(0);
+            line.append(now).append('\t').append(n.event).append('\t').append(n.playerId).append('\t')
+                    .append(clean(n.email)).append('\t').append(clean(n.phone)).append('\t')
+                    .append(clean(n.subject)).append('\t').append(clean(n.body)).append('\n');
+            out.write(line.toString());
+        }
+        out.flush();
+    }
+
+    // Keeps a field on its line and in its column
+    private static String clean(String s) {
+        return s == null ? "" : s.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,23 @@
+package notify;
+
+/** One message to one player, with both of the contact details the player table holds. */
+public class Notification {
+    public final String event;
+    public final int playerId;
+    public final String name;
+    public final String email;
+    public final String phone;
+    public final String subject;
+    public final String body;
+
+    public Notification(String event, int playerId, String name, String email, String phone, String subject,
+                        String body) {
+        this.event = event;
+        this.playerId = playerId;
+        this.name = name;
+        this.email = email;
+        this.phone = phone;
+        this.subject = subject;
+        this.body = body;
+    }
+}
@@ -0,0 +1,19 @@
+package notify;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where the {@link Notifier} hands off messages: a mail relay, an SMS gateway, a webhook. deliver()
+ * is only ever called from the notifier's dispatch thread, one batch at a time.
+ */
+public interface NotificationSink extends Closeable {
+
+    /** Sends a batch; an exception marks the whole batch as failed. */
+    void deliver(List<Notification> batch) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
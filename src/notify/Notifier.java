@@ -0,0 +1,310 @@
+package notify;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+/**
+ * Tells the players on the affected teams when a match is cancelled or a league changes status.
+ *
+ * The use cases call matchesCancelled() / leagueStatusChanged() after their commit. That only puts a
+ * small event on a bounded queue and never blocks: if the queue is full the event is dropped and
+ * counted, so an operator transaction never waits on delivery. One dispatch thread takes events off
+ * the queue, resolves the recipients in one set-based query (game_team or league_team, team_player,
+ * player; a cancellation of many games is split into IN lists of {@value #IDS_PER_QUERY}), streams
+ * the rows into batches of {@code batchSize} messages and hands each batch to the
+ * {@link NotificationSink}. A batch the sink rejects is counted as failed, not retried.
+ *
+ * Rosters are read when the event is dispatched, a moment after the commit, so a player who joined or
+ * left the team in between is (or isn't) told accordingly. close() delivers what is still queued.
+ *
+ * Knobs (system properties): teetime.notify ("file", the default, "webhook" or "false" to turn it
+ * off), teetime.notify.file (default notifications/outbox.tsv), teetime.notify.url for the webhook,
+ * teetime.notify.queue (events, default 1024), teetime.notify.batch (messages, default 500).
+ */
+public class Notifier implements Closeable {
+
+    static final int IDS_PER_QUERY = 1000;
+
+    private static final String GAME_RECIPIENTS =
+            "SELECT DISTINCT g.game_id, g.date_time, f.name AS facility_name, "
+          + "p.player_id, p.first_name, p.last_name, p.email, p.phone_number "
+          + "FROM game g "
+          + "JOIN facility f ON f.facility_id = g.facility_id "
+          + "JOIN game_team gt ON gt.game_id = g.game_id "
+          + "JOIN team_player tp ON tp.team_id = gt.team_id "
+          + "JOIN player p ON p.player_id = tp.player_id "
+          + "WHERE g.game_id IN (%s) "
+          + "ORDER BY g.game_id, p.player_id";
+    private static final String LEAGUE_RECIPIENTS =
+            "SELECT DISTINCT l.name AS league_name, p.player_id, p.first_name, p.last_name, p.email, p.phone_number "
+          + "FROM league l "
+          + "JOIN league_team lt ON lt.league_id = l.league_id "
+          + "JOIN team_player tp ON tp.team_id = lt.team_id "
+          + "JOIN player p ON p.player_id = tp.player_id "
+          + "WHERE l.league_id = ? "
+          + "ORDER BY p.player_id";
+
+    private static final Notifier DISABLED = new Notifier();
+
+    /** What happened, as queued by the use case. */
+    private static final class Event {
+        static final Event STOP = new Event(null, null, null, null);
+
+        final String kind;
+        final int[] ids;
+        final String from;
+        final String detail;
+
+        Event(String kind, int[] ids, String from, String detail) {
+            this.kind = kind;
+            this.ids = ids;
+            this.from = from;
+            this.detail = detail;
+        }
+    }
+
+    private final DataSource dataSource;
+    private final NotificationSink sink;
+    private final int batchSize;
+    private final int capacity;
+    private final BlockingQueue<Event> queue;
+    private final Thread dispatcher;
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile boolean closed;
+
+    private Notifier() {
+        this.dataSource = null;
+        this.sink = null;
+        this.batchSize = 0;
+        this.capacity = 0;
+        this.queue = null;
+        this.dispatcher = null;
+    }
+
+    public Notifier(DataSource dataSource, NotificationSink sink, int queueCapacity, int batchSize) {
+        if (queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("queueCapacity and batchSize must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.capacity = queueCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.dispatcher = new Thread(this::dispatch, "notify-dispatch");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /** @return the notifier configured by system properties, or a disabled one with -Dteetime.notify=false */
+    public static Notifier fromConfig(DataSource dataSource) throws IOException {
+        String mode = System.getProperty("teetime.notify", "file");
+        NotificationSink sink;
+        if ("false".equalsIgnoreCase(mode)) {
+            return DISABLED;
+        } else if ("webhook".equalsIgnoreCase(mode)) {
+            String url = System.getProperty("teetime.notify.url");
+            if (url == null) {
+                throw new IllegalArgumentException("teetime.notify=webhook needs teetime.notify.url");
+            }
+            sink = new WebhookSink(URI.create(url));
+        } else if ("file".equalsIgnoreCase(mode)) {
+            sink = new FileSink(Paths.get(System.getProperty("teetime.notify.file", "notifications/outbox.tsv")));
+        } else {
+            throw new IllegalArgumentException("teetime.notify must be file, webhook or false, not " + mode);
+        }
+        return new Notifier(dataSource, sink,
+                Integer.getInteger("teetime.notify.queue", 1024),
+                Integer.getInteger("teetime.notify.batch", 500));
+    }
+
+    /** A notifier that sends nothing. */
+    public static Notifier disabled() {
+        return DISABLED;
+    }
+
+    public boolean enabled() {
+        return queue != null;
+    }
+
+    /**
+     * Queues a message to every player on the teams of the cancelled games.
+     *
+     * @return false if the event was dropped because the queue is full (or the notifier is disabled)
+     */
+    public boolean matchesCancelled(List<Integer> gameIds, String reason) {
+        if (gameIds.isEmpty()) {
+            return true;
+        }
+        int[] ids = new int[gameIds.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = gameIds.get(i);
+        }
+        return offer(new Event("matchCancelled", ids, null, reason));
+    }
+
+    /**
+     * Queues a message to every player on the league's teams.
+     *
+     * @return false if the event was dropped because the queue is full (or the notifier is disabled)
+     */
+    public boolean leagueStatusChanged(int leagueId, String from, String to) {
+        return offer(new Event("leagueStatus", new int[] {leagueId}, from, to));
+    }
+
+    private boolean offer(Event event) {
+        if (queue == null || closed) {
+            return false;
+        }
+        if (!queue.offer(event)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        queued.incrementAndGet();
+        return true;
+    }
+
+    private void dispatch() {
+        while (true) {
+            Event event;
+            try {
+                event = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (event == Event.STOP) {
+                return;
+            }
+            try {
+                List<Notification> batch = new ArrayList<>(batchSize);
+                if (event.kind.equals("matchCancelled")) {
+                    resolveGames(event, batch);
+                } else {
+                    resolveLeague(event, batch);
+                }
+                send(batch);
+            } catch (SQLException | RuntimeException e) {
+                failedEvents.incrementAndGet();
+            }
+            dispatched.incrementAndGet();
+        }
+    }
+
+    private void resolveGames(Event event, List<Notification> batch) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            for (int from = 0; from < event.ids.length; from += IDS_PER_QUERY) {
+                int to = Math.min(event.ids.length, from + IDS_PER_QUERY);
+                String sql = String.format(GAME_RECIPIENTS, String.join(",", Collections.nCopies(to - from, "?")));
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    for (int i = from; i < to; i++) {
+                        ps.setInt(i - from + 1, event.ids[i]);
+                    }
+                    ps.setFetchSize(batchSize);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            String facility = rs.getString("facility_name");
+                            String when = rs.getTimestamp("date_time").toLocalDateTime().toString().replace('T', ' ');
+                            String subject = "Match cancelled: " + facility + ", " + when;
+                            String body = String.format("Your match #%d at %s on %s has been cancelled%s.",
+                                    rs.getInt("game_id"), facility, when,
+                                    event.detail == null || event.detail.isEmpty() ? "" : ": " + event.detail);
+                            add(batch, recipient(rs, event.kind, subject, body));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void resolveLeague(Event event, List<Notification> batch) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(LEAGUE_RECIPIENTS)) {
+            ps.setInt(1, event.ids[0]);
+            ps.setFetchSize(batchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String league = rs.getString("league_name");
+                    String subject = league + " is now " + event.detail;
+                    String body = String.format("%s has moved from %s to %s.", league, event.from, event.detail);
+                    add(batch, recipient(rs, event.kind, subject, body));
+                }
+            }
+        }
+    }
+
+    private static Notification recipient(ResultSet rs, String event, String subject, String body)
+            throws SQLException {
+        return new Notification(event, rs.getInt("player_id"),
+                rs.getString("first_name") + " " + rs.getString("last_name"),
+                rs.getString("email"), rs.getString("phone_number"), subject, body);
+    }
+
+    private void add(List<Notification> batch, Notification notification) {
+        batch.add(notification);
+        if (batch.size() == batchSize) {
+            send(batch);
+        }
+    }
+
+    private void send(List<Notification> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            sink.deliver(batch);
+            delivered.addAndGet(batch.size());
+        } catch (IOException | RuntimeException e) {
+            failed.addAndGet(batch.size());
+        }
+        batches.incrementAndGet();
+        batch.clear();
+    }
+
+    /** Delivers what is still queued (waiting up to 30 s for it), then closes the sink. */
+    @Override
+    public void close() throws IOException {
+        if (queue == null || closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(Event.STOP);
+            dispatcher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sink.close();
+    }
+
+    @Override
+    public String toString() {
+        if (queue == null) {
+            return "notifications off";
+        }
+        return String.format("events: %d queued, %d dispatched, %d dropped (queue full), %d failed  queue: %d/%d%n"
+                        + "messages: %d delivered in %d batches, %d failed",
+                queued.get(), dispatched.get(), dropped.get(), failedEvents.get(), queue.size(), capacity,
+                delivered.get(), batches.get(), failed.get());
+    }
+}
@@ -0,0 +1,99 @@
+package notify;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * POSTs each batch to a webhook as a JSON array of
+ * {"event", "playerId", "name", "email", "phone", "subject", "body"} objects. Any status other than
+ * 2xx fails the batch.
+ */
+public class WebhookSink implements NotificationSink {
+
+    private final URI uri;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    public WebhookSink(URI uri) {
+        this.uri = uri;
+    }
+
+    @Override
+    public void deliver(List<Notification> batch) throws IOException {
+        StringBuilder json = new StringBuilder(batch.size() * 200).append('[');
+        for (Notification n : batch) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"event\":");
+            string(json, n.event);
+            json.append(",\"playerId\":").append(n.playerId).append(",\"name\":");
+            string(json, n.name);
+            json.append(",\"email\":");
+            string(json, n.email);
+            json.append(",\"phone\":");
+            string(json, n.phone);
+            json.append(",\"subject\":");
+            string(json, n.subject);
+            json.append(",\"body\":");
+            string(json, n.body);
+            json.append('}');
+        }
+        json.append(']');
+
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json.toString()))
+                .build();
+        HttpResponse<Void> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while posting to " + uri, e);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(uri + " answered " + response.statusCode());
+        }
+    }
+
+    private static void string(StringBuilder out, String s) {
+        if (s == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,581 @@
+package rating;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Elo power ratings for teams and players, rebuilt from the whole game history and kept current
+ * as results come in.
+ *
+ * Every pair of teams in a completed game is one Elo match decided by score (higher wins, equal
+ * ties), and a team's change is averaged over its opponents, so games with more than two teams
+ * count the same. Players are rated by the same rule, with each side's strength being the mean
+ * rating of the players on its roster at the time of the game (team_player.join_date on or before
+ * the game's date). A team with no such players stands in with its team rating. K is 40 for the
+ * first 10 games of a team or player and 20 after that, so new entrants settle quickly.
+ *
+ * load() reads the history in one streaming query in date order into primitive arrays. It then splits
+ * the games into partitions that can't affect each other: leagues, merged wherever they share a
+ * team or a player. The partitions are replayed on parallel threads. The result is the same as a
+ * sequential replay, just faster. After that, recordGame() applies each new result in place.
+ * A result recorded out of date order is applied when it arrives; a reload puts it in order.
+ */
+public class RatingEngine {
+
+    public static final double INITIAL_RATING = 1500;
+    private static final double SCALE = 400;
+    private static final int PROVISIONAL_GAMES = 10;
+    private static final double K_PROVISIONAL = 40;
+    private static final double K_ESTABLISHED = 20;
+
+    private static final String TEAM_SQL = "SELECT team_id, name FROM team";
+    private static final String ROSTER_SQL = "SELECT team_id, player_id, join_date FROM team_player";
+    private static final String LEAGUE_SQL = "SELECT league_id, team_id FROM league_team";
+    private static final String HISTORY_SQL =
+            "SELECT g.game_id, g.date_time, gt.team_id, gt.score"
+          + "  FROM game g"
+          + "  JOIN game_team gt ON gt.game_id = g.game_id"
+          + " WHERE g.status = 'Completed'"
+          + "   AND gt.score IS NOT NULL"
+          + " ORDER BY g.date_time, g.game_id";
+
+    /** A team's or player's rating. */
+    public static class Rating {
+        public final int id;
+        /** Team name; null for players. */
+        public final String name;
+        public final double rating;
+        public final int games;
+
+        Rating(int id, String name, double rating, int games) {
+            this.id = id;
+            this.name = name;
+            this.rating = rating;
+            this.games = games;
+        }
+
+        /** @return whether the rating still moves at the provisional K (few games played) */
+        public boolean provisional() {
+            return games < PROVISIONAL_GAMES;
+        }
+    }
+
+    // Ratings, games played and rosters by dense index; replaced wholesale by load()
+    private static final class State {
+        final Map<Integer, Integer> teamIndex = new HashMap<>();
+        int[] teamIds = new int[64];
+        String[] teamNames = new String[64];
+        double[] teamRating = new double[64];
+        int[] teamGames = new int[64];
+        int[][] rosterPlayer = new int[64][];
+        int[][] rosterDay = new int[64][];
+        int[] rosterSize = new int[64];
+        int teams;
+
+        final Map<Integer, Integer> playerIndex = new HashMap<>();
+        int[] playerIds = new int[64];
+        double[] playerRating = new double[64];
+        int[] playerGames = new int[64];
+        int players;
+
+        final Map<Integer, List<Integer>> leagueTeams = new HashMap<>();
+
+        int team(int teamId) {
+            Integer existing = teamIndex.get(teamId);
+            if (existing != null) {
+                return existing;
+            }
+            if (teams == teamIds.length) {
+                int size = teams * 2;
+                teamIds = Arrays.copyOf(teamIds, size);
+                teamNames = Arrays.copyOf(teamNames, size);
+                teamRating = Arrays.copyOf(teamRating, size);
+                teamGames = Arrays.copyOf(teamGames, size);
+                rosterPlayer = Arrays.copyOf(rosterPlayer, size);
+                rosterDay = Arrays.copyOf(rosterDay, size);
+                rosterSize = Arrays.copyOf(rosterSize, size);
+            }
+            teamIds[teams] = teamId;
+            teamRating[teams] = INITIAL_RATING;
+            rosterPlayer[teams] = new int[4];
+            rosterDay[teams] = new int[4];
+            teamIndex.put(teamId, teams);
+            return teams++;
+        }
+
+        int player(int playerId) {
+            Integer existing = playerIndex.get(playerId);
+            if (existing != null) {
+                return existing;
+            }
+            if (players == playerIds.length) {
+                int size = players * 2;
+                playerIds = Arrays.copyOf(playerIds, size);
+                playerRating = Arrays.copyOf(playerRating, size);
+                playerGames = Arrays.copyOf(playerGames, size);
+            }
+            playerIds[players] = playerId;
+            playerRating[players] = INITIAL_RATING;
+            playerIndex.put(playerId, players);
+            return players++;
+        }
+
+        void addToRoster(int t, int p, int day) {
+            int n = rosterSize[t];
+            for (int i = 0; i < n; i++) {
+                if (rosterPlayer[t][i] == p) {
+                    return;
+                }
+            }
+            if (n == rosterPlayer[t].length) {
+                rosterPlayer[t] = Arrays.copyOf(rosterPlayer[t], n * 2);
+                rosterDay[t] = Arrays.copyOf(rosterDay[t], n * 2);
+            }
+            rosterPlayer[t][n] = p;
+            rosterDay[t][n] = day;
+            rosterSize[t] = n + 1;
+        }
+
+        Rating teamRating(int t) {
+            return new Rating(teamIds[t], teamNames[t], teamRating[t], teamGames[t]);
+        }
+
+        Rating playerRating(int p) {
+            return new Rating(playerIds[p], null, playerRating[p], playerGames[p]);
+        }
+    }
+
+    // Applies games to a state; one per replay thread, since it keeps scratch arrays
+    private static final class Replayer {
+        private final State s;
+        private double[] sideMean = new double[4];
+        private double[] teamDelta = new double[4];
+        private double[] playerDelta = new double[4];
+
+        Replayer(State s) {
+            this.s = s;
+        }
+
+        // sides [from, from + n) of team[] and score[] make up one game played on epoch day {@code day}
+        void play(int[] team, int[] score, int from, int n, int day) {
+            if (n < 2) {
+                return;
+            }
+            if (n > sideMean.length) {
+                sideMean = new double[n];
+                teamDelta = new double[n];
+                playerDelta = new double[n];
+            }
+            for (int i = 0; i < n; i++) {
+                int t = team[from + i];
+                double sum = 0;
+                int count = 0;
+                for (int r = 0; r < s.rosterSize[t]; r++) {
+                    if (s.rosterDay[t][r] <= day) {
+                        sum += s.playerRating[s.rosterPlayer[t][r]];
+                        count++;
+                    }
+                }
+                sideMean[i] = count > 0 ? sum / count : s.teamRating[t];
+            }
+            // All changes come from the ratings before the game
+            for (int i = 0; i < n; i++) {
+                double teamSum = 0;
+                double playerSum = 0;
+                for (int j = 0; j < n; j++) {
+                    if (j == i) {
+                        continue;
+                    }
+                    int a = score[from + i];
+                    int b = score[from + j];
+                    double outcome = a > b ? 1 : a == b ? 0.5 : 0;
+                    teamSum += outcome - expected(s.teamRating[team[from + i]], s.teamRating[team[from + j]]);
+                    playerSum += outcome - expected(sideMean[i], sideMean[j]);
+                }
+                teamDelta[i] = teamSum / (n - 1);
+                playerDelta[i] = playerSum / (n - 1);
+            }
+            for (int i = 0; i < n; i++) {
+                int t = team[from + i];
+                s.teamRating[t] += k(s.teamGames[t]) * teamDelta[i];
+                s.teamGames[t]++;
+                for (int r = 0; r < s.rosterSize[t]; r++) {
+                    if (s.rosterDay[t][r] <= day) {
+                        int p = s.rosterPlayer[t][r];
+                        s.playerRating[p] += k(s.playerGames[p]) * playerDelta[i];
+                        s.playerGames[p]++;
+                    }
+                }
+            }
+        }
+    }
+
+    // The completed games in date order: game g has sides [gameFirst[g], gameFirst[g + 1])
+    private static final class History {
+        int[] gameDay = new int[1024];
+        int[] gameFirst = new int[1025];
+        int games;
+        int[] sideTeam = new int[4096];
+        int[] sideScore = new int[4096];
+        int sides;
+
+        void startGame(int day) {
+            dropIfNoMatch();
+            if (games + 1 == gameDay.length) {
+                gameDay = Arrays.copyOf(gameDay, gameDay.length * 2);
+                gameFirst = Arrays.copyOf(gameFirst, gameFirst.length * 2);
+            }
+            gameDay[games] = day;
+            gameFirst[games++] = sides;
+            gameFirst[games] = sides;
+        }
+
+        void addSide(int t, int score) {
+            if (sides == sideTeam.length) {
+                sideTeam = Arrays.copyOf(sideTeam, sides * 2);
+                sideScore = Arrays.copyOf(sideScore, sides * 2);
+            }
+            sideTeam[sides] = t;
+            sideScore[sides++] = score;
+            gameFirst[games] = sides;
+        }
+
+        void finish() {
+            dropIfNoMatch();
+        }
+
+        // Fewer than two scored teams is no match
+        private void dropIfNoMatch() {
+            if (games > 0 && sides - gameFirst[games - 1] < 2) {
+                sides = gameFirst[--games];
+            }
+        }
+    }
+
+    public static class Summary {
+        public int games;
+        public int teams;
+        public int players;
+        public int partitions;
+        public int threads;
+        public long loadNanos;
+        public long replayNanos;
+
+        @Override
+        public String toString() {
+            double replaySeconds = replayNanos / 1e9;
+            return String.format(
+                    "Games: %d  Teams: %d  Players: %d  Partitions: %d  Threads: %d%n"
+                  + "Read: %.3f s  Replay: %.3f s (%.0f games/s)",
+                    games, teams, players, partitions, threads, loadNanos / 1e9, replaySeconds,
+                    replaySeconds == 0 ? 0 : games / replaySeconds);
+        }
+    }
+
+    private State state = new State();
+    private Replayer live = new Replayer(state);
+
+    /**
+     * Rebuilds every rating from the game history, replaying independent partitions on
+     * {@code threads} threads.
+     */
+    public Summary load(Connection connection, int threads) throws SQLException, InterruptedException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        Summary summary = new Summary();
+        long start = System.nanoTime();
+        State s = new State();
+        try (PreparedStatement ps = connection.prepareStatement(TEAM_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int t = s.team(rs.getInt(1));
+                s.teamNames[t] = rs.getString(2);
+            }
+        }
+        try (PreparedStatement ps = connection.prepareStatement(ROSTER_SQL)) {
+            ps.setFetchSize(5000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    s.addToRoster(s.team(rs.getInt(1)), s.player(rs.getInt(2)), day(rs.getDate(3)));
+                }
+            }
+        }
+        try (PreparedStatement ps = connection.prepareStatement(LEAGUE_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                s.leagueTeams.computeIfAbsent(rs.getInt(1), id -> new ArrayList<>()).add(rs.getInt(2));
+            }
+        }
+        History history = new History();
+        try (PreparedStatement ps = connection.prepareStatement(HISTORY_SQL, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(5000);
+            try (ResultSet rs = ps.executeQuery()) {
+                int lastGameId = 0;
+                boolean first = true;
+                while (rs.next()) {
+                    int gameId = rs.getInt(1);
+                    if (first || gameId != lastGameId) {
+                        history.startGame((int) rs.getTimestamp(2).toLocalDateTime().toLocalDate().toEpochDay());
+                        lastGameId = gameId;
+                        first = false;
+                    }
+                    history.addSide(s.team(rs.getInt(3)), rs.getInt(4));
+                }
+            }
+        }
+        history.finish();
+        summary.loadNanos = System.nanoTime() - start;
+
+        long replayStart = System.nanoTime();
+        int[][] buckets = partition(s, history, threads, summary);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> replays = new ArrayList<>();
+            for (int[] bucket : buckets) {
+                if (bucket.length == 0) {
+                    continue;
+                }
+                replays.add(pool.submit(() -> {
+                    Replayer replayer = new Replayer(s);
+                    for (int g : bucket) {
+                        int from = history.gameFirst[g];
+                        replayer.play(history.sideTeam, history.sideScore, from, history.gameFirst[g + 1] - from,
+                                history.gameDay[g]);
+                    }
+                    return null;
+                }));
+            }
+            await(replays);
+        } finally {
+            pool.shutdownNow();
+        }
+        summary.replayNanos = System.nanoTime() - replayStart;
+        summary.games = history.games;
+        summary.teams = s.teams;
+        summary.players = s.players;
+        summary.threads = threads;
+
+        synchronized (this) {
+            state = s;
+            live = new Replayer(s);
+        }
+        return summary;
+    }
+
+    /**
+     * Splits the games into independent partitions (union-find over teams: teams that met, or
+     * that share a player, end up together) and deals the partitions out to {@code threads}
+     * buckets, largest first onto the lightest bucket. Each bucket keeps its games in date order.
+     */
+    private static int[][] partition(State s, History history, int threads, Summary summary) {
+        int[] parent = new int[s.teams];
+        for (int t = 0; t < parent.length; t++) {
+            parent[t] = t;
+        }
+        for (int g = 0; g < history.games; g++) {
+            for (int i = history.gameFirst[g] + 1; i < history.gameFirst[g + 1]; i++) {
+                union(parent, history.sideTeam[history.gameFirst[g]], history.sideTeam[i]);
+            }
+        }
+        int[] firstTeam = new int[s.players];
+        Arrays.fill(firstTeam, -1);
+        for (int t = 0; t < s.teams; t++) {
+            for (int r = 0; r < s.rosterSize[t]; r++) {
+                int p = s.rosterPlayer[t][r];
+                if (firstTeam[p] < 0) {
+                    firstTeam[p] = t;
+                } else {
+                    union(parent, firstTeam[p], t);
+                }
+            }
+        }
+
+        int[] gameRoot = new int[history.games];
+        int[] gamesPerRoot = new int[s.teams];
+        for (int g = 0; g < history.games; g++) {
+            gameRoot[g] = find(parent, history.sideTeam[history.gameFirst[g]]);
+            if (gamesPerRoot[gameRoot[g]]++ == 0) {
+                summary.partitions++;
+            }
+        }
+        Integer[] roots = new Integer[summary.partitions];
+        int n = 0;
+        for (int t = 0; t < s.teams; t++) {
+            if (gamesPerRoot[t] > 0) {
+                roots[n++] = t;
+            }
+        }
+        Arrays.sort(roots, (a, b) -> Integer.compare(gamesPerRoot[b], gamesPerRoot[a]));
+        int[] bucketOf = new int[s.teams];
+        int[] load = new int[threads];
+        for (int root : roots) {
+            int lightest = 0;
+            for (int b = 1; b < threads; b++) {
+                if (load[b] < load[lightest]) {
+                    lightest = b;
+                }
+            }
+            bucketOf[root] = lightest;
+            load[lightest] += gamesPerRoot[root];
+        }
+        int[][] buckets = new int[threads][];
+        for (int b = 0; b < threads; b++) {
+            buckets[b] = new int[load[b]];
+        }
+        int[] filled = new int[threads];
+        for (int g = 0; g < history.games; g++) {
+            int b = bucketOf[gameRoot[g]];
+            buckets[b][filled[b]++] = g;
+        }
+        return buckets;
+    }
+
+    /** Applies one completed game. Scores pair up with teamIds; higher is better. */
+    public synchronized void recordGame(int[] teamIds, int[] scores, LocalDateTime playedAt) {
+        int[] teams = new int[teamIds.length];
+        for (int i = 0; i < teams.length; i++) {
+            teams[i] = state.team(teamIds[i]);
+        }
+        live.play(teams, scores, 0, teams.length, (int) playedAt.toLocalDate().toEpochDay());
+    }
+
+    /** Keeps the roster in sync; the player counts for the team's games from {@code joinDate} on. */
+    public synchronized void playerJoinedTeam(int playerId, int teamId, LocalDate joinDate) {
+        state.addToRoster(state.team(teamId), state.player(playerId), (int) joinDate.toEpochDay());
+    }
+
+    /** Registers a team in a league, for {@link #leagueSeeding}. */
+    public synchronized void addLeagueTeam(int leagueId, int teamId, String teamName) {
+        int t = state.team(teamId);
+        if (state.teamNames[t] == null) {
+            state.teamNames[t] = teamName;
+        }
+        List<Integer> teams = state.leagueTeams.computeIfAbsent(leagueId, id -> new ArrayList<>());
+        if (!teams.contains(teamId)) {
+            teams.add(teamId);
+        }
+    }
+
+    /** @return the team's rating, or null for an unknown team */
+    public synchronized Rating team(int teamId) {
+        Integer t = state.teamIndex.get(teamId);
+        return t == null ? null : state.teamRating(t);
+    }
+
+    /** @return the player's rating, or null for a player on no team */
+    public synchronized Rating player(int playerId) {
+        Integer p = state.playerIndex.get(playerId);
+        return p == null ? null : state.playerRating(p);
+    }
+
+    /** @return the league's teams by rating, highest first: the playoff seeding (empty for an unknown league) */
+    public synchronized List<Rating> leagueSeeding(int leagueId) {
+        List<Rating> seeding = new ArrayList<>();
+        for (int teamId : state.leagueTeams.getOrDefault(leagueId, new ArrayList<>())) {
+            seeding.add(state.teamRating(state.team(teamId)));
+        }
+        seeding.sort(BY_RATING);
+        return seeding;
+    }
+
+    /** @return the {@code n} highest-rated teams that have played */
+    public synchronized List<Rating> topTeams(int n) {
+        PriorityQueue<Rating> top = new PriorityQueue<>(BY_RATING.reversed());
+        for (int t = 0; t < state.teams; t++) {
+            if (state.teamGames[t] > 0) {
+                offer(top, state.teamRating(t), n);
+            }
+        }
+        return sorted(top);
+    }
+
+    /** @return the {@code n} highest-rated players that have played */
+    public synchronized List<Rating> topPlayers(int n) {
+        PriorityQueue<Rating> top = new PriorityQueue<>(BY_RATING.reversed());
+        for (int p = 0; p < state.players; p++) {
+            if (state.playerGames[p] > 0) {
+                offer(top, state.playerRating(p), n);
+            }
+        }
+        return sorted(top);
+    }
+
+    private static final Comparator<Rating> BY_RATING =
+            Comparator.comparingDouble((Rating r) -> -r.rating).thenComparingInt(r -> r.id);
+
+    private static void offer(PriorityQueue<Rating> top, Rating rating, int n) {
+        top.add(rating);
+        if (top.size() > n) {
+            top.poll();
+        }
+    }
+
+    private static List<Rating> sorted(PriorityQueue<Rating> top) {
+        List<Rating> list = new ArrayList<>(top);
+        list.sort(BY_RATING);
+        return list;
+    }
+
+    private static double expected(double rating, double opponent) {
+        return 1 / (1 + Math.pow(10, (opponent - rating) / SCALE));
+    }
+
+    private static double k(int gamesPlayed) {
+        return gamesPlayed < PROVISIONAL_GAMES ? K_PROVISIONAL : K_ESTABLISHED;
+    }
+
+    private static int day(Date date) {
+        return (int) date.toLocalDate().toEpochDay();
+    }
+
+    private static int find(int[] parent, int t) {
+        while (parent[t] != t) {
+            parent[t] = parent[parent[t]];
+            t = parent[t];
+        }
+        return t;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra != rb) {
+            parent[Math.max(ra, rb)] = Math.min(ra, rb);
+        }
+    }
+
+    private static void await(List<Future<Void>> replays) throws InterruptedException {
+        try {
+            for (Future<Void> replay : replays) {
+                replay.get();
+            }
+        } catch (ExecutionException e) {
+            for (Future<Void> replay : replays) {
+                replay.cancel(true);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
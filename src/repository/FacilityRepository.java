@@ -0,0 +1,70 @@
+package repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+
+/** Data access for facilities. */
+public class FacilityRepository {
+
+    private static final String FIND_SQL =
+        "SELECT facility_id, name, address, city, state, zip, phone, website, "
+      + "       opening_time, closing_time, number_of_bays "
+      + "FROM facility WHERE facility_id = ?";
+
+    /** A facility row. */
+    public static class Facility {
+        public final int facilityId;
+        public final String name;
+        public final String address;
+        public final String city;
+        public final String state;
+        public final String zip;
+        public final String phone;
+        public final String website;
+        public final Time openingTime;
+        public final Time closingTime;
+        public final int numberOfBays;
+
+        public Facility(int facilityId, String name, String address, String city, String state, String zip,
+                        String phone, String website, Time openingTime, Time closingTime, int numberOfBays) {
+            this.facilityId = facilityId;
+            this.name = name;
+            this.address = address;
+            this.city = city;
+            this.state = state;
+            this.zip = zip;
+            this.phone = phone;
+            this.website = website;
+            this.openingTime = openingTime;
+            this.closingTime = closingTime;
+            this.numberOfBays = numberOfBays;
+        }
+
+        Facility(ResultSet rs) throws SQLException {
+            this.facilityId = rs.getInt("facility_id");
+            this.name = rs.getString("name");
+            this.address = rs.getString("address");
+            this.city = rs.getString("city");
+            this.state = rs.getString("state");
+            this.zip = rs.getString("zip");
+            this.phone = rs.getString("phone");
+            this.website = rs.getString("website");
+            this.openingTime = rs.getTime("opening_time");
+            this.closingTime = rs.getTime("closing_time");
+            this.numberOfBays = rs.getInt("number_of_bays");
+        }
+    }
+
+    /** @return the facility, or null if it does not exist */
+    public Facility find(Connection connection, int facilityId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(FIND_SQL)) {
+            ps.setInt(1, facilityId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new Facility(rs) : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package repository;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Data access for games and their results (Use Cases 3 and 5, and facility closures). */
+public class GameRepository {
+
+    private static final String STATUS_SQL =
+        "SELECT status " +
+        "  FROM game " +
+        " WHERE game_id     = ? " +
+        "   AND facility_id = ?";
+    private static final String CANCEL_SQL =
+        "UPDATE game " +
+        "   SET status = 'Cancelled' " +
+        " WHERE facility_id = ? " +
+        "   AND game_id     = ? " +
+        "   AND status      = 'Scheduled'";
+    private static final String FIND_SQL =
+        "SELECT game_id, league_id, facility_id, date_time, status, game_type " +
+        "  FROM game " +
+        " WHERE game_id = ?";
+    private static final String UPDATE_RESULTS_CALL = "{call dbo.UpdateMatchResults(?,?,?,?,?)}";
+
+    // Facility closure: one UPDATE cancels the window, and its output rows are joined to the teams
+    // in the same statement (SQL Server: OUTPUT INTO a table variable; H2: FINAL TABLE). Both
+    // take (facility_id, from, to) and return the same columns.
+    private static final String CLOSE_COLUMNS =
+        "SELECT c.game_id, c.league_id, c.facility_id, c.date_time, c.game_type, gt.team_id, t.name AS team_name ";
+    private static final String CLOSE_JOIN =
+        "  LEFT JOIN game_team gt ON gt.game_id = c.game_id " +
+        "  LEFT JOIN team t ON t.team_id = gt.team_id " +
+        " ORDER BY c.date_time, c.game_id, gt.team_id";
+    private static final String CLOSE_WHERE =
+        " WHERE facility_id = ? " +
+        "   AND date_time  >= ? " +
+        "   AND date_time  <  ? " +
+        "   AND status      = 'Scheduled'";
+    private static final String CLOSE_SQL_SERVER =
+        "SET NOCOUNT ON; " +
+        "DECLARE @closed TABLE (game_id INT PRIMARY KEY, league_id INT NULL, facility_id INT, " +
+        "                      date_time DATETIME, game_type VARCHAR(50)); " +
+        "UPDATE game SET status = 'Cancelled' " +
+        "OUTPUT inserted.game_id, inserted.league_id, inserted.facility_id, inserted.date_time, inserted.game_type " +
+        "  INTO @closed" + CLOSE_WHERE + "; " +
+        CLOSE_COLUMNS + "FROM @closed c" + CLOSE_JOIN + ";";
+    private static final String CLOSE_H2 =
+        CLOSE_COLUMNS + "FROM FINAL TABLE (UPDATE game SET status = 'Cancelled'" + CLOSE_WHERE + ") c" + CLOSE_JOIN;
+
+    /** A game row. leagueId is 0 for games outside a league. */
+    public static class Game {
+        public final int gameId;
+        public final int leagueId;
+        public final int facilityId;
+        public final Timestamp dateTime;
+        public final String status;
+        public final String gameType;
+
+        public Game(int gameId, int leagueId, int facilityId, Timestamp dateTime, String status, String gameType) {
+            this.gameId = gameId;
+            this.leagueId = leagueId;
+            this.facilityId = facilityId;
+            this.dateTime = dateTime;
+            this.status = status;
+            this.gameType = gameType;
+        }
+
+        Game(ResultSet rs) throws SQLException {
+            this.gameId = rs.getInt("game_id");
+            this.leagueId = rs.getInt("league_id");
+            this.facilityId = rs.getInt("facility_id");
+            this.dateTime = rs.getTimestamp("date_time");
+            this.status = rs.getString("status");
+            this.gameType = rs.getString("game_type");
+        }
+    }
+
+    /**
+     * Result row returned by UpdateMatchResults. leagueId is null for games outside a league; league and
+     * facility names come from the reference cache.
+     */
+    public static class MatchResult {
+        public final int gameId;
+        public final Integer leagueId;
+        public final int facilityId;
+        public final Timestamp dateTime;
+        public final String status;
+        public final String gameType;
+        public final String team1Name;
+        public final int team1Score;
+        public final String team2Name;
+        public final int team2Score;
+        public final String winner;
+
+        public MatchResult(int gameId, Integer leagueId, int facilityId, Timestamp dateTime, String status,
+                           String gameType, String team1Name, int team1Score, String team2Name, int team2Score,
+                           String winner) {
+            this.gameId = gameId;
+            this.leagueId = leagueId;
+            this.facilityId = facilityId;
+            this.dateTime = dateTime;
+            this.status = status;
+            this.gameType = gameType;
+            this.team1Name = team1Name;
+            this.team1Score = team1Score;
+            this.team2Name = team2Name;
+            this.team2Score = team2Score;
+            this.winner = winner;
+        }
+
+        MatchResult(ResultSet rs) throws SQLException {
+            this.gameId = rs.getInt("game_id");
+            int league = rs.getInt("league_id");
+            this.leagueId = rs.wasNull() ? null : league;
+            this.facilityId = rs.getInt("facility_id");
+            this.dateTime = rs.getTimestamp("date_time");
+            this.status = rs.getString("status");
+            this.gameType = rs.getString("game_type");
+            this.team1Name = rs.getString("team1_name");
+            this.team1Score = rs.getInt("team1_score");
+            this.team2Name = rs.getString("team2_name");
+            this.team2Score = rs.getInt("team2_score");
+            this.winner = rs.getString("winner");
+        }
+    }
+
+    /** A game cancelled by {@link #cancelScheduledInWindow}, with its teams (none for an unfilled bracket game). */
+    public static class CancelledGame {
+        public final int gameId;
+        public final Integer leagueId;
+        public final int facilityId;
+        public final Timestamp dateTime;
+        public final String gameType;
+        public final List<Integer> teamIds = new ArrayList<>();
+        public final List<String> teamNames = new ArrayList<>();
+
+        public CancelledGame(int gameId, Integer leagueId, int facilityId, Timestamp dateTime, String gameType) {
+            this.gameId = gameId;
+            this.leagueId = leagueId;
+            this.facilityId = facilityId;
+            this.dateTime = dateTime;
+            this.gameType = gameType;
+        }
+
+        CancelledGame(ResultSet rs) throws SQLException {
+            this.gameId = rs.getInt("game_id");
+            int league = rs.getInt("league_id");
+            this.leagueId = rs.wasNull() ? null : league;
+            this.facilityId = rs.getInt("facility_id");
+            this.dateTime = rs.getTimestamp("date_time");
+            this.gameType = rs.getString("game_type");
+        }
+    }
+
+    /** @return the game's status, or null if there is no such game at that facility */
+    public String findStatus(Connection connection, int gameId, int facilityId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(STATUS_SQL)) {
+            ps.setInt(1, gameId);
+            ps.setInt(2, facilityId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString("status") : null;
+            }
+        }
+    }
+
+    /** Cancels the game if it is still Scheduled. @return rows updated (0 or 1) */
+    public int cancelScheduled(Connection connection, int facilityId, int gameId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(CANCEL_SQL)) {
+            ps.setInt(1, facilityId);
+            ps.setInt(2, gameId);
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Facility closure: cancels every Scheduled game at the facility starting in [from, to) with one
+     * set-based statement, in one round trip. Completed and already Cancelled games are left alone.
+     *
+     * @return the cancelled games with their teams, earliest first
+     */
+    public List<CancelledGame> cancelScheduledInWindow(Connection connection, int facilityId, Timestamp from,
+                                                       Timestamp to) throws SQLException {
+        boolean sqlServer = connection.getMetaData().getDatabaseProductName().contains("SQL Server");
+        List<CancelledGame> cancelled = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sqlServer ? CLOSE_SQL_SERVER : CLOSE_H2)) {
+            ps.setInt(1, facilityId);
+            ps.setTimestamp(2, from);
+            ps.setTimestamp(3, to);
+
+            // Skip any update counts ahead of the result set
+            boolean resultSet = ps.execute();
+            while (!resultSet && ps.getUpdateCount() != -1) {
+                resultSet = ps.getMoreResults();
+            }
+            if (!resultSet) {
+                return cancelled;
+            }
+            try (ResultSet rs = ps.getResultSet()) {
+                CancelledGame game = null;
+                while (rs.next()) {
+                    if (game == null || game.gameId != rs.getInt("game_id")) {
+                        game = new CancelledGame(rs);
+                        cancelled.add(game);
+                    }
+                    int teamId = rs.getInt("team_id");
+                    if (!rs.wasNull()) {
+                        game.teamIds.add(teamId);
+                        game.teamNames.add(rs.getString("team_name"));
+                    }
+                }
+            }
+        }
+        return cancelled;
+    }
+
+    /** @return the game, or null if it does not exist */
+    public Game find(Connection connection, int gameId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(FIND_SQL)) {
+            ps.setInt(1, gameId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new Game(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Records a two-team result through UpdateMatchResults, which also completes the game.
+     *
+     * @return the updated game, or null if the procedure returned nothing
+     */
+    public MatchResult updateMatchResults(Connection connection, int gameId, int team1Id, int team1Score,
+                                          int team2Id, int team2Score) throws SQLException {
+        try (CallableStatement cs = connection.prepareCall(UPDATE_RESULTS_CALL)) {
+            cs.setInt(1, gameId);
+            cs.setInt(2, team1Id);
+            cs.setInt(3, team1Score);
+            cs.setInt(4, team2Id);
+            cs.setInt(5, team2Score);
+
+            if (!cs.execute()) {
+                return null;
+            }
+            try (ResultSet rs = cs.getResultSet()) {
+                return rs.next() ? new MatchResult(rs) : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package repository;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Data access for leagues (Use Cases 4 and 6). */
+public class LeagueRepository {
+
+    private static final String FIND_SQL =
+        "SELECT league_id, name, city, state, zip, skill_level, status, start_date, end_date, max_teams "
+      + "FROM league WHERE league_id = ?";
+    private static final String COUNT_TEAMS_SQL = "SELECT COUNT(*) FROM league_team WHERE league_id = ?";
+    private static final String UPDATE_STATUS_SQL = "UPDATE league SET status = ? WHERE league_id = ?";
+    private static final String CREATE_FACILITY_LEAGUE_CALL = "{call CreateFacilityLeague(?,?,?,?,?,?,?)}";
+
+    /** A league row. */
+    public static class League {
+        public final int leagueId;
+        public final String name;
+        public final String city;
+        public final String state;
+        public final String zip;
+        public final String skillLevel;
+        public final String status;
+        public final Date startDate;
+        public final Date endDate;
+        public final int maxTeams;
+
+        public League(int leagueId, String name, String city, String state, String zip, String skillLevel,
+                      String status, Date startDate, Date endDate, int maxTeams) {
+            this.leagueId = leagueId;
+            this.name = name;
+            this.city = city;
+            this.state = state;
+            this.zip = zip;
+            this.skillLevel = skillLevel;
+            this.status = status;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.maxTeams = maxTeams;
+        }
+
+        League(ResultSet rs) throws SQLException {
+            this.leagueId = rs.getInt("league_id");
+            this.name = rs.getString("name");
+            this.city = rs.getString("city");
+            this.state = rs.getString("state");
+            this.zip = rs.getString("zip");
+            this.skillLevel = rs.getString("skill_level");
+            this.status = rs.getString("status");
+            this.startDate = rs.getDate("start_date");
+            this.endDate = rs.getDate("end_date");
+            this.maxTeams = rs.getInt("max_teams");
+        }
+    }
+
+    /** A team registered by CreateFacilityLeague. League and facility names come from the reference cache. */
+    public static class RegisteredTeam {
+        public final int leagueId;
+        public final int teamId;
+        public final String teamName;
+        public final int homeFacilityId;
+        public final Date joinDate;
+
+        public RegisteredTeam(int leagueId, int teamId, String teamName, int homeFacilityId, Date joinDate) {
+            this.leagueId = leagueId;
+            this.teamId = teamId;
+            this.teamName = teamName;
+            this.homeFacilityId = homeFacilityId;
+            this.joinDate = joinDate;
+        }
+
+        RegisteredTeam(ResultSet rs) throws SQLException {
+            this.leagueId = rs.getInt("league_id");
+            this.teamId = rs.getInt("team_id");
+            this.teamName = rs.getString("team_name");
+            this.homeFacilityId = rs.getInt("home_facility_id");
+            this.joinDate = rs.getDate("join_date");
+        }
+    }
+
+    /**
+     * League lifecycle: Setting Up -> In Season -> Playoffs -> Completed, with Paused resuming to In Season.
+     * Leaving Setting Up also requires every team slot to be filled, which callers check with countTeams.
+     *
+     * @return the status after currentStatus, or null if it has none (Completed or unknown)
+     */
+    public static String nextStatus(String currentStatus) {
+        switch (currentStatus) {
+            case "Setting Up":
+            case "Paused":
+                return "In Season";
+            case "In Season":
+                return "Playoffs";
+            case "Playoffs":
+                return "Completed";
+            default:
+                return null;
+        }
+    }
+
+    /** @return the league, or null if it does not exist */
+    public League find(Connection connection, int leagueId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(FIND_SQL)) {
+            ps.setInt(1, leagueId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new League(rs) : null;
+            }
+        }
+    }
+
+    public int countTeams(Connection connection, int leagueId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(COUNT_TEAMS_SQL)) {
+            ps.setInt(1, leagueId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    public void updateStatus(Connection connection, int leagueId, String status) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(UPDATE_STATUS_SQL)) {
+            ps.setString(1, status);
+            ps.setInt(2, leagueId);
+            ps.executeUpdate();
+        }
+    }
+
+    /** Creates a league at a facility and registers all of its home teams (CreateFacilityLeague). */
+    public List<RegisteredTeam> createFacilityLeague(Connection connection, int facilityId, String leagueName,
+                                                     String skillLevel, Date startDate, Date endDate,
+                                                     int maxTeams, String leagueFormat) throws SQLException {
+        List<RegisteredTeam> teams = new ArrayList<>();
+        try (CallableStatement cs = connection.prepareCall(CREATE_FACILITY_LEAGUE_CALL)) {
+            cs.setInt(1, facilityId);
+            cs.setString(2, leagueName);
+            cs.setString(3, skillLevel);
+            cs.setDate(4, startDate);
+            cs.setDate(5, endDate);
+            cs.setInt(6, maxTeams);
+            cs.setString(7, leagueFormat);
+
+            boolean hasResults = cs.execute();
+            while (hasResults) {
+                try (ResultSet rs = cs.getResultSet()) {
+                    while (rs.next()) {
+                        teams.add(new RegisteredTeam(rs));
+                    }
+                }
+                hasResults = cs.getMoreResults();
+            }
+        }
+        return teams;
+    }
+}
@@ -0,0 +1,84 @@
+package repository;
+
+import java.math.BigDecimal;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/** Data access for memberships and player memberships (Use Case 2). */
+public class MembershipRepository {
+
+    private static final String FIND_SQL =
+        "SELECT membership_id, facility_id, membership_type, monthly_fee, annual_fee, benefits, guest_allowance "
+      + "FROM membership WHERE membership_id = ?";
+    private static final String CANCEL_MEMBERSHIP_CALL = "{call dbo.CancelPlayerMembership(?,?)}";
+
+    /** A membership plan offered by a facility. */
+    public static class Membership {
+        public final int membershipId;
+        public final int facilityId;
+        public final String membershipType;
+        public final BigDecimal monthlyFee;
+        public final BigDecimal annualFee;
+        public final String benefits;
+        public final int guestAllowance;
+
+        public Membership(int membershipId, int facilityId, String membershipType, BigDecimal monthlyFee,
+                          BigDecimal annualFee, String benefits, int guestAllowance) {
+            this.membershipId = membershipId;
+            this.facilityId = facilityId;
+            this.membershipType = membershipType;
+            this.monthlyFee = monthlyFee;
+            this.annualFee = annualFee;
+            this.benefits = benefits;
+            this.guestAllowance = guestAllowance;
+        }
+
+        Membership(ResultSet rs) throws SQLException {
+            this.membershipId = rs.getInt("membership_id");
+            this.facilityId = rs.getInt("facility_id");
+            this.membershipType = rs.getString("membership_type");
+            this.monthlyFee = rs.getBigDecimal("monthly_fee");
+            this.annualFee = rs.getBigDecimal("annual_fee");
+            this.benefits = rs.getString("benefits");
+            this.guestAllowance = rs.getInt("guest_allowance");
+        }
+    }
+
+    /** @return the membership plan, or null if it does not exist */
+    public Membership find(Connection connection, int membershipId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(FIND_SQL)) {
+            ps.setInt(1, membershipId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new Membership(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Cancels a player's membership through CancelPlayerMembership.
+     *
+     * @return false if the player does not hold that membership
+     */
+    public boolean cancelMembership(Connection connection, int playerId, int membershipId) throws SQLException {
+        try (CallableStatement cs = connection.prepareCall(CANCEL_MEMBERSHIP_CALL)) {
+            cs.setInt(1, playerId);
+            cs.setInt(2, membershipId);
+
+            if (!cs.execute()) {
+                return false;
+            }
+            try (ResultSet rs = cs.getResultSet()) {
+                // The procedure answers a missing membership with a one-column error_message row
+                ResultSetMetaData meta = rs.getMetaData();
+                if (meta.getColumnCount() == 1 && "error_message".equalsIgnoreCase(meta.getColumnName(1))) {
+                    return false;
+                }
+                return rs.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package repository;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Player search for matchmaking: Public profiles by state / city / zip, skill level and handicap range.
+ *
+ * Results come in keyset order along ix_player_location_skill (state, city, skill_level, player_id).
+ * The state is always an equality filter, so a page is at most three index range seeks that start
+ * right after the last row of the previous page, never an OFFSET scan, and pages cost the same
+ * however deep the search goes. city and skill_level drop out of the cursor when the criteria fix them.
+ */
+public class PlayerRepository {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    private static final String FIND_SQL =
+        "SELECT player_id, first_name, last_name, [state], city, zip, skill_level, handicap, profile_type "
+      + "FROM player WHERE player_id = ?";
+
+    /** What to search for; state is required, null fields are not filtered on. */
+    public static class Criteria {
+        public String state;
+        public String city;
+        public String zip;
+        public String skillLevel;
+        public BigDecimal minHandicap;
+        public BigDecimal maxHandicap;
+        /** A player to leave out, e.g. the one looking for a match; 0 for none. */
+        public int excludePlayerId;
+    }
+
+    /** A player as shown in search results. */
+    public static class Player {
+        public final int playerId;
+        public final String firstName;
+        public final String lastName;
+        public final String state;
+        public final String city;
+        public final String zip;
+        public final String skillLevel;
+        public final BigDecimal handicap;
+        public final String profileType;
+
+        Player(ResultSet rs) throws SQLException {
+            this.playerId = rs.getInt("player_id");
+            this.firstName = rs.getString("first_name");
+            this.lastName = rs.getString("last_name");
+            this.state = rs.getString("state");
+            this.city = rs.getString("city");
+            this.zip = rs.getString("zip");
+            this.skillLevel = rs.getString("skill_level");
+            this.handicap = rs.getBigDecimal("handicap");
+            this.profileType = rs.getString("profile_type");
+        }
+    }
+
+    /** Where a page ended: the sort key of its last row. */
+    public static class Cursor {
+        final String city;
+        final String skillLevel;
+        final int playerId;
+
+        Cursor(String city, String skillLevel, int playerId) {
+            this.city = city;
+            this.skillLevel = skillLevel;
+            this.playerId = playerId;
+        }
+
+        /** @return an opaque, URL-safe form of the cursor for API clients */
+        public String token() {
+            String raw = city + '\u0000' + skillLevel + '\u0000' + playerId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** @throws IllegalArgumentException if the token was not produced by {@link #token()} */
+        public static Cursor fromToken(String token) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\u0000");
+                return new Cursor(parts[0], parts[1], Integer.parseInt(parts[2]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("invalid cursor");
+            }
+        }
+    }
+
+    /** One page of results; next is null on the last page. */
+    public static class Page {
+        public final List<Player> players;
+        public final Cursor next;
+
+        Page(List<Player> players, Cursor next) {
+            this.players = players;
+            this.next = next;
+        }
+    }
+
+    /** @return the player (any profile type), or null if they do not exist */
+    public Player find(Connection connection, int playerId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(FIND_SQL)) {
+            ps.setInt(1, playerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new Player(rs) : null;
+            }
+        }
+    }
+
+    /** Players similar to {@code player}: same state, city and skill level, handicap within +/- range. */
+    public static Criteria matchesFor(Player player, BigDecimal handicapRange) {
+        Criteria criteria = new Criteria();
+        criteria.state = player.state;
+        criteria.city = player.city;
+        criteria.skillLevel = player.skillLevel;
+        if (player.handicap != null && handicapRange != null) {
+            criteria.minHandicap = player.handicap.subtract(handicapRange);
+            criteria.maxHandicap = player.handicap.add(handicapRange);
+        }
+        criteria.excludePlayerId = player.playerId;
+        return criteria;
+    }
+
+    /** @param after the previous page's {@link Page#next}, or null for the first page */
+    public Page search(Connection connection, Criteria criteria, Cursor after, int pageSize) throws SQLException {
+        List<Player> players = new ArrayList<>(Math.min(pageSize, DEFAULT_PAGE_SIZE));
+        Cursor last = page(connection, criteria, after, pageSize, players::add);
+        return new Page(players, players.size() < pageSize ? null : last);
+    }
+
+    /**
+     * Hands every match to {@code handler} in keyset order, one page at a time, so memory stays at
+     * one page of driver buffers however many players match.
+     *
+     * @param limit stop after this many players (Long.MAX_VALUE for all)
+     * @return the number of players handed over
+     */
+    public long stream(Connection connection, Criteria criteria, int pageSize, long limit, Consumer<Player> handler)
+            throws SQLException {
+        long count = 0;
+        Cursor after = null;
+        while (count < limit) {
+            int wanted = (int) Math.min(pageSize, limit - count);
+            int[] rows = {0};
+            after = page(connection, criteria, after, wanted, player -> {
+                rows[0]++;
+                handler.accept(player);
+            });
+            count += rows[0];
+            if (rows[0] < wanted) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    // Where a continued page resumes, tightest first: the rest of the cursor's (city, skill level)
+    // group, then the rest of its city, then the later cities. Each is an equality prefix plus one
+    // range on the next index column, so every step is a plain index seek.
+    private enum Resume { NONE, PLAYER, SKILL, CITY }
+
+    // Runs one page and returns the cursor of its last row (or the cursor it started from if empty)
+    private Cursor page(Connection connection, Criteria criteria, Cursor after, int pageSize,
+                        Consumer<Player> handler) throws SQLException {
+        if (criteria.state == null) {
+            throw new IllegalArgumentException("state is required");
+        }
+        if (after == null) {
+            return run(connection, criteria, Resume.NONE, null, pageSize, handler, null);
+        }
+        int[] rows = {0};
+        Consumer<Player> counting = player -> {
+            rows[0]++;
+            handler.accept(player);
+        };
+        Cursor last = run(connection, criteria, Resume.PLAYER, after, pageSize, counting, after);
+        if (rows[0] < pageSize && criteria.skillLevel == null) {
+            last = run(connection, criteria, Resume.SKILL, after, pageSize - rows[0], counting, last);
+        }
+        if (rows[0] < pageSize && criteria.city == null) {
+            last = run(connection, criteria, Resume.CITY, after, pageSize - rows[0], counting, last);
+        }
+        return last;
+    }
+
+    private Cursor run(Connection connection, Criteria criteria, Resume resume, Cursor after, int rows,
+                       Consumer<Player> handler, Cursor last) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql(criteria, resume))) {
+            ps.setFetchSize(rows);
+            int i = 1;
+            ps.setString(i++, criteria.state);
+            if (criteria.city != null) {
+                ps.setString(i++, criteria.city);
+            }
+            if (criteria.skillLevel != null) {
+                ps.setString(i++, criteria.skillLevel);
+            }
+            if (criteria.zip != null) {
+                ps.setString(i++, criteria.zip);
+            }
+            if (criteria.minHandicap != null) {
+                ps.setBigDecimal(i++, criteria.minHandicap);
+            }
+            if (criteria.maxHandicap != null) {
+                ps.setBigDecimal(i++, criteria.maxHandicap);
+            }
+            if (criteria.excludePlayerId != 0) {
+                ps.setInt(i++, criteria.excludePlayerId);
+            }
+            // Same order as the placeholders in resumePredicate()
+            if (resume != Resume.NONE && criteria.city == null) {
+                ps.setString(i++, after.city);
+            }
+            if ((resume == Resume.PLAYER || resume == Resume.SKILL) && criteria.skillLevel == null) {
+                ps.setString(i++, after.skillLevel);
+            }
+            if (resume == Resume.PLAYER) {
+                ps.setInt(i++, after.playerId);
+            }
+            ps.setInt(i, rows);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Player player = new Player(rs);
+                    handler.accept(player);
+                    last = new Cursor(player.city, player.skillLevel, player.playerId);
+                }
+            }
+            return last;
+        }
+    }
+
+    // One statement text per combination of filters, so each is prepared (and cached) once
+    private static String sql(Criteria criteria, Resume resume) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT player_id, first_name, last_name, [state], city, zip, skill_level, handicap, profile_type "
+              + "FROM player WHERE [state] = ?");
+        if (criteria.city != null) {
+            sql.append(" AND city = ?");
+        }
+        if (criteria.skillLevel != null) {
+            sql.append(" AND skill_level = ?");
+        }
+        if (criteria.zip != null) {
+            sql.append(" AND zip = ?");
+        }
+        if (criteria.minHandicap != null) {
+            sql.append(" AND handicap >= ?");
+        }
+        if (criteria.maxHandicap != null) {
+            sql.append(" AND handicap <= ?");
+        }
+        if (criteria.excludePlayerId != 0) {
+            sql.append(" AND player_id <> ?");
+        }
+        sql.append(" AND profile_type = 'Public'");
+        sql.append(resumePredicate(criteria, resume));
+
+        // The full index key, fixed columns included, so the rows come off the index already sorted
+        sql.append(" ORDER BY [state], city, skill_level, player_id OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY");
+        return sql.toString();
+    }
+
+    private static String resumePredicate(Criteria criteria, Resume resume) {
+        switch (resume) {
+            case PLAYER:
+                return (criteria.city == null ? " AND city = ?" : "")
+                     + (criteria.skillLevel == null ? " AND skill_level = ?" : "")
+                     + " AND player_id > ?";
+            case SKILL:
+                return (criteria.city == null ? " AND city = ?" : "") + " AND skill_level > ?";
+            case CITY:
+                return " AND city > ?";
+            default:
+                return "";
+        }
+    }
+}
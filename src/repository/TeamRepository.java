@@ -0,0 +1,61 @@
+package repository;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/** Data access for teams and rosters (Use Case 1). */
+public class TeamRepository {
+
+    private static final String JOIN_TEAM_CALL = "{call dbo.joinTeam(?,?,?,?)}";
+
+    /** Team details returned by joinTeam. */
+    public static class Team {
+        public final int teamId;
+        public final String name;
+        public final Date creationDate;
+        public final int homeFacilityId;
+        public final String facilityName;
+
+        public Team(int teamId, String name, Date creationDate, int homeFacilityId, String facilityName) {
+            this.teamId = teamId;
+            this.name = name;
+            this.creationDate = creationDate;
+            this.homeFacilityId = homeFacilityId;
+            this.facilityName = facilityName;
+        }
+
+        Team(ResultSet rs) throws SQLException {
+            this.teamId = rs.getInt("team_id");
+            this.name = rs.getString("name");
+            this.creationDate = rs.getDate("creation_date");
+            this.homeFacilityId = rs.getInt("home_facility_id");
+            this.facilityName = rs.getString("facility_name");
+        }
+    }
+
+    /**
+     * Adds a player to a team through the joinTeam procedure.
+     *
+     * @param joinDate null for today
+     * @return the team the player joined, or null if the procedure returned nothing
+     */
+    public Team joinTeam(Connection connection, int playerId, int teamId, Date joinDate, String position)
+            throws SQLException {
+        try (CallableStatement cs = connection.prepareCall(JOIN_TEAM_CALL)) {
+            cs.setInt(1, playerId);
+            cs.setInt(2, teamId);
+            cs.setDate(3, joinDate);
+            cs.setString(4, position);
+
+            if (!cs.execute()) {
+                return null;
+            }
+            try (ResultSet rs = cs.getResultSet()) {
+                return rs.next() ? new Team(rs) : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package schedule;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Scheduled games per facility, ordered by start time, for bay lookups that never touch the game table.
+ *
+ * Loaded once from the Scheduled games, then kept current by calling gameScheduled() / gameEnded()
+ * from the schedule, cancel and result paths. Each game holds one bay from its start for
+ * {@code gameMinutes}. Lookups only visit the games starting within one game length of the slot
+ * asked about, so they cost O(log n + games nearby) under a per-facility lock.
+ *
+ * Open slots are offered on the same grid the season scheduler uses: every {@code gameMinutes}
+ * from opening_time, ending by closing_time (which may be after midnight).
+ */
+public class BayAvailabilityIndex {
+
+    private static final String FACILITIES_SQL =
+            "SELECT facility_id, opening_time, closing_time, number_of_bays FROM facility";
+    private static final String SCHEDULED_SQL =
+            "SELECT facility_id, date_time FROM game WHERE status = 'Scheduled'";
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int gameMinutes;
+    private final Map<Integer, Facility> facilities = new ConcurrentHashMap<>();
+
+    public BayAvailabilityIndex(int gameMinutes) {
+        if (gameMinutes < 1) {
+            throw new IllegalArgumentException("gameMinutes must be at least 1");
+        }
+        this.gameMinutes = gameMinutes;
+    }
+
+    /** @return the length of one game, and the spacing of the slot grid */
+    public int gameMinutes() {
+        return gameMinutes;
+    }
+
+    /** A bookable start time and how many bays are still free for a whole game from then. */
+    public static class Slot {
+        public final LocalDateTime start;
+        public final int freeBays;
+
+        Slot(LocalDateTime start, int freeBays) {
+            this.start = start;
+            this.freeBays = freeBays;
+        }
+    }
+
+    private static final class Facility {
+        final int openingMinute;
+        final int closingMinute;
+        final int bays;
+        // start (epoch minute) -> games starting then
+        final NavigableMap<Long, Integer> starts = new TreeMap<>();
+
+        Facility(LocalTime opening, LocalTime closing, int bays) {
+            int open = opening.getHour() * 60 + opening.getMinute();
+            int close = closing.getHour() * 60 + closing.getMinute();
+            this.openingMinute = open;
+            this.closingMinute = close <= open ? close + MINUTES_PER_DAY : close;
+            this.bays = bays;
+        }
+    }
+
+    /** Loads the facilities and every Scheduled game. */
+    public void load(Connection connection) throws SQLException {
+        Map<Integer, Facility> loaded = new ConcurrentHashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(FACILITIES_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                loaded.put(rs.getInt("facility_id"), new Facility(rs.getTime("opening_time").toLocalTime(),
+                        rs.getTime("closing_time").toLocalTime(), rs.getInt("number_of_bays")));
+            }
+        }
+        try (PreparedStatement ps = connection.prepareStatement(SCHEDULED_SQL)) {
+            ps.setFetchSize(1000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Facility facility = loaded.get(rs.getInt("facility_id"));
+                    if (facility != null) {
+                        facility.starts.merge(minute(rs.getTimestamp("date_time").toLocalDateTime()), 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        facilities.clear();
+        facilities.putAll(loaded);
+    }
+
+    /** A game was scheduled at {@code facilityId}. */
+    public void gameScheduled(int facilityId, LocalDateTime start) {
+        Facility facility = facilities.get(facilityId);
+        if (facility != null) {
+            synchronized (facility) {
+                facility.starts.merge(minute(start), 1, Integer::sum);
+            }
+        }
+    }
+
+    /** A scheduled game was cancelled or completed and no longer holds a bay. */
+    public void gameEnded(int facilityId, LocalDateTime start) {
+        Facility facility = facilities.get(facilityId);
+        if (facility != null) {
+            synchronized (facility) {
+                facility.starts.computeIfPresent(minute(start), (k, n) -> n > 1 ? n - 1 : null);
+            }
+        }
+    }
+
+    /** @return the facility's bay count, or -1 if it is unknown */
+    public int bays(int facilityId) {
+        Facility facility = facilities.get(facilityId);
+        return facility == null ? -1 : facility.bays;
+    }
+
+    /** @return scheduled games in progress at {@code at} (started less than one game length before) */
+    public int gamesInProgress(int facilityId, LocalDateTime at) {
+        Facility facility = facilities.get(facilityId);
+        if (facility == null) {
+            return 0;
+        }
+        long t = minute(at);
+        synchronized (facility) {
+            return count(facility, t - gameMinutes, false, t, true);
+        }
+    }
+
+    /** @return true if more games are in progress at {@code at} than the facility has bays */
+    public boolean capacityExceeded(int facilityId, LocalDateTime at) {
+        Facility facility = facilities.get(facilityId);
+        return facility != null && gamesInProgress(facilityId, at) > facility.bays;
+    }
+
+    /**
+     * @return up to {@code limit} slots starting between {@code from} and {@code to} (inclusive) with at
+     *         least one bay free for the whole game, earliest first; empty for an unknown facility
+     */
+    public List<Slot> openSlots(int facilityId, LocalDateTime from, LocalDateTime to, int limit) {
+        List<Slot> slots = new ArrayList<>();
+        Facility facility = facilities.get(facilityId);
+        if (facility == null || limit < 1 || facility.bays < 1) {
+            return slots;
+        }
+        int slotsPerDay = (facility.closingMinute - facility.openingMinute) / gameMinutes;
+        long first = minute(from);
+        long last = minute(to);
+
+        // Start from the opening of the day before, in case from falls in an after-midnight slot
+        long day = from.toLocalDate().minusDays(1).toEpochDay();
+        synchronized (facility) {
+            while (slots.size() < limit) {
+                long opening = day * MINUTES_PER_DAY + facility.openingMinute;
+                if (opening > last) {
+                    break;
+                }
+                for (int s = 0; s < slotsPerDay && slots.size() < limit; s++) {
+                    long start = opening + (long) s * gameMinutes;
+                    if (start < first) {
+                        continue;
+                    }
+                    if (start > last) {
+                        break;
+                    }
+                    int busy = peakInProgress(facility, start);
+                    if (busy < facility.bays) {
+                        slots.add(new Slot(dateTime(start), facility.bays - busy));
+                    }
+                }
+                day++;
+            }
+        }
+        return slots;
+    }
+
+    /** @return scheduled games across all facilities */
+    public int size() {
+        int size = 0;
+        for (Facility facility : facilities.values()) {
+            synchronized (facility) {
+                for (int n : facility.starts.values()) {
+                    size += n;
+                }
+            }
+        }
+        return size;
+    }
+
+    // Most games in progress at once during [start, start + gameMinutes). The count only rises when
+    // a game starts, so it peaks at start itself or at one of the game starts inside the window.
+    private int peakInProgress(Facility facility, long start) {
+        int peak = count(facility, start - gameMinutes, false, start, true);
+        for (long t : facility.starts.subMap(start, false, start + gameMinutes, false).keySet()) {
+            peak = Math.max(peak, count(facility, t - gameMinutes, false, t, true));
+        }
+        return peak;
+    }
+
+    private static int count(Facility facility, long from, boolean fromInclusive, long to, boolean toInclusive) {
+        int n = 0;
+        for (int games : facility.starts.subMap(from, fromInclusive, to, toInclusive).values()) {
+            n += games;
+        }
+        return n;
+    }
+
+    private static long minute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static LocalDateTime dateTime(long minute) {
+        return LocalDate.ofEpochDay(Math.floorDiv(minute, MINUTES_PER_DAY))
+                .atTime(LocalTime.ofSecondOfDay(Math.floorMod(minute, MINUTES_PER_DAY) * 60L));
+    }
+}
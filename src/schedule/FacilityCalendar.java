@@ -0,0 +1,128 @@
+package schedule;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bay occupancy of one facility, in fixed-length game slots between opening_time and closing_time.
+ *
+ * A slot can hold as many games as the facility has bays. Days are keyed by epoch day and only
+ * materialised once something is booked on them, so a calendar spanning years costs nothing until
+ * it is used. A closing time at or before the opening time means the facility closes after midnight.
+ */
+public class FacilityCalendar {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    public final int facilityId;
+    private final int openingMinute;
+    private final int slotMinutes;
+    private final int slotsPerDay;
+    private final int bays;
+    // epoch day -> games booked in each slot
+    private final Map<Long, int[]> booked = new HashMap<>();
+
+    public FacilityCalendar(int facilityId, LocalTime opening, LocalTime closing, int bays, int slotMinutes) {
+        if (slotMinutes < 1) {
+            throw new IllegalArgumentException("slotMinutes must be at least 1");
+        }
+        int open = opening.getHour() * 60 + opening.getMinute();
+        int close = closing.getHour() * 60 + closing.getMinute();
+        if (close <= open) {
+            close += MINUTES_PER_DAY;
+        }
+        this.facilityId = facilityId;
+        this.openingMinute = open;
+        this.slotMinutes = slotMinutes;
+        this.slotsPerDay = (close - open) / slotMinutes;
+        this.bays = Math.max(bays, 0);
+    }
+
+    /** @return games per day when every bay is used in every slot */
+    public int capacityPerDay() {
+        return slotsPerDay * bays;
+    }
+
+    /**
+     * Marks a bay as taken by an existing game in every slot the game overlaps: a game that does not
+     * start on a slot boundary also takes a bay in the next slot. Time outside the opening hours is
+     * ignored.
+     */
+    public void occupy(LocalDateTime dateTime) {
+        mark(dateTime, 1);
+    }
+
+    /**
+     * Books {@code games} games at the earliest free bays on or after {@code fromDay}, filling each
+     * slot before moving to the next.
+     *
+     * @return the start time of each booked game, or null (and nothing booked) if they do not all
+     *         fit on or before {@code lastDay}
+     */
+    public LocalDateTime[] book(int games, LocalDate fromDay, LocalDate lastDay) {
+        LocalDateTime[] times = new LocalDateTime[games];
+        if (games == 0) {
+            return times;
+        }
+        if (capacityPerDay() == 0) {
+            return null;
+        }
+        int placed = 0;
+        long day = fromDay.toEpochDay();
+        long last = lastDay.toEpochDay();
+        while (placed < games && day <= last) {
+            int[] slots = slots(day);
+            for (int slot = 0; slot < slotsPerDay && placed < games; slot++) {
+                while (slots[slot] < bays && placed < games) {
+                    slots[slot]++;
+                    times[placed++] = startOf(day, slot);
+                }
+            }
+            day++;
+        }
+        if (placed < games) {
+            for (int i = 0; i < placed; i++) {
+                release(times[i]);
+            }
+            return null;
+        }
+        return times;
+    }
+
+    /** Gives back a bay taken by {@link #book} or {@link #occupy}. */
+    public void release(LocalDateTime dateTime) {
+        mark(dateTime, -1);
+    }
+
+    // Adds delta to every slot that [dateTime, dateTime + slotMinutes) overlaps, on both opening days
+    // the game can fall in (its own, and the previous one for a facility that closes after midnight)
+    private void mark(LocalDateTime dateTime, int delta) {
+        long day = dateTime.toLocalDate().toEpochDay();
+        int minute = dateTime.getHour() * 60 + dateTime.getMinute();
+        for (long openingDay = day - 1; openingDay <= day; openingDay++) {
+            int offset = (int) (day - openingDay) * MINUTES_PER_DAY + minute - openingMinute;
+            int first = Math.max(Math.floorDiv(offset, slotMinutes), 0);
+            int last = Math.min(Math.floorDiv(offset + slotMinutes - 1, slotMinutes), slotsPerDay - 1);
+            if (first > last) {
+                continue;
+            }
+            int[] slots = delta > 0 ? slots(openingDay) : booked.get(openingDay);
+            for (int slot = first; slots != null && slot <= last; slot++) {
+                slots[slot] = Math.max(slots[slot] + delta, 0);
+            }
+        }
+    }
+
+    private int[] slots(long day) {
+        return booked.computeIfAbsent(day, d -> new int[slotsPerDay]);
+    }
+
+    private LocalDateTime startOf(long day, int slot) {
+        int minute = openingMinute + slot * slotMinutes;
+        return LocalDate.ofEpochDay(day + minute / MINUTES_PER_DAY)
+                .atTime((minute % MINUTES_PER_DAY) / 60, minute % 60);
+    }
+}
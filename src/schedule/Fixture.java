@@ -0,0 +1,31 @@
+package schedule;
+
+import java.time.LocalDateTime;
+
+/** One generated game: a game row plus its two game_team rows. */
+public class Fixture {
+    public final int leagueId;
+    public final int facilityId;
+    public final int round;
+    public final String gameType;
+    public final LocalDateTime dateTime;
+    public final int team1Id;
+    public final int team2Id;
+
+    public Fixture(int leagueId, int facilityId, int round, String gameType, LocalDateTime dateTime,
+                   int team1Id, int team2Id) {
+        this.leagueId = leagueId;
+        this.facilityId = facilityId;
+        this.round = round;
+        this.gameType = gameType;
+        this.dateTime = dateTime;
+        this.team1Id = team1Id;
+        this.team2Id = team2Id;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("league %d round %d  %s  facility %d  %s  #%d vs #%d", leagueId, round, dateTime,
+                facilityId, gameType, team1Id, team2Id);
+    }
+}
@@ -0,0 +1,163 @@
+package schedule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the rounds of a season from a league format and its teams, before any dates are assigned.
+ *
+ *   Round Robin  every team plays every other team once (circle method; one team sits out each
+ *                round when the count is odd)
+ *   Elimination  single-elimination bracket seeded in the given team order; the top seeds get
+ *                first-round byes up to the next power of two
+ *   RR-E         a round robin, then an elimination playoff between the top 2, 4 or 8 teams
+ *                (the largest power of two not above the team count)
+ *
+ * Only rounds whose teams are already known are built up front: the round robin and the first
+ * elimination round. Each later elimination round is built by {@link #nextRound} from the teams
+ * still in, once the round before it has been played.
+ *
+ * A team never appears twice in one round, so the rounds can be packed onto separate days.
+ */
+public final class ScheduleGenerator {
+
+    static final String ROUND_ROBIN = "Round Robin";
+    static final String ELIMINATION = "Elimination";
+    static final String RR_E = "RR-E";
+
+    private static final int MAX_PLAYOFF_TEAMS = 8;
+    // Empty seat in the round-robin circle
+    private static final int BYE = 0;
+
+    private ScheduleGenerator() {
+    }
+
+    /** One round of games; each pairing is {team1Id, team2Id}. */
+    public static final class Round {
+        public final String gameType;
+        public final List<int[]> pairings;
+
+        Round(String gameType, List<int[]> pairings) {
+            this.gameType = gameType;
+            this.pairings = pairings;
+        }
+    }
+
+    /**
+     * @param format  league_format: Round Robin, Elimination or RR-E
+     * @param teamIds the league's teams, in seed order for the elimination formats
+     * @return the rounds that can be played before any result is in: the whole round robin, or the
+     *         first round of an elimination bracket
+     */
+    public static List<Round> rounds(String format, int[] teamIds) {
+        if (teamIds.length < 2) {
+            throw new IllegalArgumentException("a season needs at least 2 teams, league has " + teamIds.length);
+        }
+        switch (format) {
+            case ROUND_ROBIN:
+            case RR_E:
+                return roundRobin(teamIds);
+            case ELIMINATION:
+                List<Round> rounds = new ArrayList<>(1);
+                rounds.add(elimination(teamIds));
+                return rounds;
+            default:
+                throw new IllegalArgumentException("unknown league format: " + format);
+        }
+    }
+
+    /**
+     * The next elimination round between the teams still in, best seed first: the best seed meets
+     * the worst, the second best the second worst, and so on. With an odd count the middle seed
+     * sits the round out.
+     */
+    public static Round nextRound(int[] teamIds) {
+        List<int[]> pairings = new ArrayList<>(teamIds.length / 2);
+        for (int i = 0; i < teamIds.length / 2; i++) {
+            pairings.add(new int[]{teamIds[i], teamIds[teamIds.length - 1 - i]});
+        }
+        return new Round(ELIMINATION, pairings);
+    }
+
+    /** @return how many teams reach the elimination stage: all of them, or the RR-E playoff size */
+    public static int playoffTeams(String format, int teams) {
+        switch (format) {
+            case ROUND_ROBIN:
+                return 0;
+            case ELIMINATION:
+                return teams;
+            case RR_E:
+                return Math.min(Integer.highestOneBit(teams), MAX_PLAYOFF_TEAMS);
+            default:
+                throw new IllegalArgumentException("unknown league format: " + format);
+        }
+    }
+
+    /** @return the number of rounds a full season plays, including the elimination rounds not built yet */
+    public static int roundCount(String format, int teams) {
+        int roundRobin = format.equals(ELIMINATION) ? 0 : teams + (teams & 1) - 1;
+        return roundRobin + eliminationRounds(playoffTeams(format, teams));
+    }
+
+    /** @return the number of elimination rounds still to play with {@code teams} teams left */
+    public static int eliminationRounds(int teams) {
+        return teams < 2 ? 0 : 32 - Integer.numberOfLeadingZeros(teams - 1);
+    }
+
+    /** @return the number of games a full season plays, without building them */
+    public static int gameCount(String format, int teams) {
+        switch (format) {
+            case ROUND_ROBIN:
+                return teams * (teams - 1) / 2;
+            case ELIMINATION:
+                return teams - 1;
+            case RR_E:
+                return teams * (teams - 1) / 2 + playoffTeams(format, teams) - 1;
+            default:
+                throw new IllegalArgumentException("unknown league format: " + format);
+        }
+    }
+
+    static List<Round> roundRobin(int[] teamIds) {
+        // Circle method: seat 0 stays put, the others rotate one place per round
+        int size = teamIds.length + (teamIds.length & 1);
+        int[] ring = new int[size];
+        System.arraycopy(teamIds, 0, ring, 0, teamIds.length);
+
+        List<Round> rounds = new ArrayList<>(size - 1);
+        for (int r = 0; r < size - 1; r++) {
+            List<int[]> pairings = new ArrayList<>(size / 2);
+            for (int i = 0; i < size / 2; i++) {
+                int a = ring[i];
+                int b = ring[size - 1 - i];
+                if (a == BYE || b == BYE) {
+                    continue;
+                }
+                // Alternate the fixed seat's side so no team is always listed first
+                pairings.add(i == 0 && (r & 1) == 1 ? new int[]{b, a} : new int[]{a, b});
+            }
+            rounds.add(new Round(ROUND_ROBIN, pairings));
+
+            int last = ring[size - 1];
+            System.arraycopy(ring, 1, ring, 2, size - 2);
+            ring[1] = last;
+        }
+        return rounds;
+    }
+
+    // First round of the bracket; the top seeds sit it out and meet its winners in round 2
+    static Round elimination(int[] teamIds) {
+        int n = teamIds.length;
+        int size = Integer.highestOneBit(n) == n ? n : Integer.highestOneBit(n) << 1;
+
+        // Seed i meets seed size+1-i; pairings against a seed beyond n are byes
+        List<int[]> first = new ArrayList<>(n - size / 2);
+        for (int seed = 1; seed <= size / 2; seed++) {
+            int opponent = size + 1 - seed;
+            if (opponent <= n) {
+                first.add(new int[]{teamIds[seed - 1], teamIds[opponent - 1]});
+            }
+        }
+        return new Round(ELIMINATION, first);
+    }
+}
@@ -0,0 +1,704 @@
+package schedule;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import db.TransactionExecutor;
+import db.TransactionExecutor.Isolation;
+import rating.RatingEngine;
+
+/**
+ * Generates and stores seasons (game + game_team rows) for leagues that have no games yet, and
+ * advances the elimination brackets of leagues that already have them.
+ *
+ * A run reads its inputs in six queries (unscheduled leagues, their teams, the games and teams of
+ * leagues with a bracket, facilities, and the bays already taken by scheduled games), plans every
+ * league in memory, then writes all games and game_team rows with batched inserts in a single
+ * transaction (through {@link TransactionExecutor}, so a lost lock conflict repeats the writes only):
+ *   1. the league plays at the facility most of its teams call home
+ *   2. {@link ScheduleGenerator} builds the rounds whose teams are known: the round robin, or the
+ *      first round of an elimination bracket
+ *   3. the rounds are spread evenly between start_date and end_date, leaving room for the
+ *      elimination rounds still to come, each on its own day(s), and packed into the facility's
+ *      slots across all of its bays ({@link FacilityCalendar}), shared with every other league
+ *      scheduled in the same run
+ *   4. an Elimination or RR-E league whose games have all been played gets its next elimination
+ *      round between the teams still in, from the day after its last game: an RR-E playoff starts
+ *      with the best round-robin records, and a drawn or cancelled elimination game knocks nobody out
+ * Teams are seeded by rating when a {@link RatingEngine} is set, otherwise in join order.
+ * A league whose season or next round does not fit is skipped and reported; the others are still
+ * written.
+ *
+ * Identity values are read back with one query after the game inserts (game_id order is insert
+ * order), since batched inserts cannot return generated keys on every driver.
+ */
+public class SeasonScheduler {
+
+    private static final String LEAGUES_SQL =
+            "SELECT l.league_id, l.status, l.start_date, l.end_date, l.league_format"
+          + "  FROM league l"
+          + " WHERE NOT EXISTS (SELECT 1 FROM game g WHERE g.league_id = l.league_id)";
+    private static final String TEAMS_SQL =
+            "SELECT lt.league_id, lt.team_id, t.home_facility_id"
+          + "  FROM league_team lt"
+          + "  JOIN team t ON t.team_id = lt.team_id"
+          + " WHERE NOT EXISTS (SELECT 1 FROM game g WHERE g.league_id = lt.league_id)"
+          + " ORDER BY lt.league_id, lt.join_date, lt.team_id";
+    private static final String BRACKET_TEAMS_SQL =
+            "SELECT l.league_id, l.end_date, l.league_format, lt.team_id"
+          + "  FROM league l"
+          + "  JOIN league_team lt ON lt.league_id = l.league_id"
+          + " WHERE l.league_format IN ('Elimination', 'RR-E')"
+          + "   AND l.status IN ('Setting Up', 'In Season', 'Playoffs')"
+          + "   AND EXISTS (SELECT 1 FROM game g WHERE g.league_id = l.league_id)"
+          + " ORDER BY l.league_id, lt.join_date, lt.team_id";
+    private static final String BRACKET_GAMES_SQL =
+            "SELECT g.league_id, g.game_id, g.facility_id, g.date_time, g.status, g.game_type, gt.team_id, gt.score"
+          + "  FROM game g"
+          + "  JOIN league l ON l.league_id = g.league_id"
+          + "  LEFT JOIN game_team gt ON gt.game_id = g.game_id"
+          + " WHERE l.league_format IN ('Elimination', 'RR-E')"
+          + "   AND l.status IN ('Setting Up', 'In Season', 'Playoffs')"
+          + " ORDER BY g.league_id, g.game_id";
+    private static final String FACILITIES_SQL =
+            "SELECT facility_id, opening_time, closing_time, number_of_bays FROM facility";
+    private static final String BOOKED_SQL =
+            "SELECT facility_id, date_time FROM game WHERE status = 'Scheduled' AND date_time >= ?";
+    private static final String MAX_GAME_SQL =
+            "SELECT COALESCE(MAX(game_id), 0) FROM game";
+    private static final String INSERT_GAME_SQL =
+            "INSERT INTO game (league_id, facility_id, date_time, status, game_type) VALUES (?, ?, ?, 'Scheduled', ?)";
+    private static final String NEW_GAMES_SQL =
+            "SELECT game_id, league_id FROM game WHERE game_id > ? ORDER BY game_id";
+    private static final String INSERT_GAME_TEAM_SQL =
+            "INSERT INTO game_team (game_id, team_id, score) VALUES (?, ?, NULL)";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final DataSource dataSource;
+    private final int gameMinutes;
+    private final PrintStream out;
+    private final TransactionExecutor transactions = TransactionExecutor.fromConfig();
+    private BayAvailabilityIndex bayIndex;
+    private RatingEngine ratingEngine;
+
+    /** @param gameMinutes length of one game slot; games start on slot boundaries from opening_time */
+    public SeasonScheduler(DataSource dataSource, int gameMinutes, PrintStream out) {
+        if (gameMinutes < 1) {
+            throw new IllegalArgumentException("gameMinutes must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.gameMinutes = gameMinutes;
+        this.out = out;
+    }
+
+    /** Adds every committed game to the index. */
+    public void setBayIndex(BayAvailabilityIndex bayIndex) {
+        this.bayIndex = bayIndex;
+    }
+
+    /** Seeds teams by {@link RatingEngine#leagueSeeding} instead of join order. */
+    public void setRatingEngine(RatingEngine ratingEngine) {
+        this.ratingEngine = ratingEngine;
+    }
+
+    /** The inputs of one league's season. */
+    public static class Season {
+        public final int leagueId;
+        public final String format;
+        public final LocalDate startDate;
+        public final LocalDate endDate;
+        public final int facilityId;
+        public final int[] teamIds;
+
+        public Season(int leagueId, String format, LocalDate startDate, LocalDate endDate, int facilityId,
+                      int[] teamIds) {
+            this.leagueId = leagueId;
+            this.format = format;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.facilityId = facilityId;
+            this.teamIds = teamIds;
+        }
+    }
+
+    /** The played games of a league with an elimination stage, folded into what its next round needs. */
+    public static class Bracket {
+        public final int leagueId;
+        public final String format;
+        public final LocalDate endDate;
+        public final int[] teamIds;
+        private int facilityId;
+        private LocalDate lastDay;
+        private boolean pending;
+        // teamId -> {wins, losses, points} over completed round-robin games
+        private final Map<Integer, int[]> records = new HashMap<>();
+        private final Set<Integer> entrants = new HashSet<>();
+        private final Set<Integer> knockedOut = new HashSet<>();
+
+        /** @param teamIds the league's teams in seed order */
+        public Bracket(int leagueId, String format, LocalDate endDate, int[] teamIds) {
+            this.leagueId = leagueId;
+            this.format = format;
+            this.endDate = endDate;
+            this.teamIds = teamIds;
+        }
+
+        /**
+         * Adds one game of the league.
+         *
+         * @param scores the game's scores, or null if it has none
+         */
+        public void game(int facilityId, LocalDateTime dateTime, String status, String gameType,
+                         int[] teamIds, int[] scores) {
+            if (lastDay == null || !dateTime.toLocalDate().isBefore(lastDay)) {
+                this.facilityId = facilityId;
+                lastDay = dateTime.toLocalDate();
+            }
+            boolean elimination = gameType.equals(ScheduleGenerator.ELIMINATION);
+            if (elimination) {
+                for (int teamId : teamIds) {
+                    entrants.add(teamId);
+                }
+            }
+            if (status.equals("Scheduled")) {
+                pending = true;
+                return;
+            }
+            if (!status.equals("Completed") || teamIds.length != 2 || scores == null) {
+                return;
+            }
+            if (elimination) {
+                if (scores[0] != scores[1]) {
+                    knockedOut.add(scores[0] < scores[1] ? teamIds[0] : teamIds[1]);
+                }
+                return;
+            }
+            for (int i = 0; i < 2; i++) {
+                int[] record = records.computeIfAbsent(teamIds[i], k -> new int[3]);
+                int diff = Integer.compare(scores[i], scores[1 - i]);
+                record[0] += diff > 0 ? 1 : 0;
+                record[1] += diff < 0 ? 1 : 0;
+                record[2] += scores[i];
+            }
+        }
+
+        /** @return the teams still in the bracket, best seed first; empty while a game is still to be played */
+        public int[] teamsIn() {
+            if (pending || lastDay == null) {
+                return new int[0];
+            }
+            List<Integer> seeded = new ArrayList<>(teamIds.length);
+            for (int teamId : teamIds) {
+                seeded.add(teamId);
+            }
+            if (format.equals(ScheduleGenerator.RR_E)) {
+                // Playoff seeds: most wins, fewest losses, most points, then the season seeding
+                int[] none = new int[3];
+                Map<Integer, Integer> seed = new HashMap<>();
+                for (int i = 0; i < teamIds.length; i++) {
+                    seed.put(teamIds[i], i);
+                }
+                seeded.sort(Comparator.<Integer>comparingInt(t -> -records.getOrDefault(t, none)[0])
+                        .thenComparingInt(t -> records.getOrDefault(t, none)[1])
+                        .thenComparingInt(t -> -records.getOrDefault(t, none)[2])
+                        .thenComparingInt(seed::get));
+                if (entrants.isEmpty()) {
+                    seeded = seeded.subList(0, ScheduleGenerator.playoffTeams(format, teamIds.length));
+                }
+            } else if (entrants.isEmpty()) {
+                return new int[0];
+            }
+            // In an Elimination league the first-round byes have not played yet but are still in
+            boolean byes = format.equals(ScheduleGenerator.ELIMINATION);
+            List<Integer> in = new ArrayList<>(seeded.size());
+            for (int teamId : seeded) {
+                if ((byes || entrants.isEmpty() || entrants.contains(teamId)) && !knockedOut.contains(teamId)) {
+                    in.add(teamId);
+                }
+            }
+            return in.size() < 2 ? new int[0] : in.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Schedules the given leagues, or when {@code leagueIds} is null every league without games that
+     * is 'Setting Up' or 'In Season', and adds the next elimination round of those whose games have
+     * all been played.
+     */
+    public Summary schedule(Set<Integer> leagueIds) throws SQLException {
+        long start = System.nanoTime();
+        Summary summary = new Summary();
+
+        try (Connection connection = dataSource.getConnection()) {
+            List<Bracket> brackets = loadBrackets(connection, leagueIds);
+            List<Season> seasons = loadSeasons(connection, leagueIds, brackets, summary);
+            LocalDate today = LocalDate.now();
+            Map<Integer, FacilityCalendar> calendars = loadCalendars(connection, seasons, brackets, today);
+
+            List<Fixture> fixtures = new ArrayList<>();
+            for (Season season : seasons) {
+                FacilityCalendar calendar = calendars.get(season.facilityId);
+                try {
+                    if (calendar == null) {
+                        throw new IllegalArgumentException("home facility " + season.facilityId + " does not exist");
+                    }
+                    List<Fixture> planned = plan(season, calendar);
+                    fixtures.addAll(planned);
+                    summary.leaguesScheduled++;
+                } catch (IllegalArgumentException e) {
+                    summary.leaguesSkipped++;
+                    out.printf("league %d: skipped -> %s%n", season.leagueId, e.getMessage());
+                }
+            }
+            for (Bracket bracket : brackets) {
+                try {
+                    List<Fixture> planned = advance(bracket, calendars.get(bracket.facilityId), today);
+                    if (!planned.isEmpty()) {
+                        fixtures.addAll(planned);
+                        summary.roundsAdvanced++;
+                    }
+                } catch (IllegalArgumentException e) {
+                    summary.leaguesSkipped++;
+                    out.printf("league %d: next round skipped -> %s%n", bracket.leagueId, e.getMessage());
+                }
+            }
+
+            // Planning is pure, so a retry only has to repeat the inserts
+            summary.gameTeams = transactions.execute(connection, Isolation.READ_COMMITTED, c -> write(c, fixtures));
+            summary.games = fixtures.size();
+            if (bayIndex != null) {
+                for (Fixture fixture : fixtures) {
+                    bayIndex.gameScheduled(fixture.facilityId, fixture.dateTime);
+                }
+            }
+        }
+
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    /**
+     * Plans one season into {@code calendar}, booking its bays.
+     *
+     * @throws IllegalArgumentException if the season cannot be played between its dates (nothing
+     *         stays booked in that case)
+     */
+    public static List<Fixture> plan(Season season, FacilityCalendar calendar) {
+        List<ScheduleGenerator.Round> rounds = ScheduleGenerator.rounds(season.format, season.teamIds);
+        int seasonRounds = ScheduleGenerator.roundCount(season.format, season.teamIds.length);
+        long days = ChronoUnit.DAYS.between(season.startDate, season.endDate) + 1;
+        if (days < seasonRounds) {
+            throw new IllegalArgumentException(seasonRounds + " rounds do not fit in a season of "
+                    + Math.max(days, 0) + " day(s)");
+        }
+
+        List<Fixture> fixtures = new ArrayList<>(ScheduleGenerator.gameCount(season.format, season.teamIds.length));
+        LocalDate earliest = season.startDate;
+        for (int r = 0; r < rounds.size(); r++) {
+            ScheduleGenerator.Round round = rounds.get(r);
+            // Spread rounds over the season, but never start one before the previous round is over
+            LocalDate spread = season.startDate.plusDays(r * days / seasonRounds);
+            LocalDate from = spread.isAfter(earliest) ? spread : earliest;
+            LocalDateTime[] times = calendar.book(round.pairings.size(), from, season.endDate);
+            if (times == null) {
+                for (Fixture fixture : fixtures) {
+                    calendar.release(fixture.dateTime);
+                }
+                throw new IllegalArgumentException("facility " + season.facilityId + " has no room for round "
+                        + (r + 1) + " of " + seasonRounds + " before " + season.endDate);
+            }
+            for (int g = 0; g < times.length; g++) {
+                int[] pairing = round.pairings.get(g);
+                fixtures.add(new Fixture(season.leagueId, season.facilityId, r + 1, round.gameType, times[g],
+                        pairing[0], pairing[1]));
+            }
+            if (times.length > 0) {
+                earliest = times[times.length - 1].toLocalDate().plusDays(1);
+            }
+        }
+        return fixtures;
+    }
+
+    /**
+     * Plans the next elimination round of a league into {@code calendar}, booking its bays, from the
+     * day after the league's last game (and not before {@code today}).
+     *
+     * @return the round's games; empty if a game is still to be played or the bracket is decided
+     * @throws IllegalArgumentException if the round cannot be played before the league's end_date
+     */
+    public static List<Fixture> advance(Bracket bracket, FacilityCalendar calendar, LocalDate today) {
+        int[] teamsIn = bracket.teamsIn();
+        if (teamsIn.length == 0) {
+            return new ArrayList<>();
+        }
+        if (calendar == null) {
+            throw new IllegalArgumentException("facility " + bracket.facilityId + " does not exist");
+        }
+        ScheduleGenerator.Round round = ScheduleGenerator.nextRound(teamsIn);
+        int seasonRounds = ScheduleGenerator.roundCount(bracket.format, bracket.teamIds.length);
+        int r = seasonRounds - ScheduleGenerator.eliminationRounds(teamsIn.length) + 1;
+        LocalDate from = bracket.lastDay.plusDays(1);
+        if (from.isBefore(today)) {
+            from = today;
+        }
+        LocalDateTime[] times = calendar.book(round.pairings.size(), from, bracket.endDate);
+        if (times == null) {
+            throw new IllegalArgumentException("facility " + bracket.facilityId + " has no room for round "
+                    + r + " of " + seasonRounds + " before " + bracket.endDate);
+        }
+        List<Fixture> fixtures = new ArrayList<>(times.length);
+        for (int g = 0; g < times.length; g++) {
+            int[] pairing = round.pairings.get(g);
+            fixtures.add(new Fixture(bracket.leagueId, bracket.facilityId, r, round.gameType, times[g],
+                    pairing[0], pairing[1]));
+        }
+        return fixtures;
+    }
+
+    private List<Season> loadSeasons(Connection connection, Set<Integer> leagueIds, Collection<Bracket> brackets,
+                                     Summary summary) throws SQLException {
+        // leagueId -> {start, end, format}
+        Map<Integer, Object[]> leagues = new LinkedHashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(LEAGUES_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int leagueId = rs.getInt("league_id");
+                String status = rs.getString("status");
+                boolean wanted = leagueIds == null
+                        ? status.equals("Setting Up") || status.equals("In Season")
+                        : leagueIds.contains(leagueId);
+                if (wanted) {
+                    leagues.put(leagueId, new Object[]{rs.getDate("start_date").toLocalDate(),
+                            rs.getDate("end_date").toLocalDate(), rs.getString("league_format")});
+                }
+            }
+        }
+        if (leagueIds != null) {
+            Set<Integer> advancing = new HashSet<>();
+            for (Bracket bracket : brackets) {
+                advancing.add(bracket.leagueId);
+            }
+            for (Integer leagueId : leagueIds) {
+                if (!leagues.containsKey(leagueId) && !advancing.contains(leagueId)) {
+                    summary.leaguesSkipped++;
+                    out.printf("league %d: skipped -> does not exist or already has games%n", leagueId);
+                }
+            }
+        }
+
+        // leagueId -> {teamId, homeFacilityId} in join order
+        Map<Integer, List<int[]>> teams = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(TEAMS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int leagueId = rs.getInt("league_id");
+                if (leagues.containsKey(leagueId)) {
+                    teams.computeIfAbsent(leagueId, k -> new ArrayList<>())
+                            .add(new int[]{rs.getInt("team_id"), rs.getInt("home_facility_id")});
+                }
+            }
+        }
+
+        List<Season> seasons = new ArrayList<>(leagues.size());
+        for (Map.Entry<Integer, Object[]> league : leagues.entrySet()) {
+            int leagueId = league.getKey();
+            List<int[]> roster = teams.getOrDefault(leagueId, new ArrayList<>());
+            if (roster.size() < 2) {
+                summary.leaguesSkipped++;
+                out.printf("league %d: skipped -> has %d team(s)%n", leagueId, roster.size());
+                continue;
+            }
+            int facilityId = homeFacility(roster);
+            if (facilityId == 0) {
+                summary.leaguesSkipped++;
+                out.printf("league %d: skipped -> none of its teams has a home facility%n", leagueId);
+                continue;
+            }
+            int[] teamIds = new int[roster.size()];
+            for (int i = 0; i < teamIds.length; i++) {
+                teamIds[i] = roster.get(i)[0];
+            }
+            Object[] row = league.getValue();
+            seasons.add(new Season(leagueId, (String) row[2], (LocalDate) row[0], (LocalDate) row[1],
+                    facilityId, seed(leagueId, teamIds)));
+        }
+        return seasons;
+    }
+
+    private List<Bracket> loadBrackets(Connection connection, Set<Integer> leagueIds) throws SQLException {
+        // leagueId -> {end, format}, and its teams in join order
+        Map<Integer, Object[]> leagues = new LinkedHashMap<>();
+        Map<Integer, List<Integer>> teams = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(BRACKET_TEAMS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int leagueId = rs.getInt("league_id");
+                if (leagueIds != null && !leagueIds.contains(leagueId)) {
+                    continue;
+                }
+                if (!leagues.containsKey(leagueId)) {
+                    leagues.put(leagueId, new Object[]{rs.getDate("end_date").toLocalDate(),
+                            rs.getString("league_format")});
+                }
+                teams.computeIfAbsent(leagueId, k -> new ArrayList<>()).add(rs.getInt("team_id"));
+            }
+        }
+        Map<Integer, Bracket> brackets = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Object[]> league : leagues.entrySet()) {
+            int leagueId = league.getKey();
+            int[] teamIds = teams.get(leagueId).stream().mapToInt(Integer::intValue).toArray();
+            Object[] row = league.getValue();
+            brackets.put(leagueId, new Bracket(leagueId, (String) row[1], (LocalDate) row[0], seed(leagueId, teamIds)));
+        }
+        if (brackets.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // One row per game and team, a game's rows together
+        try (PreparedStatement ps = connection.prepareStatement(BRACKET_GAMES_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            Bracket bracket = null;
+            int gameId = 0;
+            int facilityId = 0;
+            LocalDateTime dateTime = null;
+            String status = null;
+            String gameType = null;
+            List<int[]> gameTeams = new ArrayList<>(2); // {teamId, score, scored}
+            while (true) {
+                boolean more = rs.next();
+                if (bracket != null && (!more || rs.getInt("game_id") != gameId)) {
+                    addGame(bracket, facilityId, dateTime, status, gameType, gameTeams);
+                    bracket = null;
+                }
+                if (!more) {
+                    break;
+                }
+                if (bracket == null) {
+                    bracket = brackets.get(rs.getInt("league_id"));
+                    if (bracket == null) {
+                        continue;
+                    }
+                    gameId = rs.getInt("game_id");
+                    facilityId = rs.getInt("facility_id");
+                    dateTime = rs.getTimestamp("date_time").toLocalDateTime();
+                    status = rs.getString("status");
+                    gameType = rs.getString("game_type");
+                    gameTeams.clear();
+                }
+                int teamId = rs.getInt("team_id");
+                if (!rs.wasNull()) {
+                    int score = rs.getInt("score");
+                    gameTeams.add(new int[]{teamId, score, rs.wasNull() ? 0 : 1});
+                }
+            }
+        }
+        return new ArrayList<>(brackets.values());
+    }
+
+    private static void addGame(Bracket bracket, int facilityId, LocalDateTime dateTime, String status,
+                                String gameType, List<int[]> gameTeams) {
+        int[] teamIds = new int[gameTeams.size()];
+        int[] scores = new int[gameTeams.size()];
+        boolean scored = true;
+        for (int i = 0; i < teamIds.length; i++) {
+            int[] row = gameTeams.get(i);
+            teamIds[i] = row[0];
+            scores[i] = row[1];
+            scored &= row[2] == 1;
+        }
+        bracket.game(facilityId, dateTime, status, gameType, teamIds, scored ? scores : null);
+    }
+
+    // The league's teams by rating when a rating engine is set (unrated teams last, in join order)
+    private int[] seed(int leagueId, int[] joinOrder) {
+        if (ratingEngine == null) {
+            return joinOrder;
+        }
+        Set<Integer> members = new HashSet<>();
+        for (int teamId : joinOrder) {
+            members.add(teamId);
+        }
+        Set<Integer> seeded = new LinkedHashSet<>();
+        for (RatingEngine.Rating rating : ratingEngine.leagueSeeding(leagueId)) {
+            if (members.contains(rating.id)) {
+                seeded.add(rating.id);
+            }
+        }
+        for (int teamId : joinOrder) {
+            seeded.add(teamId);
+        }
+        return seeded.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // The most common home facility of the league's teams (lowest id on a tie), 0 if none has one
+    private static int homeFacility(List<int[]> roster) {
+        Map<Integer, Integer> votes = new HashMap<>();
+        int best = 0;
+        int bestVotes = 0;
+        for (int[] team : roster) {
+            if (team[1] == 0) {
+                continue;
+            }
+            int count = votes.merge(team[1], 1, Integer::sum);
+            if (count > bestVotes || (count == bestVotes && team[1] < best)) {
+                best = team[1];
+                bestVotes = count;
+            }
+        }
+        return best;
+    }
+
+    private Map<Integer, FacilityCalendar> loadCalendars(Connection connection, Collection<Season> seasons,
+                                                         Collection<Bracket> brackets, LocalDate today)
+            throws SQLException {
+        Map<Integer, FacilityCalendar> calendars = new HashMap<>();
+        if (seasons.isEmpty() && brackets.isEmpty()) {
+            return calendars;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(FACILITIES_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int facilityId = rs.getInt("facility_id");
+                calendars.put(facilityId, new FacilityCalendar(facilityId, rs.getTime("opening_time").toLocalTime(),
+                        rs.getTime("closing_time").toLocalTime(), rs.getInt("number_of_bays"), gameMinutes));
+            }
+        }
+
+        LocalDate from = brackets.isEmpty() ? null : today;
+        for (Season season : seasons) {
+            if (from == null || season.startDate.isBefore(from)) {
+                from = season.startDate;
+            }
+        }
+        try (PreparedStatement ps = connection.prepareStatement(BOOKED_SQL)) {
+            ps.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    FacilityCalendar calendar = calendars.get(rs.getInt("facility_id"));
+                    if (calendar != null) {
+                        calendar.occupy(rs.getTimestamp("date_time").toLocalDateTime());
+                    }
+                }
+            }
+        }
+        return calendars;
+    }
+
+    // @return the game_team rows written
+    private static int write(Connection connection, List<Fixture> fixtures) throws SQLException {
+        if (fixtures.isEmpty()) {
+            return 0;
+        }
+        int gameTeams = 0;
+        long maxBefore;
+        try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery(MAX_GAME_SQL)) {
+            rs.next();
+            maxBefore = rs.getLong(1);
+        }
+
+        // 1) Games, in fixture order
+        Map<Integer, ArrayDeque<Fixture>> byLeague = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_GAME_SQL)) {
+            int pending = 0;
+            for (Fixture fixture : fixtures) {
+                ps.setInt(1, fixture.leagueId);
+                ps.setInt(2, fixture.facilityId);
+                ps.setTimestamp(3, Timestamp.valueOf(fixture.dateTime));
+                ps.setString(4, fixture.gameType);
+                ps.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+                byLeague.computeIfAbsent(fixture.leagueId, k -> new ArrayDeque<>()).add(fixture);
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+            }
+        }
+
+        // 2) Read the new game ids back and add the known teams of each game
+        try (PreparedStatement select = connection.prepareStatement(NEW_GAMES_SQL);
+             PreparedStatement insert = connection.prepareStatement(INSERT_GAME_TEAM_SQL)) {
+            select.setLong(1, maxBefore);
+            int pending = 0;
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    ArrayDeque<Fixture> queue = byLeague.get(rs.getInt("league_id"));
+                    if (queue == null) {
+                        continue; // a concurrent insert for some other league
+                    }
+                    Fixture fixture = queue.poll();
+                    if (fixture == null) {
+                        throw new SQLException("league " + rs.getInt("league_id")
+                                + " received games from another writer while it was being scheduled");
+                    }
+                    int gameId = rs.getInt("game_id");
+                    for (int teamId : new int[]{fixture.team1Id, fixture.team2Id}) {
+                        insert.setInt(1, gameId);
+                        insert.setInt(2, teamId);
+                        insert.addBatch();
+                        gameTeams++;
+                        if (++pending == BATCH_SIZE) {
+                            insert.executeBatch();
+                            pending = 0;
+                        }
+                    }
+                }
+            }
+            if (pending > 0) {
+                insert.executeBatch();
+            }
+        }
+        for (Map.Entry<Integer, ArrayDeque<Fixture>> league : byLeague.entrySet()) {
+            if (!league.getValue().isEmpty()) {
+                throw new SQLException("could not read back " + league.getValue().size()
+                        + " new game id(s) of league " + league.getKey());
+            }
+        }
+        return gameTeams;
+    }
+
+    /** Totals for one scheduling run. */
+    public static class Summary {
+        public int leaguesScheduled;
+        public int leaguesSkipped;
+        public int roundsAdvanced;
+        public int games;
+        public int gameTeams;
+        public long elapsedNanos;
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format(
+                    "Leagues scheduled: %d  Leagues skipped: %d  Bracket rounds added: %d%n"
+                  + "Games: %d  Game teams: %d%n"
+                  + "Elapsed: %.3f s  Throughput: %.1f leagues/s",
+                    leaguesScheduled, leaguesSkipped, roundsAdvanced, games, gameTeams,
+                    seconds, seconds == 0 ? 0 : leaguesScheduled / seconds);
+        }
+    }
+}
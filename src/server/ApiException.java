@@ -0,0 +1,12 @@
+package server;
+
+/** A request the API rejects with a specific HTTP status and message. */
+class ApiException extends Exception {
+
+    final int status;
+
+    ApiException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
@@ -0,0 +1,280 @@
+package server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import cache.ReferenceData;
+import db.ConnectionPool;
+import db.PoolStats;
+import db.ReadRouter;
+import handicap.HandicapEngine;
+import rating.RatingEngine;
+import journal.Journal;
+import leaderboard.Leaderboards;
+import metrics.Metrics;
+import metrics.OperationStats;
+import notify.Notifier;
+import schedule.BayAvailabilityIndex;
+import standings.StandingsStore;
+
+/**
+ * JSON API over the use cases, on the JDK's built-in HTTP server.
+ *
+ * Each request runs on its own virtual thread when the runtime has them (JDK 21+), otherwise on a
+ * cached pool of platform threads. Database work is bounded by an admission semaphore sized to the
+ * connection pool: a request that cannot get a slot within teetime.server.queueWaitMs is answered
+ * with 503 and Retry-After instead of queueing until the pool's own borrow timeout.
+ *
+ * Changes are journaled under the caller named in the X-Actor header, or the client address without one.
+ *
+ * Knobs (system properties): teetime.server.maxConcurrent (default: pool size),
+ * teetime.server.queueWaitMs (default 200).
+ */
+public class ApiServer implements AutoCloseable {
+
+    // Request parameter carrying the caller for the journal; always set by the server, never by the client
+    static final String ACTOR_PARAM = "actor";
+
+    private interface Route {
+        Object handle(Map<String, Object> params) throws Exception;
+    }
+
+    private final HttpServer http;
+    private final ExecutorService executor;
+    private final ConnectionPool pool;
+    private final ReadRouter reads;
+    private final Notifier notifier;
+    private final ReferenceData referenceData;
+    private final Map<String, Route> routes = new HashMap<>();
+    private final Semaphore admission;
+    private final int maxConcurrent;
+    private final long queueWaitMillis;
+
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public ApiServer(int port, ConnectionPool pool, ReadRouter reads, HandicapEngine handicapEngine,
+                     StandingsStore standingsStore, RatingEngine ratingEngine, Leaderboards leaderboards,
+                     ReferenceData referenceData, BayAvailabilityIndex bayIndex, Journal journal, Notifier notifier)
+            throws IOException {
+        this.pool = pool;
+        this.reads = reads;
+        this.notifier = notifier;
+        this.referenceData = referenceData;
+        this.maxConcurrent = Integer.getInteger("teetime.server.maxConcurrent", pool.stats().maxSize);
+        this.queueWaitMillis = Long.getLong("teetime.server.queueWaitMs", 200L);
+        this.admission = new Semaphore(maxConcurrent, true);
+
+        Endpoints endpoints = new Endpoints(pool, reads, handicapEngine, standingsStore, ratingEngine, leaderboards,
+                referenceData, bayIndex, journal, notifier);
+        routes.put("POST /api/join-team", endpoints::joinTeam);
+        routes.put("POST /api/cancel-membership", endpoints::cancelMembership);
+        routes.put("POST /api/cancel-match", endpoints::cancelMatch);
+        routes.put("POST /api/facility-closures", endpoints::closeFacility);
+        routes.put("POST /api/facility-leagues", endpoints::createFacilityLeague);
+        routes.put("POST /api/match-results", endpoints::updateMatchResults);
+        routes.put("POST /api/league-status", endpoints::updateLeagueStatus);
+        routes.put("GET /api/standings", endpoints::standings);
+        routes.put("GET /api/ratings", endpoints::ratings);
+        routes.put("GET /api/leaderboards", endpoints::leaderboard);
+        routes.put("GET /api/leaderboards/rank", endpoints::leaderboardRank);
+        routes.put("GET /api/games", endpoints::game);
+        routes.put("GET /api/bays", endpoints::openBays);
+        routes.put("GET /api/bays/capacity", endpoints::bayCapacity);
+        routes.put("GET /api/players", endpoints::searchPlayers);
+        routes.put("GET /api/players/matches", endpoints::playerMatches);
+
+        // Without TCP_NODELAY small JSON responses stall ~40 ms on delayed ACKs
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.executor = newRequestExecutor();
+        this.http = HttpServer.create(new InetSocketAddress(port), 0);
+        this.http.setExecutor(executor);
+        this.http.createContext("/api/stats", this::handleStats);
+        this.http.createContext("/api/", this::handle);
+    }
+
+    public void start() {
+        http.start();
+    }
+
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    /** @return "virtual" or "platform", depending on which executor requests run on */
+    public String threadModel() {
+        return executor instanceof ThreadPoolExecutor ? "platform" : "virtual";
+    }
+
+    @Override
+    public void close() {
+        http.stop(1);
+        executor.shutdown();
+    }
+
+    /** Virtual thread per request where available (looked up reflectively; the build targets Java 11). */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "api-request");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String key = exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath();
+            Route route = routes.get(key);
+            if (route == null) {
+                send(exchange, 404, error("No such endpoint: "
+                        + exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath()));
+                return;
+            }
+
+            Map<String, Object> params;
+            try {
+                params = params(exchange);
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, error(e.getMessage()));
+                return;
+            }
+            String actor = exchange.getRequestHeaders().getFirst("X-Actor");
+            params.put(ACTOR_PARAM, actor != null && !actor.trim().isEmpty()
+                    ? actor.trim() : exchange.getRemoteAddress().getAddress().getHostAddress());
+
+            if (!admission.tryAcquire(queueWaitMillis, TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 503, error("Server busy: all " + maxConcurrent + " database slots are in use"));
+                return;
+            }
+            try (Metrics.Scope op = Metrics.start(key)) {
+                Object body = route.handle(params);
+                served.incrementAndGet();
+                send(exchange, 200, body);
+            } finally {
+                admission.release();
+            }
+        } catch (ApiException e) {
+            served.incrementAndGet();
+            send(exchange, e.status, error(e.getMessage()));
+        } catch (SQLTransientConnectionException e) {
+            rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            send(exchange, 503, error(e.getMessage()));
+        } catch (SQLException e) {
+            failed.incrementAndGet();
+            send(exchange, 500, error("Database error: " + e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            send(exchange, 503, error("Interrupted"));
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            send(exchange, 500, error(e.toString()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            PoolStats stats = pool.stats();
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("threads", threadModel());
+            body.put("maxConcurrent", maxConcurrent);
+            body.put("inFlight", maxConcurrent - admission.availablePermits());
+            body.put("served", served.get());
+            body.put("rejected", rejected.get());
+            body.put("failed", failed.get());
+            body.put("poolActive", stats.active);
+            body.put("poolIdle", stats.idle);
+            body.put("poolTimeouts", stats.timeouts);
+            body.put("statementHitRatio", stats.statementHitRatio());
+            body.put("referenceCache", referenceData.toString());
+            body.put("readRouting", reads.toString());
+            body.put("notifications", notifier.toString());
+            List<Map<String, Object>> operations = new ArrayList<>();
+            for (OperationStats op : Metrics.operations()) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("name", op.getName());
+                row.put("count", op.getCount());
+                row.put("p50Ms", op.getP50Millis());
+                row.put("p99Ms", op.getP99Millis());
+                row.put("maxMs", op.getMaxMillis());
+                row.put("roundTripsPerOp", op.getRoundTripsPerOperation());
+                row.put("rowsPerOp", op.getRowsPerOperation());
+                row.put("retries", op.getRetries());
+                row.put("aborts", op.getAborts());
+                operations.add(row);
+            }
+            body.put("operations", operations);
+            send(exchange, 200, body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /** Query string parameters, overlaid with the fields of a JSON request body. */
+    private static Map<String, Object> params(HttpExchange exchange) throws IOException {
+        Map<String, Object> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        try (InputStream in = exchange.getRequestBody()) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            params.putAll(Json.parseObject(body));
+        }
+        return params;
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        return body;
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,668 @@
+package server;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import cache.ReferenceData;
+import db.ReadRouter;
+import db.TransactionExecutor;
+import handicap.HandicapEngine;
+import journal.Journal;
+import leaderboard.Leaderboards;
+import notify.Notifier;
+import rating.RatingEngine;
+import repository.FacilityRepository;
+import repository.GameRepository;
+import repository.LeagueRepository;
+import repository.PlayerRepository;
+import repository.TeamRepository;
+import schedule.BayAvailabilityIndex;
+import standings.StandingsStore;
+import standings.TeamStanding;
+import store.JdbcStorage;
+import store.Storage;
+
+/**
+ * The CLI use cases as JSON endpoints. Each method takes the request parameters (query string and
+ * body merged) and returns the response body; rule violations are thrown as ApiException.
+ *
+ * The write use cases go through a {@link JdbcStorage}, the same operations as the CLI menu, with
+ * a {@link TransactionExecutor}, so a request that loses a deadlock to a concurrent one is retried
+ * instead of failing. Outcomes that break a rule are mapped to an ApiException once the transaction
+ * is done. The read endpoints (games, player search, standings rosters) go through a
+ * {@link ReadRouter}, which serves them from a read replica while it is within its lag bound. The
+ * server always runs against the database: its read endpoints query it directly, so an in-memory
+ * store would let them drift apart.
+ *
+ * Every committed change is appended to the {@link Journal} with the request's actor (see
+ * ApiServer), after the commit so a retried transaction is recorded once. Cancellations and league
+ * status changes are then queued on the {@link Notifier}, which never makes the request wait.
+ */
+class Endpoints {
+
+    private final DataSource dataSource;
+    private final ReadRouter reads;
+    private final HandicapEngine handicapEngine;
+    private final StandingsStore standingsStore;
+    private final RatingEngine ratingEngine;
+    private final Leaderboards leaderboards;
+    private final BayAvailabilityIndex bayIndex;
+    private final Journal journal;
+    private final Notifier notifier;
+    private final TransactionExecutor transactions = TransactionExecutor.fromConfig();
+    private final Storage storage;
+    private final GameRepository games = new GameRepository();
+    private final PlayerRepository players = new PlayerRepository();
+
+    Endpoints(DataSource dataSource, ReadRouter reads, HandicapEngine handicapEngine, StandingsStore standingsStore,
+              RatingEngine ratingEngine, Leaderboards leaderboards, ReferenceData referenceData,
+              BayAvailabilityIndex bayIndex, Journal journal, Notifier notifier) {
+        this.dataSource = dataSource;
+        this.reads = reads;
+        this.handicapEngine = handicapEngine;
+        this.standingsStore = standingsStore;
+        this.ratingEngine = ratingEngine;
+        this.leaderboards = leaderboards;
+        this.bayIndex = bayIndex;
+        this.journal = journal;
+        this.notifier = notifier;
+        this.storage = new JdbcStorage(dataSource, reads, transactions, referenceData);
+    }
+
+    // Use Case 1
+    Object joinTeam(Map<String, Object> params) throws Exception {
+        int playerId = intParam(params, "playerId");
+        int teamId = intParam(params, "teamId");
+        Date joinDate = dateParam(params, "joinDate");
+        String position = stringParam(params, "position", "Member");
+
+        TeamRepository.Team team = storage.joinTeam(playerId, teamId, joinDate, position);
+        if (team == null) {
+            throw new ApiException(404, "No results returned.");
+        }
+        journal.append("joinTeam", actor(params), "playerId", playerId, "teamId", teamId,
+                "joinDate", joinDate, "position", position);
+        handicapEngine.playerJoinedTeam(playerId, teamId);
+        ratingEngine.playerJoinedTeam(playerId, teamId, joinDate != null ? joinDate.toLocalDate() : LocalDate.now());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("playerId", playerId);
+        body.put("teamId", team.teamId);
+        body.put("teamName", team.name);
+        body.put("creationDate", team.creationDate);
+        body.put("homeFacilityId", team.homeFacilityId);
+        body.put("facilityName", team.facilityName);
+        return body;
+    }
+
+    // Use Case 2
+    Object cancelMembership(Map<String, Object> params) throws Exception {
+        int playerId = intParam(params, "playerId");
+        int membershipId = intParam(params, "membershipId");
+
+        FacilityRepository.Facility facility = storage.cancelMembership(playerId, membershipId);
+        if (facility == null) {
+            throw new ApiException(404, "Membership not found");
+        }
+        journal.append("cancelMembership", actor(params), "playerId", playerId, "membershipId", membershipId);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("playerId", playerId);
+        body.put("membershipId", membershipId);
+        body.put("paymentStatus", "Cancelled");
+        body.put("facility", facility(facility));
+        return body;
+    }
+
+    // Use Case 3
+    Object cancelMatch(Map<String, Object> params) throws Exception {
+        int facilityId = intParam(params, "facilityId");
+        int gameId = intParam(params, "gameId");
+        String reason = stringParam(params, "reason", "");
+
+        Storage.MatchCancellation cancellation = storage.cancelMatch(facilityId, gameId);
+        String currentStatus = cancellation.previousStatus;
+        if (currentStatus == null) {
+            throw new ApiException(404, "No match found for facility " + facilityId + " with match ID " + gameId);
+        }
+        if ("Completed".equalsIgnoreCase(currentStatus)) {
+            throw new ApiException(409, "Cannot cancel: match #" + gameId + " has already been completed.");
+        }
+        if (cancellation.game == null) {
+            throw new ApiException(409, "No scheduled match to cancel (status=" + currentStatus + ").");
+        }
+        GameRepository.Game game = cancellation.game;
+        journal.append("cancelMatch", actor(params), "facilityId", facilityId, "gameId", gameId, "reason", reason);
+        boolean notified = notifier.matchesCancelled(Collections.singletonList(gameId), reason);
+        bayIndex.gameEnded(game.facilityId, game.dateTime.toLocalDateTime());
+
+        Map<String, Object> body = game(game);
+        body.put("reason", reason);
+        body.put("notificationsQueued", notified);
+        return body;
+    }
+
+    // Facility closure: every Scheduled match at the facility in [from, to) is cancelled in one statement
+    Object closeFacility(Map<String, Object> params) throws Exception {
+        int facilityId = intParam(params, "facilityId");
+        LocalDateTime from = dateTimeParam(params, "from");
+        LocalDateTime to = dateTimeParam(params, "to");
+        String reason = stringParam(params, "reason", "");
+        if (from == null || to == null) {
+            throw new ApiException(400, "from and to are required");
+        }
+        if (!to.isAfter(from)) {
+            throw new ApiException(400, "to must be after from");
+        }
+
+        List<GameRepository.CancelledGame> cancelled =
+                storage.closeFacility(facilityId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        journal.append("closeFacility", actor(params), "facilityId", facilityId, "from", from, "to", to,
+                "reason", reason, "cancelled", cancelled.size());
+        List<Object> rows = new ArrayList<>();
+        List<Integer> gameIds = new ArrayList<>(cancelled.size());
+        for (GameRepository.CancelledGame game : cancelled) {
+            bayIndex.gameEnded(game.facilityId, game.dateTime.toLocalDateTime());
+            gameIds.add(game.gameId);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("gameId", game.gameId);
+            row.put("leagueId", game.leagueId);
+            row.put("dateTime", game.dateTime);
+            row.put("gameType", game.gameType);
+            row.put("teamIds", game.teamIds);
+            row.put("teamNames", game.teamNames);
+            rows.add(row);
+        }
+        boolean notified = notifier.matchesCancelled(gameIds, reason);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("facilityId", facilityId);
+        body.put("reason", reason);
+        body.put("cancelled", rows);
+        body.put("notificationsQueued", notified);
+        return body;
+    }
+
+    // Use Case 4
+    Object createFacilityLeague(Map<String, Object> params) throws Exception {
+        int facilityId = intParam(params, "facilityId");
+        String leagueName = stringParam(params, "leagueName", null);
+        String skillLevel = stringParam(params, "skillLevel", null);
+        Date requestedStart = dateParam(params, "startDate");
+        Date endDate = dateParam(params, "endDate");
+        int maxTeams = intParam(params, "maxTeams");
+        String leagueFormat = stringParam(params, "leagueFormat", null);
+        if (leagueName == null || skillLevel == null || endDate == null || leagueFormat == null) {
+            throw new ApiException(400, "leagueName, skillLevel, endDate and leagueFormat are required");
+        }
+        Date startDate = requestedStart != null ? requestedStart : Date.valueOf(LocalDate.now());
+
+        List<LeagueRepository.RegisteredTeam> registered = storage.createFacilityLeague(
+                facilityId, leagueName, skillLevel, startDate, endDate, maxTeams, leagueFormat);
+        journal.append("createFacilityLeague", actor(params), "facilityId", facilityId,
+                "leagueId", registered.isEmpty() ? null : registered.get(0).leagueId, "leagueName", leagueName,
+                "skillLevel", skillLevel, "startDate", startDate, "endDate", endDate, "maxTeams", maxTeams,
+                "leagueFormat", leagueFormat, "teams", registered.size());
+
+        List<Object> rows = new ArrayList<>();
+        Integer leagueId = null;
+        for (LeagueRepository.RegisteredTeam team : registered) {
+            FacilityRepository.Facility facility = storage.facility(team.homeFacilityId);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("teamId", team.teamId);
+            row.put("teamName", team.teamName);
+            row.put("facilityName", facility.name);
+            row.put("joinDate", team.joinDate);
+            rows.add(row);
+            leagueId = team.leagueId;
+        }
+        for (LeagueRepository.RegisteredTeam team : registered) {
+            standingsStore.addTeam(team.leagueId, team.teamId, team.teamName);
+            ratingEngine.addLeagueTeam(team.leagueId, team.teamId, team.teamName);
+        }
+        int gamesScheduled = 0;
+        if (leagueId != null) {
+            gamesScheduled = storage.scheduleLeague(leagueId, bayIndex, ratingEngine);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("leagueId", leagueId);
+        body.put("leagueName", leagueName);
+        body.put("teams", rows);
+        body.put("gamesScheduled", gamesScheduled);
+        return body;
+    }
+
+    // Use Case 5
+    Object updateMatchResults(Map<String, Object> params) throws Exception {
+        int gameId = intParam(params, "gameId");
+        int team1Id = intParam(params, "team1Id");
+        int team1Score = intParam(params, "team1Score");
+        int team2Id = intParam(params, "team2Id");
+        int team2Score = intParam(params, "team2Score");
+
+        GameRepository.MatchResult result =
+                storage.updateMatchResults(gameId, team1Id, team1Score, team2Id, team2Score);
+        if (result == null) {
+            throw new ApiException(404, "No results returned.");
+        }
+        journal.append("updateMatchResults", actor(params), "gameId", gameId, "team1Id", team1Id,
+                "team1Score", team1Score, "team2Id", team2Id, "team2Score", team2Score);
+        LeagueRepository.League league = result.leagueId != null ? storage.league(result.leagueId) : null;
+        FacilityRepository.Facility facility = storage.facility(result.facilityId);
+        bayIndex.gameEnded(result.facilityId, result.dateTime.toLocalDateTime());
+
+        LocalDateTime playedAt = result.dateTime.toLocalDateTime();
+        handicapEngine.recordResult(team1Id, team1Score, playedAt);
+        handicapEngine.recordResult(team2Id, team2Score, playedAt);
+        ratingEngine.recordGame(new int[]{team1Id, team2Id}, new int[]{team1Score, team2Score}, playedAt);
+        if (result.leagueId != null) {
+            standingsStore.recordGame(result.leagueId,
+                    new int[]{team1Id, team2Id}, new int[]{team1Score, team2Score});
+        }
+        handicapEngine.advanceTo(LocalDateTime.now());
+        int updated = storage.saveHandicaps(handicapEngine);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("gameId", result.gameId);
+        body.put("league", league != null ? league.name : null);
+        body.put("facility", facility.name);
+        body.put("dateTime", result.dateTime);
+        body.put("status", result.status);
+        body.put("gameType", result.gameType);
+        body.put("team1", result.team1Name);
+        body.put("team1Score", result.team1Score);
+        body.put("team2", result.team2Name);
+        body.put("team2Score", result.team2Score);
+        body.put("winner", result.winner);
+        body.put("handicapsUpdated", updated);
+        return body;
+    }
+
+    // Use Case 6
+    Object updateLeagueStatus(Map<String, Object> params) throws Exception {
+        int leagueId = intParam(params, "leagueId");
+
+        Storage.LeagueTransition transition = storage.updateLeagueStatus(leagueId);
+        if (transition.rejection != null) {
+            throw new ApiException(transition.previous == null ? 404 : 409, transition.rejection);
+        }
+        LeagueRepository.League league = transition.previous;
+        String nextStatus = transition.updated.status;
+        journal.append("updateLeagueStatus", actor(params), "leagueId", leagueId,
+                "from", league.status, "to", nextStatus);
+        boolean notified = notifier.leagueStatusChanged(leagueId, league.status, nextStatus);
+        if ("In Season".equals(nextStatus)) {
+            storage.refreshLeaderboards(leaderboards, leagueId);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("leagueId", leagueId);
+        body.put("name", league.name);
+        body.put("previousStatus", league.status);
+        body.put("status", nextStatus);
+        body.put("notificationsQueued", notified);
+        if ("Completed".equals(nextStatus)) {
+            storage.refreshTeamHandicaps(standingsStore, leagueId);
+            body.put("standings", standings(standingsStore.standings(leagueId)));
+        }
+        return body;
+    }
+
+    Object standings(Map<String, Object> params) throws Exception {
+        int leagueId = intParam(params, "leagueId");
+
+        LeagueRepository.League league = storage.league(leagueId);
+        if (league == null) {
+            throw new ApiException(404, "League not found.");
+        }
+        storage.refreshTeamHandicaps(standingsStore, leagueId);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("leagueId", leagueId);
+        body.put("name", league.name);
+        body.put("status", league.status);
+        body.put("standings", standings(standingsStore.standings(leagueId)));
+        return body;
+    }
+
+    // Playoff seeding: ?leagueId= lists the league's teams by power rating; ?playerId= gives one player's rating
+    Object ratings(Map<String, Object> params) throws Exception {
+        if (params.containsKey("playerId")) {
+            int playerId = intParam(params, "playerId");
+            RatingEngine.Rating rating = ratingEngine.player(playerId);
+            if (rating == null) {
+                throw new ApiException(404, "Player is not on any team.");
+            }
+            return rating(rating);
+        }
+        int leagueId = intParam(params, "leagueId");
+        List<RatingEngine.Rating> seeding = ratingEngine.leagueSeeding(leagueId);
+        if (seeding.isEmpty()) {
+            throw new ApiException(404, "League not found.");
+        }
+        List<Object> rows = new ArrayList<>();
+        for (RatingEngine.Rating team : seeding) {
+            Map<String, Object> row = rating(team);
+            row.put("seed", rows.size() + 1);
+            rows.add(row);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("leagueId", leagueId);
+        body.put("seeding", rows);
+        return body;
+    }
+
+    // Handicap leaderboard of a state, a city in it (&city=) or a skill level in that city (&skillLevel=)
+    Object leaderboard(Map<String, Object> params) throws Exception {
+        String state = stringParam(params, "state", null);
+        if (state == null) {
+            throw new ApiException(400, "state is required");
+        }
+        String city = stringParam(params, "city", null);
+        String skillLevel = stringParam(params, "skillLevel", null);
+        if (skillLevel != null && city == null) {
+            throw new ApiException(400, "skillLevel needs a city");
+        }
+        int limit = params.containsKey("limit") ? intParam(params, "limit") : 10;
+        if (limit < 1 || limit > PlayerRepository.DEFAULT_PAGE_SIZE) {
+            throw new ApiException(400, "limit must be between 1 and " + PlayerRepository.DEFAULT_PAGE_SIZE);
+        }
+
+        List<Object> rows = new ArrayList<>();
+        for (Leaderboards.Entry e : leaderboards.top(state, city, skillLevel, limit)) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("rank", e.rank);
+            row.put("playerId", e.playerId);
+            row.put("name", e.name);
+            row.put("city", e.city);
+            row.put("skillLevel", e.skillLevel);
+            row.put("handicap", e.handicap);
+            rows.add(row);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("state", state);
+        body.put("city", city);
+        body.put("skillLevel", skillLevel);
+        body.put("leaders", rows);
+        return body;
+    }
+
+    Object leaderboardRank(Map<String, Object> params) throws Exception {
+        int playerId = intParam(params, "playerId");
+
+        Leaderboards.Standing standing = leaderboards.standing(playerId);
+        if (standing == null) {
+            throw new ApiException(404, "Player is not on the leaderboards.");
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("playerId", standing.playerId);
+        body.put("name", standing.name);
+        body.put("handicap", standing.handicap);
+        body.put("state", rank(standing.state, standing.stateRank, standing.statePlayers));
+        body.put("city", rank(standing.city, standing.cityRank, standing.cityPlayers));
+        body.put("skillLevel", rank(standing.skillLevel, standing.skillRank, standing.skillPlayers));
+        return body;
+    }
+
+    Object game(Map<String, Object> params) throws Exception {
+        int gameId = intParam(params, "gameId");
+
+        GameRepository.Game game = reads.read(c -> games.find(c, gameId));
+        if (game == null) {
+            throw new ApiException(404, "Game not found.");
+        }
+        return game(game);
+    }
+
+    // Open bays from the in-memory index: ?facilityId=&from=&to=&count= (from defaults to now, to to a week later)
+    Object openBays(Map<String, Object> params) throws Exception {
+        int facilityId = intParam(params, "facilityId");
+        LocalDateTime from = dateTimeParam(params, "from");
+        if (from == null) {
+            from = LocalDateTime.now();
+        }
+        LocalDateTime to = dateTimeParam(params, "to");
+        if (to == null) {
+            to = from.plusDays(7);
+        }
+        int count = params.containsKey("count") ? intParam(params, "count") : 5;
+        if (bayIndex.bays(facilityId) < 0) {
+            throw new ApiException(404, "Facility not found.");
+        }
+
+        List<Object> slots = new ArrayList<>();
+        for (BayAvailabilityIndex.Slot slot : bayIndex.openSlots(facilityId, from, to, count)) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("start", slot.start);
+            row.put("freeBays", slot.freeBays);
+            slots.add(row);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("facilityId", facilityId);
+        body.put("bays", bayIndex.bays(facilityId));
+        body.put("slots", slots);
+        return body;
+    }
+
+    // Bay usage at one time: ?facilityId=&at= (defaults to now)
+    Object bayCapacity(Map<String, Object> params) throws Exception {
+        int facilityId = intParam(params, "facilityId");
+        LocalDateTime at = dateTimeParam(params, "at");
+        if (at == null) {
+            at = LocalDateTime.now();
+        }
+        if (bayIndex.bays(facilityId) < 0) {
+            throw new ApiException(404, "Facility not found.");
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("facilityId", facilityId);
+        body.put("at", at);
+        body.put("bays", bayIndex.bays(facilityId));
+        body.put("gamesInProgress", bayIndex.gamesInProgress(facilityId, at));
+        body.put("capacityExceeded", bayIndex.capacityExceeded(facilityId, at));
+        return body;
+    }
+
+    // Player search: ?state=&city=&zip=&skillLevel=&minHandicap=&maxHandicap=&limit=&after=
+    Object searchPlayers(Map<String, Object> params) throws Exception {
+        PlayerRepository.Criteria criteria = new PlayerRepository.Criteria();
+        criteria.state = stringParam(params, "state", null);
+        if (criteria.state == null) {
+            throw new ApiException(400, "state is required");
+        }
+        criteria.city = stringParam(params, "city", null);
+        criteria.zip = stringParam(params, "zip", null);
+        criteria.skillLevel = stringParam(params, "skillLevel", null);
+        criteria.minHandicap = decimalParam(params, "minHandicap");
+        criteria.maxHandicap = decimalParam(params, "maxHandicap");
+        return playerPage(criteria, params);
+    }
+
+    // Matchmaking: ?playerId=&range= (handicap +/-, default 3)&limit=&after=
+    Object playerMatches(Map<String, Object> params) throws Exception {
+        int playerId = intParam(params, "playerId");
+        BigDecimal range = decimalParam(params, "range");
+
+        PlayerRepository.Player player = reads.read(c -> players.find(c, playerId));
+        if (player == null) {
+            throw new ApiException(404, "Player not found.");
+        }
+        return playerPage(PlayerRepository.matchesFor(player, range != null ? range : new BigDecimal("3.0")), params);
+    }
+
+    private Object playerPage(PlayerRepository.Criteria criteria, Map<String, Object> params) throws Exception {
+        int limit = params.containsKey("limit") ? intParam(params, "limit") : 50;
+        if (limit < 1 || limit > PlayerRepository.DEFAULT_PAGE_SIZE) {
+            throw new ApiException(400, "limit must be between 1 and " + PlayerRepository.DEFAULT_PAGE_SIZE);
+        }
+        String after = stringParam(params, "after", null);
+        PlayerRepository.Cursor cursor;
+        try {
+            cursor = after == null ? null : PlayerRepository.Cursor.fromToken(after);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "after: " + e.getMessage());
+        }
+
+        // A page is up to three index seeks; one snapshot keeps them consistent without locking (on the replica if current)
+        PlayerRepository.Page page = reads.read(c -> players.search(c, criteria, cursor, limit));
+        List<Object> rows = new ArrayList<>(page.players.size());
+        for (PlayerRepository.Player p : page.players) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("playerId", p.playerId);
+            row.put("firstName", p.firstName);
+            row.put("lastName", p.lastName);
+            row.put("city", p.city);
+            row.put("zip", p.zip);
+            row.put("skillLevel", p.skillLevel);
+            row.put("handicap", p.handicap);
+            rows.add(row);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("players", rows);
+        body.put("next", page.next != null ? page.next.token() : null);
+        return body;
+    }
+
+    private static Map<String, Object> game(GameRepository.Game game) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("gameId", game.gameId);
+        body.put("leagueId", game.leagueId);
+        body.put("facilityId", game.facilityId);
+        body.put("dateTime", game.dateTime);
+        body.put("status", game.status);
+        body.put("gameType", game.gameType);
+        return body;
+    }
+
+    private static Map<String, Object> facility(FacilityRepository.Facility facility) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("facilityId", facility.facilityId);
+        body.put("name", facility.name);
+        body.put("address", facility.address);
+        body.put("city", facility.city);
+        body.put("state", facility.state);
+        body.put("zip", facility.zip);
+        body.put("phone", facility.phone);
+        body.put("website", facility.website);
+        return body;
+    }
+
+    private static List<Object> standings(List<TeamStanding> table) {
+        List<Object> rows = new ArrayList<>();
+        for (TeamStanding s : table) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("teamId", s.teamId);
+            row.put("teamName", s.teamName());
+            row.put("wins", s.wins());
+            row.put("losses", s.losses());
+            row.put("ties", s.ties());
+            row.put("rawPoints", s.rawPoints());
+            row.put("teamHandicap", s.teamHandicap());
+            row.put("netPoints", Math.round(s.netPoints() * 10) / 10.0);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static Map<String, Object> rating(RatingEngine.Rating rating) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", rating.id);
+        if (rating.name != null) {
+            row.put("name", rating.name);
+        }
+        row.put("rating", Math.round(rating.rating * 10) / 10.0);
+        row.put("games", rating.games);
+        row.put("provisional", rating.provisional());
+        return row;
+    }
+
+    private static Map<String, Object> rank(String bracket, int rank, int players) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("name", bracket);
+        row.put("rank", rank);
+        row.put("of", players);
+        return row;
+    }
+
+    private static String actor(Map<String, Object> params) {
+        return stringParam(params, ApiServer.ACTOR_PARAM, null);
+    }
+
+    private static int intParam(Map<String, Object> params, String name) throws ApiException {
+        Object value = params.get(name);
+        if (value == null) {
+            throw new ApiException(400, name + " is required");
+        }
+        try {
+            if (value instanceof Long) {
+                return Math.toIntExact((Long) value);
+            }
+            return Integer.parseInt(value.toString().trim());
+        } catch (ArithmeticException e) {
+            throw new ApiException(400, name + " is out of range");
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, name + " must be an integer");
+        }
+    }
+
+    private static String stringParam(Map<String, Object> params, String name, String defaultValue) {
+        Object value = params.get(name);
+        if (value == null || value.toString().trim().isEmpty()) {
+            return defaultValue;
+        }
+        return value.toString().trim();
+    }
+
+    /** @return the date and time (YYYY-MM-DDTHH:MM, or a space instead of the T), or null if absent or empty */
+    private static LocalDateTime dateTimeParam(Map<String, Object> params, String name) throws ApiException {
+        String value = stringParam(params, name, null);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value.replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, name + " must be a date and time (YYYY-MM-DDTHH:MM)");
+        }
+    }
+
+    /** @return the number, or null if the parameter is absent or empty */
+    private static BigDecimal decimalParam(Map<String, Object> params, String name) throws ApiException {
+        String value = stringParam(params, name, null);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, name + " must be a number");
+        }
+    }
+
+    /** @return the date, or null if the parameter is absent or empty */
+    private static Date dateParam(Map<String, Object> params, String name) throws ApiException {
+        String value = stringParam(params, name, null);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Date.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, name + " must be a date (YYYY-MM-DD)");
+        }
+    }
+}
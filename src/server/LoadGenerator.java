@@ -0,0 +1,132 @@
+package server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Closed-loop load generator for the API: N client threads each send a request, wait for the
+ * response and send the next, for a fixed duration. The mix is read-heavy (standings and game
+ * lookups), which works against the embedded database as well as SQL Server.
+ */
+public class LoadGenerator {
+
+    /** Outcome of one run at a fixed client count. Latencies are in microseconds. */
+    public static class Result {
+        public final int clients;
+        public final long ok;
+        public final long rejected;
+        public final long errors;
+        public final long elapsedNanos;
+        public final long p50Micros;
+        public final long p99Micros;
+
+        Result(int clients, long ok, long rejected, long errors, long elapsedNanos, long p50Micros, long p99Micros) {
+            this.clients = clients;
+            this.ok = ok;
+            this.rejected = rejected;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+        }
+
+        public double throughput() {
+            return (ok + rejected + errors) / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8d %10.0f %8d %8d %8d %10.2f %10.2f",
+                    clients, throughput(), ok, rejected, errors, p50Micros / 1000.0, p99Micros / 1000.0);
+        }
+    }
+
+    public static final String HEADER = String.format("%-8s %10s %8s %8s %8s %10s %10s",
+            "Clients", "Req/s", "OK", "503", "Errors", "p50 ms", "p99 ms");
+
+    private final URI base;
+    private final int leagueId;
+    private final int maxGameId;
+    private final HttpClient client;
+
+    public LoadGenerator(URI base, int leagueId, int maxGameId) {
+        this.base = base;
+        this.leagueId = leagueId;
+        this.maxGameId = maxGameId;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public Result run(int clients, Duration duration) throws InterruptedException {
+        long[][] latencies = new long[clients][];
+        long[] ok = new long[clients];
+        long[] rejected = new long[clients];
+        long[] errors = new long[clients];
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+
+        for (int c = 0; c < clients; c++) {
+            final int id = c;
+            Thread thread = new Thread(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                int i = id;
+                try {
+                    while (System.nanoTime() < deadline) {
+                        URI uri = (i++ % 2 == 0)
+                                ? base.resolve("/api/standings?leagueId=" + leagueId)
+                                : base.resolve("/api/games?gameId=" + (1 + i % maxGameId));
+                        long sent = System.nanoTime();
+                        int status;
+                        try {
+                            status = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                                    HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (IOException e) {
+                            status = -1;
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = (System.nanoTime() - sent) / 1000;
+                        if (status == 200 || status == 404) {
+                            ok[id]++;
+                        } else if (status == 503) {
+                            rejected[id]++;
+                        } else {
+                            errors[id]++;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latencies[id] = Arrays.copyOf(samples, count);
+                    done.countDown();
+                }
+            }, "load-client-" + c);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+
+        long[] merged = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(clients, Arrays.stream(ok).sum(), Arrays.stream(rejected).sum(),
+                Arrays.stream(errors).sum(), elapsed, percentile(merged, 0.50), percentile(merged, 0.99));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,180 @@
+package standings;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live league standings, keyed by league and team.
+ *
+ * Loaded once from the completed league games, then kept current by calling recordGame() from
+ * the result paths, which costs O(teams in the game). Reading a league's table never touches
+ * game history. Raw points are summed per team score, not per team score x roster size as the
+ * old final-standings query in updateLeagueStatus did. Net points charge the team's summed roster
+ * handicap once per game played, as that query's SUM(p.handicap) did per game row, so a team
+ * without games starts level instead of ahead on a low handicap. The table is ordered by wins, then
+ * fewest losses, and net points only break ties between equal records.
+ *
+ * Wins follow trg_UpdatePlayerHandicap: the top score(s) win, everyone else loses, and a game
+ * where every team has the same score is a tie for all of them.
+ */
+public class StandingsStore {
+
+    private static final String TEAMS_SQL =
+            "SELECT lt.league_id, t.team_id, t.name FROM league_team lt JOIN team t ON t.team_id = lt.team_id";
+    private static final String RESULTS_SQL =
+            "SELECT g.game_id, g.league_id, gt.team_id, gt.score"
+          + "  FROM game g"
+          + "  JOIN game_team gt ON gt.game_id = g.game_id"
+          + " WHERE g.status = 'Completed' AND g.league_id IS NOT NULL AND gt.score IS NOT NULL"
+          + " ORDER BY g.game_id";
+    private static final String HANDICAPS_SQL =
+            "SELECT lt.team_id, SUM(p.handicap) AS team_handicap"
+          + "  FROM league_team lt"
+          + "  JOIN team_player tp ON tp.team_id = lt.team_id"
+          + "  JOIN player p ON p.player_id = tp.player_id"
+          + " WHERE lt.league_id = ?"
+          + " GROUP BY lt.team_id";
+    private static final String ALL_HANDICAPS_SQL =
+            "SELECT lt.league_id, lt.team_id, SUM(p.handicap) AS team_handicap"
+          + "  FROM league_team lt"
+          + "  JOIN team_player tp ON tp.team_id = lt.team_id"
+          + "  JOIN player p ON p.player_id = tp.player_id"
+          + " GROUP BY lt.league_id, lt.team_id";
+
+    // Record first, net points only between teams with the same record
+    private static final Comparator<TeamStanding> TABLE_ORDER =
+            Comparator.comparing(TeamStanding::wins, Comparator.reverseOrder())
+                    .thenComparingInt(TeamStanding::losses)
+                    .thenComparing(Comparator.comparingDouble(TeamStanding::netPoints).reversed())
+                    .thenComparingInt(s -> s.teamId);
+
+    private final Map<Integer, Map<Integer, TeamStanding>> leagues = new HashMap<>();
+
+    /** Loads league rosters and replays every completed league game once. */
+    public synchronized void load(Connection connection) throws SQLException {
+        leagues.clear();
+        try (PreparedStatement ps = connection.prepareStatement(TEAMS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                entry(rs.getInt("league_id"), rs.getInt("team_id")).teamName = rs.getString("name");
+            }
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(RESULTS_SQL)) {
+            ps.setFetchSize(1000);
+            try (ResultSet rs = ps.executeQuery()) {
+                int currentGame = -1;
+                int currentLeague = -1;
+                int[] teams = new int[8];
+                int[] scores = new int[8];
+                int n = 0;
+                while (rs.next()) {
+                    int gameId = rs.getInt("game_id");
+                    if (gameId != currentGame) {
+                        if (n > 0) {
+                            recordGame(currentLeague, teams, scores, n);
+                        }
+                        currentGame = gameId;
+                        currentLeague = rs.getInt("league_id");
+                        n = 0;
+                    }
+                    if (n == teams.length) {
+                        teams = Arrays.copyOf(teams, n * 2);
+                        scores = Arrays.copyOf(scores, n * 2);
+                    }
+                    teams[n] = rs.getInt("team_id");
+                    scores[n] = rs.getInt("score");
+                    n++;
+                }
+                if (n > 0) {
+                    recordGame(currentLeague, teams, scores, n);
+                }
+            }
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(ALL_HANDICAPS_SQL)) {
+            ps.setFetchSize(1000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    entry(rs.getInt("league_id"), rs.getInt("team_id")).teamHandicap = rs.getDouble("team_handicap");
+                }
+            }
+        }
+    }
+
+    /** Applies one completed game. */
+    public synchronized void recordGame(int leagueId, int[] teamIds, int[] scores) {
+        recordGame(leagueId, teamIds, scores, teamIds.length);
+    }
+
+    private void recordGame(int leagueId, int[] teamIds, int[] scores, int n) {
+        int top = Integer.MIN_VALUE;
+        int low = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            top = Math.max(top, scores[i]);
+            low = Math.min(low, scores[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            TeamStanding s = entry(leagueId, teamIds[i]);
+            s.rawPoints += scores[i];
+            if (top == low) {
+                s.ties++;
+            } else if (scores[i] == top) {
+                s.wins++;
+            } else {
+                s.losses++;
+            }
+        }
+    }
+
+    /** Re-reads the summed roster handicaps of a league's teams (no game history involved). */
+    public synchronized void refreshHandicaps(Connection connection, int leagueId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(HANDICAPS_SQL)) {
+            ps.setInt(1, leagueId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    entry(leagueId, rs.getInt("team_id")).teamHandicap = rs.getDouble("team_handicap");
+                }
+            }
+        }
+    }
+
+    /** Sets a team's summed roster handicap, for stores that compute it without HANDICAPS_SQL. */
+    public synchronized void setTeamHandicap(int leagueId, int teamId, double teamHandicap) {
+        entry(leagueId, teamId).teamHandicap = teamHandicap;
+    }
+
+    /** Registers a team in a league (e.g. after CreateFacilityLeague) so it shows up with a 0-0 record. */
+    public synchronized void addTeam(int leagueId, int teamId, String teamName) {
+        TeamStanding s = entry(leagueId, teamId);
+        if (teamName != null) {
+            s.teamName = teamName;
+        }
+    }
+
+    /** Snapshot of a league's table, most wins first. Empty if the league is unknown. */
+    public synchronized List<TeamStanding> standings(int leagueId) {
+        List<TeamStanding> table = new ArrayList<>();
+        Map<Integer, TeamStanding> league = leagues.get(leagueId);
+        if (league != null) {
+            for (TeamStanding s : league.values()) {
+                table.add(s.copy());
+            }
+        }
+        table.sort(TABLE_ORDER);
+        return table;
+    }
+
+    private TeamStanding entry(int leagueId, int teamId) {
+        return leagues.computeIfAbsent(leagueId, k -> new HashMap<>())
+                .computeIfAbsent(teamId, k -> new TeamStanding(leagueId, teamId, "Team " + teamId));
+    }
+}
@@ -0,0 +1,63 @@
+package standings;
+
+/** One team's record in one league. Mutated only by {@link StandingsStore}. */
+public class TeamStanding {
+    public final int leagueId;
+    public final int teamId;
+    String teamName;
+    int wins;
+    int losses;
+    int ties;
+    long rawPoints;
+    double teamHandicap;
+
+    TeamStanding(int leagueId, int teamId, String teamName) {
+        this.leagueId = leagueId;
+        this.teamId = teamId;
+        this.teamName = teamName;
+    }
+
+    public String teamName() {
+        return teamName;
+    }
+
+    public int wins() {
+        return wins;
+    }
+
+    public int losses() {
+        return losses;
+    }
+
+    public int ties() {
+        return ties;
+    }
+
+    public int gamesPlayed() {
+        return wins + losses + ties;
+    }
+
+    public long rawPoints() {
+        return rawPoints;
+    }
+
+    /** Sum of the current handicaps of the team's players. */
+    public double teamHandicap() {
+        return teamHandicap;
+    }
+
+    /** Raw points less the team handicap for every game played, as the old per-game-row SUM charged it. */
+    public double netPoints() {
+        return rawPoints - gamesPlayed() * teamHandicap;
+    }
+
+    TeamStanding copy() {
+        TeamStanding c = new TeamStanding(leagueId, teamId, teamName);
+        c.wins = wins;
+        c.losses = losses;
+        c.ties = ties;
+        c.rawPoints = rawPoints;
+        c.teamHandicap = teamHandicap;
+        return c;
+    }
+}
@@ -0,0 +1,677 @@
+package store;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+import javax.sql.DataSource;
+
+import datagen.SyntheticDataset;
+import datagen.SyntheticDataset.Table;
+import handicap.HandicapEngine;
+import leaderboard.Leaderboards;
+import rating.RatingEngine;
+import repository.FacilityRepository;
+import repository.GameRepository;
+import repository.LeagueRepository;
+import repository.MembershipRepository;
+import repository.TeamRepository;
+import schedule.BayAvailabilityIndex;
+import standings.StandingsStore;
+
+/**
+ * The use cases in plain Java over in-memory tables, for running the CLI without a SQL Server,
+ * simulations and tests. Operations take microseconds.
+ *
+ * Rows live in {@link LongMap}s keyed by their primary key; two-column keys such as (player, team)
+ * are packed into one long. Secondary indexes cover what the use cases look up by something other
+ * than a key: teams by home facility, a facility's games by time, a team's roster and games, and a
+ * league's teams. Every operation runs under the store's lock, so it is atomic and isolated.
+ *
+ * The checks and effects follow sql/DML.sql: the procedures' validations and error messages, the
+ * CHECK, primary key and foreign key constraints of DDL.sql (raised as
+ * SQLIntegrityConstraintViolationException), trg_UpdatePlayerHandicap when a game completes and
+ * trg_RecalcHandicapOnLeagueStart when a league goes In Season.
+ *
+ * Fill it with {@link #load} (a snapshot of a database) or {@link #generate} (a synthetic population).
+ */
+public class InMemoryStorage implements Storage {
+
+    private static final List<String> SKILL_LEVELS =
+            Arrays.asList("Complete Beginner", "Beginner", "Intermediate", "Advanced", "Professional");
+    private static final List<String> LEAGUE_FORMATS = Arrays.asList("Round Robin", "Elimination", "RR-E");
+    private static final List<String> POSITIONS = Arrays.asList("Captain", "Member");
+    private static final BigDecimal PAR = new BigDecimal("72.0");
+    // trg_UpdatePlayerHandicap
+    private static final BigDecimal WINNER_ADJUSTMENT = new BigDecimal("0.2");
+    private static final BigDecimal LOSER_ADJUSTMENT = new BigDecimal("-0.1");
+    private static final BigDecimal TIE_ADJUSTMENT = new BigDecimal("0.1");
+
+    private static final Comparator<GameRow> BY_TIME =
+            Comparator.comparingLong((GameRow g) -> g.time).thenComparingInt(g -> g.gameId);
+
+    private static final class Site {
+        final FacilityRepository.Facility facility;
+        int[] homeTeams = new int[4];
+        int homeTeamCount;
+        final TreeSet<GameRow> games = new TreeSet<>(BY_TIME);
+
+        Site(FacilityRepository.Facility facility) {
+            this.facility = facility;
+        }
+    }
+
+    private static final class PlayerRow {
+        BigDecimal handicap;
+
+        PlayerRow(BigDecimal handicap) {
+            this.handicap = handicap;
+        }
+    }
+
+    private static final class TeamRow {
+        final int teamId;
+        final String name;
+        final Date creationDate;
+        final int homeFacilityId; // 0 for none
+        int[] players = new int[4];
+        int playerCount;
+        int[] games = new int[4];
+        int gameCount;
+
+        TeamRow(int teamId, String name, Date creationDate, int homeFacilityId) {
+            this.teamId = teamId;
+            this.name = name;
+            this.creationDate = creationDate;
+            this.homeFacilityId = homeFacilityId;
+        }
+    }
+
+    private static final class Member {
+        final Date joinDate;
+        final String position;
+
+        Member(Date joinDate, String position) {
+            this.joinDate = joinDate;
+            this.position = position;
+        }
+    }
+
+    private static final class LeagueRow {
+        LeagueRepository.League league;
+        final String format;
+        int[] teams = new int[8];
+        int teamCount;
+
+        LeagueRow(LeagueRepository.League league, String format) {
+            this.league = league;
+            this.format = format;
+        }
+    }
+
+    private static final class GameRow {
+        final int gameId;
+        final int leagueId; // 0 for none
+        final int facilityId;
+        final Timestamp dateTime;
+        final long time;
+        String status;
+        final String gameType;
+        int[] teamIds = new int[0];
+        Integer[] scores = new Integer[0];
+
+        GameRow(int gameId, int leagueId, int facilityId, Timestamp dateTime, String status, String gameType) {
+            this.gameId = gameId;
+            this.leagueId = leagueId;
+            this.facilityId = facilityId;
+            this.dateTime = dateTime;
+            this.time = dateTime.getTime();
+            this.status = status;
+            this.gameType = gameType;
+        }
+
+        // Position of the team in the game, or -1
+        int indexOf(int teamId) {
+            for (int i = 0; i < teamIds.length; i++) {
+                if (teamIds[i] == teamId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private final LongMap<Site> sites = new LongMap<>();
+    private final LongMap<MembershipRepository.Membership> memberships = new LongMap<>();
+    private final LongMap<PlayerRow> players = new LongMap<>();
+    private final LongMap<TeamRow> teams = new LongMap<>();
+    private final LongMap<Member> teamPlayers = new LongMap<>();             // (team, player)
+    private final LongMap<LeagueRow> leagues = new LongMap<>();
+    private final LongMap<Date> leagueTeams = new LongMap<>();               // (league, team) -> join date
+    private final LongMap<String> playerMemberships = new LongMap<>();       // (player, membership) -> payment status
+    private final LongMap<GameRow> games = new LongMap<>();
+    private int lastLeagueId;
+
+    /** Copies every table of the database into a new store. */
+    public static InMemoryStorage load(DataSource dataSource) throws SQLException {
+        InMemoryStorage store = new InMemoryStorage();
+        try (Connection connection = dataSource.getConnection()) {
+            for (Table table : Table.values()) {
+                String sql = "SELECT " + String.join(", ", table.columns) + " FROM " + table.name;
+                try (PreparedStatement ps = connection.prepareStatement(sql);
+                     ResultSet rs = ps.executeQuery()) {
+                    Object[] row = new Object[table.columns.length];
+                    while (rs.next()) {
+                        for (int i = 0; i < row.length; i++) {
+                            row[i] = rs.getObject(i + 1);
+                        }
+                        store.insert(table, row);
+                    }
+                }
+            }
+        }
+        return store;
+    }
+
+    /** A new store holding a synthetic population (see {@link SyntheticDataset}), without a database. */
+    public static InMemoryStorage generate(SyntheticDataset.Size size, long seed, LocalDate asOf) {
+        InMemoryStorage store = new InMemoryStorage();
+        SyntheticDataset dataset = new SyntheticDataset(size, seed, asOf, new int[Table.values().length]);
+        for (Table table : Table.values()) {
+            for (int unit = 0; unit < dataset.units(table); unit++) {
+                dataset.rows(table, unit, row -> store.insert(table, row));
+            }
+        }
+        return store;
+    }
+
+    // One row in Table.columns order, with JDBC (java.sql.*) or generator (java.time.*) values
+    private synchronized void insert(Table table, Object[] row) {
+        switch (table) {
+            case FACILITY: {
+                int facilityId = integer(row[0]);
+                sites.put(facilityId, new Site(new FacilityRepository.Facility(facilityId, (String) row[1],
+                        (String) row[2], (String) row[3], (String) row[4], (String) row[5], (String) row[6],
+                        (String) row[7], time(row[8]), time(row[9]), integer(row[10]))));
+                break;
+            }
+            case MEMBERSHIP:
+                memberships.put(integer(row[0]), new MembershipRepository.Membership(integer(row[0]), integer(row[1]),
+                        (String) row[2], decimal(row[3]), decimal(row[4]), (String) row[5], integer(row[6])));
+                break;
+            case PLAYER:
+                players.put(integer(row[0]), new PlayerRow(decimal(row[10])));
+                break;
+            case TEAM: {
+                TeamRow team = new TeamRow(integer(row[0]), (String) row[1], date(row[2]), integer(row[3]));
+                teams.put(team.teamId, team);
+                if (team.homeFacilityId != 0) {
+                    Site site = sites.get(team.homeFacilityId);
+                    site.homeTeams = add(site.homeTeams, site.homeTeamCount++, team.teamId);
+                }
+                break;
+            }
+            case TEAM_PLAYER:
+                addMember(teams.get(integer(row[1])), integer(row[0]), new Member(date(row[2]), (String) row[3]));
+                break;
+            case LEAGUE: {
+                int leagueId = integer(row[0]);
+                leagues.put(leagueId, new LeagueRow(new LeagueRepository.League(leagueId, (String) row[1],
+                        (String) row[3], (String) row[2], (String) row[4], (String) row[5], (String) row[6],
+                        date(row[7]), date(row[8]), integer(row[9])), (String) row[10]));
+                lastLeagueId = Math.max(lastLeagueId, leagueId);
+                break;
+            }
+            case LEAGUE_TEAM:
+                addLeagueTeam(leagues.get(integer(row[0])), integer(row[1]), date(row[2]));
+                break;
+            case PLAYER_MEMBERSHIP:
+                playerMemberships.put(LongMap.key(integer(row[0]), integer(row[1])), (String) row[4]);
+                break;
+            case GAME: {
+                GameRow game = new GameRow(integer(row[0]), integer(row[1]), integer(row[2]), timestamp(row[3]),
+                        (String) row[4], (String) row[5]);
+                games.put(game.gameId, game);
+                sites.get(game.facilityId).games.add(game);
+                break;
+            }
+            case GAME_TEAM: {
+                GameRow game = games.get(integer(row[0]));
+                TeamRow team = teams.get(integer(row[1]));
+                int n = game.teamIds.length;
+                game.teamIds = Arrays.copyOf(game.teamIds, n + 1);
+                game.scores = Arrays.copyOf(game.scores, n + 1);
+                game.teamIds[n] = team.teamId;
+                game.scores[n] = row[2] == null ? null : integer(row[2]);
+                team.games = add(team.games, team.gameCount++, game.gameId);
+                break;
+            }
+        }
+    }
+
+    // Use Case 1: joinTeam
+    @Override
+    public synchronized TeamRepository.Team joinTeam(int playerId, int teamId, Date joinDate, String position)
+            throws SQLException {
+        TeamRow team = teams.get(teamId);
+        if (team == null) {
+            throw new SQLException("Team does not exist");
+        }
+        if (!players.containsKey(playerId)) {
+            throw new SQLException("Player does not exist");
+        }
+        if (teamPlayers.containsKey(LongMap.key(teamId, playerId))) {
+            throw new SQLException("Player is already on this team");
+        }
+        check("position", position, POSITIONS);
+        addMember(team, playerId, new Member(joinDate != null ? joinDate : Date.valueOf(LocalDate.now()), position));
+
+        Site home = team.homeFacilityId != 0 ? sites.get(team.homeFacilityId) : null;
+        return new TeamRepository.Team(team.teamId, team.name, team.creationDate, team.homeFacilityId,
+                home != null ? home.facility.name : "No home facility");
+    }
+
+    // Use Case 2: CancelPlayerMembership
+    @Override
+    public synchronized FacilityRepository.Facility cancelMembership(int playerId, int membershipId) {
+        long key = LongMap.key(playerId, membershipId);
+        if (!playerMemberships.containsKey(key)) {
+            return null;
+        }
+        playerMemberships.put(key, "Cancelled");
+        return sites.get(memberships.get(membershipId).facilityId).facility;
+    }
+
+    // Use Case 3
+    @Override
+    public synchronized MatchCancellation cancelMatch(int facilityId, int gameId) {
+        GameRow game = games.get(gameId);
+        if (game == null || game.facilityId != facilityId) {
+            return new MatchCancellation(null, null);
+        }
+        String status = game.status;
+        if (!"Scheduled".equals(status)) {
+            return new MatchCancellation(status, null);
+        }
+        game.status = "Cancelled";
+        return new MatchCancellation(status, new GameRepository.Game(game.gameId, game.leagueId, game.facilityId,
+                game.dateTime, game.status, game.gameType));
+    }
+
+    // Facility closure
+    @Override
+    public synchronized List<GameRepository.CancelledGame> closeFacility(int facilityId, Timestamp from, Timestamp to) {
+        List<GameRepository.CancelledGame> cancelled = new ArrayList<>();
+        Site site = sites.get(facilityId);
+        if (site == null || !to.after(from)) {
+            return cancelled;
+        }
+        for (GameRow game : site.games.subSet(probe(from.getTime()), true, probe(to.getTime()), false)) {
+            if (!"Scheduled".equals(game.status)) {
+                continue;
+            }
+            game.status = "Cancelled";
+            GameRepository.CancelledGame row = new GameRepository.CancelledGame(game.gameId,
+                    game.leagueId != 0 ? game.leagueId : null, game.facilityId, game.dateTime, game.gameType);
+            int[] teamIds = game.teamIds.clone();
+            Arrays.sort(teamIds);
+            for (int teamId : teamIds) {
+                row.teamIds.add(teamId);
+                row.teamNames.add(teams.get(teamId).name);
+            }
+            cancelled.add(row);
+        }
+        return cancelled;
+    }
+
+    // Use Case 4: CreateFacilityLeague
+    @Override
+    public synchronized List<LeagueRepository.RegisteredTeam> createFacilityLeague(int facilityId, String leagueName,
+                                                                                   String skillLevel, Date startDate,
+                                                                                   Date endDate, int maxTeams,
+                                                                                   String leagueFormat)
+            throws SQLException {
+        Site site = sites.get(facilityId);
+        if (site == null) {
+            throw new SQLException("Facility ID " + facilityId + " not found.");
+        }
+        if (site.homeTeamCount == 0) {
+            throw new SQLException("No teams found with this facility as home base.");
+        }
+        if (site.homeTeamCount > maxTeams) {
+            throw new SQLException("There are more teams (" + site.homeTeamCount
+                    + ") than the maximum allowed (" + maxTeams + ") for the league.");
+        }
+        notNull("name", leagueName);
+        notNull("start_date", startDate);
+        notNull("end_date", endDate);
+        check("skill_level", skillLevel, SKILL_LEVELS);
+        check("league_format", leagueFormat, LEAGUE_FORMATS);
+
+        FacilityRepository.Facility facility = site.facility;
+        LeagueRow league = new LeagueRow(new LeagueRepository.League(++lastLeagueId, leagueName, facility.city,
+                facility.state, facility.zip, skillLevel, "Setting Up", startDate, endDate, maxTeams), leagueFormat);
+        leagues.put(league.league.leagueId, league);
+        Date today = Date.valueOf(LocalDate.now());
+        List<LeagueRepository.RegisteredTeam> registered = new ArrayList<>();
+        for (int i = 0; i < site.homeTeamCount; i++) {
+            TeamRow team = teams.get(site.homeTeams[i]);
+            addLeagueTeam(league, team.teamId, today);
+            registered.add(new LeagueRepository.RegisteredTeam(league.league.leagueId, team.teamId, team.name,
+                    team.homeFacilityId, today));
+        }
+        setStatus(league, "In Season");
+        return registered;
+    }
+
+    // Games are only generated in the database, so there is nothing to schedule here
+    @Override
+    public int scheduleLeague(int leagueId, BayAvailabilityIndex bayIndex, RatingEngine ratingEngine) {
+        return 0;
+    }
+
+    // Use Case 5: UpdateMatchResults
+    @Override
+    public synchronized GameRepository.MatchResult updateMatchResults(int gameId, int team1Id, int team1Score,
+                                                                      int team2Id, int team2Score)
+            throws SQLException {
+        GameRow game = games.get(gameId);
+        if (game == null) {
+            throw new SQLException("Game with ID " + gameId + " does not exist.");
+        }
+        if ("Completed".equals(game.status)) {
+            throw new SQLException("Game with ID " + gameId + " is already marked as completed.");
+        }
+        if ("Cancelled".equals(game.status)) {
+            throw new SQLException("Game with ID " + gameId + " has been cancelled and cannot be updated.");
+        }
+        int team1 = game.indexOf(team1Id);
+        if (team1 < 0) {
+            throw new SQLException("Team with ID " + team1Id + " is not part of game with ID " + gameId + ".");
+        }
+        int team2 = game.indexOf(team2Id);
+        if (team2 < 0) {
+            throw new SQLException("Team with ID " + team2Id + " is not part of game with ID " + gameId + ".");
+        }
+        game.scores[team1] = team1Score;
+        game.scores[team2] = team2Score;
+        game.status = "Completed";
+        adjustHandicapsForResult(game);
+
+        String team1Name = teams.get(team1Id).name;
+        String team2Name = teams.get(team2Id).name;
+        String winner = team1Score > team2Score ? team1Name : team2Score > team1Score ? team2Name : "Tie";
+        return new GameRepository.MatchResult(game.gameId, game.leagueId != 0 ? game.leagueId : null,
+                game.facilityId, game.dateTime, game.status, game.gameType,
+                team1Name, team1Score, team2Name, team2Score, winner);
+    }
+
+    // Use Case 6
+    @Override
+    public synchronized LeagueTransition updateLeagueStatus(int leagueId) {
+        LeagueRow row = leagues.get(leagueId);
+        if (row == null) {
+            return new LeagueTransition(null, null, "League not found.");
+        }
+        LeagueRepository.League league = row.league;
+        if ("Completed".equals(league.status)) {
+            return new LeagueTransition(league, null, "League is already Completed; no further transition.");
+        }
+        String next = LeagueRepository.nextStatus(league.status);
+        if (next == null) {
+            return new LeagueTransition(league, null, "Unknown status: " + league.status);
+        }
+        if ("Setting Up".equals(league.status) && row.teamCount < league.maxTeams) {
+            return new LeagueTransition(league, null, String.format(
+                    "Cannot move to In Season: %d of %d teams have joined.", row.teamCount, league.maxTeams));
+        }
+        setStatus(row, next);
+        return new LeagueTransition(league, row.league, null);
+    }
+
+    @Override
+    public synchronized FacilityRepository.Facility facility(int facilityId) {
+        Site site = sites.get(facilityId);
+        return site != null ? site.facility : null;
+    }
+
+    @Override
+    public synchronized LeagueRepository.League league(int leagueId) {
+        LeagueRow row = leagues.get(leagueId);
+        return row != null ? row.league : null;
+    }
+
+    @Override
+    public synchronized int saveHandicaps(HandicapEngine handicapEngine) {
+        return handicapEngine.flushTo((playerId, handicap) -> {
+            PlayerRow player = players.get(playerId);
+            if (player != null) {
+                player.handicap = handicap;
+            }
+        });
+    }
+
+    @Override
+    public synchronized void refreshTeamHandicaps(StandingsStore standingsStore, int leagueId) {
+        LeagueRow league = leagues.get(leagueId);
+        if (league == null) {
+            return;
+        }
+        for (int i = 0; i < league.teamCount; i++) {
+            TeamRow team = teams.get(league.teams[i]);
+            if (team.playerCount == 0) {
+                continue;
+            }
+            double sum = 0;
+            for (int p = 0; p < team.playerCount; p++) {
+                BigDecimal handicap = players.get(team.players[p]).handicap;
+                if (handicap != null) {
+                    sum += handicap.doubleValue();
+                }
+            }
+            standingsStore.setTeamHandicap(leagueId, team.teamId, sum);
+        }
+    }
+
+    @Override
+    public synchronized void refreshLeaderboards(Leaderboards leaderboards, int leagueId) {
+        LeagueRow league = leagues.get(leagueId);
+        if (league == null) {
+            return;
+        }
+        for (int i = 0; i < league.teamCount; i++) {
+            TeamRow team = teams.get(league.teams[i]);
+            for (int p = 0; p < team.playerCount; p++) {
+                leaderboards.handicapChanged(team.players[p], players.get(team.players[p]).handicap);
+            }
+        }
+    }
+
+    /** @return the player's stored handicap, or null if there is none (or no such player) */
+    public synchronized BigDecimal handicap(int playerId) {
+        PlayerRow player = players.get(playerId);
+        return player != null ? player.handicap : null;
+    }
+
+    /** @return row counts, e.g. for a startup message */
+    @Override
+    public synchronized String toString() {
+        return String.format("in-memory store: %d facilities, %d players, %d teams, %d leagues, %d games",
+                sites.size(), players.size(), teams.size(), leagues.size(), games.size());
+    }
+
+    private void setStatus(LeagueRow row, String status) {
+        String previous = row.league.status;
+        LeagueRepository.League l = row.league;
+        row.league = new LeagueRepository.League(l.leagueId, l.name, l.city, l.state, l.zip, l.skillLevel, status,
+                l.startDate, l.endDate, l.maxTeams);
+        if ("In Season".equals(status) && !"In Season".equals(previous)) {
+            recalcHandicapsOnLeagueStart(row);
+        }
+    }
+
+    // trg_UpdatePlayerHandicap: the top score(s) gain 0.2, the others lose 0.1, an all-square game gives 0.1
+    private void adjustHandicapsForResult(GameRow game) {
+        Integer top = null;
+        Integer low = null;
+        for (Integer score : game.scores) {
+            if (score != null) {
+                top = top == null ? score : Math.max(top, score);
+                low = low == null ? score : Math.min(low, score);
+            }
+        }
+        if (top == null) {
+            return;
+        }
+        for (int i = 0; i < game.teamIds.length; i++) {
+            Integer score = game.scores[i];
+            if (score == null) {
+                continue;
+            }
+            BigDecimal adjustment = top.equals(low) ? TIE_ADJUSTMENT
+                    : score.equals(top) ? WINNER_ADJUSTMENT : LOSER_ADJUSTMENT;
+            TeamRow team = teams.get(game.teamIds[i]);
+            for (int p = 0; p < team.playerCount; p++) {
+                PlayerRow player = players.get(team.players[p]);
+                if (player.handicap != null) {
+                    player.handicap = player.handicap.add(adjustment).setScale(1, RoundingMode.HALF_UP);
+                }
+            }
+        }
+    }
+
+    // trg_RecalcHandicapOnLeagueStart: each player's handicap becomes AVG(score) - 72 over the completed,
+    // past games of the league's teams they are on
+    private void recalcHandicapsOnLeagueStart(LeagueRow league) {
+        long now = System.currentTimeMillis();
+        LongMap<long[]> totals = new LongMap<>(); // player -> {sum, count}
+        for (int i = 0; i < league.teamCount; i++) {
+            TeamRow team = teams.get(league.teams[i]);
+            long sum = 0;
+            long count = 0;
+            for (int g = 0; g < team.gameCount; g++) {
+                GameRow game = games.get(team.games[g]);
+                Integer score = game.scores[game.indexOf(team.teamId)];
+                if ("Completed".equals(game.status) && game.time < now && score != null) {
+                    sum += score;
+                    count++;
+                }
+            }
+            if (count == 0) {
+                continue;
+            }
+            for (int p = 0; p < team.playerCount; p++) {
+                long[] total = totals.get(team.players[p]);
+                if (total == null) {
+                    total = new long[2];
+                    totals.put(team.players[p], total);
+                }
+                total[0] += sum;
+                total[1] += count;
+            }
+        }
+        for (int i = 0; i < league.teamCount; i++) {
+            TeamRow team = teams.get(league.teams[i]);
+            for (int p = 0; p < team.playerCount; p++) {
+                long[] total = totals.get(team.players[p]);
+                if (total != null && total[1] > 0) {
+                    BigDecimal average = BigDecimal.valueOf(total[0]).divide(BigDecimal.valueOf(total[1]), 6,
+                            RoundingMode.HALF_UP);
+                    players.get(team.players[p]).handicap = average.subtract(PAR).setScale(1, RoundingMode.HALF_UP);
+                    total[1] = 0; // once per player, however many of its teams are in the league
+                }
+            }
+        }
+    }
+
+    private void addMember(TeamRow team, int playerId, Member member) {
+        teamPlayers.put(LongMap.key(team.teamId, playerId), member);
+        team.players = add(team.players, team.playerCount++, playerId);
+    }
+
+    private void addLeagueTeam(LeagueRow league, int teamId, Date joinDate) {
+        leagueTeams.put(LongMap.key(league.league.leagueId, teamId), joinDate);
+        league.teams = add(league.teams, league.teamCount++, teamId);
+    }
+
+    private static int[] add(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    // A game that sorts before every real game at that time
+    private static GameRow probe(long time) {
+        return new GameRow(Integer.MIN_VALUE, 0, 0, new Timestamp(time), null, null);
+    }
+
+    private static void notNull(String column, Object value) throws SQLException {
+        if (value == null) {
+            throw new SQLIntegrityConstraintViolationException("NULL not allowed for column " + column, "23502");
+        }
+    }
+
+    private static void check(String column, String value, List<String> allowed) throws SQLException {
+        notNull(column, value);
+        if (!allowed.contains(value)) {
+            throw new SQLIntegrityConstraintViolationException(
+                    "CHECK constraint violated: " + column + " must be one of " + allowed + ", was '" + value + "'",
+                    "23514");
+        }
+    }
+
+    private static int integer(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private static BigDecimal decimal(Object value) {
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return new BigDecimal(value.toString());
+    }
+
+    private static Date date(Object value) {
+        if (value == null || value instanceof Date) {
+            return (Date) value;
+        }
+        if (value instanceof LocalDate) {
+            return Date.valueOf((LocalDate) value);
+        }
+        return new Date(((java.util.Date) value).getTime());
+    }
+
+    private static Time time(Object value) {
+        if (value == null || value instanceof Time) {
+            return (Time) value;
+        }
+        return Time.valueOf((LocalTime) value);
+    }
+
+    private static Timestamp timestamp(Object value) {
+        if (value instanceof Timestamp) {
+            return (Timestamp) value;
+        }
+        if (value instanceof LocalDateTime) {
+            return Timestamp.valueOf((LocalDateTime) value);
+        }
+        return new Timestamp(((java.util.Date) value).getTime());
+    }
+}
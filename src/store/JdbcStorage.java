@@ -0,0 +1,218 @@
+package store;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import cache.ReferenceData;
+import db.ReadRouter;
+import db.TransactionExecutor;
+import db.TransactionExecutor.Isolation;
+import handicap.HandicapEngine;
+import leaderboard.Leaderboards;
+import rating.RatingEngine;
+import repository.FacilityRepository;
+import repository.GameRepository;
+import repository.LeagueRepository;
+import repository.MembershipRepository;
+import repository.TeamRepository;
+import schedule.BayAvailabilityIndex;
+import schedule.SeasonScheduler;
+import standings.StandingsStore;
+
+/**
+ * The use cases against the database: the stored procedures and guarded statements of the
+ * repositories, each operation in one transaction through a {@link TransactionExecutor} so lock
+ * conflicts are retried. Facilities and leagues are read through the reference cache, and the
+ * standings roster read goes through a {@link ReadRouter} so it can be served by a read replica.
+ */
+public class JdbcStorage implements Storage {
+
+    private final DataSource dataSource;
+    private final ReadRouter reads;
+    private final TransactionExecutor transactions;
+    private final ReferenceData referenceData;
+    private final TeamRepository teams = new TeamRepository();
+    private final MembershipRepository memberships = new MembershipRepository();
+    private final GameRepository games = new GameRepository();
+    private final LeagueRepository leagues = new LeagueRepository();
+
+    public JdbcStorage(DataSource dataSource, TransactionExecutor transactions, ReferenceData referenceData) {
+        this(dataSource, ReadRouter.primaryOnly(dataSource), transactions, referenceData);
+    }
+
+    public JdbcStorage(DataSource dataSource, ReadRouter reads, TransactionExecutor transactions,
+                       ReferenceData referenceData) {
+        this.dataSource = dataSource;
+        this.reads = reads;
+        this.transactions = transactions;
+        this.referenceData = referenceData;
+    }
+
+    @Override
+    public TeamRepository.Team joinTeam(int playerId, int teamId, Date joinDate, String position) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return transactions.execute(connection, Isolation.READ_COMMITTED,
+                    c -> teams.joinTeam(c, playerId, teamId, joinDate, position));
+        }
+    }
+
+    @Override
+    public FacilityRepository.Facility cancelMembership(int playerId, int membershipId) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return transactions.execute(connection, Isolation.READ_COMMITTED, c -> {
+                if (!memberships.cancelMembership(c, playerId, membershipId)) {
+                    return null;
+                }
+                MembershipRepository.Membership membership = referenceData.membership(c, membershipId);
+                return referenceData.facility(c, membership.facilityId);
+            });
+        }
+    }
+
+    @Override
+    public MatchCancellation cancelMatch(int facilityId, int gameId) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return transactions.execute(connection, Isolation.READ_COMMITTED, c -> {
+                // 1) Does the match exist, and what's its status?
+                String status = games.findStatus(c, gameId, facilityId);
+
+                // 2) If it's missing or already completed there is nothing to cancel
+                if (status == null || "Completed".equalsIgnoreCase(status)) {
+                    return new MatchCancellation(status, null);
+                }
+
+                // 3) Proceed only if it was Scheduled
+                if (games.cancelScheduled(c, facilityId, gameId) == 0) {
+                    return new MatchCancellation(status, null);
+                }
+                return new MatchCancellation(status, games.find(c, gameId));
+            });
+        }
+    }
+
+    @Override
+    public List<GameRepository.CancelledGame> closeFacility(int facilityId, Timestamp from, Timestamp to)
+            throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return transactions.execute(connection, Isolation.READ_COMMITTED,
+                    c -> games.cancelScheduledInWindow(c, facilityId, from, to));
+        }
+    }
+
+    @Override
+    public List<LeagueRepository.RegisteredTeam> createFacilityLeague(int facilityId, String leagueName,
+                                                                      String skillLevel, Date startDate, Date endDate,
+                                                                      int maxTeams, String leagueFormat)
+            throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return transactions.execute(connection, Isolation.READ_COMMITTED, c -> leagues.createFacilityLeague(c,
+                    facilityId, leagueName, skillLevel, startDate, endDate, maxTeams, leagueFormat));
+        }
+    }
+
+    @Override
+    public int scheduleLeague(int leagueId, BayAvailabilityIndex bayIndex, RatingEngine ratingEngine)
+            throws SQLException {
+        SeasonScheduler scheduler = new SeasonScheduler(dataSource, bayIndex.gameMinutes(), System.out);
+        scheduler.setBayIndex(bayIndex);
+        scheduler.setRatingEngine(ratingEngine);
+        return scheduler.schedule(Collections.singleton(leagueId)).games;
+    }
+
+    @Override
+    public GameRepository.MatchResult updateMatchResults(int gameId, int team1Id, int team1Score, int team2Id,
+                                                         int team2Score) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return transactions.execute(connection, Isolation.READ_COMMITTED,
+                    c -> games.updateMatchResults(c, gameId, team1Id, team1Score, team2Id, team2Score));
+        }
+    }
+
+    @Override
+    public LeagueTransition updateLeagueStatus(int leagueId) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            // Repeatable read keeps the status and team count from changing under the check; two racing
+            // transitions deadlock instead of both applying, and the loser is retried against the new status
+            LeagueTransition transition = transactions.execute(connection, Isolation.REPEATABLE_READ, c -> {
+                LeagueRepository.League league = leagues.find(c, leagueId);
+                String rejection = rejection(league, c);
+                if (rejection != null) {
+                    return new LeagueTransition(league, null, rejection);
+                }
+                leagues.updateStatus(c, leagueId, LeagueRepository.nextStatus(league.status));
+                return new LeagueTransition(league, leagues.find(c, leagueId), null);
+            });
+            if (transition.updated != null) {
+                referenceData.invalidateLeague(leagueId);
+            }
+            return transition;
+        }
+    }
+
+    // Why the league can't move on, or null if it can
+    private String rejection(LeagueRepository.League league, Connection c) throws SQLException {
+        if (league == null) {
+            return "League not found.";
+        }
+        if ("Completed".equals(league.status)) {
+            return "League is already Completed; no further transition.";
+        }
+        if (LeagueRepository.nextStatus(league.status) == null) {
+            return "Unknown status: " + league.status;
+        }
+        if ("Setting Up".equals(league.status)) {
+            // only go In Season if all teams have joined
+            int joinedCount = leagues.countTeams(c, league.leagueId);
+            if (joinedCount < league.maxTeams) {
+                return String.format("Cannot move to In Season: %d of %d teams have joined.",
+                        joinedCount, league.maxTeams);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public FacilityRepository.Facility facility(int facilityId) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return referenceData.facility(connection, facilityId);
+        }
+    }
+
+    @Override
+    public LeagueRepository.League league(int leagueId) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return referenceData.league(connection, leagueId);
+        }
+    }
+
+    @Override
+    public int saveHandicaps(HandicapEngine handicapEngine) throws SQLException {
+        // Concurrent score entries meet on the same player rows here, so a deadlock victim is retried rather than lost
+        try (Connection connection = dataSource.getConnection()) {
+            return transactions.execute(connection, Isolation.READ_COMMITTED, handicapEngine::flush);
+        }
+    }
+
+    @Override
+    public void refreshTeamHandicaps(StandingsStore standingsStore, int leagueId) throws SQLException {
+        // Snapshot on the replica when it is current: the roster read neither waits on nor blocks score entries
+        reads.read(c -> {
+            standingsStore.refreshHandicaps(c, leagueId);
+            return null;
+        });
+    }
+
+    @Override
+    public void refreshLeaderboards(Leaderboards leaderboards, int leagueId) throws SQLException {
+        // From the primary: the league-start trigger has only just rewritten these handicaps
+        try (Connection connection = dataSource.getConnection()) {
+            leaderboards.refreshLeague(connection, leagueId);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package store;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import cache.ReferenceData;
+import db.ReadRouter;
+import db.TransactionExecutor;
+import handicap.HandicapEngine;
+import leaderboard.Leaderboards;
+import rating.RatingEngine;
+import repository.FacilityRepository;
+import repository.GameRepository;
+import repository.LeagueRepository;
+import repository.TeamRepository;
+import schedule.BayAvailabilityIndex;
+import standings.StandingsStore;
+
+/**
+ * The write use cases as operations on a store, independent of where the data lives.
+ *
+ * {@link JdbcStorage} runs them against the database (stored procedures and guarded statements,
+ * each in one transaction). {@link InMemoryStorage} keeps the tables in indexed maps and applies
+ * the same rules in Java, so the CLI and its use cases run without a SQL Server. Each operation is
+ * atomic in both. Rule violations that the procedures raise (missing team, player already on the
+ * team, game already completed, ...) are thrown as SQLException with the procedure's message by
+ * both, so callers handle them the same way.
+ *
+ * Run with -Dteetime.storage=memory to use the in-memory store, loaded from the configured
+ * database at startup.
+ */
+public interface Storage {
+
+    /** Outcome of {@link #cancelMatch}. */
+    final class MatchCancellation {
+        /** The match's status before the call, or null if there is no such match at the facility. */
+        public final String previousStatus;
+        /** The cancelled match, or null if it was not Scheduled. */
+        public final GameRepository.Game game;
+
+        public MatchCancellation(String previousStatus, GameRepository.Game game) {
+            this.previousStatus = previousStatus;
+            this.game = game;
+        }
+    }
+
+    /** Outcome of {@link #updateLeagueStatus}. */
+    final class LeagueTransition {
+        /** The league before the transition, or null if it does not exist. */
+        public final LeagueRepository.League previous;
+        /** The league after the transition, or null if it was rejected. */
+        public final LeagueRepository.League updated;
+        /** Why the league could not move on, or null if it did. */
+        public final String rejection;
+
+        public LeagueTransition(LeagueRepository.League previous, LeagueRepository.League updated, String rejection) {
+            this.previous = previous;
+            this.updated = updated;
+            this.rejection = rejection;
+        }
+    }
+
+    /**
+     * @return the store selected by teetime.storage: "jdbc" (default, with reporting reads through
+     *         {@code reads}) or "memory", loaded from dataSource
+     */
+    static Storage fromConfig(DataSource dataSource, ReadRouter reads, TransactionExecutor transactions,
+                              ReferenceData referenceData) throws SQLException {
+        if ("memory".equalsIgnoreCase(System.getProperty("teetime.storage", "jdbc"))) {
+            return InMemoryStorage.load(dataSource);
+        }
+        return new JdbcStorage(dataSource, reads, transactions, referenceData);
+    }
+
+    /** Use Case 1. @param joinDate null for today. @return the team joined */
+    TeamRepository.Team joinTeam(int playerId, int teamId, Date joinDate, String position) throws SQLException;
+
+    /** Use Case 2. @return the membership's facility, or null if the player does not hold that membership */
+    FacilityRepository.Facility cancelMembership(int playerId, int membershipId) throws SQLException;
+
+    /** Use Case 3: cancels the match if it is still Scheduled. */
+    MatchCancellation cancelMatch(int facilityId, int gameId) throws SQLException;
+
+    /** Facility closure: cancels every Scheduled match at the facility starting in [from, to), earliest first. */
+    List<GameRepository.CancelledGame> closeFacility(int facilityId, Timestamp from, Timestamp to) throws SQLException;
+
+    /** Use Case 4: creates a league at a facility and registers all of its home teams. */
+    List<LeagueRepository.RegisteredTeam> createFacilityLeague(int facilityId, String leagueName, String skillLevel,
+                                                               Date startDate, Date endDate, int maxTeams,
+                                                               String leagueFormat) throws SQLException;
+
+    /**
+     * Use Case 4, second step: generates the season's games for a league that has none yet, on the
+     * bay index's slot grid, with teams seeded by the rating engine (see schedule.SeasonScheduler).
+     *
+     * @return the number of games written; 0 when the league could not be scheduled, and always 0
+     *         for a store that keeps no schedule
+     */
+    int scheduleLeague(int leagueId, BayAvailabilityIndex bayIndex, RatingEngine ratingEngine) throws SQLException;
+
+    /** Use Case 5: records a two-team result and completes the game. */
+    GameRepository.MatchResult updateMatchResults(int gameId, int team1Id, int team1Score, int team2Id, int team2Score)
+            throws SQLException;
+
+    /** Use Case 6: moves the league to its next status (see {@link LeagueRepository#nextStatus}). */
+    LeagueTransition updateLeagueStatus(int leagueId) throws SQLException;
+
+    /** @return the facility, or null if it does not exist */
+    FacilityRepository.Facility facility(int facilityId) throws SQLException;
+
+    /** @return the league, or null if it does not exist */
+    LeagueRepository.League league(int leagueId) throws SQLException;
+
+    /** Writes the handicaps the engine has changed. @return number of players updated */
+    int saveHandicaps(HandicapEngine handicapEngine) throws SQLException;
+
+    /** Refreshes the summed roster handicaps of a league's teams in the standings. */
+    void refreshTeamHandicaps(StandingsStore standingsStore, int leagueId) throws SQLException;
+
+    /** Re-reads the handicaps of a league's players into the leaderboards, e.g. after it went In Season. */
+    void refreshLeaderboards(Leaderboards leaderboards, int leagueId) throws SQLException;
+}
@@ -0,0 +1,124 @@
+package batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import db.ConnectionPool;
+import db.DataSources;
+import db.EmbeddedDatabase;
+
+class BatchRunnerTest {
+
+    private static int databases;
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private ConnectionPool pool;
+    private int gameId;
+
+    @BeforeEach
+    void createGame() throws SQLException {
+        pool = DataSources.pool(EmbeddedDatabase.create("batch-runner-" + (++databases)));
+        try (Connection connection = pool.getConnection(); Statement st = connection.createStatement()) {
+            st.executeUpdate("INSERT INTO game (league_id, facility_id, date_time, status, game_type)"
+                    + " VALUES (1, 1, DATEADD(HOUR, -1, CURRENT_TIMESTAMP), 'Scheduled', 'Regular Season')");
+            gameId = queryInt(st, "SELECT MAX(game_id) FROM game");
+            st.executeUpdate("INSERT INTO game_team (game_id, team_id) VALUES (" + gameId + ", 1), (" + gameId + ", 2)");
+        }
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void failedChunkIsReplayedSoOnlyTheBadLinesAreRejected() throws IOException, SQLException {
+        int[] member;
+        int[] onTeam;
+        int newPlayer;
+        try (Connection connection = pool.getConnection(); Statement st = connection.createStatement()) {
+            member = queryPair(st, "SELECT player_id, membership_id FROM player_membership"
+                    + " WHERE payment_status <> 'Cancelled' ORDER BY player_id, membership_id");
+            onTeam = queryPair(st, "SELECT player_id, team_id FROM team_player ORDER BY player_id, team_id");
+            newPlayer = queryInt(st, "SELECT MIN(p.player_id) FROM player p WHERE NOT EXISTS"
+                    + " (SELECT 1 FROM team_player tp WHERE tp.player_id = p.player_id AND tp.team_id = 1)");
+        }
+        String commands = String.join("\n",
+                "# one chunk",
+                "updateMatchResults " + gameId + " 1 64 2 71",
+                "updateMatchResults " + gameId + " 1 60 2 60",
+                "cancelMembership " + member[0] + " " + member[1],
+                "cancelMembership " + member[0] + " 999999",
+                "joinTeam " + onTeam[0] + " " + onTeam[1] + " 2025-01-01 Member",
+                "joinTeam " + newPlayer + " 1 2025-01-01 Member",
+                "joinTeam oops");
+
+        BatchRunner.Summary summary = run(commands, 10);
+
+        assertEquals(7, summary.lines);
+        assertEquals(3, summary.succeeded, output.toString());
+        assertEquals(4, summary.failed, output.toString());
+        String report = output.toString();
+        assertTrue(report.contains("line 3: FAILED"), report);
+        assertTrue(report.contains("line 5: FAILED"), report);
+        assertTrue(report.contains("line 6: FAILED"), report);
+        assertTrue(report.contains("line 8: FAILED"), report);
+        try (Connection connection = pool.getConnection(); Statement st = connection.createStatement()) {
+            assertEquals(1, queryInt(st, "SELECT COUNT(*) FROM game WHERE game_id = " + gameId
+                    + " AND status = 'Completed'"));
+            assertEquals(135, queryInt(st, "SELECT SUM(score) FROM game_team WHERE game_id = " + gameId));
+            assertEquals(1, queryInt(st, "SELECT COUNT(*) FROM player_membership WHERE player_id = " + member[0]
+                    + " AND membership_id = " + member[1] + " AND payment_status = 'Cancelled'"));
+            assertEquals(1, queryInt(st, "SELECT COUNT(*) FROM team_player WHERE player_id = " + newPlayer
+                    + " AND team_id = 1"));
+        }
+    }
+
+    @Test
+    void cleanChunksAreSentAsBatchesAndCommittedOnce() throws IOException, SQLException {
+        BatchRunner.Summary summary = run("updateMatchResults " + gameId + " 1 64 2 71\n"
+                + "cancelMembership 1 999999\n", 10);
+
+        assertEquals(2, summary.lines);
+        assertEquals(1, summary.succeeded);
+        assertEquals(1, summary.failed);
+        assertEquals(1, summary.commits);
+        // The cancel batch, and the score and completion batches of the result
+        assertEquals(3, summary.batches);
+    }
+
+    private BatchRunner.Summary run(String commands, int commitInterval) throws IOException, SQLException {
+        BatchRunner runner = new BatchRunner(pool, commitInterval,
+                new PrintStream(output, true, StandardCharsets.UTF_8.name()));
+        return runner.run(new BufferedReader(new StringReader(commands)));
+    }
+
+    private static int queryInt(Statement st, String sql) throws SQLException {
+        try (ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static int[] queryPair(Statement st, String sql) throws SQLException {
+        try (ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return new int[]{rs.getInt(1), rs.getInt(2)};
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package billing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import db.ConnectionPool;
+import db.EmbeddedDatabase;
+
+class BillingRunTest {
+
+    private static final YearMonth MARCH = YearMonth.of(2025, 3);
+    private static int databases;
+
+    @TempDir
+    Path directory;
+
+    private String url;
+    private Path checkpoint;
+
+    // Plans: 1 is $50.00 a month, 2 is $600.00 a year, 3 is free. Players 1-7 hold one membership each.
+    @BeforeEach
+    void load() throws SQLException {
+        url = EmbeddedDatabase.create("billing-" + (++databases),
+                Paths.get(System.getProperty("teetime.sqlDir", "sql")), false);
+        checkpoint = directory.resolve("billing.checkpoint");
+        try (Connection connection = DriverManager.getConnection(url); Statement st = connection.createStatement()) {
+            st.executeUpdate("INSERT INTO facility (name, address, city, [state], zip, phone, opening_time,"
+                    + " closing_time, number_of_bays) VALUES ('TopGolf', '1 Main St', 'Austin', 'TX', '73301',"
+                    + " '555-0100', '09:00:00', '17:00:00', 2)");
+            st.executeUpdate("INSERT INTO membership (facility_id, membership_type, monthly_fee, annual_fee,"
+                    + " guest_allowance) VALUES (1, 'Monthly', 50.00, NULL, 0), (1, 'Annual', NULL, 600.00, 2),"
+                    + " (1, 'Trial', NULL, NULL, 0)");
+            for (int i = 1; i <= 7; i++) {
+                st.executeUpdate("INSERT INTO player (first_name, last_name, email, phone_number, age, [state], city,"
+                        + " zip, skill_level, handicap, join_date, profile_type) VALUES ('Player', '" + i + "',"
+                        + " 'player" + i + "@test.com', '555-0100', 30, 'TX', 'Austin', '73301', 'Beginner', NULL,"
+                        + " '2024-01-01', 'Public')");
+            }
+            st.executeUpdate("INSERT INTO player_membership (player_id, membership_id, start_date, end_date,"
+                    + " payment_status) VALUES"
+                    + " (1, 1, '2025-01-01', NULL, 'Scheduled'),"        // monthly: billed
+                    + " (2, 2, '2024-03-10', NULL, 'Scheduled'),"        // annual, anniversary month: billed
+                    + " (3, 2, '2024-05-01', NULL, 'Scheduled'),"        // annual, another month: not due
+                    + " (4, 3, '2025-02-01', NULL, 'Scheduled'),"        // free: completed with nothing due
+                    + " (5, 1, '2025-04-01', NULL, 'Scheduled'),"        // not started
+                    + " (6, 1, '2024-01-01', '2025-02-28', 'Scheduled')," // ended
+                    + " (7, 1, '2025-01-01', NULL, 'Completed')");
+        }
+    }
+
+    @Test
+    void dueMembershipsAreBilledAndTheRestStayScheduled() throws Exception {
+        BillingRun.Summary summary = run(2, 2);
+
+        assertEquals(4, summary.ranges);
+        assertEquals(6, summary.examined);
+        assertEquals(3, summary.billed);
+        assertEquals(new BigDecimal("650.00"), summary.amountDue);
+        assertEquals(1, summary.notStarted);
+        assertEquals(1, summary.ended);
+        assertEquals(1, summary.notDue);
+        assertEquals(0, summary.changed);
+        assertEquals(List.of("1 Completed", "2 Completed", "3 Scheduled", "4 Completed", "5 Scheduled",
+                "6 Scheduled", "7 Completed"), statuses());
+        assertEquals(4, Files.readAllLines(checkpoint, StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    void resumedRunSkipsCheckpointedRangesAndBillsNobodyTwice() throws Exception {
+        run(1, 2);
+        List<String> billed = statuses();
+        // As if the process died after the first range: players 2-7 were billed but their ranges never recorded
+        List<String> lines = Files.readAllLines(checkpoint, StandardCharsets.UTF_8);
+        Files.write(checkpoint, lines.subList(0, 1), StandardCharsets.UTF_8);
+
+        BillingRun.Summary summary = run(2, 2);
+
+        assertEquals(1, summary.resumedRanges);
+        assertEquals(4, summary.ranges);
+        assertEquals(1, summary.billed);
+        assertEquals(new BigDecimal("50.00"), summary.amountDue);
+        // Players 3, 5 and 6 are read again and are still not due; nobody else is Scheduled
+        assertEquals(4, summary.examined);
+        assertEquals(billed, statuses());
+    }
+
+    @Test
+    void checkpointOfAnotherRangeSizeIsRefused() throws Exception {
+        run(1, 2);
+        assertThrows(IllegalArgumentException.class, () -> run(1, 3));
+    }
+
+    private BillingRun.Summary run(int workers, int rangeSize) throws SQLException, IOException, InterruptedException {
+        try (ConnectionPool pool = new ConnectionPool(url, workers + 1, 0, 1000, 0, 8)) {
+            return new BillingRun(pool, workers, rangeSize, 2, System.out).run(MARCH, checkpoint);
+        }
+    }
+
+    // "<player id> <payment status>" for every membership
+    private List<String> statuses() throws SQLException {
+        List<String> statuses = new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection(url); Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT player_id, payment_status FROM player_membership ORDER BY player_id")) {
+            while (rs.next()) {
+                statuses.add(rs.getInt(1) + " " + rs.getString(2));
+            }
+        }
+        return statuses;
+    }
+}
@@ -0,0 +1,122 @@
+package cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class ReferenceCacheTest {
+
+    private final Map<Integer, String> rows = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void missLoadsOnceAndHitsAreServedFromTheCache() throws SQLException {
+        rows.put(1, "In Season");
+        ReferenceCache<Integer, String> cache = cache(10, 60_000);
+
+        assertEquals("In Season", cache.get(null, 1));
+        rows.put(1, "Playoffs");
+        assertEquals("In Season", cache.get(null, 1));
+        assertEquals(1, loads.get());
+
+        cache.invalidate(1);
+        assertEquals("Playoffs", cache.get(null, 1));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void missingRowsAreNotCached() throws SQLException {
+        ReferenceCache<Integer, String> cache = cache(10, 60_000);
+
+        assertNull(cache.get(null, 1));
+        assertNull(cache.get(null, 1));
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedWhenFull() throws SQLException {
+        rows.put(1, "a");
+        rows.put(2, "b");
+        rows.put(3, "c");
+        ReferenceCache<Integer, String> cache = cache(2, 60_000);
+
+        cache.get(null, 1);
+        cache.get(null, 2);
+        cache.get(null, 1);
+        cache.get(null, 3);
+
+        assertEquals(2, cache.size());
+        cache.get(null, 1);
+        assertEquals(3, loads.get(), "1 was used more recently than 2");
+        cache.get(null, 2);
+        assertEquals(4, loads.get());
+        assertTrue(cache.toString().contains("2 evicted"), cache.toString());
+    }
+
+    @Test
+    void expiredEntryIsLoadedAgain() throws SQLException {
+        rows.put(1, "In Season");
+        ReferenceCache<Integer, String> cache = cache(10, 0);
+
+        cache.get(null, 1);
+        cache.get(null, 1);
+
+        assertEquals(2, loads.get());
+        assertTrue(cache.toString().contains("1 expired"), cache.toString());
+    }
+
+    @Test
+    void rowLoadedAcrossAnInvalidationIsNotCached() throws Exception {
+        rows.put(1, "In Season");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        ReferenceCache<Integer, String> cache = new ReferenceCache<>("Leagues", (connection, key) -> {
+            String row = rows.get(key);
+            if (loads.incrementAndGet() == 1) {
+                loading.countDown();
+                try {
+                    committed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return row;
+        }, 10, 60_000);
+
+        String[] read = new String[1];
+        Thread reader = new Thread(() -> {
+            try {
+                read[0] = cache.get(null, 1);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        reader.start();
+        loading.await();
+        // A writer commits and invalidates while the reader still holds the old row
+        rows.put(1, "Playoffs");
+        cache.invalidate(1);
+        committed.countDown();
+        reader.join();
+
+        assertEquals("In Season", read[0]);
+        assertEquals(0, cache.size());
+        assertEquals("Playoffs", cache.get(null, 1));
+    }
+
+    private ReferenceCache<Integer, String> cache(int maxEntries, long ttlMillis) {
+        return new ReferenceCache<>("Leagues", (connection, key) -> {
+            loads.incrementAndGet();
+            return rows.get(key);
+        }, maxEntries, ttlMillis);
+    }
+}
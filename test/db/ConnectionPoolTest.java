@@ -0,0 +1,87 @@
+package db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConnectionPoolTest {
+
+    private static int databases;
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void createPool() throws SQLException {
+        pool = new ConnectionPool("jdbc:h2:mem:connection-pool-" + (++databases), 1, 1, 100, 0, 8);
+        try (Connection connection = pool.getConnection(); Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE t (id INT PRIMARY KEY)");
+        }
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void returnedConnectionIsRolledBackAndReused() throws SQLException {
+        try (Connection connection = pool.getConnection(); Statement st = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            st.executeUpdate("INSERT INTO t (id) VALUES (1)");
+        }
+        try (Connection connection = pool.getConnection(); Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM t")) {
+            assertTrue(connection.getAutoCommit());
+            rs.next();
+            assertEquals(0, rs.getInt(1));
+        }
+        PoolStats stats = pool.stats();
+        assertEquals(1, stats.created);
+        assertEquals(3, stats.borrows);
+        assertEquals(0, stats.active);
+        assertEquals(1, stats.idle);
+    }
+
+    @Test
+    void borrowTimesOutWhileEveryConnectionIsLeased() throws SQLException {
+        try (Connection held = pool.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, pool::getConnection);
+            assertEquals(1, pool.stats().timeouts);
+            assertEquals(1, pool.stats().active);
+        }
+        try (Connection connection = pool.getConnection()) {
+            assertFalse(connection.isClosed());
+        }
+    }
+
+    @Test
+    void returnedHandleIsClosedAndReturnsItsPermitOnce() throws SQLException {
+        Connection connection = pool.getConnection();
+        connection.close();
+        connection.close();
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, connection::createStatement);
+
+        // A second close must not free a second permit for a one-connection pool
+        try (Connection first = pool.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, pool::getConnection);
+        }
+    }
+
+    @Test
+    void closedPoolRefusesToLend() {
+        pool.close();
+        assertThrows(SQLException.class, pool::getConnection);
+    }
+}
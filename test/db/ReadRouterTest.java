@@ -0,0 +1,73 @@
+package db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Two plain H2 databases: the primary has a report table, and the replica has a fresh heartbeat
+ * but lacks that table, so reading the report fails on the replica only.
+ */
+class ReadRouterTest {
+
+    private static int databases;
+
+    private ConnectionPool primary;
+    private ConnectionPool replica;
+    private ReadRouter router;
+
+    @BeforeEach
+    void createDatabases() throws SQLException {
+        databases++;
+        primary = new ConnectionPool("jdbc:h2:mem:router-primary-" + databases, 2, 1, 1_000, 0, 8);
+        replica = new ConnectionPool("jdbc:h2:mem:router-replica-" + databases, 2, 1, 1_000, 0, 8);
+        try (Connection connection = primary.getConnection(); Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE report (id INT PRIMARY KEY, total INT)");
+            st.execute("INSERT INTO report VALUES (1, 42)");
+        }
+        try (Connection connection = replica.getConnection(); Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE replica_heartbeat (heartbeat_id INT PRIMARY KEY, beat_ms BIGINT NOT NULL)");
+            ReadRouter.stamp(connection, System.currentTimeMillis());
+        }
+        router = new ReadRouter(primary, replica, 60_000, 60_000, false);
+    }
+
+    @AfterEach
+    void close() {
+        router.close();
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    void healthyReplicaServesReads() throws SQLException {
+        assertEquals(1, (int) router.read(c -> queryInt(c, "SELECT COUNT(*) FROM replica_heartbeat")));
+        assertTrue(router.toString().contains("replica reads: 1  primary reads: 0  fallbacks: 0"), router.toString());
+    }
+
+    @Test
+    void readThatFailsOnTheReplicaIsRunOnThePrimary() throws SQLException {
+        assertEquals(42, (int) router.read(c -> queryInt(c, "SELECT total FROM report WHERE id = 1")));
+        assertEquals(-1, router.lagMillis(), "the replica counts as stale after a failed read");
+        assertTrue(router.toString().contains("replica reads: 0  primary reads: 1  fallbacks: 1"), router.toString());
+
+        // Stale until the next heartbeat check, so the next read goes straight to the primary
+        assertEquals(42, (int) router.read(c -> queryInt(c, "SELECT total FROM report WHERE id = 1")));
+        assertTrue(router.toString().contains("replica reads: 0  primary reads: 2  fallbacks: 2"), router.toString());
+    }
+
+    private static int queryInt(Connection c, String sql) throws SQLException {
+        try (Statement st = c.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * DML.sql and operations.sql both deploy some of the same procedures and triggers. The repositories
+ * read the result columns of whichever was run last, so the two definitions must not drift apart.
+ */
+class SqlScriptsTest {
+
+    private static final Pattern ROUTINE =
+            Pattern.compile("CREATE OR ALTER (?:PROCEDURE|TRIGGER)\\s+(?:dbo\\.)?(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    @Test
+    void routinesInBothScriptsAreIdentical() throws IOException {
+        Path sqlDir = Paths.get(System.getProperty("teetime.sqlDir", "sql"));
+        Map<String, String> dml = routines(sqlDir.resolve("DML.sql"));
+        Map<String, String> operations = routines(sqlDir.resolve("operations.sql"));
+        int shared = 0;
+        for (Map.Entry<String, String> routine : operations.entrySet()) {
+            if (dml.containsKey(routine.getKey())) {
+                assertEquals(dml.get(routine.getKey()), routine.getValue(), routine.getKey());
+                shared++;
+            }
+        }
+        assertFalse(shared == 0, "the scripts share no routines");
+    }
+
+    // Routine name -> its batch with comments dropped and whitespace collapsed
+    private static Map<String, String> routines(Path script) throws IOException {
+        String text = new String(Files.readAllBytes(script), StandardCharsets.UTF_8);
+        Map<String, String> routines = new LinkedHashMap<>();
+        for (String batch : text.split("(?m)^\\s*GO\\s*$")) {
+            Matcher matcher = ROUTINE.matcher(batch);
+            if (!matcher.find()) {
+                continue;
+            }
+            StringBuilder body = new StringBuilder();
+            for (String line : batch.substring(matcher.start()).split("\\R")) {
+                int comment = line.indexOf("--");
+                body.append(comment < 0 ? line : line.substring(0, comment)).append(' ');
+            }
+            routines.put(matcher.group(1), body.toString().trim().replaceAll("\\s+", " "));
+        }
+        return routines;
+    }
+}
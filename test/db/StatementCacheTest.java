@@ -0,0 +1,98 @@
+package db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Drives the cache through a one-connection pool, so every borrow gets the same physical connection. */
+class StatementCacheTest {
+
+    private static final String SQL = "SELECT CAST(? AS INT) + 1";
+    private static int databases;
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void createPool() throws SQLException {
+        pool = new ConnectionPool("jdbc:h2:mem:statement-cache-" + (++databases), 1, 1, 1_000, 0, 8);
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void closedHandleCannotReachTheStatementOnceItIsReused() throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement first = connection.prepareStatement(SQL);
+            assertEquals(2, query(first, 1));
+            first.close();
+
+            PreparedStatement second = connection.prepareStatement(SQL);
+            assertEquals(1, pool.stats().statementHits);
+            assertNotSame(first, second);
+            assertTrue(first.isClosed());
+            assertFalse(second.isClosed());
+            assertThrows(SQLException.class, () -> first.setInt(1, 5));
+            assertThrows(SQLException.class, first::executeQuery);
+
+            // A second close of the old handle must not check in the new one
+            first.close();
+            assertFalse(second.isClosed());
+            assertEquals(11, query(second, 10));
+            second.close();
+        }
+    }
+
+    @Test
+    void resultSetReportsTheHandleNotThePhysicalStatement() throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement ps = connection.prepareStatement(SQL);
+            ps.setInt(1, 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertSame(ps, rs.getStatement());
+                rs.getStatement().close();
+            }
+            assertTrue(ps.isClosed());
+
+            try (PreparedStatement again = connection.prepareStatement(SQL)) {
+                assertEquals(1, pool.stats().statementHits);
+                assertEquals(4, query(again, 3));
+            }
+        }
+    }
+
+    @Test
+    void statementLeftOpenIsReclaimedWhenTheConnectionIsReturned() throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            assertEquals(2, query(connection.prepareStatement(SQL), 1));
+        }
+        try (Connection connection = pool.getConnection();
+             PreparedStatement ps = connection.prepareStatement(SQL)) {
+            assertEquals(1, pool.stats().statementHits);
+            assertEquals(1, pool.stats().statementMisses);
+            assertEquals(3, query(ps, 2));
+        }
+    }
+
+    private static int query(PreparedStatement ps, int value) throws SQLException {
+        ps.setInt(1, value);
+        try (ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import db.TransactionExecutor.Isolation;
+
+class TransactionExecutorTest {
+
+    private static int databases;
+
+    private final TransactionExecutor transactions = new TransactionExecutor(3, 0, 0);
+    private Connection connection;
+
+    @BeforeEach
+    void createTable() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:transactions-" + (++databases));
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE t (id INT PRIMARY KEY)");
+        }
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void transientFailureIsRolledBackAndRunAgain() throws SQLException {
+        AtomicInteger attempts = new AtomicInteger();
+        int inserted = transactions.execute(connection, Isolation.READ_COMMITTED, c -> {
+            int rows = insert(c, 1);
+            if (attempts.incrementAndGet() == 1) {
+                throw new SQLException("Transaction was deadlocked", "40001", 1205);
+            }
+            return rows;
+        });
+        assertEquals(1, inserted);
+        assertEquals(2, attempts.get());
+        assertEquals(1, rows());
+        assertTrue(connection.getAutoCommit());
+    }
+
+    @Test
+    void transientFailureGivesUpAfterMaxAttempts() throws SQLException {
+        AtomicInteger attempts = new AtomicInteger();
+        SQLException e = assertThrows(SQLException.class, () -> transactions.execute(connection,
+                Isolation.READ_COMMITTED, c -> {
+                    attempts.incrementAndGet();
+                    insert(c, 1);
+                    throw new SQLException("Lock request time out period exceeded", "S0001", 1222);
+                }));
+        assertEquals(1222, e.getErrorCode());
+        assertEquals(3, attempts.get());
+        assertEquals(0, rows());
+    }
+
+    @Test
+    void otherFailureIsRolledBackWithoutARetry() throws SQLException {
+        AtomicInteger attempts = new AtomicInteger();
+        assertThrows(SQLException.class, () -> transactions.execute(connection, Isolation.READ_COMMITTED, c -> {
+            attempts.incrementAndGet();
+            insert(c, 1);
+            return insert(c, 1);
+        }));
+        assertEquals(1, attempts.get());
+        assertEquals(0, rows());
+    }
+
+    @Test
+    void transientCauseOrChainedExceptionCounts() {
+        SQLException wrapped = new SQLException("batch failed", new SQLException("deadlock", "40001"));
+        SQLException chained = new SQLException("batch failed");
+        chained.setNextException(new SQLException("deadlock", "S0001", 1205));
+        assertTrue(TransactionExecutor.isTransient(wrapped));
+        assertTrue(TransactionExecutor.isTransient(chained));
+    }
+
+    @Test
+    void refusedSnapshotFallsBackToReadCommittedForGood() throws SQLException {
+        List<Integer> levels = new ArrayList<>();
+        TransactionExecutor.Work<Integer> work = c -> {
+            levels.add(c.getTransactionIsolation());
+            if (c.getTransactionIsolation() != Connection.TRANSACTION_READ_COMMITTED) {
+                throw new SQLException("Snapshot isolation transaction failed accessing database", "S0001", 3952);
+            }
+            return insert(c, levels.size());
+        };
+
+        transactions.execute(connection, Isolation.SNAPSHOT, work);
+        assertEquals(2, levels.size(), "snapshot attempt, then read committed");
+        assertNotEquals(Connection.TRANSACTION_READ_COMMITTED, (int) levels.get(0));
+        assertEquals(Connection.TRANSACTION_READ_COMMITTED, (int) levels.get(1));
+
+        // Later snapshot transactions no longer try
+        transactions.execute(connection, Isolation.SNAPSHOT, work);
+        assertEquals(3, levels.size());
+        assertEquals(Connection.TRANSACTION_READ_COMMITTED, (int) levels.get(2));
+        assertEquals(2, rows());
+    }
+
+    private static int insert(Connection c, int id) throws SQLException {
+        try (Statement st = c.createStatement()) {
+            return st.executeUpdate("INSERT INTO t (id) VALUES (" + id + ")");
+        }
+    }
+
+    private int rows() throws SQLException {
+        try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM t")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
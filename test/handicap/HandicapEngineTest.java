@@ -0,0 +1,199 @@
+package handicap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import batch.BatchRunner;
+import db.ConnectionPool;
+import db.DataSources;
+import db.EmbeddedDatabase;
+
+/** Checks the engine against UpdatePlayerHandicap's formula, as run in SQL by {@link HandicapEngine#verify}. */
+class HandicapEngineTest {
+
+    private static int databases;
+
+    private final HandicapEngine engine = new HandicapEngine();
+    private ConnectionPool pool;
+    private Connection connection;
+    // Just after the last completed game of the dev data, so its window is not empty
+    private LocalDateTime now;
+    private int teamId;
+    private List<Integer> teamPlayers;
+
+    @BeforeEach
+    void load() throws SQLException {
+        pool = DataSources.pool(EmbeddedDatabase.create("handicap-" + (++databases)));
+        connection = pool.getConnection();
+        try (Statement st = connection.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT MAX(date_time) FROM game WHERE status = 'Completed'")) {
+                rs.next();
+                now = rs.getTimestamp(1).toLocalDateTime().plusDays(1);
+            }
+            try (ResultSet rs = st.executeQuery("SELECT MIN(team_id) FROM team_player")) {
+                rs.next();
+                teamId = rs.getInt(1);
+            }
+            teamPlayers = new ArrayList<>();
+            try (ResultSet rs = st.executeQuery("SELECT player_id FROM team_player WHERE team_id = " + teamId)) {
+                while (rs.next()) {
+                    teamPlayers.add(rs.getInt(1));
+                }
+            }
+        }
+        engine.load(connection, now);
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        connection.close();
+        pool.close();
+    }
+
+    @Test
+    void loadedHandicapsMatchTheSqlFormula() throws SQLException {
+        assertTrue(engine.windowSize() > 0, "dev data has no completed games in the window");
+        assertEquals(List.of(), engine.verify(connection));
+    }
+
+    @Test
+    void secondLoadReplacesTheFirst() throws SQLException {
+        Map<Integer, BigDecimal> before = handicaps();
+        int window = engine.windowSize();
+        int tracked = engine.trackedPlayers();
+
+        engine.load(connection, now);
+
+        assertEquals(window, engine.windowSize());
+        assertEquals(tracked, engine.trackedPlayers());
+        assertEquals(before, handicaps());
+        assertEquals(List.of(), engine.verify(connection));
+    }
+
+    @Test
+    void verifyReportsAScoreTheDatabaseDoesNotHave() throws SQLException {
+        engine.recordResult(teamId, 140, now.minusHours(1));
+
+        List<String> mismatches = engine.verify(connection);
+        assertEquals(teamPlayers.size(), mismatches.size(), String.valueOf(mismatches));
+        assertTrue(mismatches.get(0).contains("engine="), mismatches.get(0));
+    }
+
+    @Test
+    void recordedResultIsFlushedAndLeavesTheWindowLater() throws SQLException {
+        // Loading marks every player with games in the window as changed
+        engine.flush(connection);
+        LocalDateTime played = now.minusHours(1);
+        completedGame(played, 66);
+        engine.recordResult(teamId, 66, played);
+        assertEquals(List.of(), engine.verify(connection));
+
+        Map<Integer, BigDecimal> heard = new HashMap<>();
+        engine.setFlushListener(heard::put);
+        assertEquals(teamPlayers.size(), engine.flush(connection));
+        for (int playerId : teamPlayers) {
+            BigDecimal handicap = engine.handicapOf(playerId);
+            assertNotNull(handicap);
+            assertEquals(0, handicap.compareTo(storedHandicap(playerId)), "player " + playerId);
+            assertEquals(handicap, heard.get(playerId));
+        }
+        assertEquals(0, engine.flush(connection), "nothing changed since the last flush");
+
+        engine.advanceTo(played.plusMonths(3).plusMinutes(1));
+        assertEquals(0, engine.windowSize());
+        assertNull(engine.handicapOf(teamPlayers.get(0)));
+        assertEquals(List.of(), engine.verify(connection));
+    }
+
+    @Test
+    void batchResultsAreFedToTheEngine() throws IOException, SQLException {
+        int other = otherTeam();
+        int gameId = scheduledGame(LocalDateTime.now().minusHours(1), teamId, other);
+        HandicapEngine live = new HandicapEngine();
+        live.load(connection, LocalDateTime.now());
+        BatchRunner runner = new BatchRunner(pool, 10, System.out);
+        runner.setHandicapEngine(live);
+
+        BatchRunner.Summary summary = runner.run(new BufferedReader(new StringReader(
+                "updateMatchResults " + gameId + " " + teamId + " 80 " + other + " 70\n")));
+
+        assertEquals(1, summary.succeeded);
+        assertFalse(summary.handicapsUpdated == 0);
+        assertEquals(List.of(), live.verify(connection));
+        for (int playerId : teamPlayers) {
+            assertEquals(0, live.handicapOf(playerId).compareTo(storedHandicap(playerId)), "player " + playerId);
+        }
+    }
+
+    private Map<Integer, BigDecimal> handicaps() throws SQLException {
+        Map<Integer, BigDecimal> handicaps = new HashMap<>();
+        try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery("SELECT player_id FROM player")) {
+            while (rs.next()) {
+                handicaps.put(rs.getInt(1), engine.handicapOf(rs.getInt(1)));
+            }
+        }
+        return handicaps;
+    }
+
+    private void completedGame(LocalDateTime played, int score) throws SQLException {
+        int gameId = scheduledGame(played, teamId);
+        try (Statement st = connection.createStatement()) {
+            st.executeUpdate("UPDATE game_team SET score = " + score + " WHERE game_id = " + gameId);
+            st.executeUpdate("UPDATE game SET status = 'Completed' WHERE game_id = " + gameId);
+        }
+    }
+
+    private int scheduledGame(LocalDateTime at, int... teamIds) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.executeUpdate("INSERT INTO game (league_id, facility_id, date_time, status, game_type) VALUES (1, 1, '"
+                    + Timestamp.valueOf(at) + "', 'Scheduled', 'Regular Season')");
+            int gameId;
+            try (ResultSet rs = st.executeQuery("SELECT MAX(game_id) FROM game")) {
+                rs.next();
+                gameId = rs.getInt(1);
+            }
+            for (int team : teamIds) {
+                st.executeUpdate("INSERT INTO game_team (game_id, team_id) VALUES (" + gameId + ", " + team + ")");
+            }
+            return gameId;
+        }
+    }
+
+    private int otherTeam() throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT MIN(team_id) FROM team WHERE team_id <> " + teamId)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private BigDecimal storedHandicap(int playerId) throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT handicap FROM player WHERE player_id = " + playerId)) {
+            rs.next();
+            return rs.getBigDecimal(1);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import db.ConnectionPool;
+import db.DataSources;
+import db.EmbeddedDatabase;
+
+class MatchResultIngesterTest {
+
+    private static int databases;
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void createPool() throws SQLException {
+        pool = DataSources.pool(EmbeddedDatabase.create("ingester-" + (++databases)));
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void gamesWithAnyNumberOfTeamsAreCompletedAndIncompleteOnesRejected() throws IOException, SQLException {
+        int threeTeams = game(1, 2, 3);
+        int missingScore = game(1, 2);
+        String csv = String.join("\n",
+                threeTeams + ",1,50", threeTeams + ",2,45", threeTeams + ",3,61",
+                missingScore + ",1,40",
+                "not,a,row",
+                "");
+
+        MatchResultIngester.Summary summary = new MatchResultIngester(pool, 10, System.out)
+                .ingest(new BufferedReader(new StringReader(csv)));
+
+        assertEquals(5, summary.rows);
+        assertEquals(1, summary.badRows);
+        assertEquals(1, summary.gamesCompleted);
+        assertEquals(1, summary.gamesRejected);
+        assertEquals("Completed 50 45 61", describe(threeTeams));
+        assertEquals("Scheduled null null", describe(missingScore));
+    }
+
+    @Test
+    void gameCompletedByAnotherWriterAfterValidationKeepsItsScores() throws IOException, SQLException {
+        int taken = game(1, 2);
+        int other = game(1, 2);
+        MatchResultIngester ingester = new MatchResultIngester(completeBeforeApply(taken), 10, System.out);
+
+        MatchResultIngester.Summary summary = ingester.ingest(new BufferedReader(new StringReader(
+                taken + ",1,50\n" + taken + ",2,40\n" + other + ",1,30\n" + other + ",2,35\n")));
+
+        assertEquals(1, summary.gamesCompleted);
+        assertEquals(1, summary.gamesRejected);
+        assertEquals("Completed 99 99", describe(taken));
+        assertEquals("Completed 30 35", describe(other));
+    }
+
+    // The pool, except that just before the first chunk applies its scores another writer completes `gameId`
+    private DataSource completeBeforeApply(int gameId) {
+        boolean[] fired = {false};
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = method.invoke(pool, args);
+                    if (!method.getName().equals("getConnection")) {
+                        return result;
+                    }
+                    Connection connection = (Connection) result;
+                    return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                            (p, m, a) -> {
+                                if (m.getName().equals("prepareStatement") && !fired[0]
+                                        && ((String) a[0]).startsWith("UPDATE game_team")) {
+                                    fired[0] = true;
+                                    try (Connection other = pool.getConnection(); Statement st = other.createStatement()) {
+                                        st.executeUpdate("UPDATE game_team SET score = 99 WHERE game_id = " + gameId);
+                                        st.executeUpdate("UPDATE game SET status = 'Completed' WHERE game_id = " + gameId);
+                                    }
+                                }
+                                try {
+                                    return m.invoke(connection, a);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                            });
+                });
+    }
+
+    private int game(int... teamIds) throws SQLException {
+        try (Connection connection = pool.getConnection(); Statement st = connection.createStatement()) {
+            st.executeUpdate("INSERT INTO game (league_id, facility_id, date_time, status, game_type)"
+                    + " VALUES (1, 1, DATEADD(HOUR, -1, CURRENT_TIMESTAMP), 'Scheduled', 'Regular Season')");
+            int gameId;
+            try (ResultSet rs = st.executeQuery("SELECT MAX(game_id) FROM game")) {
+                rs.next();
+                gameId = rs.getInt(1);
+            }
+            for (int teamId : teamIds) {
+                st.executeUpdate("INSERT INTO game_team (game_id, team_id) VALUES (" + gameId + ", " + teamId + ")");
+            }
+            return gameId;
+        }
+    }
+
+    // "<status> <score of each team, by team id>"
+    private String describe(int gameId) throws SQLException {
+        List<String> parts = new ArrayList<>();
+        try (Connection connection = pool.getConnection(); Statement st = connection.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT status FROM game WHERE game_id = " + gameId)) {
+                rs.next();
+                parts.add(rs.getString(1));
+            }
+            try (ResultSet rs = st.executeQuery(
+                    "SELECT score FROM game_team WHERE game_id = " + gameId + " ORDER BY team_id")) {
+                while (rs.next()) {
+                    parts.add(rs.getString(1));
+                }
+            }
+        }
+        return String.join(" ", parts);
+    }
+}
@@ -0,0 +1,88 @@
+package journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenContinuesAfterTheLastEntry() throws IOException {
+        try (Journal journal = Journal.open(directory, SEGMENT_BYTES, 1000)) {
+            for (int i = 1; i <= 200; i++) {
+                assertEquals(i, journal.append("op", "tester", "i", i));
+            }
+        }
+        try (Journal journal = Journal.open(directory, SEGMENT_BYTES, 1000)) {
+            assertEquals(200, journal.lastSequence());
+            assertEquals(201, journal.append("op", "tester", "i", 201));
+        }
+        List<JournalEntry> entries = replay();
+        assertEquals(201, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(i + 1, entries.get(i).sequence);
+            assertEquals(String.valueOf(i + 1), entries.get(i).fields.get("i"));
+        }
+    }
+
+    @Test
+    void reopenDropsATornRecordAndWritesOverIt() throws IOException {
+        try (Journal journal = Journal.open(directory, SEGMENT_BYTES, 1000)) {
+            journal.append("first", "tester", "n", 1);
+            journal.append("second", "tester", "n", 2, "note", null);
+            journal.append("third", "tester", "n", 3);
+        }
+        tearRecord(3);
+
+        try (Journal journal = Journal.open(directory, SEGMENT_BYTES, 1000)) {
+            assertEquals(2, journal.lastSequence());
+            assertEquals(3, journal.append("replacement", "tester", "n", 3));
+        }
+
+        List<JournalEntry> entries = replay();
+        assertEquals(3, entries.size());
+        assertEquals("first", entries.get(0).operation);
+        assertEquals("second", entries.get(1).operation);
+        assertEquals(null, entries.get(1).fields.get("note"));
+        assertEquals("replacement", entries.get(2).operation);
+        assertEquals(3, entries.get(2).sequence);
+    }
+
+    // Zeroes the second half of a record's body, as if the process died while copying it in
+    private void tearRecord(int record) throws IOException {
+        Path file = Journal.segmentFile(directory, 1);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            long position = Journal.SEGMENT_HEADER;
+            for (int r = 1; r < record; r++) {
+                length.clear();
+                channel.read(length, position);
+                position += Journal.RECORD_HEADER + length.getInt(0);
+            }
+            length.clear();
+            channel.read(length, position);
+            int body = length.getInt(0);
+            channel.write(ByteBuffer.allocate(body - body / 2), position + Journal.RECORD_HEADER + body / 2);
+        }
+    }
+
+    private List<JournalEntry> replay() throws IOException {
+        List<JournalEntry> entries = new ArrayList<>();
+        new JournalReader(directory).replay(1, entries::add);
+        return entries;
+    }
+}
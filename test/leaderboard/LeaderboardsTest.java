@@ -0,0 +1,154 @@
+package leaderboard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import db.EmbeddedDatabase;
+
+class LeaderboardsTest {
+
+    private static final String[] STATES = {"CA", "NV"};
+    private static final String[] CITIES = {"Reno", "Sparks", "Tahoe"};
+    private static final String[] SKILLS = {"Advanced", "Beginner", "Intermediate"};
+    private static final String INSERT_SQL =
+            "INSERT INTO player (first_name, last_name, email, phone_number, age, [state], city, zip, skill_level,"
+          + " handicap, join_date, profile_type) VALUES (?, 'Test', 'p@example.com', '555-0100', 30, ?, ?, '89501', ?,"
+          + " ?, '2024-01-01', ?)";
+    private static int databases;
+
+    // The model: playerId -> {state, city, skill} indexes and handicap tenths (null = none)
+    private final Map<Integer, int[]> brackets = new HashMap<>();
+    private final Map<Integer, Integer> handicaps = new HashMap<>();
+    private final Map<Integer, Boolean> hidden = new HashMap<>();
+    private final Random random = new Random(11);
+    private Leaderboards leaderboards;
+
+    @BeforeEach
+    void load() throws SQLException {
+        String url = EmbeddedDatabase.create("leaderboards-" + (++databases),
+                Paths.get(System.getProperty("teetime.sqlDir", "sql")), false);
+        try (Connection connection = DriverManager.getConnection(url);
+             PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+            for (int id = 1; id <= 500; id++) {
+                int[] bracket = {random.nextInt(STATES.length), random.nextInt(CITIES.length), random.nextInt(SKILLS.length)};
+                // Few distinct handicaps, so ties are common
+                Integer tenths = random.nextInt(10) == 0 ? null : random.nextInt(40) * 5 - 20;
+                boolean isHidden = random.nextInt(8) == 0;
+                ps.setString(1, "P" + id);
+                ps.setString(2, STATES[bracket[0]]);
+                ps.setString(3, CITIES[bracket[1]]);
+                ps.setString(4, SKILLS[bracket[2]]);
+                ps.setBigDecimal(5, tenths == null ? null : BigDecimal.valueOf(tenths, 1));
+                ps.setString(6, isHidden ? "Hidden" : "Public");
+                ps.executeUpdate();
+                brackets.put(id, bracket);
+                handicaps.put(id, tenths);
+                hidden.put(id, isHidden);
+            }
+            leaderboards = new Leaderboards();
+            leaderboards.load(connection);
+        }
+    }
+
+    @Test
+    void loadedBoardsMatchASortedList() {
+        assertBoardsMatchModel();
+    }
+
+    @Test
+    void boardsFollowHandicapChanges() {
+        for (int i = 0; i < 2000; i++) {
+            int playerId = 1 + random.nextInt(brackets.size());
+            Integer tenths = random.nextInt(15) == 0 ? null : random.nextInt(40) * 5 - 20;
+            handicaps.put(playerId, tenths);
+            leaderboards.handicapChanged(playerId, tenths == null ? null : BigDecimal.valueOf(tenths, 1));
+            if (i % 250 == 0) {
+                assertBoardsMatchModel();
+            }
+        }
+        assertBoardsMatchModel();
+        leaderboards.handicapChanged(9999, BigDecimal.ONE);
+        assertBoardsMatchModel();
+    }
+
+    private void assertBoardsMatchModel() {
+        assertEquals(ranked(p -> true).size(), leaderboards.rankedPlayers());
+        for (int s = 0; s < STATES.length; s++) {
+            int state = s;
+            assertTop(ranked(p -> brackets.get(p)[0] == state), STATES[s], null, null);
+            for (int c = 0; c < CITIES.length; c++) {
+                int city = c;
+                assertTop(ranked(p -> brackets.get(p)[0] == state && brackets.get(p)[1] == city), STATES[s], CITIES[c], null);
+                for (int k = 0; k < SKILLS.length; k++) {
+                    int skill = k;
+                    assertTop(ranked(p -> brackets.get(p)[0] == state && brackets.get(p)[1] == city
+                            && brackets.get(p)[2] == skill), STATES[s], CITIES[c], SKILLS[k]);
+                }
+            }
+        }
+
+        for (int playerId : brackets.keySet()) {
+            Leaderboards.Standing standing = leaderboards.standing(playerId);
+            if (ranked(p -> p == playerId).isEmpty()) {
+                assertNull(standing, "player " + playerId);
+                continue;
+            }
+            int[] bracket = brackets.get(playerId);
+            List<Integer> state = ranked(p -> brackets.get(p)[0] == bracket[0]);
+            List<Integer> city = ranked(p -> brackets.get(p)[0] == bracket[0] && brackets.get(p)[1] == bracket[1]);
+            List<Integer> skill = ranked(p -> brackets.get(p)[0] == bracket[0] && brackets.get(p)[1] == bracket[1]
+                    && brackets.get(p)[2] == bracket[2]);
+            assertEquals(rank(state, playerId), standing.stateRank, "state rank of " + playerId);
+            assertEquals(state.size(), standing.statePlayers);
+            assertEquals(rank(city, playerId), standing.cityRank, "city rank of " + playerId);
+            assertEquals(city.size(), standing.cityPlayers);
+            assertEquals(rank(skill, playerId), standing.skillRank, "skill rank of " + playerId);
+            assertEquals(skill.size(), standing.skillPlayers);
+        }
+    }
+
+    private void assertTop(List<Integer> expected, String state, String city, String skillLevel) {
+        for (int limit : new int[]{1, 5, 17, expected.size() + 1}) {
+            List<Leaderboards.Entry> top = leaderboards.top(state, city, skillLevel, limit);
+            String board = state + "/" + city + "/" + skillLevel + " top " + limit;
+            assertEquals(expected.subList(0, Math.min(limit, expected.size())),
+                    top.stream().map(e -> e.playerId).collect(Collectors.toList()), board);
+            for (Leaderboards.Entry entry : top) {
+                assertEquals(rank(expected, entry.playerId), entry.rank, board + " rank of " + entry.playerId);
+                assertEquals(0, BigDecimal.valueOf(handicaps.get(entry.playerId), 1).compareTo(entry.handicap),
+                        board + " handicap of " + entry.playerId);
+            }
+        }
+    }
+
+    // The bracket's ranked players, best (lowest handicap, then lowest id) first
+    private List<Integer> ranked(Predicate<Integer> inBracket) {
+        return brackets.keySet().stream()
+                .filter(p -> !hidden.get(p) && handicaps.get(p) != null && inBracket.test(p))
+                .sorted(Comparator.<Integer>comparingInt(handicaps::get).thenComparingInt(p -> p))
+                .collect(Collectors.toList());
+    }
+
+    // Competition rank: one more than the number of players on a strictly lower handicap
+    private int rank(List<Integer> sorted, int playerId) {
+        int handicap = handicaps.get(playerId);
+        return (int) sorted.stream().filter(p -> handicaps.get(p) < handicap).count() + 1;
+    }
+}
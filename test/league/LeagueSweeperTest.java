@@ -0,0 +1,145 @@
+package league;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import db.ConnectionPool;
+import db.EmbeddedDatabase;
+
+class LeagueSweeperTest {
+
+    private static final LocalDate AS_OF = LocalDate.of(2025, 3, 1);
+    private static int databases;
+
+    private String url;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void load() throws SQLException {
+        url = EmbeddedDatabase.create("league-sweeper-" + (++databases),
+                Paths.get(System.getProperty("teetime.sqlDir", "sql")), false);
+        pool = new ConnectionPool(url, 4, 0, 1000, 0, 8);
+        try (Connection connection = pool.getConnection(); Statement st = connection.createStatement()) {
+            st.executeUpdate("INSERT INTO team (name, creation_date) VALUES ('Aces', '2024-01-01'),"
+                    + " ('Birdies', '2024-01-01')");
+            league(st, "Setting Up", "2025-02-01", "2025-06-30", "Round Robin", 2, 2);  // 1: opens
+            league(st, "Setting Up", "2025-02-01", "2025-06-30", "Round Robin", 4, 2);  // 2: held for teams
+            league(st, "Setting Up", "2024-09-01", "2025-02-15", "Round Robin", 2, 2);  // 3: over, three steps behind
+            league(st, "In Season", "2024-12-01", "2025-03-20", "RR-E", 2, 0);          // 4: in its last fifth
+            league(st, "In Season", "2024-12-01", "2025-03-20", "Round Robin", 2, 0);   // 5: no playoff window
+            league(st, "Paused", "2024-01-01", "2024-06-30", "Round Robin", 2, 0);      // 6: left to the operator
+            league(st, "Setting Up", "2025-04-01", "2025-08-31", "Round Robin", 2, 2);  // 7: not started
+        }
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void dryRunReportsWhatIsDueWithoutMovingIt() throws Exception {
+        LeagueSweeper.Summary summary = new LeagueSweeper(pool, 2, 1, System.out).sweep(AS_OF, true);
+
+        assertEquals(6, summary.examined);
+        assertEquals(3, summary.due);
+        assertEquals(1, summary.held);
+        assertEquals(List.of("1 Setting Up -> In Season due", "2 Setting Up held: 2 of 4 teams have joined",
+                "3 Setting Up -> Completed due", "4 In Season -> Playoffs due"), describe(summary));
+        assertEquals(List.of("Setting Up", "Setting Up", "Setting Up", "In Season", "In Season", "Paused",
+                "Setting Up"), statuses());
+    }
+
+    @Test
+    void dueLeaguesAreWalkedToTheirTargetStatus() throws Exception {
+        LeagueSweeper.Summary summary = new LeagueSweeper(pool, 3, 1, System.out).sweep(AS_OF, false);
+
+        assertEquals(3, summary.advanced);
+        assertEquals(1, summary.held);
+        assertEquals(0, summary.changed);
+        assertEquals(List.of("In Season", "Setting Up", "Completed", "Playoffs", "In Season", "Paused",
+                "Setting Up"), statuses());
+
+        LeagueSweeper.Summary again = new LeagueSweeper(pool, 3, 1, System.out).sweep(AS_OF, false);
+        assertEquals(0, again.advanced);
+    }
+
+    @Test
+    void leagueMovedByAnOperatorDuringTheSweepIsLeftAlone() throws Exception {
+        LeagueSweeper sweeper = new LeagueSweeper(pauseOnSecondConnection(1), 1, 1, System.out);
+
+        LeagueSweeper.Summary summary = sweeper.sweep(AS_OF, false);
+
+        assertEquals(2, summary.advanced);
+        assertEquals(1, summary.changed);
+        assertEquals("changed: now Paused, no longer due", summary.results.get(0).outcome);
+        assertEquals(List.of("Paused", "Setting Up", "Completed", "Playoffs", "In Season", "Paused",
+                "Setting Up"), statuses());
+    }
+
+    // The pool, except that an operator pauses `leagueId` as the first due league is about to be advanced
+    private DataSource pauseOnSecondConnection(int leagueId) {
+        int[] connections = {0};
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getConnection") && ++connections[0] == 2) {
+                        try (Connection other = pool.getConnection(); Statement st = other.createStatement()) {
+                            st.executeUpdate("UPDATE league SET status = 'Paused' WHERE league_id = " + leagueId);
+                        }
+                    }
+                    try {
+                        return method.invoke(pool, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static void league(Statement st, String status, String start, String end, String format, int maxTeams,
+                               int teams) throws SQLException {
+        st.executeUpdate("INSERT INTO league (name, [state], city, zip, skill_level, status, start_date, end_date,"
+                + " max_teams, league_format) VALUES ('League', 'TX', 'Austin', '73301', 'Beginner', '" + status
+                + "', '" + start + "', '" + end + "', " + maxTeams + ", '" + format + "')");
+        for (int team = 1; team <= teams; team++) {
+            st.executeUpdate("INSERT INTO league_team (league_id, team_id, join_date)"
+                    + " SELECT MAX(league_id), " + team + ", '2024-01-01' FROM league");
+        }
+    }
+
+    // "<league id> <from> [-> <to>] <outcome>" for every result
+    private static List<String> describe(LeagueSweeper.Summary summary) {
+        List<String> results = new ArrayList<>();
+        for (LeagueSweeper.Result r : summary.results) {
+            results.add(r.leagueId + " " + r.from + (r.to != null ? " -> " + r.to : "") + " " + r.outcome);
+        }
+        return results;
+    }
+
+    private List<String> statuses() throws SQLException {
+        List<String> statuses = new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection(url); Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT status FROM league ORDER BY league_id")) {
+            while (rs.next()) {
+                statuses.add(rs.getString(1));
+            }
+        }
+        return statuses;
+    }
+}
@@ -0,0 +1,160 @@
+package notify;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import db.ConnectionPool;
+import db.DataSources;
+import db.EmbeddedDatabase;
+
+class NotifierTest {
+
+    private static int databases;
+
+    private final List<List<Notification>> batches = new ArrayList<>();
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void createPool() throws SQLException {
+        pool = DataSources.pool(EmbeddedDatabase.create("notifier-" + (++databases)));
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void cancellationReachesEveryPlayerOnTheGamesTeamsInBatches() throws Exception {
+        List<Integer> games = query("SELECT DISTINCT gt.game_id FROM game_team gt"
+                + " JOIN team_player tp ON tp.team_id = gt.team_id ORDER BY gt.game_id");
+        assertTrue(games.size() >= 2, "dev data has no games with players");
+        // Past the first IN list, so the games are split across two queries
+        List<Integer> ids = new ArrayList<>(games.subList(0, 1));
+        for (int i = 0; i < Notifier.IDS_PER_QUERY; i++) {
+            ids.add(-1 - i);
+        }
+        ids.add(games.get(1));
+        List<Integer> expected = query("SELECT DISTINCT gt.game_id * 100000 + tp.player_id FROM game_team gt"
+                + " JOIN team_player tp ON tp.team_id = gt.team_id WHERE gt.game_id IN (" + games.get(0) + ", "
+                + games.get(1) + ") ORDER BY 1");
+
+        Notifier notifier = new Notifier(pool, this::collect, 16, 2);
+        assertTrue(notifier.matchesCancelled(ids, "rain"));
+        notifier.close();
+
+        List<Integer> received = new ArrayList<>();
+        for (List<Notification> batch : batches) {
+            assertTrue(batch.size() <= 2, "batch of " + batch.size());
+            for (Notification n : batch) {
+                assertEquals("matchCancelled", n.event);
+                assertTrue(n.body.endsWith("has been cancelled: rain."), n.body);
+                int gameId = Integer.parseInt(n.body.replaceAll("^Your match #(\\d+) .*", "$1"));
+                received.add(gameId * 100000 + n.playerId);
+            }
+        }
+        assertEquals(expected, received);
+        assertTrue(notifier.toString().contains(expected.size() + " delivered"), notifier.toString());
+    }
+
+    @Test
+    void statusChangeReachesEveryPlayerInTheLeagueOnce() throws Exception {
+        int leagueId = query("SELECT MIN(lt.league_id) FROM league_team lt"
+                + " JOIN team_player tp ON tp.team_id = lt.team_id").get(0);
+        List<Integer> expected = query("SELECT DISTINCT tp.player_id FROM league_team lt"
+                + " JOIN team_player tp ON tp.team_id = lt.team_id WHERE lt.league_id = " + leagueId + " ORDER BY 1");
+
+        Notifier notifier = new Notifier(pool, this::collect, 16, 500);
+        notifier.leagueStatusChanged(leagueId, "In Season", "Playoffs");
+        notifier.close();
+
+        assertEquals(1, batches.size());
+        List<Integer> received = new ArrayList<>();
+        for (Notification n : batches.get(0)) {
+            assertTrue(n.subject.endsWith(" is now Playoffs"), n.subject);
+            received.add(n.playerId);
+        }
+        assertEquals(expected, received);
+    }
+
+    @Test
+    void fullQueueDropsEventsInsteadOfBlocking() throws Exception {
+        int leagueId = query("SELECT MIN(lt.league_id) FROM league_team lt"
+                + " JOIN team_player tp ON tp.team_id = lt.team_id").get(0);
+        CountDownLatch delivering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Notifier notifier = new Notifier(pool, batch -> {
+            delivering.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 1, 500);
+
+        assertTrue(notifier.leagueStatusChanged(leagueId, "Setting Up", "In Season"));
+        delivering.await();
+        // The dispatcher is stuck in the sink: one event fits in the queue, the next is dropped
+        assertTrue(notifier.leagueStatusChanged(leagueId, "In Season", "Playoffs"));
+        assertFalse(notifier.leagueStatusChanged(leagueId, "Playoffs", "Completed"));
+        release.countDown();
+        notifier.close();
+
+        assertTrue(notifier.toString().contains("2 queued, 2 dispatched, 1 dropped"), notifier.toString());
+        assertFalse(notifier.leagueStatusChanged(leagueId, "Playoffs", "Completed"), "closed");
+    }
+
+    @Test
+    void rejectedBatchIsCountedAsFailed() throws Exception {
+        int leagueId = query("SELECT MIN(lt.league_id) FROM league_team lt"
+                + " JOIN team_player tp ON tp.team_id = lt.team_id").get(0);
+        Notifier notifier = new Notifier(pool, batch -> {
+            throw new IOException("relay down");
+        }, 16, 1);
+
+        notifier.leagueStatusChanged(leagueId, "In Season", "Playoffs");
+        notifier.close();
+
+        int players = query("SELECT COUNT(DISTINCT tp.player_id) FROM league_team lt"
+                + " JOIN team_player tp ON tp.team_id = lt.team_id WHERE lt.league_id = " + leagueId).get(0);
+        assertTrue(notifier.toString().endsWith("0 delivered in " + players + " batches, " + players + " failed"),
+                notifier.toString());
+    }
+
+    @Test
+    void disabledNotifierSendsNothing() {
+        assertFalse(Notifier.disabled().enabled());
+        assertFalse(Notifier.disabled().leagueStatusChanged(1, "In Season", "Playoffs"));
+    }
+
+    private void collect(List<Notification> batch) {
+        synchronized (batches) {
+            batches.add(new ArrayList<>(batch));
+        }
+    }
+
+    private List<Integer> query(String sql) throws SQLException {
+        List<Integer> values = new ArrayList<>();
+        try (Connection connection = pool.getConnection(); Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) {
+                values.add(rs.getInt(1));
+            }
+        }
+        return values;
+    }
+}
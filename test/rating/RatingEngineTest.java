@@ -0,0 +1,145 @@
+package rating;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import datagen.BulkLoader;
+import datagen.SyntheticDataset;
+import db.ConnectionPool;
+import db.DataSources;
+import db.EmbeddedDatabase;
+
+class RatingEngineTest {
+
+    private static int databases;
+
+    private ConnectionPool pool;
+    private Connection connection;
+
+    @BeforeEach
+    void createPool() throws SQLException {
+        pool = DataSources.pool(EmbeddedDatabase.create("rating-" + (++databases)));
+        connection = pool.getConnection();
+    }
+
+    @AfterEach
+    void closePool() throws SQLException {
+        connection.close();
+        pool.close();
+    }
+
+    @Test
+    void parallelReplayMatchesTheSequentialOne() throws Exception {
+        SyntheticDataset.Size size = new SyntheticDataset.Size();
+        size.facilities = 5;
+        size.players = 2_000;
+        size.teams = 200;
+        size.leagues = 20;
+        size.games = 3_000;
+        new BulkLoader(pool, 2, 500, System.out).load(size, 42, LocalDate.of(2025, 1, 1));
+
+        RatingEngine sequential = new RatingEngine();
+        RatingEngine parallel = new RatingEngine();
+        RatingEngine.Summary one = sequential.load(connection, 1);
+        RatingEngine.Summary four = parallel.load(connection, 4);
+
+        assertTrue(four.partitions > 1, "every game landed in one partition: " + four);
+        assertEquals(one.games, four.games);
+        assertEquals(describe(sequential.topTeams(Integer.MAX_VALUE)), describe(parallel.topTeams(Integer.MAX_VALUE)));
+        assertEquals(describe(sequential.topPlayers(Integer.MAX_VALUE)),
+                describe(parallel.topPlayers(Integer.MAX_VALUE)));
+    }
+
+    @Test
+    void winnerGainsWhatTheLoserDropsAndATieMovesNothing() throws Exception {
+        int[] teams = twoNewTeams();
+        RatingEngine engine = new RatingEngine();
+        engine.load(connection, 2);
+        LocalDateTime played = LocalDateTime.of(2025, 6, 1, 18, 0);
+
+        engine.recordGame(teams, new int[]{72, 65}, played);
+        RatingEngine.Rating winner = engine.team(teams[0]);
+        RatingEngine.Rating loser = engine.team(teams[1]);
+        // Evenly matched newcomers at the provisional K of 40
+        assertEquals(RatingEngine.INITIAL_RATING + 20, winner.rating, 1e-9);
+        assertEquals(RatingEngine.INITIAL_RATING - 20, loser.rating, 1e-9);
+        assertTrue(winner.provisional());
+
+        RatingEngine tie = new RatingEngine();
+        tie.load(connection, 1);
+        tie.recordGame(teams, new int[]{70, 70}, played);
+        assertEquals(RatingEngine.INITIAL_RATING, tie.team(teams[0]).rating, 1e-9);
+        assertEquals(RatingEngine.INITIAL_RATING, tie.team(teams[1]).rating, 1e-9);
+    }
+
+    @Test
+    void recordedGameMatchesAReloadThatReadsIt() throws Exception {
+        int[] teams = twoNewTeams();
+        RatingEngine live = new RatingEngine();
+        live.load(connection, 2);
+        LocalDateTime played = LocalDateTime.of(2099, 1, 1, 18, 0);
+
+        live.recordGame(teams, new int[]{64, 71}, played);
+        completedGame(played, teams, new int[]{64, 71});
+        RatingEngine reloaded = new RatingEngine();
+        reloaded.load(connection, 2);
+
+        assertEquals(describe(reloaded.topTeams(Integer.MAX_VALUE)), describe(live.topTeams(Integer.MAX_VALUE)));
+        assertEquals(1, live.team(teams[1]).games);
+        assertNull(live.team(-1));
+    }
+
+    // "<id> <rating> <games>" in rating order
+    private static List<String> describe(List<RatingEngine.Rating> ratings) {
+        List<String> lines = new ArrayList<>();
+        for (RatingEngine.Rating r : ratings) {
+            lines.add(r.id + " " + r.rating + " " + r.games);
+        }
+        return lines;
+    }
+
+    private int[] twoNewTeams() throws SQLException {
+        int[] teams = new int[2];
+        try (Statement st = connection.createStatement()) {
+            for (int i = 0; i < teams.length; i++) {
+                st.executeUpdate("INSERT INTO team (name, creation_date) VALUES ('Rating Test " + i + "', '2025-01-01')");
+                try (ResultSet rs = st.executeQuery("SELECT MAX(team_id) FROM team")) {
+                    rs.next();
+                    teams[i] = rs.getInt(1);
+                }
+            }
+        }
+        return teams;
+    }
+
+    private void completedGame(LocalDateTime played, int[] teams, int[] scores) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.executeUpdate("INSERT INTO game (league_id, facility_id, date_time, status, game_type) VALUES (1, 1, '"
+                    + Timestamp.valueOf(played) + "', 'Completed', 'Regular Season')");
+            int gameId;
+            try (ResultSet rs = st.executeQuery("SELECT MAX(game_id) FROM game")) {
+                rs.next();
+                gameId = rs.getInt(1);
+            }
+            for (int i = 0; i < teams.length; i++) {
+                st.executeUpdate("INSERT INTO game_team (game_id, team_id, score) VALUES (" + gameId + ", "
+                        + teams[i] + ", " + scores[i] + ")");
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import db.EmbeddedDatabase;
+
+class PlayerRepositoryTest {
+
+    private static final String[] CITIES = {"Austin", "Dallas", "El Paso", "Houston"};
+    private static final String[] SKILLS = {"Advanced", "Beginner", "Complete Beginner", "Intermediate", "Professional"};
+    private static final String INSERT_SQL =
+            "INSERT INTO player (first_name, last_name, email, phone_number, age, [state], city, zip, skill_level,"
+          + " handicap, join_date, profile_type) VALUES (?, 'Test', 'p@example.com', '555-0100', 30, ?, ?, ?, ?, ?,"
+          + " '2024-01-01', ?)";
+
+    private static Connection connection;
+    // The Public players of TX, as {playerId, city index, skill index, handicap tenths}
+    private static final List<int[]> texans = new ArrayList<>();
+    private final PlayerRepository players = new PlayerRepository();
+
+    @BeforeAll
+    static void createPlayers() throws SQLException {
+        String url = EmbeddedDatabase.create("player-paging",
+                Paths.get(System.getProperty("teetime.sqlDir", "sql")), false);
+        connection = DriverManager.getConnection(url);
+        Random random = new Random(7);
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+            for (int id = 1; id <= 400; id++) {
+                String state = random.nextInt(5) == 0 ? "OK" : "TX";
+                int city = random.nextInt(CITIES.length);
+                // Leave out one (city, skill level) group so a page has to skip over it
+                int skill = city == 1 ? 1 + random.nextInt(SKILLS.length - 1) : random.nextInt(SKILLS.length);
+                int tenths = random.nextInt(300);
+                boolean hidden = random.nextInt(6) == 0;
+                ps.setString(1, "P" + id);
+                ps.setString(2, state);
+                ps.setString(3, CITIES[city]);
+                ps.setString(4, "7" + city);
+                ps.setString(5, SKILLS[skill]);
+                ps.setBigDecimal(6, BigDecimal.valueOf(tenths, 1));
+                ps.setString(7, hidden ? "Hidden" : "Public");
+                ps.executeUpdate();
+                if (state.equals("TX") && !hidden) {
+                    texans.add(new int[]{id, city, skill, tenths});
+                }
+            }
+        }
+        texans.sort(Comparator.<int[]>comparingInt(p -> p[1]).thenComparingInt(p -> p[2]).thenComparingInt(p -> p[0]));
+    }
+
+    @AfterAll
+    static void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void pagesWalkTheWholeStateAcrossCityAndSkillBoundaries() throws SQLException {
+        PlayerRepository.Criteria criteria = criteria(null, null);
+        for (int pageSize : new int[]{1, 2, 3, 7, 50, 1000}) {
+            assertEquals(expected(p -> true), pagedIds(criteria, pageSize), "page size " + pageSize);
+        }
+    }
+
+    @Test
+    void pagesWithinACityCrossSkillBoundaries() throws SQLException {
+        for (int city = 0; city < CITIES.length; city++) {
+            int c = city;
+            assertEquals(expected(p -> p[1] == c), pagedIds(criteria(CITIES[city], null), 4), CITIES[city]);
+        }
+    }
+
+    @Test
+    void pagesForASkillLevelCrossCityBoundaries() throws SQLException {
+        for (int skill = 0; skill < SKILLS.length; skill++) {
+            int s = skill;
+            assertEquals(expected(p -> p[2] == s), pagedIds(criteria(null, SKILLS[skill]), 3), SKILLS[skill]);
+        }
+    }
+
+    @Test
+    void handicapRangeAndExcludedPlayerAreFiltered() throws SQLException {
+        PlayerRepository.Criteria criteria = criteria(null, null);
+        criteria.minHandicap = new BigDecimal("5.0");
+        criteria.maxHandicap = new BigDecimal("12.5");
+        criteria.excludePlayerId = texans.stream().filter(p -> p[3] >= 50 && p[3] <= 125).findFirst().get()[0];
+        assertEquals(expected(p -> p[3] >= 50 && p[3] <= 125 && p[0] != criteria.excludePlayerId),
+                pagedIds(criteria, 5));
+    }
+
+    @Test
+    void streamMatchesPagedSearchAndStopsAtTheLimit() throws SQLException {
+        List<Integer> streamed = new ArrayList<>();
+        long count = players.stream(connection, criteria(null, null), 6, Long.MAX_VALUE, p -> streamed.add(p.playerId));
+        assertEquals(expected(p -> true), streamed);
+        assertEquals(streamed.size(), count);
+
+        List<Integer> limited = new ArrayList<>();
+        assertEquals(17, players.stream(connection, criteria(null, null), 6, 17, p -> limited.add(p.playerId)));
+        assertEquals(streamed.subList(0, 17), limited);
+    }
+
+    @Test
+    void lastPageHasNoCursor() throws SQLException {
+        PlayerRepository.Page page = players.search(connection, criteria(null, null), null, texans.size() + 1);
+        assertEquals(texans.size(), page.players.size());
+        assertNull(page.next);
+    }
+
+    private static PlayerRepository.Criteria criteria(String city, String skillLevel) {
+        PlayerRepository.Criteria criteria = new PlayerRepository.Criteria();
+        criteria.state = "TX";
+        criteria.city = city;
+        criteria.skillLevel = skillLevel;
+        return criteria;
+    }
+
+    private static List<Integer> expected(Predicate<int[]> filter) {
+        return texans.stream().filter(filter).map(p -> p[0]).collect(Collectors.toList());
+    }
+
+    // Follows the cursor through its API token, as a client of the search endpoint would
+    private List<Integer> pagedIds(PlayerRepository.Criteria criteria, int pageSize) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        PlayerRepository.Cursor after = null;
+        do {
+            PlayerRepository.Page page = players.search(connection, criteria, after, pageSize);
+            page.players.forEach(p -> ids.add(p.playerId));
+            after = page.next == null ? null : PlayerRepository.Cursor.fromToken(page.next.token());
+        } while (after != null);
+        return ids;
+    }
+}
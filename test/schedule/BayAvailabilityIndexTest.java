@@ -0,0 +1,83 @@
+package schedule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import db.EmbeddedDatabase;
+
+class BayAvailabilityIndexTest {
+
+    private static final int GAME_MINUTES = 60;
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 6, 2, 0, 0);
+    private static int databases;
+
+    private final BayAvailabilityIndex index = new BayAvailabilityIndex(GAME_MINUTES);
+    private final List<LocalDateTime> games = new ArrayList<>();
+
+    // Facility 1: two bays, 09:00-17:00
+    @BeforeEach
+    void load() throws SQLException {
+        String url = EmbeddedDatabase.create("bay-index-" + (++databases),
+                Paths.get(System.getProperty("teetime.sqlDir", "sql")), false);
+        try (Connection connection = DriverManager.getConnection(url); Statement st = connection.createStatement()) {
+            st.executeUpdate("INSERT INTO facility (name, address, city, [state], zip, phone, opening_time,"
+                    + " closing_time, number_of_bays) VALUES ('TopGolf', '1 Main St', 'Austin', 'TX', '73301',"
+                    + " '555-0100', '09:00:00', '17:00:00', 2)");
+            index.load(connection);
+        }
+    }
+
+    @Test
+    void gamesThatNeverOverlapEachOtherLeaveABayFree() {
+        // One ends at 10:30 as the other starts, so the 10:00 slot never has both bays taken
+        schedule(DAY.withHour(9).withMinute(30));
+        schedule(DAY.withHour(10).withMinute(30));
+
+        List<BayAvailabilityIndex.Slot> slots = index.openSlots(1, DAY.withHour(10), DAY.withHour(10), 1);
+        assertEquals(1, slots.size());
+        assertEquals(1, slots.get(0).freeBays);
+    }
+
+    @Test
+    void freeBaysMatchAMinuteByMinuteCount() {
+        Random random = new Random(5);
+        for (int i = 0; i < 10; i++) {
+            schedule(DAY.withHour(8).plusMinutes(random.nextInt(10 * 60 / 5) * 5));
+        }
+        List<BayAvailabilityIndex.Slot> slots = index.openSlots(1, DAY, DAY.plusDays(1).minusMinutes(1), 100);
+        List<String> expected = new ArrayList<>();
+        for (LocalDateTime start = DAY.withHour(9); start.isBefore(DAY.withHour(17)); start = start.plusMinutes(GAME_MINUTES)) {
+            int peak = 0;
+            for (int m = 0; m < GAME_MINUTES; m++) {
+                LocalDateTime at = start.plusMinutes(m);
+                peak = Math.max(peak, (int) games.stream()
+                        .filter(g -> !g.isAfter(at) && g.plusMinutes(GAME_MINUTES).isAfter(at)).count());
+            }
+            if (peak < 2) {
+                expected.add(start + " " + (2 - peak));
+            }
+        }
+        List<String> actual = new ArrayList<>();
+        for (BayAvailabilityIndex.Slot slot : slots) {
+            actual.add(slot.start + " " + slot.freeBays);
+        }
+        assertEquals(expected, actual);
+    }
+
+    private void schedule(LocalDateTime start) {
+        index.gameScheduled(1, start);
+        games.add(start);
+    }
+}
@@ -0,0 +1,45 @@
+package schedule;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.Test;
+
+class FacilityCalendarTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 1);
+
+    @Test
+    void bookFillsEverySlotAcrossAllBaysThenGivesUp() {
+        FacilityCalendar calendar = new FacilityCalendar(1, LocalTime.of(9, 0), LocalTime.of(11, 0), 2, 60);
+        assertArrayEquals(new LocalDateTime[]{DAY.atTime(9, 0), DAY.atTime(9, 0), DAY.atTime(10, 0)},
+                calendar.book(3, DAY, DAY));
+        assertNull(calendar.book(2, DAY, DAY));
+        assertArrayEquals(new LocalDateTime[]{DAY.atTime(10, 0)}, calendar.book(1, DAY, DAY));
+    }
+
+    @Test
+    void aGameOffTheSlotGridTakesBothSlotsItOverlaps() {
+        FacilityCalendar calendar = new FacilityCalendar(1, LocalTime.of(9, 0), LocalTime.of(12, 0), 1, 60);
+        calendar.occupy(DAY.atTime(9, 30));
+        assertArrayEquals(new LocalDateTime[]{DAY.atTime(11, 0)}, calendar.book(1, DAY, DAY));
+
+        calendar.release(DAY.atTime(9, 30));
+        assertArrayEquals(new LocalDateTime[]{DAY.atTime(9, 0), DAY.atTime(10, 0)}, calendar.book(2, DAY, DAY));
+    }
+
+    @Test
+    void gamesAroundMidnightCountOnTheOpeningDayTheyOverlap() {
+        // Open 18:00 to 02:00: 8 slots, the last two after midnight
+        FacilityCalendar calendar = new FacilityCalendar(1, LocalTime.of(18, 0), LocalTime.of(2, 0), 1, 60);
+        calendar.occupy(DAY.atTime(17, 30));
+        calendar.occupy(DAY.plusDays(1).atTime(0, 30));
+        assertNull(calendar.book(6, DAY, DAY));
+        assertArrayEquals(new LocalDateTime[]{DAY.atTime(19, 0), DAY.atTime(20, 0), DAY.atTime(21, 0),
+                DAY.atTime(22, 0), DAY.atTime(23, 0)}, calendar.book(5, DAY, DAY));
+    }
+}
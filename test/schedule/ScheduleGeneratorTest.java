@@ -0,0 +1,125 @@
+package schedule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class ScheduleGeneratorTest {
+
+    private static final String[] FORMATS = {
+            ScheduleGenerator.ROUND_ROBIN, ScheduleGenerator.ELIMINATION, ScheduleGenerator.RR_E};
+
+    @Test
+    void fullSeasonsPlayGameCountGamesInRoundCountRounds() {
+        for (String format : FORMATS) {
+            for (int n = 2; n <= 20; n++) {
+                List<ScheduleGenerator.Round> rounds = playSeason(format, teams(n));
+                int games = 0;
+                for (ScheduleGenerator.Round round : rounds) {
+                    games += round.pairings.size();
+                }
+                assertEquals(ScheduleGenerator.gameCount(format, n), games, format + " with " + n + " teams");
+                assertEquals(ScheduleGenerator.roundCount(format, n), rounds.size(), format + " with " + n + " teams");
+            }
+        }
+    }
+
+    @Test
+    void noTeamPlaysTwiceInOneRound() {
+        for (String format : FORMATS) {
+            for (int n = 2; n <= 20; n++) {
+                List<ScheduleGenerator.Round> rounds = playSeason(format, teams(n));
+                for (int r = 0; r < rounds.size(); r++) {
+                    Set<Integer> seen = new HashSet<>();
+                    for (int[] pairing : rounds.get(r).pairings) {
+                        assertTrue(seen.add(pairing[0]), format + " n=" + n + " round " + (r + 1) + " team " + pairing[0]);
+                        assertTrue(seen.add(pairing[1]), format + " n=" + n + " round " + (r + 1) + " team " + pairing[1]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void roundRobinPairsEveryTwoTeamsOnce() {
+        for (int n = 2; n <= 15; n++) {
+            Set<Long> pairs = new HashSet<>();
+            for (ScheduleGenerator.Round round : ScheduleGenerator.rounds(ScheduleGenerator.ROUND_ROBIN, teams(n))) {
+                for (int[] pairing : round.pairings) {
+                    long key = (long) Math.min(pairing[0], pairing[1]) << 32 | Math.max(pairing[0], pairing[1]);
+                    assertTrue(pairs.add(key), "n=" + n + " repeats " + pairing[0] + " vs " + pairing[1]);
+                }
+            }
+            assertEquals(n * (n - 1) / 2, pairs.size());
+        }
+    }
+
+    @Test
+    void eliminationGivesTheTopSeedsFirstRoundByes() {
+        // 6 teams: a bracket of 8, seeds 1 and 2 sit out, 3 meets 6 and 4 meets 5
+        List<ScheduleGenerator.Round> rounds = ScheduleGenerator.rounds(ScheduleGenerator.ELIMINATION,
+                new int[]{11, 12, 13, 14, 15, 16});
+        assertEquals(1, rounds.size());
+        List<int[]> first = rounds.get(0).pairings;
+        assertEquals(2, first.size());
+        assertEquals("13 vs 16", first.get(0)[0] + " vs " + first.get(0)[1]);
+        assertEquals("14 vs 15", first.get(1)[0] + " vs " + first.get(1)[1]);
+    }
+
+    @Test
+    void nextRoundPairsBestSeedWithWorstAndSitsOutTheMiddle() {
+        List<int[]> pairings = ScheduleGenerator.nextRound(new int[]{1, 2, 3, 4, 5}).pairings;
+        assertEquals(2, pairings.size());
+        assertEquals("1 vs 5", pairings.get(0)[0] + " vs " + pairings.get(0)[1]);
+        assertEquals("2 vs 4", pairings.get(1)[0] + " vs " + pairings.get(1)[1]);
+    }
+
+    @Test
+    void rejectsTooFewTeamsAndUnknownFormats() {
+        assertThrows(IllegalArgumentException.class, () -> ScheduleGenerator.rounds(ScheduleGenerator.ROUND_ROBIN, teams(1)));
+        assertThrows(IllegalArgumentException.class, () -> ScheduleGenerator.rounds("Ladder", teams(4)));
+    }
+
+    private static int[] teams(int n) {
+        int[] teamIds = new int[n];
+        for (int i = 0; i < n; i++) {
+            teamIds[i] = 100 + i;
+        }
+        return teamIds;
+    }
+
+    // The rounds built up front, then the elimination rounds as the scheduler would add them, with
+    // the better seed winning every game (RR-E: the round robin ranks teams in seed order)
+    private static List<ScheduleGenerator.Round> playSeason(String format, int[] teamIds) {
+        List<ScheduleGenerator.Round> rounds = new ArrayList<>(ScheduleGenerator.rounds(format, teamIds));
+        if (format.equals(ScheduleGenerator.ROUND_ROBIN)) {
+            return rounds;
+        }
+        List<Integer> in = new ArrayList<>();
+        for (int i = 0; i < ScheduleGenerator.playoffTeams(format, teamIds.length); i++) {
+            in.add(teamIds[i]);
+        }
+        if (format.equals(ScheduleGenerator.ELIMINATION)) {
+            knockOut(in, rounds.get(0));
+        }
+        while (in.size() > 1) {
+            ScheduleGenerator.Round round = ScheduleGenerator.nextRound(in.stream().mapToInt(Integer::intValue).toArray());
+            rounds.add(round);
+            knockOut(in, round);
+        }
+        return rounds;
+    }
+
+    private static void knockOut(List<Integer> in, ScheduleGenerator.Round round) {
+        for (int[] pairing : round.pairings) {
+            in.remove(Integer.valueOf(Math.max(pairing[0], pairing[1])));
+        }
+    }
+}
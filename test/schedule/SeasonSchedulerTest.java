@@ -0,0 +1,122 @@
+package schedule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import db.ConnectionPool;
+import db.DataSources;
+import db.EmbeddedDatabase;
+
+class SeasonSchedulerTest {
+
+    private static int databases;
+
+    private ConnectionPool pool;
+    private int leagueId;
+
+    @BeforeEach
+    void createLeague() throws SQLException {
+        pool = DataSources.pool(EmbeddedDatabase.create("season-scheduler-" + (++databases)));
+        try (Connection connection = pool.getConnection(); Statement st = connection.createStatement()) {
+            LocalDate start = LocalDate.now().plusDays(1);
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO league (name, [state], city, zip,"
+                    + " skill_level, status, start_date, end_date, max_teams, league_format) VALUES ('Retry League',"
+                    + " 'TX', 'Austin', '73301', 'Beginner', 'In Season', ?, ?, 8, 'Round Robin')")) {
+                ps.setDate(1, Date.valueOf(start));
+                ps.setDate(2, Date.valueOf(start.plusDays(60)));
+                ps.executeUpdate();
+            }
+            leagueId = count(st, "SELECT MAX(league_id) FROM league");
+            st.executeUpdate("INSERT INTO league_team (league_id, team_id, join_date) SELECT TOP 4 " + leagueId
+                    + ", team_id, CURRENT_DATE FROM team ORDER BY team_id");
+        }
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void writeIsRetriedAfterALostLockConflict() throws SQLException {
+        AtomicInteger batches = new AtomicInteger();
+        SeasonScheduler scheduler = new SeasonScheduler(deadlockFirstBatch(batches), 60, System.out);
+
+        SeasonScheduler.Summary summary = scheduler.schedule(Collections.singleton(leagueId));
+
+        // The failed game batch, then the game and game_team batches of the retry
+        assertEquals(3, batches.get());
+        assertEquals(6, summary.games);
+        assertEquals(12, summary.gameTeams);
+        try (Connection connection = pool.getConnection(); Statement st = connection.createStatement()) {
+            assertEquals(6, count(st, "SELECT COUNT(*) FROM game WHERE league_id = " + leagueId));
+            assertEquals(12, count(st, "SELECT COUNT(*) FROM game_team gt JOIN game g ON g.game_id = gt.game_id"
+                    + " WHERE g.league_id = " + leagueId));
+        }
+    }
+
+    // The pool, except that the first executeBatch() on any of its statements loses a deadlock
+    private DataSource deadlockFirstBatch(AtomicInteger batches) {
+        return proxy(DataSource.class, (method, args) -> {
+            Object result = invoke(pool, method, args);
+            if (!method.getName().equals("getConnection")) {
+                return result;
+            }
+            Connection connection = (Connection) result;
+            return proxy(Connection.class, (connectionMethod, connectionArgs) -> {
+                Object statement = invoke(connection, connectionMethod, connectionArgs);
+                if (!connectionMethod.getName().equals("prepareStatement")) {
+                    return statement;
+                }
+                return proxy(PreparedStatement.class, (statementMethod, statementArgs) -> {
+                    if (statementMethod.getName().equals("executeBatch") && batches.incrementAndGet() == 1) {
+                        throw new SQLException("Transaction was deadlocked", "40001", 1205);
+                    }
+                    return invoke(statement, statementMethod, statementArgs);
+                });
+            });
+        });
+    }
+
+    private interface Call {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, Call call) {
+        return type.cast(Proxy.newProxyInstance(SeasonSchedulerTest.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> call.invoke(method, args)));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static int count(Statement st, String sql) throws SQLException {
+        try (ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
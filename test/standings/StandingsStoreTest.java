@@ -0,0 +1,112 @@
+package standings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import db.ConnectionPool;
+import db.DataSources;
+import db.EmbeddedDatabase;
+
+class StandingsStoreTest {
+
+    private static final int LEAGUE = 1;
+
+    private final StandingsStore store = new StandingsStore();
+
+    @Test
+    void topScoresWinAndAnAllEqualGameIsATie() {
+        store.recordGame(LEAGUE, new int[]{1, 2, 3}, new int[]{70, 70, 64});
+        store.recordGame(LEAGUE, new int[]{1, 2}, new int[]{66, 66});
+
+        Map<Integer, TeamStanding> table = byTeam();
+        assertRecord(table.get(1), 1, 0, 1, 136);
+        assertRecord(table.get(2), 1, 0, 1, 136);
+        assertRecord(table.get(3), 0, 1, 0, 64);
+    }
+
+    @Test
+    void netPointsChargeTheTeamHandicapForEveryGame() {
+        store.recordGame(LEAGUE, new int[]{1, 2}, new int[]{80, 70});
+        store.recordGame(LEAGUE, new int[]{1, 2}, new int[]{60, 75});
+        store.setTeamHandicap(LEAGUE, 1, 12.5);
+
+        TeamStanding team = byTeam().get(1);
+        assertEquals(2, team.gamesPlayed());
+        assertEquals(140 - 2 * 12.5, team.netPoints());
+    }
+
+    @Test
+    void teamWithoutGamesRanksBelowAWinningTeam() {
+        store.addTeam(LEAGUE, 7, "No Games Yet");
+        store.setTeamHandicap(LEAGUE, 7, -40);
+        store.recordGame(LEAGUE, new int[]{1, 2}, new int[]{60, 90});
+        // The winner's net points (90 - 60) are below what the idle team's handicap alone is worth
+        store.setTeamHandicap(LEAGUE, 2, 60);
+
+        assertEquals(List.of(2, 7, 1), order());
+    }
+
+    @Test
+    void recordComesFirstAndNetPointsOnlyBreakTies() {
+        store.recordGame(LEAGUE, new int[]{1, 2}, new int[]{90, 60});
+        store.recordGame(LEAGUE, new int[]{3, 4}, new int[]{70, 65});
+        store.recordGame(LEAGUE, new int[]{5, 6}, new int[]{100, 100});
+        store.setTeamHandicap(LEAGUE, 3, -10);
+        store.setTeamHandicap(LEAGUE, 5, -100);
+
+        // 1 and 3 are 1-0: 3 has 80 net points to 1's 90. 5 and 6 tied, and a tie is no loss.
+        assertEquals(List.of(1, 3, 5, 6, 4, 2), order());
+    }
+
+    @Test
+    void loadCountsEveryCompletedLeagueGame() throws SQLException {
+        try (ConnectionPool pool = DataSources.pool(EmbeddedDatabase.create("standings"));
+             Connection connection = pool.getConnection();
+             Statement st = connection.createStatement()) {
+            store.load(connection);
+            store.load(connection);
+
+            Map<Integer, Integer> games = new HashMap<>();
+            try (ResultSet rs = st.executeQuery("SELECT gt.team_id, COUNT(*) FROM game g"
+                    + " JOIN game_team gt ON gt.game_id = g.game_id JOIN league_team lt"
+                    + "   ON lt.team_id = gt.team_id AND lt.league_id = g.league_id"
+                    + " WHERE g.status = 'Completed' AND gt.score IS NOT NULL AND g.league_id = " + LEAGUE
+                    + " GROUP BY gt.team_id")) {
+                while (rs.next()) {
+                    games.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+            assertTrue(!games.isEmpty(), "dev data has no completed games in league " + LEAGUE);
+            for (TeamStanding team : store.standings(LEAGUE)) {
+                assertEquals(games.getOrDefault(team.teamId, 0), team.gamesPlayed(), "team " + team.teamId);
+            }
+        }
+    }
+
+    private Map<Integer, TeamStanding> byTeam() {
+        return store.standings(LEAGUE).stream().collect(Collectors.toMap(s -> s.teamId, s -> s));
+    }
+
+    private List<Integer> order() {
+        return store.standings(LEAGUE).stream().map(s -> s.teamId).collect(Collectors.toList());
+    }
+
+    private static void assertRecord(TeamStanding s, int wins, int losses, int ties, long rawPoints) {
+        String team = "team " + s.teamId;
+        assertEquals(wins, s.wins(), team);
+        assertEquals(losses, s.losses(), team);
+        assertEquals(ties, s.ties(), team);
+        assertEquals(rawPoints, s.rawPoints(), team);
+    }
+}
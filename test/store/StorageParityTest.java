@@ -0,0 +1,189 @@
+package store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cache.ReferenceData;
+import db.ConnectionPool;
+import db.DataSources;
+import db.EmbeddedDatabase;
+import db.TransactionExecutor;
+import rating.RatingEngine;
+import repository.FacilityRepository;
+import repository.GameRepository;
+import repository.LeagueRepository;
+import repository.MembershipRepository;
+import schedule.BayAvailabilityIndex;
+
+/**
+ * Runs the same use cases against {@link JdbcStorage} and {@link InMemoryStorage}, each on its own
+ * H2 copy of the dev data, and expects the same answers. The use cases behind stored procedures
+ * (join team, cancel membership, create league, match results) need SQL Server and are not covered;
+ * the league that create league makes is inserted directly to test scheduling it.
+ */
+class StorageParityTest {
+
+    private static int databases;
+
+    private ConnectionPool jdbcPool;
+    private ConnectionPool memoryPool;
+    private JdbcStorage jdbc;
+    private InMemoryStorage memory;
+    private int games;
+    private int facilities;
+    private int leagues;
+
+    @BeforeEach
+    void createStores() throws SQLException {
+        databases++;
+        jdbcPool = DataSources.pool(EmbeddedDatabase.create("parity-jdbc-" + databases));
+        memoryPool = DataSources.pool(EmbeddedDatabase.create("parity-memory-" + databases));
+        jdbc = new JdbcStorage(jdbcPool, TransactionExecutor.fromConfig(), ReferenceData.fromConfig(
+                new FacilityRepository(), new MembershipRepository(), new LeagueRepository()));
+        memory = InMemoryStorage.load(memoryPool);
+        try (Connection connection = jdbcPool.getConnection(); Statement st = connection.createStatement()) {
+            games = max(st, "SELECT MAX(game_id) FROM game");
+            facilities = max(st, "SELECT MAX(facility_id) FROM facility");
+            leagues = max(st, "SELECT MAX(league_id) FROM league");
+        }
+    }
+
+    @AfterEach
+    void closePools() {
+        jdbcPool.close();
+        memoryPool.close();
+    }
+
+    @Test
+    void facilitiesAndLeaguesMatch() throws SQLException {
+        for (int facilityId = 0; facilityId <= facilities + 1; facilityId++) {
+            assertEquals(describe(jdbc.facility(facilityId)), describe(memory.facility(facilityId)), "facility " + facilityId);
+        }
+        for (int leagueId = 0; leagueId <= leagues + 1; leagueId++) {
+            assertEquals(describe(jdbc.league(leagueId)), describe(memory.league(leagueId)), "league " + leagueId);
+        }
+    }
+
+    @Test
+    void cancelMatchMatchesForEveryGameTwice() throws SQLException {
+        assertFalse(games == 0, "dev data has no games");
+        for (int round = 0; round < 2; round++) {
+            for (int gameId = 1; gameId <= games + 1; gameId++) {
+                for (int facilityId = 1; facilityId <= 2; facilityId++) {
+                    assertEquals(describe(jdbc.cancelMatch(facilityId, gameId)),
+                            describe(memory.cancelMatch(facilityId, gameId)), "game " + gameId + " at " + facilityId);
+                }
+            }
+        }
+    }
+
+    @Test
+    void closeFacilityCancelsTheSameGames() throws SQLException {
+        Timestamp from = Timestamp.valueOf("2000-01-01 00:00:00");
+        Timestamp to = Timestamp.valueOf("2100-01-01 00:00:00");
+        int cancelled = 0;
+        for (int facilityId = 1; facilityId <= facilities + 1; facilityId++) {
+            List<String> expected = describe(jdbc.closeFacility(facilityId, from, to));
+            assertEquals(expected, describe(memory.closeFacility(facilityId, from, to)), "facility " + facilityId);
+            cancelled += expected.size();
+            // Nothing is left to cancel the second time
+            assertEquals(describe(jdbc.closeFacility(facilityId, from, to)),
+                    describe(memory.closeFacility(facilityId, from, to)), "facility " + facilityId + " again");
+        }
+        assertFalse(cancelled == 0, "dev data has no scheduled games");
+    }
+
+    @Test
+    void leagueStatusWalksTheSameLifecycle() throws SQLException {
+        for (int step = 0; step < 5; step++) {
+            for (int leagueId = 1; leagueId <= leagues + 1; leagueId++) {
+                Storage.LeagueTransition expected = jdbc.updateLeagueStatus(leagueId);
+                Storage.LeagueTransition actual = memory.updateLeagueStatus(leagueId);
+                String what = "league " + leagueId + " step " + step;
+                assertEquals(describe(expected.previous), describe(actual.previous), what);
+                assertEquals(describe(expected.updated), describe(actual.updated), what);
+                assertEquals(expected.rejection, actual.rejection, what);
+            }
+        }
+    }
+
+    @Test
+    void scheduleLeagueWritesTheSeasonOnlyToTheDatabase() throws SQLException {
+        int leagueId;
+        try (Connection connection = jdbcPool.getConnection(); Statement st = connection.createStatement()) {
+            LocalDate start = LocalDate.now().plusDays(1);
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO league (name, [state], city, zip,"
+                    + " skill_level, status, start_date, end_date, max_teams, league_format) VALUES ('Parity League',"
+                    + " 'TX', 'Austin', '73301', 'Beginner', 'In Season', ?, ?, 8, 'Round Robin')")) {
+                ps.setDate(1, Date.valueOf(start));
+                ps.setDate(2, Date.valueOf(start.plusDays(60)));
+                ps.executeUpdate();
+            }
+            leagueId = max(st, "SELECT MAX(league_id) FROM league");
+            st.executeUpdate("INSERT INTO league_team (league_id, team_id, join_date) SELECT TOP 4 " + leagueId
+                    + ", team_id, CURRENT_DATE FROM team ORDER BY team_id");
+        }
+        BayAvailabilityIndex bayIndex = new BayAvailabilityIndex(60);
+        RatingEngine ratingEngine = new RatingEngine();
+
+        // Four teams play each other once
+        assertEquals(6, jdbc.scheduleLeague(leagueId, bayIndex, ratingEngine));
+        try (Connection connection = jdbcPool.getConnection(); Statement st = connection.createStatement()) {
+            assertEquals(6, max(st, "SELECT COUNT(*) FROM game WHERE league_id = " + leagueId));
+        }
+        // The league has games now, so a second call leaves it alone
+        assertEquals(0, jdbc.scheduleLeague(leagueId, bayIndex, ratingEngine));
+        assertEquals(0, memory.scheduleLeague(leagueId, bayIndex, ratingEngine));
+    }
+
+    private static int max(Statement st, String sql) throws SQLException {
+        try (ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static String describe(FacilityRepository.Facility f) {
+        return f == null ? null : String.join("|", String.valueOf(f.facilityId), f.name, f.address, f.city, f.state,
+                f.zip, f.phone, f.website, String.valueOf(f.openingTime), String.valueOf(f.closingTime),
+                String.valueOf(f.numberOfBays));
+    }
+
+    private static String describe(LeagueRepository.League l) {
+        return l == null ? null : String.join("|", String.valueOf(l.leagueId), l.name, l.city, l.state, l.zip,
+                l.skillLevel, l.status, String.valueOf(l.startDate), String.valueOf(l.endDate),
+                String.valueOf(l.maxTeams));
+    }
+
+    private static String describe(Storage.MatchCancellation c) {
+        GameRepository.Game g = c.game;
+        return c.previousStatus + (g == null ? "" : String.join("|", "", String.valueOf(g.gameId),
+                String.valueOf(g.leagueId), String.valueOf(g.facilityId), String.valueOf(g.dateTime), g.status,
+                g.gameType));
+    }
+
+    private static List<String> describe(List<GameRepository.CancelledGame> cancelled) {
+        List<String> rows = new ArrayList<>(cancelled.size());
+        for (GameRepository.CancelledGame g : cancelled) {
+            rows.add(String.join("|", String.valueOf(g.gameId), String.valueOf(g.leagueId),
+                    String.valueOf(g.facilityId), String.valueOf(g.dateTime), g.gameType,
+                    String.valueOf(g.teamIds), String.valueOf(g.teamNames)));
+        }
+        return rows;
+    }
+}